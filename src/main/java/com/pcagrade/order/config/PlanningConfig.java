@@ -0,0 +1,90 @@
+package com.pcagrade.order.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Planning engine configuration
+ * Bounded thread pools used by the work planner and its background jobs
+ * Scheduling is enabled for plan-version pruning.
+ */
+@Configuration
+@EnableScheduling
+public class PlanningConfig {
+
+    /**
+     * Executor for per-stage plan computations
+     * Bounded: at most one thread per stage, small queue, caller runs on overflow
+     */
+    @Bean(name = "planningExecutor")
+    public ThreadPoolTaskExecutor planningExecutor(
+            @Value("${planning.parallel.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(16);
+        executor.setThreadNamePrefix("planning-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor for background plan-generation jobs
+     * Single thread: plans are generated one at a time, since each run diffs against the
+     * previous plan. Queued jobs beyond the capacity are rejected instead of piling up.
+     */
+    @Bean(name = "planningJobExecutor")
+    public ThreadPoolTaskExecutor planningJobExecutor(
+            @Value("${planning.jobs.queue-capacity:4}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("planning-job-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor for what-if scenarios (planned in memory, one scenario per task)
+     * Separate from the planning executor: scenarios plan their stages on their own thread.
+     */
+    @Bean(name = "whatIfExecutor")
+    public ThreadPoolTaskExecutor whatIfExecutor(
+            @Value("${planning.what-if.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(64);
+        executor.setThreadNamePrefix("what-if-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor for delivery-risk simulations (one batch of runs per task)
+     * CPU-bound: size it to the cores the service may use.
+     */
+    @Bean(name = "riskExecutor")
+    public ThreadPoolTaskExecutor riskExecutor(
+            @Value("${planning.risk.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(64);
+        executor.setThreadNamePrefix("risk-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
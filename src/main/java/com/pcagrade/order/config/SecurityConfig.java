@@ -66,6 +66,7 @@ public class SecurityConfig {
                         .requestMatchers("/actuator/health").permitAll()
                         .requestMatchers("/error").permitAll()
                         .requestMatchers("/api/sync/progress/stream/**").permitAll()
+                        .requestMatchers("/api/planning/jobs/stream/**").permitAll()
 
                         // PLANNING
                         .requestMatchers("/api/planning/**").authenticated()
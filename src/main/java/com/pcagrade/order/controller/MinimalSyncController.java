@@ -4,7 +4,10 @@ import com.pcagrade.order.entity.Order;
 import com.pcagrade.order.entity.OrderStatus;
 import com.pcagrade.order.model.SyncProgress;
 import com.pcagrade.order.repository.OrderRepository;
+import com.pcagrade.order.entity.SyncWatermark;
 import com.pcagrade.order.service.CardCertificationSyncService;
+import com.pcagrade.order.service.IncrementalSyncService;
+import com.pcagrade.order.service.OrderIdResolver;
 import com.pcagrade.order.service.SyncProgressPublisher;
 import com.pcagrade.order.service.TranslationSyncService;
 import org.slf4j.Logger;
@@ -36,6 +39,8 @@ public class MinimalSyncController {
     private final CardCertificationSyncService cardSyncService;
     private final TranslationSyncService translationSyncService;
     private final SyncProgressPublisher progressPublisher;
+    private final IncrementalSyncService incrementalSyncService;
+    private final OrderIdResolver orderIdResolver;
     private final RestTemplate restTemplate;
 
     @Value("${symfony.api.base-url:http://localhost:8000}")
@@ -46,11 +51,15 @@ public class MinimalSyncController {
             CardCertificationSyncService cardSyncService,
             TranslationSyncService translationSyncService,
             SyncProgressPublisher progressPublisher,
+            IncrementalSyncService incrementalSyncService,
+            OrderIdResolver orderIdResolver,
             RestTemplate restTemplate) {
         this.orderRepository = orderRepository;
         this.cardSyncService = cardSyncService;
         this.translationSyncService = translationSyncService;
         this.progressPublisher = progressPublisher;
+        this.incrementalSyncService = incrementalSyncService;
+        this.orderIdResolver = orderIdResolver;
         this.restTemplate = restTemplate;
     }
 
@@ -180,6 +189,7 @@ public class MinimalSyncController {
                     SyncProgress.saving(syncId, "ORDERS", "Saving orders to database..."));
 
             orderRepository.saveAll(ordersToSave);
+            orderIdResolver.invalidate();
 
             long duration = System.currentTimeMillis() - startTime;
 
@@ -324,6 +334,8 @@ public class MinimalSyncController {
     /**
      * ✅ FIXED: Single incremental sync endpoint
      * Handles both @RequestParam (old API) and @RequestBody (new API with X-API-Key)
+     * Pulls only the orders, cards and translations changed since their watermark
+     * (IncrementalSyncService); 409 while another incremental sync is running.
      * POST /api/sync/incremental?syncId=xxx
      * POST /api/sync/incremental with body: {"changes": [...], "since": 1234567890}
      */
@@ -344,14 +356,8 @@ public class MinimalSyncController {
         Map<String, Object> result = new HashMap<>();
 
         try {
-            progressPublisher.publishProgress(syncId,
-                    SyncProgress.starting(syncId, "INCREMENTAL", "Starting incremental sync..."));
-
-            // For now, just do a regular sync
-            // TODO: Implement actual incremental logic based on modification dates
-            ResponseEntity<Map<String, Object>> syncResult = syncOrdersWithProgress(syncId);
-
-            result = syncResult.getBody();
+            result.putAll(incrementalSyncService.sync(syncId));
+            result.put("success", true);
             result.put("syncId", syncId);
 
             if (syncData != null) {
@@ -362,6 +368,13 @@ public class MinimalSyncController {
 
             return ResponseEntity.ok(result);
 
+        } catch (IncrementalSyncService.AlreadyRunningException e) {
+            log.warn("⚠️ Incremental sync refused: {}", e.getMessage());
+            result.put("success", false);
+            result.put("error", e.getMessage());
+            result.put("syncId", syncId);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+
         } catch (Exception e) {
             log.error("❌ Error during incremental sync", e);
             result.put("success", false);
@@ -374,6 +387,15 @@ public class MinimalSyncController {
         }
     }
 
+    /**
+     * Incremental sync watermarks by entity
+     * GET /api/sync/incremental/watermarks
+     */
+    @GetMapping("/incremental/watermarks")
+    public ResponseEntity<List<SyncWatermark>> getIncrementalWatermarks() {
+        return ResponseEntity.ok(incrementalSyncService.getWatermarks());
+    }
+
     /**
      * Full synchronization endpoint (for API Key authentication from Symfony)
      * POST /api/sync/full
@@ -1,20 +1,50 @@
 package com.pcagrade.order.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pcagrade.order.dto.*;
 import com.pcagrade.order.entity.*;
+import com.pcagrade.order.model.SyncProgress;
+import com.pcagrade.order.service.CapacityForecastService;
+import com.pcagrade.order.service.DeliveryRiskService;
+import com.pcagrade.order.service.DurationModelService;
+import com.pcagrade.order.service.PlanVersionService;
+import com.pcagrade.order.service.PlanningJobService;
+import com.pcagrade.order.service.RollingReplanService;
+import com.pcagrade.order.service.TaskDispatchService;
+import com.pcagrade.order.service.WhatIfPlanningService;
 import com.pcagrade.order.service.WorkPlanningService;
+import com.pcagrade.order.service.planning.DispatchLotOrder;
+import com.pcagrade.order.service.planning.DispatchTask;
+import com.pcagrade.order.service.planning.PlanRequest;
+import com.pcagrade.order.service.planning.PlanningJob;
+import com.pcagrade.order.service.planning.PlanningJobStatus;
+import com.pcagrade.order.service.planning.PlanningMode;
+import com.pcagrade.order.service.planning.PlanningSnapshot;
+import com.pcagrade.order.service.planning.WhatIfOutcome;
+import com.pcagrade.order.service.planning.WorkPlanResult;
 import com.pcagrade.order.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Planning Controller - REST API for work planning
@@ -26,6 +56,15 @@ import java.util.stream.Collectors;
 public class PlanningController {
 
     private final WorkPlanningService workPlanningService;
+    private final PlanningJobService planningJobService;
+    private final WhatIfPlanningService whatIfPlanningService;
+    private final PlanVersionService planVersionService;
+    private final DurationModelService durationModelService;
+    private final TaskDispatchService taskDispatchService;
+    private final RollingReplanService rollingReplanService;
+    private final CapacityForecastService capacityForecastService;
+    private final DeliveryRiskService deliveryRiskService;
+    private final ObjectMapper objectMapper;
     private final OrderRepository orderRepository;
     private final EmployeeRepository employeeRepository;
     private final WorkAssignmentRepository workAssignmentRepository;
@@ -35,12 +74,30 @@ public class PlanningController {
     // Update the constructor to inject it:
     public PlanningController(
             WorkPlanningService workPlanningService,
+            PlanningJobService planningJobService,
+            WhatIfPlanningService whatIfPlanningService,
+            PlanVersionService planVersionService,
+            DurationModelService durationModelService,
+            TaskDispatchService taskDispatchService,
+            RollingReplanService rollingReplanService,
+            CapacityForecastService capacityForecastService,
+            DeliveryRiskService deliveryRiskService,
+            ObjectMapper objectMapper,
             OrderRepository orderRepository,
             EmployeeRepository employeeRepository,
             WorkAssignmentRepository workAssignmentRepository,
             CardCertificationRepository cardCertificationRepository) {
 
         this.workPlanningService = workPlanningService;
+        this.planningJobService = planningJobService;
+        this.whatIfPlanningService = whatIfPlanningService;
+        this.planVersionService = planVersionService;
+        this.durationModelService = durationModelService;
+        this.taskDispatchService = taskDispatchService;
+        this.rollingReplanService = rollingReplanService;
+        this.capacityForecastService = capacityForecastService;
+        this.deliveryRiskService = deliveryRiskService;
+        this.objectMapper = objectMapper;
         this.orderRepository = orderRepository;
         this.employeeRepository = employeeRepository;
         this.workAssignmentRepository = workAssignmentRepository;
@@ -50,29 +107,44 @@ public class PlanningController {
 
     /**
      * Generate work plan for all pending orders
-     * POST /api/planning/generate
+     * POST /api/planning/generate?full=false&parallel=true
+     * Incremental by default: only changed orders are re-slotted, started work is kept
+     * parallel: compute the four stages concurrently (defaults to planning.parallel.enabled)
+     * searchMs: local-search budget, at most planning.search.max-budget-ms (400 above it)
+     * Runs on the planning job executor after any queued job; 409 when other plans kept
+     * being activated meanwhile, 429 when the job queue is full
      */
     @PostMapping("/generate")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")  // ✅ Vérifier cette ligne
-    public ResponseEntity<PlanningResponse> generateWorkPlan() {
-        log.info("Received request to generate work plan");
+    public ResponseEntity<PlanningResponse> generateWorkPlan(
+            @RequestParam(defaultValue = "false") boolean full,
+            @RequestParam(required = false) Boolean parallel,
+            @RequestParam(required = false) PlanningMode mode,
+            @RequestParam(required = false) Long searchMs) {
+        log.info("Received request to generate work plan (full rebuild: {}, parallel: {}, mode: {}, search: {}ms)",
+                full, parallel, mode, searchMs);
 
         try {
-            List<WorkAssignment> assignments = workPlanningService.generateWorkPlan();
+            WorkPlanResult result = planningJobService.generate(new PlanRequest(full, parallel, mode, searchMs));
+            return ResponseEntity.ok(toResponse(result));
 
-            PlanningResponse response = new PlanningResponse();
-            response.setSuccess(true);
-            response.setMessage("Work plan generated successfully");
-            response.setAssignmentsCreated(assignments.size());
-            response.setAssignments(assignments.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList()));
+        } catch (TaskRejectedException e) {
+            log.warn("Plan generation rejected: too many jobs queued");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
 
-            // Generate summary
-            WorkPlanSummaryDTO summary = generateSummary(assignments);
-            response.setSummary(summary);
+        } catch (PlanVersionService.VersionConflictException e) {
+            log.warn("Plan generation conflict: {}", e.getMessage());
+            PlanningResponse response = new PlanningResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
 
-            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid work plan request: {}", e.getMessage());
+            PlanningResponse response = new PlanningResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.badRequest().body(response);
 
         } catch (Exception e) {
             log.error("Error generating work plan", e);
@@ -83,6 +155,340 @@ public class PlanningController {
         }
     }
 
+    /**
+     * Generate the work plan in the background
+     * POST /api/planning/jobs?full=false&parallel=true
+     * Same parameters as /generate; returns the job at once (202). Progress streams on
+     * GET /api/planning/jobs/stream/{jobId} and the plan is fetched from
+     * GET /api/planning/jobs/{jobId}/result when the job is COMPLETED.
+     */
+    @PostMapping("/jobs")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<PlanningJobDTO> submitWorkPlanJob(
+            @RequestParam(defaultValue = "false") boolean full,
+            @RequestParam(required = false) Boolean parallel,
+            @RequestParam(required = false) PlanningMode mode,
+            @RequestParam(required = false) Long searchMs) {
+        try {
+            PlanningJob job = planningJobService.submit(new PlanRequest(full, parallel, mode, searchMs));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(toJobDTO(job));
+        } catch (TaskRejectedException e) {
+            log.warn("Plan generation job rejected: too many jobs queued");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid plan generation job: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * List retained plan generation jobs, most recent first
+     * GET /api/planning/jobs
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<List<PlanningJobDTO>> getWorkPlanJobs() {
+        return ResponseEntity.ok(planningJobService.getJobs().stream()
+                .map(this::toJobDTO)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Get a plan generation job's status and latest progress
+     * GET /api/planning/jobs/{jobId}
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<PlanningJobDTO> getWorkPlanJob(@PathVariable String jobId) {
+        return planningJobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(toJobDTO(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Stream a plan generation job's progress (SSE)
+     * GET /api/planning/jobs/stream/{jobId}
+     * Public like /api/sync/progress/stream: EventSource cannot send the Authorization header
+     */
+    @GetMapping(value = "/jobs/stream/{jobId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<SyncProgress>> streamWorkPlanJob(@PathVariable String jobId) {
+        return planningJobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(planningJobService.stream(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Get the plan generated by a job
+     * GET /api/planning/jobs/{jobId}/result
+     * 202 while the job is queued or running, 500 when it failed
+     */
+    @GetMapping("/jobs/{jobId}/result")
+    public ResponseEntity<PlanningResponse> getWorkPlanJobResult(@PathVariable String jobId) {
+        Optional<PlanningJob> found = planningJobService.getJob(jobId);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        PlanningJob job = found.get();
+        if (job.getStatus() == PlanningJobStatus.COMPLETED) {
+            return ResponseEntity.ok(toResponse(job.getResult()));
+        }
+
+        PlanningResponse response = new PlanningResponse();
+        response.setSuccess(false);
+        if (job.getStatus() == PlanningJobStatus.FAILED) {
+            response.setMessage("Error: " + job.getError());
+            return ResponseEntity.internalServerError().body(response);
+        }
+        response.setMessage("Job " + job.getStatus().name().toLowerCase() + ": "
+                + job.getProgress().getMessage());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    /**
+     * Load a fresh what-if snapshot (orders, employees and current plan)
+     * POST /api/planning/what-if/snapshot
+     */
+    @PostMapping("/what-if/snapshot")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<WhatIfSnapshotDTO> refreshWhatIfSnapshot() {
+        return ResponseEntity.ok(toSnapshotDTO(whatIfPlanningService.refreshSnapshot()));
+    }
+
+    /**
+     * Get the current what-if snapshot
+     * GET /api/planning/what-if/snapshot
+     */
+    @GetMapping("/what-if/snapshot")
+    public ResponseEntity<WhatIfSnapshotDTO> getWhatIfSnapshot() {
+        return whatIfPlanningService.getSnapshot()
+                .map(snapshot -> ResponseEntity.ok(toSnapshotDTO(snapshot)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Plan what-if scenarios in memory against the current snapshot (nothing is persisted)
+     * POST /api/planning/what-if
+     * Body: list of scenarios, e.g. [{"name": "baseline"},
+     *   {"name": "+2 graders", "extraEmployees": [{"stage": "GRADING", "count": 2}]},
+     *   {"name": "big order", "extraOrders": [{"cardCount": 3000, "delai": "F"}]}]
+     */
+    @PostMapping("/what-if")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<List<WhatIfResultDTO>> runWhatIfScenarios(@RequestBody List<WhatIfScenario> scenarios) {
+        log.info("Received {} what-if scenarios", scenarios.size());
+        try {
+            return ResponseEntity.ok(whatIfPlanningService.run(scenarios).stream()
+                    .map(this::toWhatIfResultDTO)
+                    .collect(Collectors.toList()));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid what-if request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * List plan versions, most recent first
+     * GET /api/planning/versions
+     */
+    @GetMapping("/versions")
+    public ResponseEntity<List<PlanVersionDTO>> getPlanVersions() {
+        UUID activeId = planVersionService.getActiveVersionId().orElse(null);
+        return ResponseEntity.ok(planVersionService.getVersions().stream()
+                .map(version -> toVersionDTO(version, activeId))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Make a plan version the active plan (pointer switch, nothing is rewritten)
+     * POST /api/planning/versions/{versionId}/activate
+     */
+    @PostMapping("/versions/{versionId}/activate")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<PlanVersionDTO> activatePlanVersion(@PathVariable UUID versionId) {
+        try {
+            PlanVersion version = planVersionService.activate(versionId);
+            return ResponseEntity.ok(toVersionDTO(version, version.getId()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Re-activate the version the active plan was generated from
+     * POST /api/planning/versions/rollback
+     */
+    @PostMapping("/versions/rollback")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<PlanVersionDTO> rollbackPlanVersion() {
+        try {
+            PlanVersion version = planVersionService.rollback();
+            return ResponseEntity.ok(toVersionDTO(version, version.getId()));
+        } catch (IllegalStateException e) {
+            log.warn("Plan rollback refused: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Stream the assignments that changed between two plan versions (NDJSON, one entry per line)
+     * GET /api/planning/versions/diff?from={versionId}&to={versionId}
+     * to defaults to the active version
+     */
+    @GetMapping(value = "/versions/diff", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> diffPlanVersions(
+            @RequestParam UUID from,
+            @RequestParam(required = false) UUID to) {
+        UUID target = to != null ? to : planVersionService.getActiveVersionId().orElse(null);
+        if (target == null || planVersionService.getVersion(from).isEmpty()
+                || planVersionService.getVersion(target).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        StreamingResponseBody body = out -> planVersionService.diff(from, target, entry -> writeLine(out, entry));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Rolling re-planner settings and its recent runs (timings and changed assignments)
+     * GET /api/planning/rolling
+     */
+    @GetMapping("/rolling")
+    public ResponseEntity<Map<String, Object>> getRollingReplanner() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("enabled", rollingReplanService.isEnabled());
+        response.put("horizonHours", rollingReplanService.getHorizonHours());
+        response.put("intervalMs", rollingReplanService.getIntervalMs());
+        response.put("runs", rollingReplanService.getRuns());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Re-plan the rolling horizon now
+     * POST /api/planning/rolling/run
+     */
+    @PostMapping("/rolling/run")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<RollingReplanRun> runRollingReplan() {
+        return ResponseEntity.ok(rollingReplanService.run("MANUAL"));
+    }
+
+    /**
+     * Simulate the pipeline: when each stage's backlog clears and which orders miss their delivery date
+     * GET /api/planning/forecast?horizonDays=90&includeDemand=true
+     */
+    @GetMapping("/forecast")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<CapacityForecast> getCapacityForecast(
+            @RequestParam(required = false) Integer horizonDays,
+            @RequestParam(defaultValue = "true") boolean includeDemand) {
+        try {
+            return ResponseEntity.ok(capacityForecastService.forecast(horizonDays, includeDemand));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid forecast request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Probability of each open order missing its delivery date, over randomized simulations
+     * GET /api/planning/risk?runs=10000&includeDemand=false&seed=42
+     */
+    @GetMapping("/risk")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<DeliveryRiskReport> getDeliveryRisk(
+            @RequestParam(required = false) Integer runs,
+            @RequestParam(defaultValue = "false") boolean includeDemand,
+            @RequestParam(required = false) Long seed) {
+        try {
+            return ResponseEntity.ok(deliveryRiskService.assess(runs, includeDemand, seed));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid delivery risk request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Learned minutes per card by stage and by employee, with their sample counts
+     * GET /api/planning/durations
+     */
+    @GetMapping("/durations")
+    public ResponseEntity<List<DurationEstimateDTO>> getDurationEstimates() {
+        return ResponseEntity.ok(durationModelService.describe());
+    }
+
+    /**
+     * Pull the next task for the calling employee and start it
+     * POST /api/planning/dispatch/next[?employeeId={employeeId}]
+     * Served from the in-memory dispatch board; 204 when no work is ready for the employee's stages.
+     * Only admins and managers may pull work for another employee (403 otherwise).
+     */
+    @PostMapping("/dispatch/next")
+    public ResponseEntity<DispatchedTaskDTO> dispatchNextTask(@RequestParam(required = false) UUID employeeId) {
+        Optional<Employee> caller = currentEmployee();
+        if (employeeId == null) {
+            if (caller.isEmpty()) {
+                log.warn("Dispatch refused: no employee for principal {}", currentPrincipalName());
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            employeeId = caller.get().getId();
+        } else if (!actsForOtherEmployees() && !isCaller(caller, employeeId)) {
+            log.warn("Dispatch refused: {} may not pull work for employee {}", currentPrincipalName(), employeeId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        try {
+            return taskDispatchService.next(employeeId)
+                    .map(task -> ResponseEntity.ok(toDispatchedTaskDTO(task)))
+                    .orElse(ResponseEntity.noContent().build());
+        } catch (IllegalArgumentException e) {
+            log.warn("Dispatch refused: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Complete a dispatched task
+     * POST /api/planning/dispatch/{assignmentId}/complete
+     * 403 when the task belongs to another employee and the caller is not an admin or manager,
+     * 409 when the assignment is not in progress
+     */
+    @PostMapping("/dispatch/{assignmentId}/complete")
+    public ResponseEntity<Map<String, Object>> completeDispatchedTask(@PathVariable UUID assignmentId) {
+        UUID ownerId = null;
+        if (!actsForOtherEmployees()) {
+            Optional<Employee> caller = currentEmployee();
+            boolean foreign = caller.isEmpty() || workAssignmentRepository.findById(assignmentId)
+                    .map(WorkAssignment::getEmployee)
+                    .filter(employee -> !employee.getId().equals(caller.get().getId()))
+                    .isPresent();
+            if (foreign) {
+                log.warn("Completion refused: {} does not hold assignment {}", currentPrincipalName(), assignmentId);
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(Map.of("success", false, "message", "Assignment " + assignmentId + " is not yours"));
+            }
+            // The UPDATE checks the owner again, in case the task changed hands meanwhile
+            ownerId = caller.get().getId();
+        }
+
+        try {
+            taskDispatchService.complete(assignmentId, ownerId);
+            return ResponseEntity.ok(Map.of("success", true, "assignmentId", assignmentId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Ready, waiting and in-progress task counts of the dispatch board
+     * GET /api/planning/dispatch/board
+     */
+    @GetMapping("/dispatch/board")
+    public ResponseEntity<DispatchBoardDTO> getDispatchBoard() {
+        return ResponseEntity.ok(taskDispatchService.getBoard());
+    }
+
     /**
      * Get all work assignments
      * GET /api/planning/assignments
@@ -189,6 +595,164 @@ public class PlanningController {
 
     // ========== Helper Methods ==========
 
+    /**
+     * Employee making the request: the JWT principal's username is the employee email
+     */
+    private Optional<Employee> currentEmployee() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return Optional.empty();
+        }
+        return employeeRepository.findByEmail(authentication.getName());
+    }
+
+    private static String currentPrincipalName() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "anonymous" : authentication.getName();
+    }
+
+    /**
+     * Admins and managers may dispatch and complete work on behalf of other employees
+     */
+    private static boolean actsForOtherEmployees() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(authority -> authority.equals("ROLE_ADMIN") || authority.equals("ROLE_MANAGER"));
+    }
+
+    private static boolean isCaller(Optional<Employee> caller, UUID employeeId) {
+        return caller.map(employee -> employee.getId().equals(employeeId)).orElse(false);
+    }
+
+
+    private PlanningResponse toResponse(WorkPlanResult result) {
+        List<WorkAssignment> assignments = result.getCreated();
+
+        PlanningResponse response = new PlanningResponse();
+        response.setSuccess(true);
+        response.setMessage("Work plan generated successfully");
+        response.setAssignmentsCreated(assignments.size());
+        response.setAssignmentsKept(result.getKeptCount());
+        response.setAssignmentsRemoved(result.getRemovedCount());
+        response.setTimings(result.getTimings());
+        response.setMode(result.getMode().name());
+        response.setPlanVersionId(result.getPlanVersionId());
+        response.setPipeline(result.getPipeline());
+        response.setUtilization(result.getUtilization());
+        response.setSearch(result.getSearch());
+        response.setLateness(result.getLateness());
+        response.setAssignments(assignments.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList()));
+
+        // Generate summary
+        WorkPlanSummaryDTO summary = generateSummary(assignments);
+        response.setSummary(summary);
+
+        return response;
+    }
+
+    private PlanningJobDTO toJobDTO(PlanningJob job) {
+        PlanningJobDTO dto = new PlanningJobDTO();
+        dto.setJobId(job.getId());
+        dto.setStatus(job.getStatus().name());
+        PlanRequest request = job.getRequest();
+        dto.setFullRebuild(request.fullRebuild());
+        dto.setParallel(request.parallel());
+        dto.setMode(request.mode() != null ? request.mode().name() : null);
+        dto.setSearchMs(request.searchMs());
+        dto.setSubmittedAt(job.getSubmittedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        dto.setProgress(job.getProgress());
+        dto.setError(job.getError());
+        dto.setStreamUrl("/api/planning/jobs/stream/" + job.getId());
+        dto.setResultUrl("/api/planning/jobs/" + job.getId() + "/result");
+        return dto;
+    }
+
+    private PlanVersionDTO toVersionDTO(PlanVersion version, UUID activeId) {
+        PlanVersionDTO dto = new PlanVersionDTO();
+        dto.setId(version.getId().toString());
+        dto.setParentId(version.getParentId() != null ? version.getParentId().toString() : null);
+        dto.setMode(version.getPlanningMode());
+        dto.setFullRebuild(version.isFullRebuild());
+        dto.setCreatedCount(version.getCreatedCount());
+        dto.setKeptCount(version.getKeptCount());
+        dto.setRemovedCount(version.getRemovedCount());
+        dto.setAssignmentCount(version.getAssignmentCount());
+        dto.setCreatedAt(version.getCreationDate());
+        dto.setActivatedAt(version.getActivatedAt());
+        dto.setActive(version.getId().equals(activeId));
+        return dto;
+    }
+
+    private DispatchedTaskDTO toDispatchedTaskDTO(DispatchTask task) {
+        DispatchedTaskDTO dto = new DispatchedTaskDTO();
+        dto.setAssignmentId(task.id());
+        dto.setOrderId(task.orderId());
+        dto.setOrderNumber(task.orderNumber());
+        dto.setProcessingStage(task.processingStage());
+        dto.setCardCount(task.cardCount());
+        dto.setEmployeeId(task.employeeId());
+        dto.setPlannedEmployeeId(task.plannedEmployeeId());
+        dto.setScheduledStart(task.scheduledStart());
+        dto.setStartedAt(task.actualStart());
+        dto.setPriorityScore(task.priorityScore());
+        dto.setEstimatedDurationMinutes(durationModelService.estimates()
+                .estimateMinutes(task.processingStage(), task.employeeId(), task.cards()));
+        dto.setLotOrderNumbers(task.isLot()
+                ? task.lotOrders().stream().map(DispatchLotOrder::orderNumber).toList()
+                : List.of());
+        return dto;
+    }
+
+    private void writeLine(OutputStream out, PlanVersionDiffEntry entry) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(entry));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private WhatIfSnapshotDTO toSnapshotDTO(PlanningSnapshot snapshot) {
+        WhatIfSnapshotDTO dto = new WhatIfSnapshotDTO();
+        dto.setSnapshotId(snapshot.id());
+        dto.setTakenAt(snapshot.takenAt());
+        dto.setLoadMs(snapshot.loadMillis());
+        snapshot.inputs().forEach(input -> {
+            dto.getOrdersByStage().put(input.stage().name(), input.orders().size());
+            dto.getEmployeesByStage().put(input.stage().name(), input.employees().size());
+        });
+        return dto;
+    }
+
+    private WhatIfResultDTO toWhatIfResultDTO(WhatIfOutcome outcome) {
+        WhatIfResultDTO dto = new WhatIfResultDTO();
+        dto.setScenario(outcome.scenario().getName());
+        dto.setSuccess(outcome.isSuccess());
+        if (!outcome.isSuccess()) {
+            dto.setMessage("Error: " + outcome.error());
+            return dto;
+        }
+
+        WorkPlanResult result = outcome.result();
+        dto.setMessage("Scenario planned in memory");
+        dto.setMode(result.getMode().name());
+        dto.setComputeMs(result.getTimings().getComputeMs());
+        dto.setAssignmentsCreated(result.getCreated().size());
+        dto.setAssignmentsKept(result.getKeptCount());
+        dto.setAssignmentsRemoved(result.getRemovedCount());
+        dto.setSummary(generateSummary(result.getCreated()));
+        dto.setPipeline(result.getPipeline());
+        dto.setUtilization(result.getUtilization());
+        dto.setSearch(result.getSearch());
+        dto.setLateness(result.getLateness());
+        return dto;
+    }
+
     private WorkAssignmentDTO convertToDTO(WorkAssignment assignment) {
         WorkAssignmentDTO dto = new WorkAssignmentDTO();
         dto.setId(assignment.getId());
@@ -206,6 +770,7 @@ public class PlanningController {
         dto.setActualEnd(assignment.getActualEnd());
         dto.setStatus(assignment.getStatus().name());
         dto.setPriorityScore(assignment.getPriorityScore());
+        dto.setLotOrderIds(assignment.getLotMembers().stream().map(WorkLotMember::getOrderId).toList());
         return dto;
     }
 
@@ -216,7 +781,8 @@ public class PlanningController {
         dto.setCustomerName(order.getCustomerName());
         dto.setStatus(order.getStatus().name());
         dto.setCardCount(order.getCards().size());
-        dto.setEstimatedProcessingMinutes(order.getEstimatedProcessingMinutes());
+        dto.setEstimatedProcessingMinutes(order.getEstimatedProcessingMinutes(
+                durationModelService.estimates().pipelineMinutesPerCard()));
         dto.setPriorityScore((long) order.getPriorityScore());
         return dto;
     }
@@ -255,7 +821,9 @@ public class PlanningController {
         WorkPlanSummaryDTO summary = new WorkPlanSummaryDTO();
 
         Set<UUID> orderIds = assignments.stream()
-                .map(a -> a.getOrder().getId())
+                .flatMap(a -> a.isLot()
+                        ? a.getLotMembers().stream().map(WorkLotMember::getOrderId)
+                        : Stream.of(a.getOrder().getId()))
                 .collect(Collectors.toSet());
 
         Set<UUID> employeeIds = assignments.stream()
@@ -442,6 +1010,7 @@ public class PlanningController {
         dto.put("actualEnd", assignment.getActualEnd());
         dto.put("status", assignment.getStatus().name());
         dto.put("priorityScore", assignment.getPriorityScore());
+        dto.put("lotOrderIds", assignment.getLotMembers().stream().map(WorkLotMember::getOrderId).toList());
 
         // Order info
         Order order = assignment.getOrder();
@@ -6,6 +6,7 @@ import com.pcagrade.order.entity.Order;
 import com.pcagrade.order.entity.OrderStatus;
 import com.pcagrade.order.repository.CardCertificationRepository;
 import com.pcagrade.order.repository.OrderRepository;
+import com.pcagrade.order.service.DurationModelService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
@@ -32,12 +33,15 @@ public class SimpleOrderController {
 
     private final OrderRepository orderRepository;
     private final CardCertificationRepository cardCertificationRepository;
+    private final DurationModelService durationModelService;
 
     public SimpleOrderController(
             OrderRepository orderRepository,
-            CardCertificationRepository cardCertificationRepository) {
+            CardCertificationRepository cardCertificationRepository,
+            DurationModelService durationModelService) {
         this.orderRepository = orderRepository;
         this.cardCertificationRepository = cardCertificationRepository;
+        this.durationModelService = durationModelService;
     }
 
     /**
@@ -204,7 +208,8 @@ public class SimpleOrderController {
         map.put("totalPrice", order.getPrice());
         map.put("priorityScore", order.getPriorityScore());
         map.put("priorityLabel", order.getPriorityLabel());
-        map.put("estimatedProcessingMinutes", order.getEstimatedProcessingMinutes());
+        map.put("estimatedProcessingMinutes",
+                order.getEstimatedProcessingMinutes(durationModelService.estimates().pipelineMinutesPerCard()));
         map.put("estimatedDeliveryDate", order.getEstimatedDeliveryDate().toString());
         map.put("isOverdue", order.isLikelyOverdue());
         map.put("reference", order.getSymfonyOrderId());
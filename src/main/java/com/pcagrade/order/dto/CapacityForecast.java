@@ -0,0 +1,61 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Capacity forecast from a discrete-event simulation of the card pipeline
+ * - backlogOrders: current orders (PENDING and every stage status); projectedOrders: replayed intake
+ * - backlogClearedAt: when the last current order leaves the pipeline (null = not within the horizon)
+ * - lateOrders: current orders missing their estimated delivery date, most late first
+ *   (at most planning.lateness.report-limit; truncated is set when more orders are late).
+ *   predictedCompletion is null for orders still in the pipeline at the horizon.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CapacityForecast {
+    private LocalDateTime generatedAt;
+    private Integer horizonDays;
+    private Boolean demandIncluded;
+    private Integer demandLookbackDays;
+    private Integer backlogOrders;
+    private Integer projectedOrders;
+    private LocalDateTime backlogClearedAt;
+    private Integer unfinishedOrderCount;
+    private Integer lateOrderCount;
+    private Integer projectedLateOrderCount;
+    private Long events;
+    private Long loadMs;
+    private Long simulationMs;
+    private Boolean truncated;
+    private List<StageForecast> stages = new ArrayList<>();
+    private List<OrderLatenessDTO> lateOrders = new ArrayList<>();
+
+    /**
+     * One stage of the pipeline
+     * - backlogOrders / backlogCards: current orders waiting for this stage
+     * - clearedAt: when the last current order leaves this stage (null = not within the horizon)
+     * - dailyCapacityMinutes: standard minutes of work the stage's employees do per day
+     *   (multi-team employees count in each of their stages)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StageForecast {
+        private String stage;
+        private Integer employees;
+        private Long dailyCapacityMinutes;
+        private Integer backlogOrders;
+        private Long backlogCards;
+        private LocalDateTime clearedAt;
+        private Long busyMinutes;
+        private Long processedCards;
+        private Long maxQueueCards;
+    }
+}
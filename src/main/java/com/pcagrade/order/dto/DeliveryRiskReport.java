@@ -0,0 +1,43 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Monte Carlo delivery risk of the open orders
+ * - runs: randomized pipeline simulations, split over threads; seed makes a report reproducible
+ *   (with the same thread count)
+ * - stageSpreads: standard deviation of ln(minutes per card) used per stage (learned, or
+ *   planning.risk.default-spread)
+ * - expectedLateOrders: sum of the late probabilities; likelyLateOrderCount: orders late in
+ *   more than half of the runs
+ * - orders: orders late in at least planning.risk.min-probability of the runs, riskiest first
+ *   (at most planning.lateness.report-limit; truncated is set when more are at risk)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryRiskReport {
+    private LocalDateTime generatedAt;
+    private Integer runs;
+    private Integer threads;
+    private Long seed;
+    private Integer horizonDays;
+    private Boolean demandIncluded;
+    private Integer backlogOrders;
+    private Double expectedLateOrders;
+    private Integer likelyLateOrderCount;
+    private Integer atRiskOrderCount;
+    private Long loadMs;
+    private Long simulationMs;
+    private Boolean truncated;
+    private Map<String, Double> stageSpreads = new LinkedHashMap<>();
+    private List<OrderDeliveryRiskDTO> orders = new ArrayList<>();
+}
@@ -0,0 +1,24 @@
+package com.pcagrade.order.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * State of the dispatch board
+ * - readyByStage: tasks that can be pulled now, per stage
+ * - waiting: tasks whose order has not reached their stage yet
+ * - inProgress: tasks handed out and not completed
+ */
+@Data
+@NoArgsConstructor
+public class DispatchBoardDTO {
+    private Map<String, Integer> readyByStage = new LinkedHashMap<>();
+    private Integer waiting;
+    private Integer inProgress;
+    private LocalDateTime loadedAt;
+    private Long loadMs;
+}
@@ -0,0 +1,33 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Task handed out by the dispatcher
+ * - plannedEmployeeId: employee the plan had assigned (the task goes to whoever pulls it)
+ * - estimatedDurationMinutes: learned duration for the employee who pulled it
+ * - lotOrderNumbers: every order of a work lot (empty for a single-order task)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DispatchedTaskDTO {
+    private UUID assignmentId;
+    private UUID orderId;
+    private String orderNumber;
+    private String processingStage;
+    private Integer cardCount;
+    private UUID employeeId;
+    private UUID plannedEmployeeId;
+    private LocalDateTime scheduledStart;
+    private LocalDateTime startedAt;
+    private Long priorityScore;
+    private Integer estimatedDurationMinutes;
+    private List<String> lotOrderNumbers;
+}
@@ -0,0 +1,26 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Learned processing rate of a stage (employeeId null) or of an employee in a stage
+ * - samples / cards: completed assignments and cards the rate was learned from
+ * - minutesPerCard: estimate used by the planner
+ * - spread: standard deviation of ln(minutes per card) of one assignment around its
+ *   employee's rate (stages only, null until enough samples)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DurationEstimateDTO {
+    private String stage;
+    private UUID employeeId;
+    private Long samples;
+    private Long cards;
+    private Double minutesPerCard;
+    private Double spread;
+}
@@ -0,0 +1,28 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Planned utilization of one employee in one stage
+ * - busyMinutes: working minutes of kept and newly planned work
+ * - availableMinutes: working minutes between the plan origin and the end of the stage plan
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeUtilizationDTO {
+    private UUID employeeId;
+    private String employeeName;
+    private String stage;
+    private Double speed;
+    private Integer assignmentCount;
+    private Long busyMinutes;
+    private Long availableMinutes;
+    private Double utilizationPercentage;
+    private LocalDateTime nextAvailableTime;
+}
@@ -0,0 +1,27 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Predicted lateness of a plan against the orders' estimated delivery dates
+ * - dispatchRule: PRIORITY, EDD or SLACK
+ * - lateOrders: the late orders, most late first (at most planning.lateness.report-limit;
+ *   truncated is set when more orders are late)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatenessReport {
+    private String dispatchRule;
+    private Integer plannedOrders;
+    private Integer lateOrderCount;
+    private Long totalLatenessMinutes;
+    private Long maxLatenessMinutes;
+    private Boolean truncated;
+    private List<OrderLatenessDTO> lateOrders = new ArrayList<>();
+}
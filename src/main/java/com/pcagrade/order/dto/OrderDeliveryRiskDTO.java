@@ -0,0 +1,29 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Delivery risk of one open order over randomized pipeline simulations
+ * - lateProbability: share of runs in which the order missed its estimated delivery date
+ * - baselineCompletion: completion with exact duration estimates (null = not within the horizon)
+ * - meanCompletion: mean completion of the runs finishing within the horizon (null = none did)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderDeliveryRiskDTO {
+    private UUID orderId;
+    private String orderNumber;
+    private String delai;
+    private String status;
+    private Integer cardCount;
+    private LocalDateTime estimatedDeliveryDate;
+    private Double lateProbability;
+    private LocalDateTime baselineCompletion;
+    private LocalDateTime meanCompletion;
+}
@@ -0,0 +1,27 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Predicted lateness of one order in a plan
+ * - predictedCompletion: end of the order's last planned work
+ * - latenessMinutes: predictedCompletion minus estimatedDeliveryDate (wall-clock minutes)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLatenessDTO {
+    private UUID orderId;
+    private String orderNumber;
+    private String delai;
+    private String status;
+    private Integer cardCount;
+    private LocalDateTime estimatedDeliveryDate;
+    private LocalDateTime predictedCompletion;
+    private Long latenessMinutes;
+}
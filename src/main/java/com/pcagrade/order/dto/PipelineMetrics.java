@@ -0,0 +1,31 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * End-to-end metrics of a flow-shop plan (orders leaving the last stage)
+ * - makespanEnd: when the last planned order leaves PACKAGING
+ * - cardsPerDay / ordersPerDay: throughput, by the day orders leave PACKAGING
+ * - lateOrdersByDelai: orders finishing after their estimated delivery date
+ * - averageTurnaroundHoursByDelai: plan origin to PACKAGING end, per delai code
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PipelineMetrics {
+    private LocalDateTime makespanEnd;
+    private Long makespanMinutes;
+    private Map<LocalDate, Integer> cardsPerDay = new TreeMap<>();
+    private Map<LocalDate, Integer> ordersPerDay = new TreeMap<>();
+    private Integer lateOrders;
+    private Map<String, Integer> lateOrdersByDelai = new LinkedHashMap<>();
+    private Map<String, Double> averageTurnaroundHoursByDelai = new LinkedHashMap<>();
+}
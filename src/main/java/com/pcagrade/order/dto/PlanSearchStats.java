@@ -0,0 +1,38 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Convergence of the plan improvement phase (local search on the greedy plan)
+ * - cost: weighted lateness (minutes x delai weight) + makespan weight x makespan (minutes)
+ * - trace: best cost over time, one sample per improvement of the shared best
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlanSearchStats {
+    private Integer threads;
+    private Long budgetMs;
+    private Long elapsedMs;
+    private Long evaluations;
+    private Long improvements;
+    private Double initialCost;
+    private Double bestCost;
+    private Double improvementPercentage;
+    private Long bestFoundAtMs;
+    private Boolean applied;
+    private List<Sample> trace = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Sample {
+        private Long atMs;
+        private Double cost;
+    }
+}
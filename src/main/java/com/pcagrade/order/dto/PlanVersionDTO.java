@@ -0,0 +1,30 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Plan version summary
+ * - assignmentCount: SCHEDULED assignments in the version (created + kept)
+ * - removedCount: SCHEDULED assignments of the parent version left out
+ * - active: true for the version currently in use
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlanVersionDTO {
+    private String id;
+    private String parentId;
+    private String mode;
+    private Boolean fullRebuild;
+    private Integer createdCount;
+    private Integer keptCount;
+    private Integer removedCount;
+    private Integer assignmentCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime activatedAt;
+    private Boolean active;
+}
@@ -0,0 +1,25 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One changed SCHEDULED assignment between two plan versions
+ * - change: ADDED (only in the target version) or REMOVED (only in the base version)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlanVersionDiffEntry {
+    private String change;
+    private String assignmentId;
+    private String orderId;
+    private String employeeId;
+    private String processingStage;
+    private Integer cardCount;
+    private LocalDateTime scheduledStart;
+    private LocalDateTime scheduledEnd;
+}
@@ -0,0 +1,33 @@
+package com.pcagrade.order.dto;
+
+import com.pcagrade.order.model.SyncProgress;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Background plan-generation job
+ * - progress: latest progress event (same model as the sync SSE stream)
+ * - streamUrl: SSE stream of the progress events
+ * - resultUrl: the generated plan, once status is COMPLETED
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlanningJobDTO {
+    private String jobId;
+    private String status;
+    private Boolean fullRebuild;
+    private Boolean parallel;
+    private String mode;
+    private Long searchMs;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private SyncProgress progress;
+    private String error;
+    private String streamUrl;
+    private String resultUrl;
+}
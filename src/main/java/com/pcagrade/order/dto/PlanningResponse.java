@@ -18,6 +18,15 @@ public class PlanningResponse {
     private Boolean success;
     private String message;
     private Integer assignmentsCreated;
+    private Integer assignmentsKept;
+    private Integer assignmentsRemoved;
     private WorkPlanSummaryDTO summary;
+    private PlanningTimings timings;
+    private String mode;
+    private UUID planVersionId;
+    private PipelineMetrics pipeline;
+    private List<EmployeeUtilizationDTO> utilization;
+    private PlanSearchStats search;
+    private LatenessReport lateness;
     private List<WorkAssignmentDTO> assignments;
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Plan generation timings (milliseconds)
+ * - loadMs: reading orders, employees and the previous plan
+ * - computeMs: wall-clock of the stage computations (parallel or sequential), search included
+ * - searchMs: time spent in the local-search improvement phase
+ * - persistMs: writing the delta
+ * - stageMs: time spent in each stage computation
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlanningTimings {
+    private Boolean parallel;
+    private Long loadMs;
+    private Long computeMs;
+    private Long searchMs;
+    private Long persistMs;
+    private Long totalMs;
+    private Map<String, Long> stageMs = new LinkedHashMap<>();
+}
@@ -0,0 +1,40 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One run of the rolling re-planner
+ * - trigger: SCHEDULE, ORDER_STATUS or MANUAL
+ * - fullReload: the plan was read from the database (first run, other version activated or periodic reload)
+ * - refreshedRows: started, completed or cancelled assignments read since the previous run
+ * - created / removed / kept: changed assignments of the re-planned window and work carried over
+ * - planVersionId: version written by the run (the unchanged active version when nothing changed)
+ * - loadMs / computeMs / persistMs / totalMs: timings in milliseconds
+ * - outcome: REPLANNED, UNCHANGED, SKIPPED (no active plan or concurrent activation) or FAILED
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollingReplanRun {
+    private LocalDateTime startedAt;
+    private String trigger;
+    private Integer horizonHours;
+    private Boolean fullReload;
+    private Integer refreshedRows;
+    private Integer created;
+    private Integer removed;
+    private Integer kept;
+    private Integer lateOrders;
+    private UUID planVersionId;
+    private Long loadMs;
+    private Long computeMs;
+    private Long persistMs;
+    private Long totalMs;
+    private String outcome;
+    private String message;
+}
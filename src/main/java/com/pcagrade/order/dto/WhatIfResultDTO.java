@@ -0,0 +1,29 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of one what-if scenario (planned in memory, nothing persisted)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WhatIfResultDTO {
+    private String scenario;
+    private Boolean success;
+    private String message;
+    private String mode;
+    private Long computeMs;
+    private Integer assignmentsCreated;
+    private Integer assignmentsKept;
+    private Integer assignmentsRemoved;
+    private WorkPlanSummaryDTO summary;
+    private PipelineMetrics pipeline;
+    private List<EmployeeUtilizationDTO> utilization;
+    private PlanSearchStats search;
+    private LatenessReport lateness;
+}
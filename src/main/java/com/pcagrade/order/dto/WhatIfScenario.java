@@ -0,0 +1,52 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * What-if planning scenario, applied to the current planning snapshot
+ * An empty scenario is the baseline (the snapshot as it is).
+ * - extraEmployees: temporary employees joining a stage (GRADING, CERTIFYING, SCANNING, PACKAGING)
+ * - absentEmployeeIds: employees left out of every stage
+ * - extraOrders: hypothetical orders entering a stage (GRADING by default)
+ * - fullRebuild: re-plan all scheduled work (default) or only what changed
+ * - mode / searchMs: as for /api/planning/generate (no search by default, searchMs at most
+ *   planning.what-if.max-search-ms)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WhatIfScenario {
+    private String name;
+    private String mode;
+    private Boolean fullRebuild = true;
+    private Long searchMs;
+    private List<ExtraEmployees> extraEmployees = new ArrayList<>();
+    private List<UUID> absentEmployeeIds = new ArrayList<>();
+    private List<ExtraOrders> extraOrders = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ExtraEmployees {
+        private String stage;
+        private Integer count = 1;
+        private Double efficiencyRating = 1.0;
+        private Integer workHoursPerDay = 8;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ExtraOrders {
+        private String stage = "GRADING";
+        private Integer count = 1;
+        private Integer cardCount;
+        private String delai = "C";
+    }
+}
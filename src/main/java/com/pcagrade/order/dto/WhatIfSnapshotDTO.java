@@ -0,0 +1,23 @@
+package com.pcagrade.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Planning snapshot used by what-if scenarios
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WhatIfSnapshotDTO {
+    private String snapshotId;
+    private LocalDateTime takenAt;
+    private Long loadMs;
+    private Map<String, Integer> ordersByStage = new LinkedHashMap<>();
+    private Map<String, Integer> employeesByStage = new LinkedHashMap<>();
+}
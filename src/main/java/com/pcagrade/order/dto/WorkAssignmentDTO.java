@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -28,4 +29,9 @@ public class WorkAssignmentDTO {
     private LocalDateTime actualEnd;
     private String status;
     private Long priorityScore;
+
+    /**
+     * Orders of a work lot (empty for a single-order assignment)
+     */
+    private List<UUID> lotOrderIds;
 }
\ No newline at end of file
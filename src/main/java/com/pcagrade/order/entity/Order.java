@@ -116,6 +116,13 @@ public class Order extends AbstractUlidEntity {
      * Based on delai code
      */
     public int getPriorityScore() {
+        return priorityScoreOf(delai);
+    }
+
+    /**
+     * Priority score of a delai code (lower is higher priority)
+     */
+    public static int priorityScoreOf(String delai) {
         if (delai != null) {
             switch (delai.toUpperCase()) {
                 case "X":  return 1; // Highest priority
@@ -148,6 +155,13 @@ public class Order extends AbstractUlidEntity {
      * Get estimated days until delivery based on delai code
      */
     public int getEstimatedDeliveryDays() {
+        return estimatedDeliveryDaysOf(delai);
+    }
+
+    /**
+     * Estimated days until delivery for a delai code
+     */
+    public static int estimatedDeliveryDaysOf(String delai) {
         if (delai != null) {
             switch (delai.toUpperCase()) {
                 case "X":  return 2;   // Express - 2 days
@@ -175,8 +189,16 @@ public class Order extends AbstractUlidEntity {
         final int MINUTES_PER_CARD_PER_STAGE = 3;
         final int NUMBER_OF_STAGES = 4; // grading, certifying, scanning, packaging
 
+        return getEstimatedProcessingMinutes(NUMBER_OF_STAGES * MINUTES_PER_CARD_PER_STAGE);
+    }
+
+    /**
+     * Estimated processing time in minutes at the given minutes per card over all stages
+     * (the learned rates come from DurationModelService.estimates().pipelineMinutesPerCard())
+     */
+    public int getEstimatedProcessingMinutes(double pipelineMinutesPerCard) {
         int cardCount = getCardCount();
-        return cardCount * NUMBER_OF_STAGES * MINUTES_PER_CARD_PER_STAGE;
+        return (int) Math.ceil(cardCount * pipelineMinutesPerCard);
     }
 
     /**
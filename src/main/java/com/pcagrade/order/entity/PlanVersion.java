@@ -0,0 +1,84 @@
+package com.pcagrade.order.entity;
+
+import com.pcagrade.order.entity.ulid.AbstractUlidEntity;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One generation of the work plan
+ *
+ * Each plan generation becomes a new version instead of deleting the previous plan, so
+ * older plans stay available for rollback and diffing until they are pruned. Versions
+ * share their unchanged SCHEDULED assignments: a row is valid from the sequence of the
+ * version that added it up to (excluding) the sequence of the version that dropped it,
+ * so a generation only writes its changes. The version in use is the one referenced by
+ * PlanVersionPointer.
+ */
+@Entity
+@Table(name = "plan_version")
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class PlanVersion extends AbstractUlidEntity {
+
+    /**
+     * Version that was active when this one was generated (null for the first one)
+     */
+    @Column(name = "parent_id", columnDefinition = "BINARY(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID parentId;
+
+    /**
+     * Creation order of the versions (1, 2, ...), bounds of the assignments' validity ranges
+     */
+    @Column(name = "version_seq", unique = true)
+    private Long sequence;
+
+    /**
+     * Planning mode of the generation (FLOW_SHOP, PER_STAGE), or BASELINE for pre-existing rows
+     */
+    @Column(name = "planning_mode", length = 20)
+    private String planningMode;
+
+    @Column(name = "full_rebuild", nullable = false)
+    private boolean fullRebuild;
+
+    @Column(name = "created_count", nullable = false)
+    private int createdCount;
+
+    @Column(name = "kept_count", nullable = false)
+    private int keptCount;
+
+    /**
+     * SCHEDULED assignments of the parent left out of this version
+     */
+    @Column(name = "removed_count", nullable = false)
+    private int removedCount;
+
+    /**
+     * Assignments of the parent written again because a later version had dropped them
+     * (only when generating from a version other than the latest, e.g. after a rollback)
+     */
+    @Column(name = "rebased_count", nullable = false)
+    private int rebasedCount;
+
+    /**
+     * Last time this version became the active one
+     */
+    @Column(name = "activated_at")
+    private LocalDateTime activatedAt;
+
+    /**
+     * SCHEDULED assignments in this version
+     */
+    public int getAssignmentCount() {
+        return createdCount + keptCount;
+    }
+}
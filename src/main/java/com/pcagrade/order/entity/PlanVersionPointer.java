@@ -0,0 +1,41 @@
+package com.pcagrade.order.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Named pointer to a plan version
+ * The single ACTIVE row selects the plan everyone sees: activating or rolling back a
+ * version is one UPDATE of this row, whatever the size of the plan.
+ */
+@Entity
+@Table(name = "plan_version_pointer")
+@Data
+@NoArgsConstructor
+public class PlanVersionPointer {
+
+    public static final String ACTIVE = "ACTIVE";
+
+    @Id
+    @Column(name = "name", length = 20)
+    private String name;
+
+    @Column(name = "version_id", columnDefinition = "BINARY(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID versionId;
+
+    /**
+     * Sequence of that version, read by the assignments' visibility filter
+     */
+    @Column(name = "version_seq")
+    private Long versionSeq;
+
+    @Column(name = "modification_date")
+    private LocalDateTime modificationDate;
+}
@@ -0,0 +1,35 @@
+package com.pcagrade.order.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * High-water mark of the incremental sync of one Symfony entity
+ * watermark is when the last fully applied delta was requested: the next sync asks for
+ * the rows modified since then.
+ */
+@Entity
+@Table(name = "sync_watermark")
+@Data
+@NoArgsConstructor
+public class SyncWatermark {
+
+    @Id
+    @Column(name = "entity_name", length = 40)
+    private String entityName;
+
+    @Column(name = "watermark", nullable = false)
+    private LocalDateTime watermark;
+
+    /**
+     * Records received by the last delta
+     */
+    @Column(name = "last_records")
+    private Long lastRecords;
+
+    @Column(name = "modification_date")
+    private LocalDateTime modificationDate;
+}
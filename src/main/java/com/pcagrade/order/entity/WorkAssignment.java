@@ -6,8 +6,16 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * WorkAssignment entity representing task assignments to employees
@@ -17,14 +25,30 @@ import java.time.LocalDateTime;
  * - Chronological ordering of assignments
  * - Database synchronization compatibility
  * - Natural sorting by creation time
+ *
+ * A SCHEDULED row belongs to the plan versions whose sequence lies in
+ * [validFromVersion, validToVersion), so a generation only writes the rows it adds and
+ * closes the ones it drops (see PlanVersion). Only rows of the active version are
+ * visible to JPA queries. Started and completed work is shared by all versions, and
+ * unversioned rows (written before versioning) stay visible until the next generation
+ * adopts them.
+ *
+ * A work lot processes several small orders as one assignment: order is its lead
+ * order, cardCount the lot total, and lotMembers lists every order of the lot
+ * (empty for a single-order assignment).
  */
 @Entity
 @Table(name = "work_assignment", indexes = {
         @Index(name = "idx_employee_status", columnList = "employee_id, status"),
         @Index(name = "idx_order_id", columnList = "order_id"),
         @Index(name = "idx_scheduled_start", columnList = "scheduled_start"),
-        @Index(name = "idx_status_priority", columnList = "status, priority_score")
+        @Index(name = "idx_status_priority", columnList = "status, priority_score"),
+        @Index(name = "idx_status_validity", columnList = "status, valid_to_version, valid_from_version"),
+        @Index(name = "idx_source_assignment", columnList = "source_assignment_id")
 })
+@SQLRestriction("status <> 'SCHEDULED' OR valid_from_version IS NULL OR EXISTS (" +
+        "SELECT 1 FROM plan_version_pointer p WHERE p.name = 'ACTIVE' AND p.version_seq >= valid_from_version " +
+        "AND (valid_to_version IS NULL OR p.version_seq < valid_to_version))")
 @Data
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
@@ -52,7 +76,7 @@ public class WorkAssignment extends AbstractUlidEntity {
     private Integer cardCount;
 
     /**
-     * Estimated duration in minutes (cardCount * 3)
+     * Estimated duration in minutes (set by the planner from the learned rates, cardCount * 3 otherwise)
      */
     @Column(name = "estimated_duration_minutes", nullable = false)
     private Integer estimatedDurationMinutes;
@@ -88,11 +112,47 @@ public class WorkAssignment extends AbstractUlidEntity {
     @Column(name = "priority_score")
     private Long priorityScore;
 
+    /**
+     * Plan version that scheduled this assignment
+     */
+    @Column(name = "plan_version_id", columnDefinition = "BINARY(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID planVersionId;
+
+    /**
+     * Sequence of the first plan version holding this row (null for rows written before versioning)
+     */
+    @Column(name = "valid_from_version")
+    private Long validFromVersion;
+
+    /**
+     * Sequence of the first later version that dropped it (null while the latest version holds it)
+     */
+    @Column(name = "valid_to_version")
+    private Long validToVersion;
+
+    /**
+     * Assignment this row was copied from when a generation re-based on an older version (null for originals)
+     */
+    @Column(name = "source_assignment_id", columnDefinition = "BINARY(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID sourceAssignmentId;
+
+    /**
+     * Orders processed together by this assignment when it is a work lot
+     */
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "work_assignment_order", joinColumns = @JoinColumn(name = "assignment_id"))
+    @BatchSize(size = 100)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<WorkLotMember> lotMembers = new ArrayList<>();
+
     @PrePersist
     protected void onAssignmentCreate() {
         super.onCreate();
 
-        // Calculate duration: 3 minutes per card
+        // Calculate duration: 3 minutes per card (the planner sets learned durations itself)
         if (estimatedDurationMinutes == null && cardCount != null) {
             estimatedDurationMinutes = cardCount * 3;
         }
@@ -108,6 +168,10 @@ public class WorkAssignment extends AbstractUlidEntity {
         super.onUpdate();
     }
 
+    public boolean isLot() {
+        return lotMembers != null && !lotMembers.isEmpty();
+    }
+
     /**
      * Mark assignment as started
      */
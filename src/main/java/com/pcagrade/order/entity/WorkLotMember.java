@@ -0,0 +1,32 @@
+package com.pcagrade.order.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.UUID;
+
+/**
+ * One order of a work lot (row of work_assignment_order)
+ * A work lot is a single WorkAssignment processing several small orders together.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkLotMember {
+
+    @Column(name = "order_id", nullable = false, columnDefinition = "BINARY(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID orderId;
+
+    /**
+     * Cards of this order in the lot
+     */
+    @Column(name = "card_count", nullable = false)
+    private Integer cardCount;
+}
@@ -2,14 +2,22 @@ package com.pcagrade.order.repository;
 
 import com.pcagrade.order.entity.Order;
 import com.pcagrade.order.entity.OrderStatus;
+import com.pcagrade.order.service.planning.PlanningOrder;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, UUID> {
@@ -91,4 +99,35 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
     
     @Query("SELECT COALESCE(SUM(o.totalCards), 0) FROM Order o WHERE o.delai = :delai")
     long getTotalCardsByDelai(@Param("delai") String delai);
+
+    /**
+     * Order counts per status in a single GROUP BY query
+     * Each row is [OrderStatus status, Long count]
+     */
+    @Query("SELECT o.status, COUNT(o) FROM Order o GROUP BY o.status")
+    List<Object[]> countGroupedByStatus();
+
+    /**
+     * Forward-only stream of slim planning projections for one status
+     * Rows are fetched from the driver in chunks and never enter the persistence context;
+     * callers that collect the stream still hold one projection per row.
+     * Must be consumed inside a transaction and closed (try-with-resources).
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.pcagrade.order.service.planning.PlanningOrder(" +
+            "o.id, o.orderNumber, COALESCE(o.totalCards, SIZE(o.cards)), o.delai, o.date, o.status) " +
+            "FROM Order o WHERE o.status = :status")
+    Stream<PlanningOrder> streamPlanningOrdersByStatus(@Param("status") OrderStatus status);
+
+    /**
+     * Slim planning projections of the orders dated within a period (recent intake)
+     */
+    @Query("SELECT new com.pcagrade.order.service.planning.PlanningOrder(" +
+            "o.id, o.orderNumber, COALESCE(o.totalCards, SIZE(o.cards)), o.delai, o.date, o.status) " +
+            "FROM Order o WHERE o.date >= :from AND o.date < :to")
+    List<PlanningOrder> findPlanningOrdersDatedBetween(@Param("from") LocalDateTime from,
+                                                       @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,27 @@
+package com.pcagrade.order.repository;
+
+import com.pcagrade.order.entity.PlanVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for plan versions
+ */
+@Repository
+public interface PlanVersionRepository extends JpaRepository<PlanVersion, UUID> {
+
+    /**
+     * All versions, most recent first (ULIDs sort chronologically)
+     */
+    List<PlanVersion> findAllByOrderByIdDesc();
+
+    /**
+     * Highest version sequence (null when there is no sequenced version yet)
+     */
+    @Query("SELECT MAX(v.sequence) FROM PlanVersion v")
+    Long findMaxSequence();
+}
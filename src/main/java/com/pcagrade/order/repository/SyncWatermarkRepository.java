@@ -0,0 +1,12 @@
+package com.pcagrade.order.repository;
+
+import com.pcagrade.order.entity.SyncWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for incremental sync watermarks (one row per Symfony entity)
+ */
+@Repository
+public interface SyncWatermarkRepository extends JpaRepository<SyncWatermark, String> {
+}
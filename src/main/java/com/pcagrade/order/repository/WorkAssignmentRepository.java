@@ -3,11 +3,16 @@ package com.pcagrade.order.repository;
 
 import com.pcagrade.order.entity.AssignmentStatus;
 import com.pcagrade.order.entity.WorkAssignment;
+import com.pcagrade.order.service.planning.DispatchLotOrder;
+import com.pcagrade.order.service.planning.DispatchTask;
+import com.pcagrade.order.service.planning.PlannedAssignment;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -22,6 +27,13 @@ public interface WorkAssignmentRepository extends JpaRepository<WorkAssignment,
 
     List<WorkAssignment> findByOrderIdOrderByScheduledStartAsc(UUID orderId);
 
+    /**
+     * Assignments of an order, including the work lots it is part of
+     */
+    @Query("SELECT DISTINCT wa FROM WorkAssignment wa LEFT JOIN wa.lotMembers m " +
+            "WHERE wa.order.id = :orderId OR m.orderId = :orderId ORDER BY wa.scheduledStart ASC")
+    List<WorkAssignment> findByOrderOrLotMember(@Param("orderId") UUID orderId);
+
     List<WorkAssignment> findByStatusOrderByPriorityScoreAsc(AssignmentStatus status);
 
     @Query("SELECT wa FROM WorkAssignment wa WHERE wa.employee.id = :employeeId AND wa.status = :status ORDER BY wa.scheduledStart ASC")
@@ -55,4 +67,53 @@ public interface WorkAssignmentRepository extends JpaRepository<WorkAssignment,
             LocalDateTime endDateTime
     );
 
-}
\ No newline at end of file
+    /**
+     * Slim view of the current plan, used by re-planning to compute a delta
+     */
+    @Query("SELECT new com.pcagrade.order.service.planning.PlannedAssignment(" +
+            "wa.id, wa.order.id, wa.employee.id, wa.processingStage, wa.cardCount, wa.status, wa.scheduledStart, wa.scheduledEnd) " +
+            "FROM WorkAssignment wa WHERE wa.status IN :statuses")
+    List<PlannedAssignment> findPlannedByStatusIn(@Param("statuses") Collection<AssignmentStatus> statuses);
+
+    /**
+     * Slim view of the orders of the work lots in the given statuses, one row per lot order
+     */
+    @Query("SELECT new com.pcagrade.order.service.planning.PlannedAssignment(" +
+            "wa.id, m.orderId, wa.employee.id, wa.processingStage, m.cardCount, wa.status, wa.scheduledStart, wa.scheduledEnd) " +
+            "FROM WorkAssignment wa JOIN wa.lotMembers m WHERE wa.status IN :statuses")
+    List<PlannedAssignment> findLotOrdersByStatusIn(@Param("statuses") Collection<AssignmentStatus> statuses);
+
+    /**
+     * Slim view of the assignments in the given statuses modified after a point in time
+     */
+    @Query("SELECT new com.pcagrade.order.service.planning.PlannedAssignment(" +
+            "wa.id, wa.order.id, wa.employee.id, wa.processingStage, wa.cardCount, wa.status, wa.scheduledStart, wa.scheduledEnd) " +
+            "FROM WorkAssignment wa WHERE wa.status IN :statuses AND wa.modificationDate > :since")
+    List<PlannedAssignment> findPlannedByStatusInModifiedAfter(@Param("statuses") Collection<AssignmentStatus> statuses,
+                                                               @Param("since") LocalDateTime since);
+
+    /**
+     * Slim view of the orders of the work lots in the given statuses modified after a point in time
+     */
+    @Query("SELECT new com.pcagrade.order.service.planning.PlannedAssignment(" +
+            "wa.id, m.orderId, wa.employee.id, wa.processingStage, m.cardCount, wa.status, wa.scheduledStart, wa.scheduledEnd) " +
+            "FROM WorkAssignment wa JOIN wa.lotMembers m WHERE wa.status IN :statuses AND wa.modificationDate > :since")
+    List<PlannedAssignment> findLotOrdersByStatusInModifiedAfter(@Param("statuses") Collection<AssignmentStatus> statuses,
+                                                                 @Param("since") LocalDateTime since);
+
+    /**
+     * Open work of the current plan with its order's number and status, for the dispatch board
+     */
+    @Query("SELECT new com.pcagrade.order.service.planning.DispatchTask(" +
+            "wa.id, o.id, o.orderNumber, o.status, wa.employee.id, wa.processingStage, wa.cardCount, wa.status, " +
+            "wa.scheduledStart, wa.actualStart, wa.priorityScore) " +
+            "FROM WorkAssignment wa JOIN wa.order o WHERE wa.status IN :statuses")
+    List<DispatchTask> findDispatchTasksByStatusIn(@Param("statuses") Collection<AssignmentStatus> statuses);
+
+    /**
+     * Orders of the open work lots with their number and status, for the dispatch board
+     */
+    @Query("SELECT new com.pcagrade.order.service.planning.DispatchLotOrder(wa.id, o.id, o.orderNumber, o.status) " +
+            "FROM WorkAssignment wa JOIN wa.lotMembers m JOIN Order o ON o.id = m.orderId WHERE wa.status IN :statuses")
+    List<DispatchLotOrder> findDispatchLotOrdersByStatusIn(@Param("statuses") Collection<AssignmentStatus> statuses);
+}
@@ -0,0 +1,242 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.CapacityForecast;
+import com.pcagrade.order.dto.OrderLatenessDTO;
+import com.pcagrade.order.entity.Employee;
+import com.pcagrade.order.entity.Order;
+import com.pcagrade.order.entity.OrderStatus;
+import com.pcagrade.order.repository.EmployeeRepository;
+import com.pcagrade.order.repository.OrderRepository;
+import com.pcagrade.order.service.planning.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Backlog clearance forecasting
+ *
+ * Simulates the card pipeline (PipelineSimulator) from the current orders of every
+ * status and the active employees of every team, on the shift calendar and the learned
+ * minutes per card. PENDING orders enter at grading. Future demand is optional: the
+ * intake of the last planning.forecast.demand-lookback-days days is replayed period
+ * after period up to the horizon. Nothing is written; the simulation runs on the
+ * calling thread.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CapacityForecastService {
+
+    private final OrderRepository orderRepository;
+    private final EmployeeRepository employeeRepository;
+    private final DurationModelService durationModelService;
+    private final ShiftCalendarFactory shiftCalendarFactory;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${planning.split.lot-size:50}")
+    private int lotSize;
+
+    @Value("${planning.forecast.horizon-days:90}")
+    private int defaultHorizonDays;
+
+    /**
+     * Must stay below planning.calendar.horizon-days
+     */
+    @Value("${planning.forecast.max-horizon-days:365}")
+    private int maxHorizonDays;
+
+    @Value("${planning.forecast.demand-lookback-days:28}")
+    private int demandLookbackDays;
+
+    @Value("${planning.lateness.report-limit:500}")
+    private int reportLimit;
+
+    /**
+     * Forecast when the backlog clears and which orders miss their delivery date
+     *
+     * @param horizonDays   days to simulate (planning.forecast.horizon-days when null)
+     * @param includeDemand true to replay the recent intake as future demand
+     * @throws IllegalArgumentException when the horizon is out of range
+     */
+    public CapacityForecast forecast(Integer horizonDays, boolean includeDemand) {
+        int days = horizonDays != null ? horizonDays : defaultHorizonDays;
+        if (days <= 0 || days > maxHorizonDays) {
+            throw new IllegalArgumentException("horizonDays must be between 1 and " + maxHorizonDays);
+        }
+
+        long startTime = System.currentTimeMillis();
+        LocalDateTime origin = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        ShiftCalendar calendar = shiftCalendarFactory.create(origin);
+        long horizonMinute = calendar.toClockMinute(origin.plusDays(days));
+
+        CapacityForecast forecast = new CapacityForecast();
+        forecast.setGeneratedAt(origin);
+        forecast.setHorizonDays(days);
+        forecast.setDemandIncluded(includeDemand);
+        forecast.setDemandLookbackDays(includeDemand ? demandLookbackDays : null);
+        for (PlanningStage stage : PlanningStage.values()) {
+            CapacityForecast.StageForecast stageForecast = new CapacityForecast.StageForecast();
+            stageForecast.setStage(stage.name());
+            stageForecast.setBacklogOrders(0);
+            stageForecast.setBacklogCards(0L);
+            forecast.getStages().add(stageForecast);
+        }
+
+        // ========== LOAD ==========
+
+        PipelineSimulator simulator = loadPipeline(calendar, origin, horizonMinute, includeDemand);
+        forecast.setLoadMs(System.currentTimeMillis() - startTime);
+        int backlog = 0;
+        int projected = 0;
+        for (int i = 0; i < simulator.orderCount(); i++) {
+            PipelineSimulator.SimulatedOrder simulated = simulator.order(i);
+            if (simulated.projected()) {
+                projected++;
+                continue;
+            }
+            backlog++;
+            CapacityForecast.StageForecast stageForecast = forecast.getStages().get(simulated.stage().ordinal());
+            stageForecast.setBacklogOrders(stageForecast.getBacklogOrders() + 1);
+            stageForecast.setBacklogCards(stageForecast.getBacklogCards() + simulated.order().cardCount());
+        }
+        forecast.setBacklogOrders(backlog);
+        forecast.setProjectedOrders(projected);
+
+        // ========== SIMULATE ==========
+
+        long simulationStart = System.currentTimeMillis();
+        PipelineSimulator.SimulationOutcome outcome = simulator.run(horizonMinute);
+        forecast.setSimulationMs(System.currentTimeMillis() - simulationStart);
+        forecast.setEvents(outcome.events());
+
+        for (PlanningStage stage : PlanningStage.values()) {
+            int s = stage.ordinal();
+            CapacityForecast.StageForecast stageForecast = forecast.getStages().get(s);
+            stageForecast.setEmployees(outcome.employeeCounts()[s]);
+            stageForecast.setDailyCapacityMinutes(Math.round(outcome.dailyCapacityMinutes()[s]));
+            stageForecast.setClearedAt(toDateTime(calendar, outcome.clearedMinutes()[s]));
+            stageForecast.setBusyMinutes(outcome.busyMinutes()[s]);
+            stageForecast.setProcessedCards(outcome.processedCards()[s]);
+            stageForecast.setMaxQueueCards(outcome.maxQueueCards()[s]);
+        }
+        forecast.setBacklogClearedAt(toDateTime(calendar,
+                outcome.clearedMinutes()[PlanningStage.values().length - 1]));
+
+        collectLateness(forecast, simulator, outcome, calendar, horizonMinute);
+
+        log.info("🔮 Capacity forecast over {} days: {} backlog + {} projected orders, {} events simulated in {}ms " +
+                        "(load {}ms), backlog cleared at {}, {} late orders", days, forecast.getBacklogOrders(),
+                forecast.getProjectedOrders(), outcome.events(), forecast.getSimulationMs(), forecast.getLoadMs(),
+                forecast.getBacklogClearedAt(), forecast.getLateOrderCount());
+        return forecast;
+    }
+
+    /**
+     * Simulator loaded with the current orders of every status (PENDING at grading), the
+     * replayed intake when includeDemand is set, and the active employees
+     * Read in one read-only transaction; the simulator is not run.
+     */
+    public PipelineSimulator loadPipeline(ShiftCalendar calendar, LocalDateTime origin, long horizonMinute,
+                                          boolean includeDemand) {
+        PipelineSimulator simulator = new PipelineSimulator(calendar, durationModelService.estimates(), lotSize);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status ->
+                load(simulator, calendar, origin, horizonMinute, includeDemand));
+        return simulator;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void load(PipelineSimulator simulator, ShiftCalendar calendar, LocalDateTime origin,
+                      long horizonMinute, boolean includeDemand) {
+        addBacklog(simulator, calendar, origin, OrderStatus.PENDING, PlanningStage.GRADING);
+        for (PlanningStage stage : PlanningStage.values()) {
+            addBacklog(simulator, calendar, origin, stage.getOrderStatus(), stage);
+        }
+
+        if (includeDemand && demandLookbackDays > 0) {
+            for (PlanningOrder order : orderRepository.findPlanningOrdersDatedBetween(
+                    origin.minusDays(demandLookbackDays), origin)) {
+                for (LocalDateTime arrival = order.date().plusDays(demandLookbackDays);
+                     calendar.toClockMinute(arrival) < horizonMinute;
+                     arrival = arrival.plusDays(demandLookbackDays)) {
+                    simulator.addOrder(order, PlanningStage.GRADING, calendar.toClockMinute(arrival),
+                            calendar.toClockMinute(arrival.plusDays(Order.estimatedDeliveryDaysOf(order.delai()))),
+                            true);
+                }
+            }
+        }
+
+        for (Employee employee : employeeRepository.findByActiveTrue()) {
+            Set<PlanningStage> stages = EnumSet.noneOf(PlanningStage.class);
+            for (PlanningStage stage : PlanningStage.values()) {
+                if (employee.hasRole(stage.getRequiredRole())) {
+                    stages.add(stage);
+                }
+            }
+            simulator.addEmployee(employee, stages);
+        }
+    }
+
+    private void addBacklog(PipelineSimulator simulator, ShiftCalendar calendar, LocalDateTime origin,
+                            OrderStatus status, PlanningStage stage) {
+        try (Stream<PlanningOrder> orders = orderRepository.streamPlanningOrdersByStatus(status)) {
+            for (Iterator<PlanningOrder> iterator = orders.iterator(); iterator.hasNext(); ) {
+                PlanningOrder order = iterator.next();
+                simulator.addOrder(order, stage, 0L, calendar.toClockMinute(order.estimatedDeliveryDate(origin)),
+                        false);
+            }
+        }
+    }
+
+    /**
+     * Late orders: finished after their due minute, or due within the horizon and not finished
+     */
+    private void collectLateness(CapacityForecast forecast, PipelineSimulator simulator,
+                                 PipelineSimulator.SimulationOutcome outcome, ShiftCalendar calendar,
+                                 long horizonMinute) {
+        List<OrderLatenessDTO> late = new ArrayList<>();
+        int unfinished = 0;
+        int projectedLate = 0;
+        long[] completion = outcome.completionMinutes();
+        for (int i = 0; i < completion.length; i++) {
+            PipelineSimulator.SimulatedOrder simulated = simulator.order(i);
+            if (completion[i] < 0 && !simulated.projected()) {
+                unfinished++;
+            }
+            long end = completion[i] >= 0 ? completion[i] : horizonMinute;
+            if (end <= simulated.dueMinute()) {
+                continue;
+            }
+            if (simulated.projected()) {
+                projectedLate++;
+                continue;
+            }
+            PlanningOrder order = simulated.order();
+            late.add(new OrderLatenessDTO(order.id(), order.orderNumber(), order.delai(),
+                    order.status() != null ? order.status().name() : null,
+                    order.cardCount(), calendar.toDateTime(simulated.dueMinute()),
+                    toDateTime(calendar, completion[i]), end - simulated.dueMinute()));
+        }
+
+        late.sort(Comparator.comparing(OrderLatenessDTO::getLatenessMinutes).reversed());
+        forecast.setUnfinishedOrderCount(unfinished);
+        forecast.setLateOrderCount(late.size());
+        forecast.setProjectedLateOrderCount(projectedLate);
+        forecast.setTruncated(late.size() > reportLimit);
+        forecast.setLateOrders(late.size() > reportLimit ? new ArrayList<>(late.subList(0, reportLimit)) : late);
+    }
+
+    private static LocalDateTime toDateTime(ShiftCalendar calendar, long minute) {
+        return minute >= 0 ? calendar.toDateTime(minute) : null;
+    }
+}
@@ -1,7 +1,5 @@
 package com.pcagrade.order.service;
 
-import com.pcagrade.order.entity.Order;
-import com.pcagrade.order.repository.OrderRepository;
 import com.pcagrade.order.util.UlidConverter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,6 +14,7 @@ import java.util.*;
  * ULTRA-FAST Card Certification Sync Service using native JDBC batch
  *
  * Uses raw JDBC INSERT instead of JPA for maximum performance
+ * Order IDs are resolved per batch through the shared OrderIdResolver cache
  * Expected: 50,000 cards in ~30-60 seconds
  */
 @Slf4j
@@ -23,7 +22,7 @@ import java.util.*;
 @RequiredArgsConstructor
 public class CardCertificationSyncService {
 
-    private final OrderRepository orderRepository;
+    private final OrderIdResolver orderIdResolver;
     private final JdbcTemplate jdbcTemplate;
 
     private static final int BATCH_SIZE = 1000;
@@ -108,6 +107,13 @@ public class CardCertificationSyncService {
         LocalDateTime now = LocalDateTime.now();
         List<Object[]> batchArgs = new ArrayList<>();
 
+        // Resolve the batch's orders at once
+        Set<String> orderIdHexes = new HashSet<>();
+        for (Map<String, Object> cardData : batchData) {
+            orderIdHexes.add(getString(cardData, "order_id"));
+        }
+        Map<String, UUID> orderIds = orderIdResolver.resolve(orderIdHexes);
+
         // Prepare all batch arguments
         for (Map<String, Object> cardData : batchData) {
             try {
@@ -124,13 +130,11 @@ public class CardCertificationSyncService {
                     continue;
                 }
 
-                Optional<Order> orderOpt = orderRepository.findBySymfonyOrderId(orderIdHex);
-                if (orderOpt.isEmpty()) {
+                UUID orderId = orderIds.get(orderIdHex);
+                if (orderId == null) {
                     continue;
                 }
 
-                UUID orderId = orderOpt.get().getId();
-
                 // Get other fields
                 String cardName = getString(cardData, "card_name");
                 String codeBarre = getString(cardData, "code_barre");
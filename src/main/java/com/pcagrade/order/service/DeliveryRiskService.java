@@ -0,0 +1,228 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.DeliveryRiskReport;
+import com.pcagrade.order.dto.OrderDeliveryRiskDTO;
+import com.pcagrade.order.service.planning.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Monte Carlo delivery risk of the open orders
+ *
+ * Loads the pipeline once (CapacityForecastService.loadPipeline), then replays it many
+ * times with each lot's duration drawn from a lognormal around its learned rate, the
+ * spread of every stage coming from the actual timings of completed assignments
+ * (DurationModelService). Runs are split over the risk executor, one forked simulator
+ * and one random stream per task, so a run allocates nothing; each task only tallies per
+ * order how often it missed its estimated delivery date.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DeliveryRiskService {
+
+    private final CapacityForecastService capacityForecastService;
+    private final DurationModelService durationModelService;
+    private final ShiftCalendarFactory shiftCalendarFactory;
+
+    @Qualifier("riskExecutor")
+    private final ThreadPoolTaskExecutor riskExecutor;
+
+    @Value("${planning.risk.runs:10000}")
+    private int defaultRuns;
+
+    @Value("${planning.risk.max-runs:100000}")
+    private int maxRuns;
+
+    @Value("${planning.risk.threads:4}")
+    private int threads;
+
+    /**
+     * Must stay below planning.calendar.horizon-days
+     */
+    @Value("${planning.risk.horizon-days:120}")
+    private int horizonDays;
+
+    /**
+     * Spread of stages without enough learned samples
+     */
+    @Value("${planning.risk.default-spread:0.35}")
+    private double defaultSpread;
+
+    @Value("${planning.risk.min-probability:0.05}")
+    private double minProbability;
+
+    @Value("${planning.lateness.report-limit:500}")
+    private int reportLimit;
+
+    /**
+     * Probability of each open order missing its estimated delivery date
+     *
+     * @param runs          simulations to run (planning.risk.runs when null)
+     * @param includeDemand true to replay the recent intake as future demand
+     * @param seed          random seed (random when null)
+     * @throws IllegalArgumentException when runs is out of range
+     */
+    public DeliveryRiskReport assess(Integer runs, boolean includeDemand, Long seed) {
+        int count = runs != null ? runs : defaultRuns;
+        if (count <= 0 || count > maxRuns) {
+            throw new IllegalArgumentException("runs must be between 1 and " + maxRuns);
+        }
+
+        long startTime = System.currentTimeMillis();
+        LocalDateTime origin = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        ShiftCalendar calendar = shiftCalendarFactory.create(origin);
+        long horizonMinute = calendar.toClockMinute(origin.plusDays(horizonDays));
+        long usedSeed = seed != null ? seed : System.nanoTime();
+
+        DeliveryRiskReport report = new DeliveryRiskReport();
+        report.setGeneratedAt(origin);
+        report.setRuns(count);
+        report.setSeed(usedSeed);
+        report.setHorizonDays(horizonDays);
+        report.setDemandIncluded(includeDemand);
+
+        // ========== LOAD ==========
+
+        PipelineSimulator simulator = capacityForecastService.loadPipeline(calendar, origin, horizonMinute,
+                includeDemand);
+        DurationEstimates estimates = durationModelService.estimates();
+        double[] spreads = new double[PlanningStage.values().length];
+        for (PlanningStage stage : PlanningStage.values()) {
+            spreads[stage.ordinal()] = estimates.spread(stage).orElse(defaultSpread);
+            report.getStageSpreads().put(stage.name(), spreads[stage.ordinal()]);
+        }
+        int orderCount = simulator.orderCount();
+        long[] due = new long[orderCount];
+        for (int i = 0; i < orderCount; i++) {
+            due[i] = simulator.order(i).dueMinute();
+        }
+        report.setLoadMs(System.currentTimeMillis() - startTime);
+
+        // ========== SIMULATE ==========
+
+        long simulationStart = System.currentTimeMillis();
+        int tasks = Math.max(1, Math.min(threads, count));
+        report.setThreads(tasks);
+        SplittableRandom root = new SplittableRandom(usedSeed);
+        List<Future<Tally>> futures = new ArrayList<>(tasks);
+        for (int t = 0; t < tasks; t++) {
+            int share = count / tasks + (t < count % tasks ? 1 : 0);
+            PipelineSimulator fork = simulator.fork();
+            SplittableRandom random = root.split();
+            futures.add(riskExecutor.submit(() -> simulate(fork, random, spreads, share, due, horizonMinute)));
+        }
+        long[] baseline = simulator.run(horizonMinute).completionMinutes();
+
+        Tally total = new Tally(new int[orderCount], new long[orderCount], new int[orderCount]);
+        try {
+            for (Future<Tally> future : futures) {
+                total.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Delivery risk simulation failed", e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Delivery risk simulation interrupted", e);
+        }
+        report.setSimulationMs(System.currentTimeMillis() - simulationStart);
+
+        collectRisk(report, simulator, total, baseline, count, calendar);
+
+        log.info("🎲 Delivery risk over {} runs on {} threads in {}ms (load {}ms): {} open orders, " +
+                        "{} expected late, {} likely late", count, tasks, report.getSimulationMs(), report.getLoadMs(),
+                report.getBacklogOrders(), String.format("%.1f", report.getExpectedLateOrders()),
+                report.getLikelyLateOrderCount());
+        return report;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    /**
+     * Late: finished after the due minute, or due within the horizon and not finished
+     */
+    private static Tally simulate(PipelineSimulator simulator, SplittableRandom random, double[] spreads, int runs,
+                                  long[] due, long horizonMinute) {
+        int orderCount = due.length;
+        Tally tally = new Tally(new int[orderCount], new long[orderCount], new int[orderCount]);
+        for (int run = 0; run < runs; run++) {
+            long[] completion = simulator.run(horizonMinute, random, spreads).completionMinutes();
+            for (int i = 0; i < orderCount; i++) {
+                long end = completion[i];
+                if (end >= 0) {
+                    tally.completionSum()[i] += end;
+                    tally.finished()[i]++;
+                }
+                if ((end >= 0 ? end : horizonMinute) > due[i]) {
+                    tally.late()[i]++;
+                }
+            }
+        }
+        return tally;
+    }
+
+    private void collectRisk(DeliveryRiskReport report, PipelineSimulator simulator, Tally total, long[] baseline,
+                             int runs, ShiftCalendar calendar) {
+        List<OrderDeliveryRiskDTO> atRisk = new ArrayList<>();
+        int backlog = 0;
+        int likelyLate = 0;
+        double expectedLate = 0;
+        for (int i = 0; i < simulator.orderCount(); i++) {
+            PipelineSimulator.SimulatedOrder simulated = simulator.order(i);
+            if (simulated.projected()) {
+                continue;
+            }
+            backlog++;
+            double probability = (double) total.late()[i] / runs;
+            expectedLate += probability;
+            if (probability > 0.5) {
+                likelyLate++;
+            }
+            if (probability == 0 || probability < minProbability) {
+                continue;
+            }
+            PlanningOrder order = simulated.order();
+            int finished = total.finished()[i];
+            atRisk.add(new OrderDeliveryRiskDTO(order.id(), order.orderNumber(), order.delai(),
+                    order.status() != null ? order.status().name() : null, order.cardCount(),
+                    calendar.toDateTime(simulated.dueMinute()), probability,
+                    baseline[i] >= 0 ? calendar.toDateTime(baseline[i]) : null,
+                    finished > 0 ? calendar.toDateTime(Math.round((double) total.completionSum()[i] / finished))
+                            : null));
+        }
+
+        atRisk.sort(Comparator.comparing(OrderDeliveryRiskDTO::getLateProbability).reversed()
+                .thenComparing(OrderDeliveryRiskDTO::getEstimatedDeliveryDate));
+        report.setBacklogOrders(backlog);
+        report.setExpectedLateOrders(expectedLate);
+        report.setLikelyLateOrderCount(likelyLate);
+        report.setAtRiskOrderCount(atRisk.size());
+        report.setTruncated(atRisk.size() > reportLimit);
+        report.setOrders(atRisk.size() > reportLimit ? new ArrayList<>(atRisk.subList(0, reportLimit)) : atRisk);
+    }
+
+    /**
+     * Per-order counts of one task's runs: late runs, sum of completion minutes and finished runs
+     */
+    private record Tally(int[] late, long[] completionSum, int[] finished) {
+
+        void add(Tally other) {
+            for (int i = 0; i < late.length; i++) {
+                late[i] += other.late[i];
+                completionSum[i] += other.completionSum[i];
+                finished[i] += other.finished[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.DurationEstimateDTO;
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.WorkAssignment;
+import com.pcagrade.order.service.planning.DurationEstimates;
+import com.pcagrade.order.service.planning.DurationStats;
+import com.pcagrade.order.service.planning.PlanningStage;
+import com.pcagrade.order.service.planning.ShiftCalendar;
+import com.pcagrade.order.service.planning.ShiftCalendarFactory;
+import com.pcagrade.order.util.UlidConverter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Learned processing durations
+ *
+ * Aggregates the actual minutes per card of completed assignments, per stage and per
+ * stage and employee, into streaming decayed means (DurationStats). Durations are
+ * counted in working minutes on the shift calendar, so work left overnight or over a
+ * weekend is not taken for slowness. The model is seeded from the completed assignments
+ * of the last planning.durations.lookback-days at startup, then updated on every
+ * completion; each update publishes a new immutable DurationEstimates snapshot.
+ * Per stage it also learns the spread of assignments around their employee's rate.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DurationModelService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShiftCalendarFactory shiftCalendarFactory;
+
+    /**
+     * Rate of every stage before any timing is learned
+     */
+    @Value("${planning.durations.default-minutes-per-card:3.0}")
+    private double defaultMinutesPerCard;
+
+    /**
+     * Weight of the prior (stage rate, or the default for stages) in cards
+     */
+    @Value("${planning.durations.prior-cards:200}")
+    private double priorCards;
+
+    /**
+     * Cards after which a sample weighs half as much
+     */
+    @Value("${planning.durations.half-life-cards:5000}")
+    private double halfLifeCards;
+
+    @Value("${planning.durations.lookback-days:90}")
+    private int lookbackDays;
+
+    /**
+     * Samples outside these bounds (minutes per card) are treated as recording errors
+     */
+    @Value("${planning.durations.min-minutes-per-card:0.2}")
+    private double minMinutesPerCard;
+
+    @Value("${planning.durations.max-minutes-per-card:30}")
+    private double maxMinutesPerCard;
+
+    /**
+     * Samples a stage needs before its spread is published
+     */
+    @Value("${planning.durations.min-spread-samples:30}")
+    private long minSpreadSamples;
+
+    private volatile DurationEstimates estimates = DurationEstimates.standard(DurationEstimates.STANDARD_MINUTES_PER_CARD);
+
+    private final Map<PlanningStage, DurationStats> stageStats = new EnumMap<>(PlanningStage.class);
+    private final Map<PlanningStage, Map<UUID, DurationStats>> employeeStats = new EnumMap<>(PlanningStage.class);
+
+    /**
+     * Current estimates (standard rate until timings are loaded)
+     */
+    public DurationEstimates estimates() {
+        return estimates;
+    }
+
+    /**
+     * Seed the model from recent completed assignments (streamed, oldest first)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        long startTime = System.currentTimeMillis();
+        LocalDateTime since = LocalDateTime.now().minusDays(lookbackDays).toLocalDate().atStartOfDay();
+        ShiftCalendar calendar = shiftCalendarFactory.create(since);
+        int[] counts = new int[2];
+
+        synchronized (this) {
+            estimates = DurationEstimates.standard(defaultMinutesPerCard);
+            try {
+                jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                            "SELECT processing_stage, employee_id, card_count, actual_start, actual_end " +
+                                    "FROM work_assignment WHERE status = ? AND actual_start IS NOT NULL " +
+                                    "AND actual_end IS NOT NULL AND actual_end >= ? ORDER BY actual_end");
+                    ps.setFetchSize(1000);
+                    ps.setString(1, AssignmentStatus.COMPLETED.name());
+                    ps.setObject(2, since);
+                    return ps;
+                }, rs -> {
+                    counts[0]++;
+                    if (add(rs.getString("processing_stage"), UlidConverter.bytesToUuid(rs.getBytes("employee_id")),
+                            rs.getInt("card_count"), rs.getObject("actual_start", LocalDateTime.class),
+                            rs.getObject("actual_end", LocalDateTime.class), calendar)) {
+                        counts[1]++;
+                    }
+                });
+            } catch (Exception e) {
+                log.warn("⚠️ Could not load actual durations, planning at the standard rate: {}", e.getMessage());
+            }
+            publish();
+        }
+
+        log.info("⏱️ Duration model seeded from {} of {} completed assignments in {}ms: {}",
+                counts[1], counts[0], System.currentTimeMillis() - startTime, estimates().getStageRates());
+    }
+
+    /**
+     * Learn from a completed assignment (ignored unless it has actual start and end times)
+     */
+    public void record(WorkAssignment assignment) {
+        if (assignment.getStatus() != AssignmentStatus.COMPLETED || assignment.getCardCount() == null) {
+            return;
+        }
+        record(assignment.getProcessingStage(), assignment.getEmployee().getId(), assignment.getCardCount(),
+                assignment.getActualStart(), assignment.getActualEnd());
+    }
+
+    /**
+     * Learn from some work done by an employee in a stage
+     */
+    public void record(String stage, UUID employeeId, int cards, LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null) {
+            return;
+        }
+        ShiftCalendar calendar = shiftCalendarFactory.create(start.toLocalDate().atStartOfDay());
+        synchronized (this) {
+            if (add(stage, employeeId, cards, start, end, calendar)) {
+                publish();
+            }
+        }
+    }
+
+    /**
+     * Learned rates with the number of samples behind them
+     */
+    public synchronized List<DurationEstimateDTO> describe() {
+        DurationEstimates estimates = estimates();
+        List<DurationEstimateDTO> result = new ArrayList<>();
+        for (PlanningStage stage : PlanningStage.values()) {
+            DurationStats stats = stageStats.get(stage);
+            OptionalDouble spread = estimates.spread(stage);
+            result.add(new DurationEstimateDTO(stage.name(), null,
+                    stats != null ? stats.getSamples() : 0L, stats != null ? stats.getTotalCards() : 0L,
+                    estimates.minutesPerCard(stage),
+                    spread.isPresent() ? spread.getAsDouble() : null));
+            employeeStats.getOrDefault(stage, Map.of()).forEach((employeeId, employee) ->
+                    result.add(new DurationEstimateDTO(stage.name(), employeeId, employee.getSamples(),
+                            employee.getTotalCards(), estimates.minutesPerCard(stage, employeeId), null)));
+        }
+        return result;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private boolean add(String stageName, UUID employeeId, int cards, LocalDateTime start, LocalDateTime end,
+                        ShiftCalendar calendar) {
+        PlanningStage stage;
+        try {
+            stage = PlanningStage.valueOf(stageName);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return false;
+        }
+        if (cards <= 0 || employeeId == null || end.isBefore(start)) {
+            return false;
+        }
+
+        // Working minutes between start and end (shift hours only)
+        int daily = calendar.dailyWorkingMinutes(null);
+        long minutes = calendar.workingMinuteAt(daily, calendar.toClockMinute(end))
+                - calendar.workingMinuteAt(daily, calendar.toClockMinute(start));
+        double perCard = (double) minutes / cards;
+        if (perCard < minMinutesPerCard || perCard > maxMinutesPerCard) {
+            return false;
+        }
+
+        DurationStats stats = stageStats.computeIfAbsent(stage, s -> new DurationStats());
+        DurationStats employee = employeeStats.computeIfAbsent(stage, s -> new HashMap<>())
+                .computeIfAbsent(employeeId, e -> new DurationStats());
+
+        // Spread around the rate the employee was expected to work at before this sample
+        double expected = employee.minutesPerCard(stats.minutesPerCard(defaultMinutesPerCard, priorCards), priorCards);
+        stats.addResidual(cards, Math.log(perCard / expected), halfLifeCards);
+        stats.add(cards, minutes, halfLifeCards);
+        employee.add(cards, minutes, halfLifeCards);
+        return true;
+    }
+
+    /**
+     * Build and publish a snapshot: stages shrink toward the default rate, employees
+     * toward their stage's rate
+     */
+    private void publish() {
+        Map<PlanningStage, Double> stageRates = new EnumMap<>(PlanningStage.class);
+        Map<PlanningStage, Map<UUID, Double>> employeeRates = new EnumMap<>(PlanningStage.class);
+        Map<PlanningStage, Double> stageSpreads = new EnumMap<>(PlanningStage.class);
+        for (PlanningStage stage : PlanningStage.values()) {
+            DurationStats stats = stageStats.get(stage);
+            if (stats != null) {
+                stats.spread(minSpreadSamples).ifPresent(spread -> stageSpreads.put(stage, spread));
+            }
+            double stageRate = stats != null
+                    ? stats.minutesPerCard(defaultMinutesPerCard, priorCards) : defaultMinutesPerCard;
+            stageRates.put(stage, stageRate);
+
+            Map<UUID, Double> rates = new HashMap<>();
+            employeeStats.getOrDefault(stage, Map.of()).forEach((employeeId, employee) ->
+                    rates.put(employeeId, employee.minutesPerCard(stageRate, priorCards)));
+            employeeRates.put(stage, rates);
+        }
+        estimates = new DurationEstimates(stageRates, employeeRates, stageSpreads);
+    }
+}
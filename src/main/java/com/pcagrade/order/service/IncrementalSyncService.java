@@ -0,0 +1,177 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.entity.SyncWatermark;
+import com.pcagrade.order.model.SyncProgress;
+import com.pcagrade.order.repository.SyncWatermarkRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Watermark-based incremental sync from the Symfony export API
+ *
+ * Orders, card certifications and card translations each keep a high-water mark
+ * (SyncWatermark): when their last delta was requested. A sync asks Symfony only for the
+ * rows modified since the mark, minus sync.incremental.overlap-seconds for clock skew
+ * and rows committed during the previous fetch, and streams them in batches into the
+ * existing upserts. A mark moves only once its whole delta is applied, so a failed fetch
+ * is retried from the same point; the overlap only re-sends a few idempotent upserts.
+ * Orders go first so that new cards find their order. An entity without a mark is pulled
+ * whole once, on the same streamed path.
+ * A delta as large as the whole export means Symfony ignored "since": it is applied
+ * (the upserts are idempotent) but logged as a warning and flagged "unfiltered".
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncrementalSyncService {
+
+    public static final String ORDERS = "ORDERS";
+    public static final String CARD_CERTIFICATIONS = "CARD_CERTIFICATIONS";
+    public static final String CARD_TRANSLATIONS = "CARD_TRANSLATIONS";
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final DateTimeFormatter SINCE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final SymfonyApiClient symfonyApiClient;
+    private final MinimalSyncService minimalSyncService;
+    private final CardCertificationSyncService cardSyncService;
+    private final TranslationSyncService translationSyncService;
+    private final SyncWatermarkRepository watermarkRepository;
+    private final SyncProgressPublisher progressPublisher;
+
+    @Value("${sync.incremental.overlap-seconds:120}")
+    private long overlapSeconds;
+
+    @Value("${sync.incremental.batch-size:500}")
+    private int batchSize;
+
+    private final ReentrantLock running = new ReentrantLock();
+
+    /**
+     * Pull and apply the changes of every entity since its watermark
+     *
+     * @return per entity: since, watermark, received and upserted counts
+     * @throws AlreadyRunningException when an incremental sync is already running
+     */
+    public Map<String, Object> sync(String syncId) {
+        if (!running.tryLock()) {
+            throw new AlreadyRunningException();
+        }
+        try {
+            long startTime = System.currentTimeMillis();
+            progressPublisher.publishProgress(syncId,
+                    SyncProgress.starting(syncId, "INCREMENTAL", "Starting incremental sync..."));
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("orders", syncEntity(syncId, ORDERS, symfonyApiClient::streamOrdersSince,
+                    symfonyApiClient::countOrders, minimalSyncService::syncOrders));
+            result.put("cards", syncEntity(syncId, CARD_CERTIFICATIONS,
+                    symfonyApiClient::streamCardCertificationsSince, symfonyApiClient::countCardCertifications,
+                    batch -> cardSyncService.syncCardsBatch(batch, batch.size())));
+            result.put("translations", syncEntity(syncId, CARD_TRANSLATIONS,
+                    symfonyApiClient::streamCardTranslationsSince, symfonyApiClient::countCardTranslations,
+                    translationSyncService::syncTranslations));
+
+            long duration = System.currentTimeMillis() - startTime;
+            result.put("duration_ms", duration);
+            progressPublisher.publishProgress(syncId,
+                    SyncProgress.completed(syncId, "INCREMENTAL",
+                            String.format("Incremental sync completed in %.1f seconds", duration / 1000.0), 0));
+            return result;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    /**
+     * Current watermarks by entity
+     */
+    public List<SyncWatermark> getWatermarks() {
+        return watermarkRepository.findAll();
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private Map<String, Object> syncEntity(String syncId, String entity, DeltaSource source, LongSupplier exportTotal,
+                                           ToIntFunction<List<Map<String, Object>>> upsert) {
+        LocalDateTime requestedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        SyncWatermark watermark = watermarkRepository.findById(entity).orElseGet(() -> {
+            SyncWatermark created = new SyncWatermark();
+            created.setEntityName(entity);
+            return created;
+        });
+        LocalDateTime since = watermark.getWatermark() != null
+                ? watermark.getWatermark().minusSeconds(overlapSeconds) : BEGINNING;
+
+        progressPublisher.publishProgress(syncId,
+                SyncProgress.fetching(syncId, "INCREMENTAL", "Fetching " + entity + " changed since " + since));
+
+        List<Map<String, Object>> batch = new ArrayList<>(batchSize);
+        int[] upserted = new int[1];
+        long received = source.stream(since.format(SINCE_FORMAT), record -> {
+            batch.add(record);
+            if (batch.size() >= batchSize) {
+                upserted[0] += upsert.applyAsInt(batch);
+                batch.clear();
+                progressPublisher.publishProgress(syncId,
+                        SyncProgress.saving(syncId, "INCREMENTAL", entity + ": " + upserted[0] + " rows applied"));
+            }
+        });
+        if (!batch.isEmpty()) {
+            upserted[0] += upsert.applyAsInt(batch);
+        }
+
+        boolean unfiltered = false;
+        if (watermark.getWatermark() != null && received > 0) {
+            long total = exportTotal.getAsLong();
+            unfiltered = total >= 0 && received >= total;
+            if (unfiltered) {
+                log.warn("⚠️ {} changed since {} returned all {} rows: Symfony seems to ignore 'since', " +
+                        "this was a full pull", entity, since, received);
+            }
+        }
+
+        watermark.setWatermark(requestedAt);
+        watermark.setLastRecords(received);
+        watermark.setModificationDate(LocalDateTime.now());
+        watermarkRepository.save(watermark);
+
+        log.info("🔁 Incremental sync of {}: {} changed since {}, {} applied", entity, received, since, upserted[0]);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("since", since);
+        result.put("watermark", requestedAt);
+        result.put("received", received);
+        result.put("upserted", upserted[0]);
+        result.put("unfiltered", unfiltered);
+        return result;
+    }
+
+    /**
+     * Streamed delta of one entity
+     */
+    @FunctionalInterface
+    private interface DeltaSource {
+        long stream(String since, Consumer<Map<String, Object>> consumer);
+    }
+
+    /**
+     * Thrown when a sync is requested while another one holds the lock
+     */
+    public static class AlreadyRunningException extends RuntimeException {
+        public AlreadyRunningException() {
+            super("An incremental sync is already running");
+        }
+    }
+}
@@ -3,8 +3,10 @@ package com.pcagrade.order.service;
 import com.pcagrade.order.entity.Order;
 import com.pcagrade.order.entity.OrderStatus;
 import com.pcagrade.order.repository.OrderRepository;
+import com.pcagrade.order.service.planning.OrderStatusChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,9 +28,14 @@ public class MinimalSyncService {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     private final OrderRepository orderRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderIdResolver orderIdResolver;
 
-    public MinimalSyncService(OrderRepository orderRepository) {
+    public MinimalSyncService(OrderRepository orderRepository, ApplicationEventPublisher eventPublisher,
+                              OrderIdResolver orderIdResolver) {
         this.orderRepository = orderRepository;
+        this.eventPublisher = eventPublisher;
+        this.orderIdResolver = orderIdResolver;
     }
 
     /**
@@ -39,10 +46,13 @@ public class MinimalSyncService {
         log.info("🔄 Starting orders sync: {} orders", ordersData.size());
         int successCount = 0;
         int errorCount = 0;
+        int statusChanges = 0;
 
         for (Map<String, Object> orderData : ordersData) {
             try {
-                syncSingleOrder(orderData);
+                if (syncSingleOrder(orderData)) {
+                    statusChanges++;
+                }
                 successCount++;
 
                 if (successCount % 100 == 0) {
@@ -59,20 +69,26 @@ public class MinimalSyncService {
             }
         }
 
-        log.info("✅ Orders sync completed: {}/{} orders synced ({} errors)",
-                successCount, ordersData.size(), errorCount);
+        log.info("✅ Orders sync completed: {}/{} orders synced ({} errors, {} status changes)",
+                successCount, ordersData.size(), errorCount, statusChanges);
+        orderIdResolver.invalidate();
+        if (statusChanges > 0) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(statusChanges));
+        }
         return successCount;
     }
 
     /**
      * Sync a single order using direct setters (no reflection)
+     *
+     * @return true when the order is new or its status changed
      */
-    private void syncSingleOrder(Map<String, Object> orderData) {
+    private boolean syncSingleOrder(Map<String, Object> orderData) {
         // Get Symfony ID
         String symfonyOrderId = getString(orderData, "id");
         if (symfonyOrderId == null || symfonyOrderId.isEmpty()) {
             log.warn("⚠️ Skipping order with no ID");
-            return;
+            return false;
         }
 
         // Find existing order by Symfony ID or create new one
@@ -103,6 +119,7 @@ public class MinimalSyncService {
 
         // Convert Symfony status integer to OrderStatus enum
         Integer statusCode = getInteger(orderData, "status");
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(convertSymfonyStatusToOrderStatus(statusCode));
 
         // Set order price/total
@@ -116,6 +133,7 @@ public class MinimalSyncService {
                 saved.getTotalCards(),
                 saved.getDelai(),
                 saved.getPrice());
+        return existingOrder.isEmpty() || previousStatus != saved.getStatus();
     }
 
     /**
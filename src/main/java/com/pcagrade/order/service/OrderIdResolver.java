@@ -0,0 +1,77 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.util.UlidConverter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Symfony order ID to local order ID resolution for card sync
+ *
+ * Cards reference their order by its Symfony ID. The mapping of every order resolved so
+ * far is kept in one map shared by all batches; the IDs a batch misses are read with one
+ * IN (...) query per 1000 IDs instead of one lookup per card. The map is dropped whenever
+ * orders are synced. Unknown IDs are not remembered: the order may come with the next
+ * order sync.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderIdResolver {
+
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Map<String, UUID> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Local order IDs of the given Symfony order IDs (unknown IDs are left out)
+     */
+    public Map<String, UUID> resolve(Collection<String> symfonyOrderIds) {
+        Map<String, UUID> cache = resolved;
+        Map<String, UUID> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String symfonyOrderId : new LinkedHashSet<>(symfonyOrderIds)) {
+            if (symfonyOrderId == null || symfonyOrderId.isEmpty()) {
+                continue;
+            }
+            UUID orderId = cache.get(symfonyOrderId);
+            if (orderId != null) {
+                result.put(symfonyOrderId, orderId);
+            } else {
+                missing.add(symfonyOrderId);
+            }
+        }
+
+        int cached = result.size();
+        for (int i = 0; i < missing.size(); i += IN_CHUNK_SIZE) {
+            List<String> chunk = missing.subList(i, Math.min(i + IN_CHUNK_SIZE, missing.size()));
+            String sql = "SELECT symfony_order_id, id FROM card_order WHERE symfony_order_id IN ("
+                    + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            jdbcTemplate.query(sql, rs -> {
+                String symfonyOrderId = rs.getString(1);
+                UUID orderId = UlidConverter.bytesToUuid(rs.getBytes(2));
+                cache.put(symfonyOrderId, orderId);
+                result.put(symfonyOrderId, orderId);
+            }, chunk.toArray());
+        }
+
+        if (!missing.isEmpty()) {
+            log.debug("🔎 Resolved {} order IDs: {} cached, {} read, {} unknown", result.size(), cached,
+                    result.size() - cached, cached + missing.size() - result.size());
+        }
+        return result;
+    }
+
+    /**
+     * Forget every resolved ID (called after orders are synced)
+     */
+    public void invalidate() {
+        resolved = new ConcurrentHashMap<>();
+    }
+}
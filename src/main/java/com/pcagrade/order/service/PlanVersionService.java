@@ -0,0 +1,465 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.PlanVersionDiffEntry;
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.PlanVersion;
+import com.pcagrade.order.entity.PlanVersionPointer;
+import com.pcagrade.order.repository.PlanVersionRepository;
+import com.pcagrade.order.service.planning.PlanVersionActivatedEvent;
+import com.pcagrade.order.util.UlidConverter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Versioned work plans
+ *
+ * A generation never deletes the previous plan: it becomes a new PlanVersion with the
+ * next sequence, and the ACTIVE pointer is switched to it in the same transaction.
+ * Versions share their SCHEDULED rows through validity ranges of sequences
+ * [valid_from_version, valid_to_version): a generation inserts the work it adds and
+ * closes the rows it drops, while kept work is not written at all. Only a generation
+ * from an older version than the latest (after a rollback) also writes that version's
+ * rows the later ones had dropped. Activation and rollback update the pointer (and
+ * publish a PlanVersionActivatedEvent) after dropping the version's copies of work
+ * started since; old versions are pruned in the background.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PlanVersionService {
+
+    private static final String SCHEDULED = AssignmentStatus.SCHEDULED.name();
+    private static final String ROLLING = "ROLLING";
+
+    /**
+     * SCHEDULED row held by the version of a sequence (two parameters: the sequence twice)
+     */
+    private static final String VISIBLE_AT =
+            "(valid_from_version <= ? AND (valid_to_version IS NULL OR valid_to_version > ?))";
+
+    private final PlanVersionRepository planVersionRepository;
+    private final WorkAssignmentBulkWriter bulkWriter;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Versions kept by the pruning task (the active one is always kept)
+     */
+    @Value("${planning.versions.retained:10}")
+    private int retained;
+
+    /**
+     * Rolling re-plan versions kept, counted apart so frequent runs do not push out the others
+     */
+    @Value("${planning.versions.retained-rolling:10}")
+    private int retainedRolling;
+
+    /**
+     * Active version id, if a plan was ever generated with versioning
+     */
+    public Optional<UUID> getActiveVersionId() {
+        List<UUID> ids = jdbcTemplate.query("SELECT version_id FROM plan_version_pointer WHERE name = ?",
+                (rs, row) -> UlidConverter.bytesToUuid(rs.getBytes(1)), PlanVersionPointer.ACTIVE);
+        return ids.stream().filter(Objects::nonNull).findFirst();
+    }
+
+    /**
+     * All versions, most recent first
+     */
+    public List<PlanVersion> getVersions() {
+        return planVersionRepository.findAllByOrderByIdDesc();
+    }
+
+    public Optional<PlanVersion> getVersion(UUID versionId) {
+        return planVersionRepository.findById(versionId);
+    }
+
+    /**
+     * Create the version of a new generation and make it active
+     * Must run inside the generation's write transaction: the pointer row is locked until
+     * commit, so concurrent generations and activations are serialized. The new
+     * assignments are inserted by the caller with the returned version's id and sequence;
+     * kept assignments are shared with the parent and not written.
+     *
+     * @param keptCount        SCHEDULED assignments of the active plan carried over unchanged
+     * @param removedIds       SCHEDULED assignments of the active plan left out of the new version
+     * @param expectedParentId version the plan was computed from (null = whichever is active)
+     * @throws VersionConflictException when another version was activated since
+     */
+    @Transactional
+    public PlanVersion createVersion(String planningMode, boolean fullRebuild, int keptCount,
+                                     Collection<UUID> removedIds, int createdCount, UUID expectedParentId) {
+        UUID parentId = lockActiveVersion();
+        if (expectedParentId != null && !expectedParentId.equals(parentId)) {
+            throw new VersionConflictException("Plan version " + parentId + " was activated while planning on "
+                    + expectedParentId);
+        }
+
+        long latest = latestSequence();
+        Long parentSequence = parentId != null
+                ? planVersionRepository.findById(parentId).map(PlanVersion::getSequence).orElse(null) : null;
+
+        // Rows written before versioning become the baseline version
+        if (parentId == null && bulkWriter.countUnversionedScheduled() > 0) {
+            PlanVersion baseline = new PlanVersion();
+            baseline.setPlanningMode("BASELINE");
+            baseline.setSequence(++latest);
+            baseline = planVersionRepository.save(baseline);
+            int adopted = bulkWriter.adoptUnversionedScheduled(baseline.getId(), baseline.getSequence());
+            baseline.setCreatedCount(adopted);
+            parentId = baseline.getId();
+            parentSequence = baseline.getSequence();
+            log.info("📌 {} unversioned scheduled assignments adopted as baseline plan version {}",
+                    adopted, parentId);
+        }
+
+        PlanVersion version = new PlanVersion();
+        version.setParentId(parentId);
+        version.setSequence(latest + 1);
+        version.setPlanningMode(planningMode);
+        version.setFullRebuild(fullRebuild);
+        version.setCreatedCount(createdCount);
+        version.setKeptCount(keptCount);
+        version.setRemovedCount(removedIds.size());
+        version.setActivatedAt(LocalDateTime.now());
+        version = planVersionRepository.save(version);
+
+        if (parentSequence != null) {
+            if (parentSequence < latest) {
+                // Generated from an older version: later additions are left out, and the
+                // parent's rows the later versions dropped are written again
+                bulkWriter.closeAddedAfter(parentSequence, version.getSequence());
+                version.setRebasedCount(bulkWriter.copyDroppedSince(parentSequence, version.getSequence(),
+                        version.getId(), removedIds));
+            }
+            bulkWriter.closeInVersion(removedIds, version.getSequence());
+        }
+        setActivePointer(version.getId(), version.getSequence());
+
+        log.info("🏷️ Plan version {} (#{}) created: {} new, {} kept, {} dropped from {}{}", version.getId(),
+                version.getSequence(), createdCount, keptCount, removedIds.size(), parentId,
+                version.getRebasedCount() > 0 ? ", " + version.getRebasedCount() + " rebased" : "");
+        return version;
+    }
+
+    /**
+     * Make a version the active plan (one pointer update)
+     * Its copies of assignments since started or completed from a later version are
+     * dropped first, so that work is not scheduled twice.
+     *
+     * @throws IllegalArgumentException when the version does not exist (or was pruned)
+     */
+    @Transactional
+    public PlanVersion activate(UUID versionId) {
+        lockActiveVersion();
+        PlanVersion version = planVersionRepository.findById(versionId)
+                .orElseThrow(() -> new IllegalArgumentException("Plan version not found: " + versionId));
+        int dropped = bulkWriter.deleteLeftScheduledCopies(version.getSequence());
+        if (dropped > 0) {
+            log.info("🧹 Dropped {} scheduled copies of plan version {} already started elsewhere", dropped, versionId);
+        }
+        setActivePointer(versionId, version.getSequence());
+        version.setActivatedAt(LocalDateTime.now());
+        log.info("🔀 Plan version {} activated", versionId);
+        return planVersionRepository.save(version);
+    }
+
+    /**
+     * Re-activate the version the active one was generated from
+     *
+     * @throws IllegalStateException when there is no previous version to roll back to
+     */
+    @Transactional
+    public PlanVersion rollback() {
+        UUID activeId = lockActiveVersion();
+        if (activeId == null) {
+            throw new IllegalStateException("No active plan version");
+        }
+        UUID parentId = planVersionRepository.findById(activeId)
+                .map(PlanVersion::getParentId)
+                .orElse(null);
+        if (parentId == null || !planVersionRepository.existsById(parentId)) {
+            throw new IllegalStateException("Plan version " + activeId + " has no previous version to roll back to");
+        }
+        log.info("⏪ Rolling back plan version {} to {}", activeId, parentId);
+        return activate(parentId);
+    }
+
+    /**
+     * Stream the SCHEDULED assignments that differ between two versions
+     * Rows shared by both versions are skipped in the query; the others are read ordered
+     * by slot (order, stage, employee, cards, start, end), so identical assignments written
+     * as separate rows are adjacent and only changes are emitted. Rows are fetched in
+     * chunks and never all held in memory.
+     *
+     * @param sink receives ADDED (only in toVersion) and REMOVED (only in fromVersion) entries
+     * @return number of entries emitted
+     * @throws IllegalArgumentException when a version does not exist (or was pruned)
+     */
+    public long diff(UUID fromVersion, UUID toVersion, Consumer<PlanVersionDiffEntry> sink) {
+        if (fromVersion.equals(toVersion)) {
+            return 0;
+        }
+        long from = sequenceOf(fromVersion);
+        long to = sequenceOf(toVersion);
+
+        // Each VISIBLE_AT takes the version's sequence twice
+        DiffMerger merger = new DiffMerger(sink);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT id, CASE WHEN " + VISIBLE_AT + " THEN 0 ELSE 1 END AS side, order_id, employee_id, " +
+                            "processing_stage, card_count, scheduled_start, scheduled_end FROM work_assignment " +
+                            "WHERE status = ? AND (" + VISIBLE_AT + " OR " + VISIBLE_AT + ") " +
+                            "AND NOT (" + VISIBLE_AT + " AND " + VISIBLE_AT + ") " +
+                            "ORDER BY order_id, processing_stage, employee_id, card_count, " +
+                            "scheduled_start, scheduled_end, side");
+            ps.setFetchSize(1000);
+            int index = 1;
+            ps.setLong(index++, from);
+            ps.setLong(index++, from);
+            ps.setString(index++, SCHEDULED);
+            for (long sequence : new long[]{from, to, from, to}) {
+                ps.setLong(index++, sequence);
+                ps.setLong(index++, sequence);
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> merger.accept(diffRow(rs), rs.getInt("side") == 0));
+        merger.flush();
+
+        log.info("🔎 Plan diff {} -> {}: {} added, {} removed", fromVersion, toVersion,
+                merger.getAdded(), merger.getRemoved());
+        return merger.getAdded() + merger.getRemoved();
+    }
+
+    /**
+     * Delete versions beyond the retention limit, then the SCHEDULED assignments no
+     * remaining version holds
+     * The active version, the most recent planning.versions.retained generated versions and
+     * the most recent planning.versions.retained-rolling rolling re-plan versions are kept.
+     * Each version is deleted in its own transaction after locking the pointer, and skipped
+     * when it was activated since the candidates were read.
+     */
+    @Scheduled(fixedDelayString = "${planning.versions.prune-interval-ms:600000}",
+            initialDelayString = "${planning.versions.prune-interval-ms:600000}")
+    public void pruneVersions() {
+        List<PlanVersion> prunable = selectPrunable(planVersionRepository.findAllByOrderByIdDesc(),
+                getActiveVersionId().orElse(null), retained, retainedRolling);
+        if (prunable.isEmpty()) {
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int prunedVersions = 0;
+        for (PlanVersion version : prunable) {
+            Boolean pruned = transaction.execute(status -> {
+                if (version.getId().equals(lockActiveVersion())) {
+                    return false;
+                }
+                planVersionRepository.deleteById(version.getId());
+                return true;
+            });
+            if (Boolean.TRUE.equals(pruned)) {
+                prunedVersions++;
+            }
+        }
+        int prunedRows = prunedVersions > 0 ? bulkWriter.deleteUnreachableScheduled() : 0;
+
+        if (prunedVersions > 0) {
+            log.info("🧹 Pruned {} plan versions ({} scheduled assignments) in {}ms",
+                    prunedVersions, prunedRows, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * Versions beyond the retention limits, oldest last
+     *
+     * @param versions        all versions, most recent first
+     * @param activeId        active version, never selected
+     * @param retained        generated versions kept (at least 1)
+     * @param retainedRolling rolling re-plan versions kept (at least 1)
+     */
+    static List<PlanVersion> selectPrunable(List<PlanVersion> versions, UUID activeId, int retained,
+                                            int retainedRolling) {
+        List<PlanVersion> prunable = new ArrayList<>();
+        int keptGenerated = 0;
+        int keptRolling = 0;
+        for (PlanVersion version : versions) {
+            if (version.getId().equals(activeId)) {
+                continue;
+            }
+            if (ROLLING.equals(version.getPlanningMode())
+                    ? keptRolling++ < Math.max(retainedRolling, 1) : keptGenerated++ < Math.max(retained, 1)) {
+                continue;
+            }
+            prunable.add(version);
+        }
+        return prunable;
+    }
+
+    /**
+     * Give sequences and row validity ranges to versions written before rows were shared
+     * Each of those versions held its own rows, so its rows only belong to it; the rows of
+     * the latest one stay open for the next generation.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void sequenceLegacyVersions() {
+        List<PlanVersion> legacy = planVersionRepository.findAllByOrderByIdDesc().stream()
+                .filter(version -> version.getSequence() == null)
+                .toList();
+        if (legacy.isEmpty()) {
+            return;
+        }
+
+        lockActiveVersion();
+        long sequence = latestSequence();
+        for (int i = legacy.size() - 1; i >= 0; i--) {
+            PlanVersion version = legacy.get(i);
+            version.setSequence(++sequence);
+            planVersionRepository.save(version);
+            bulkWriter.assignValidity(version.getId(), sequence, i == 0 ? null : sequence + 1);
+        }
+        planVersionRepository.flush();
+        jdbcTemplate.update("UPDATE plan_version_pointer SET version_seq = " +
+                "(SELECT v.version_seq FROM plan_version v WHERE v.id = plan_version_pointer.version_id)");
+        log.info("📌 {} plan versions given sequences {}..{}", legacy.size(), sequence - legacy.size() + 1, sequence);
+    }
+
+    /**
+     * Thrown when a plan computed from one version is saved after another was activated
+     */
+    public static class VersionConflictException extends RuntimeException {
+        public VersionConflictException(String message) {
+            super(message);
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    /**
+     * Read the active version id and lock the pointer row until the transaction ends
+     */
+    private UUID lockActiveVersion() {
+        List<UUID> ids = jdbcTemplate.query("SELECT version_id FROM plan_version_pointer WHERE name = ? FOR UPDATE",
+                (rs, row) -> UlidConverter.bytesToUuid(rs.getBytes(1)), PlanVersionPointer.ACTIVE);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    private long latestSequence() {
+        Long latest = planVersionRepository.findMaxSequence();
+        return latest != null ? latest : 0L;
+    }
+
+    private long sequenceOf(UUID versionId) {
+        return planVersionRepository.findById(versionId)
+                .map(PlanVersion::getSequence)
+                .orElseThrow(() -> new IllegalArgumentException("Plan version not found: " + versionId));
+    }
+
+    private void setActivePointer(UUID versionId, long sequence) {
+        eventPublisher.publishEvent(new PlanVersionActivatedEvent(versionId));
+        jdbcTemplate.update("INSERT INTO plan_version_pointer (name, version_id, version_seq, modification_date) " +
+                        "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE version_id = VALUES(version_id), " +
+                        "version_seq = VALUES(version_seq), modification_date = VALUES(modification_date)",
+                PlanVersionPointer.ACTIVE, UlidConverter.uuidToBytes(versionId), sequence, LocalDateTime.now());
+    }
+
+    private static PlanVersionDiffEntry diffRow(ResultSet rs) throws SQLException {
+        Timestamp start = rs.getTimestamp("scheduled_start");
+        Timestamp end = rs.getTimestamp("scheduled_end");
+        return new PlanVersionDiffEntry(null,
+                UlidConverter.bytesToUuid(rs.getBytes("id")).toString(),
+                UlidConverter.bytesToUuid(rs.getBytes("order_id")).toString(),
+                UlidConverter.bytesToUuid(rs.getBytes("employee_id")).toString(),
+                rs.getString("processing_stage"),
+                rs.getInt("card_count"),
+                start != null ? start.toLocalDateTime() : null,
+                end != null ? end.toLocalDateTime() : null);
+    }
+
+    /**
+     * Groups adjacent rows of the same slot and emits the unmatched ones
+     */
+    static final class DiffMerger {
+
+        private final Consumer<PlanVersionDiffEntry> sink;
+        private final List<PlanVersionDiffEntry> fromRows = new ArrayList<>();
+        private final List<PlanVersionDiffEntry> toRows = new ArrayList<>();
+        private PlanVersionDiffEntry slot;
+        private long added;
+        private long removed;
+
+        DiffMerger(Consumer<PlanVersionDiffEntry> sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * @param inFrom true for a row of the from version, false for one of the to version
+         */
+        void accept(PlanVersionDiffEntry row, boolean inFrom) {
+            if (slot != null && !sameSlot(slot, row)) {
+                flush();
+            }
+            slot = row;
+            (inFrom ? fromRows : toRows).add(row);
+        }
+
+        /**
+         * Emit the rows of the current slot that have no counterpart in the other version
+         */
+        void flush() {
+            int matched = Math.min(fromRows.size(), toRows.size());
+            for (int i = matched; i < fromRows.size(); i++) {
+                fromRows.get(i).setChange("REMOVED");
+                sink.accept(fromRows.get(i));
+                removed++;
+            }
+            for (int i = matched; i < toRows.size(); i++) {
+                toRows.get(i).setChange("ADDED");
+                sink.accept(toRows.get(i));
+                added++;
+            }
+            fromRows.clear();
+            toRows.clear();
+            slot = null;
+        }
+
+        long getAdded() {
+            return added;
+        }
+
+        long getRemoved() {
+            return removed;
+        }
+
+        static boolean sameSlot(PlanVersionDiffEntry a, PlanVersionDiffEntry b) {
+            return a.getOrderId().equals(b.getOrderId())
+                    && a.getProcessingStage().equals(b.getProcessingStage())
+                    && a.getEmployeeId().equals(b.getEmployeeId())
+                    && a.getCardCount().equals(b.getCardCount())
+                    && Objects.equals(a.getScheduledStart(), b.getScheduledStart())
+                    && Objects.equals(a.getScheduledEnd(), b.getScheduledEnd());
+        }
+    }
+}
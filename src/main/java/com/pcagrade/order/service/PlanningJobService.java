@@ -0,0 +1,196 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.model.SyncProgress;
+import com.pcagrade.order.service.planning.PlanRequest;
+import com.pcagrade.order.service.planning.PlanningJob;
+import com.pcagrade.order.service.planning.PlanningProgress;
+import com.pcagrade.order.service.planning.WorkPlanResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Background plan-generation jobs
+ *
+ * A job is queued on the single-threaded planning job executor and returns at once, so
+ * no HTTP worker waits for the plan. Synchronous generations go through the same
+ * executor, so plans are only ever generated one at a time. Progress is published through SyncProgressPublisher
+ * (operation type PLANNING, the job id as sync id) and the last event is kept on the job,
+ * so a client subscribing late still gets the current state first. Finished jobs keep
+ * their result until planning.jobs.retained newer jobs have finished.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PlanningJobService {
+
+    private static final String OPERATION_TYPE = "PLANNING";
+
+    private final WorkPlanningService workPlanningService;
+    private final SyncProgressPublisher progressPublisher;
+
+    @Qualifier("planningJobExecutor")
+    private final ThreadPoolTaskExecutor planningJobExecutor;
+
+    @Value("${planning.jobs.retained:20}")
+    private int retained;
+
+    // Jobs by id, in submission order
+    private final Map<String, PlanningJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * Queue a plan generation
+     *
+     * @throws TaskRejectedException    when too many jobs are already queued
+     * @throws IllegalArgumentException when searchMs is above planning.search.max-budget-ms
+     */
+    public PlanningJob submit(PlanRequest request) {
+        workPlanningService.searchBudget(request.searchMs());
+        PlanningJob job = new PlanningJob(UUID.randomUUID().toString(), request);
+        job.setProgress(progress(job.getId(), "QUEUED", 0, "Plan generation queued"));
+        jobs.put(job.getId(), job);
+
+        try {
+            planningJobExecutor.execute(() -> run(job));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+
+        log.info("📥 Plan generation job {} queued (full rebuild: {}, parallel: {}, mode: {}, search: {}ms)",
+                job.getId(), request.fullRebuild(), request.parallel(), request.mode(), request.searchMs());
+        return job;
+    }
+
+    /**
+     * Generate a plan on the planning job executor and wait for it
+     *
+     * @throws TaskRejectedException    when too many jobs are already queued
+     * @throws IllegalArgumentException when searchMs is above planning.search.max-budget-ms
+     */
+    public WorkPlanResult generate(PlanRequest request) {
+        workPlanningService.searchBudget(request.searchMs());
+        Future<WorkPlanResult> future = planningJobExecutor.submit(
+                () -> workPlanningService.generateWorkPlan(request, PlanningProgress.NONE));
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Plan generation interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Plan generation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    public Optional<PlanningJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * All retained jobs, most recent first
+     */
+    public List<PlanningJob> getJobs() {
+        List<PlanningJob> list;
+        synchronized (jobs) {
+            list = new ArrayList<>(jobs.values());
+        }
+        Collections.reverse(list);
+        return list;
+    }
+
+    /**
+     * Progress stream of a job: its latest event, then live events until it finishes
+     */
+    public Flux<SyncProgress> stream(PlanningJob job) {
+        if (job.isFinished()) {
+            return Flux.just(job.getProgress());
+        }
+
+        Flux<SyncProgress> live = progressPublisher.createSyncSession(job.getId());
+        SyncProgress latest = job.getProgress();
+
+        // Finished while the session was being opened: its final event may have been missed
+        if (job.isFinished()) {
+            progressPublisher.completeSession(job.getId());
+            return Flux.just(job.getProgress());
+        }
+
+        return live.startWith(latest)
+                .takeUntil(SyncProgress::isCompleted);
+    }
+
+    private void run(PlanningJob job) {
+        job.start();
+        publish(job, progress(job.getId(), "STARTING", 1, "Starting plan generation..."));
+
+        try {
+            WorkPlanResult result = workPlanningService.generateWorkPlan(job.getRequest(),
+                    (phase, percentage, message) -> publish(job, progress(job.getId(), phase, percentage, message)));
+            job.complete(result);
+
+            SyncProgress done = SyncProgress.completed(job.getId(), OPERATION_TYPE,
+                    String.format("Work plan generated: %d created, %d kept, %d removed in %.1f seconds",
+                            result.getCreated().size(), result.getKeptCount(), result.getRemovedCount(),
+                            result.getTimings().getTotalMs() / 1000.0),
+                    result.getCreated().size());
+            publish(job, done);
+            log.info("✅ Plan generation job {} completed", job.getId());
+
+        } catch (Exception e) {
+            log.error("❌ Plan generation job {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+            publish(job, SyncProgress.error(job.getId(), OPERATION_TYPE, e.getMessage()));
+        } finally {
+            evictFinished();
+        }
+    }
+
+    private void publish(PlanningJob job, SyncProgress progress) {
+        job.setProgress(progress);
+        if (progressPublisher.isSessionActive(job.getId())) {
+            progressPublisher.publishProgress(job.getId(), progress);
+        }
+    }
+
+    private SyncProgress progress(String jobId, String phase, int percentage, String message) {
+        return SyncProgress.builder()
+                .syncId(jobId)
+                .operationType(OPERATION_TYPE)
+                .phase(phase)
+                .percentage(percentage)
+                .currentOperation(message)
+                .message(message)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Drop the oldest finished jobs beyond the retention limit
+     */
+    private void evictFinished() {
+        synchronized (jobs) {
+            long finished = jobs.values().stream().filter(PlanningJob::isFinished).count();
+            Iterator<PlanningJob> iterator = jobs.values().iterator();
+            while (finished > retained && iterator.hasNext()) {
+                if (iterator.next().isFinished()) {
+                    iterator.remove();
+                    finished--;
+                }
+            }
+        }
+    }
+}
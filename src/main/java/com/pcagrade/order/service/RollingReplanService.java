@@ -0,0 +1,215 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.RollingReplanRun;
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.repository.WorkAssignmentRepository;
+import com.pcagrade.order.service.planning.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Rolling-horizon re-planner
+ *
+ * Every planning.rolling.interval-ms, or soon after a sync changed order statuses, the
+ * not-yet-started work of the next planning.rolling.horizon-hours is re-planned against
+ * the current state (see WorkPlanningService.replanHorizon); the far future keeps its
+ * coarser plan from earlier runs. The active plan is held in memory between runs and
+ * only refreshed with the assignments that left SCHEDULED since the previous run, so
+ * a run reads the orders and employees but not the whole plan. The plan is read again
+ * after another version was activated and every planning.rolling.full-reload-ms.
+ * Off by default (planning.rolling.enabled); each changed run adds a ROLLING plan version,
+ * retained apart from generated ones (planning.versions.retained-rolling).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RollingReplanService {
+
+    private static final Set<AssignmentStatus> PLAN_STATUSES =
+            EnumSet.of(AssignmentStatus.SCHEDULED, AssignmentStatus.IN_PROGRESS, AssignmentStatus.COMPLETED);
+    private static final Set<AssignmentStatus> LEFT_SCHEDULED =
+            EnumSet.of(AssignmentStatus.IN_PROGRESS, AssignmentStatus.COMPLETED, AssignmentStatus.CANCELLED);
+
+    // Rows committed after a refresh with an earlier modification date are read again
+    private static final long REFRESH_OVERLAP_SECONDS = 60;
+
+    private final WorkPlanningService workPlanningService;
+    private final PlanVersionService planVersionService;
+    private final WorkAssignmentRepository workAssignmentRepository;
+
+    @Value("${planning.rolling.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Length of the re-planned window
+     */
+    @Value("${planning.rolling.horizon-hours:8}")
+    private int horizonHours;
+
+    @Value("${planning.rolling.interval-ms:900000}")
+    private long intervalMs;
+
+    @Value("${planning.rolling.full-reload-ms:3600000}")
+    private long fullReloadMs;
+
+    @Value("${planning.rolling.retained-runs:20}")
+    private int retainedRuns;
+
+    private RollingPlanState state;
+    private volatile boolean orderStatusChanged;
+    private volatile long lastRunMillis;
+
+    // Most recent runs first
+    private final Deque<RollingReplanRun> runs = new ArrayDeque<>();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        log.debug("📬 {} orders changed status, rolling re-plan requested", event.orderCount());
+        orderStatusChanged = true;
+    }
+
+    /**
+     * Runs when the interval elapsed or order statuses changed, at most once per planning.rolling.min-gap-ms
+     */
+    @Scheduled(fixedDelayString = "${planning.rolling.min-gap-ms:60000}",
+            initialDelayString = "${planning.rolling.min-gap-ms:60000}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        boolean due = System.currentTimeMillis() - lastRunMillis >= intervalMs;
+        if (due || orderStatusChanged) {
+            run(due ? "SCHEDULE" : "ORDER_STATUS");
+        }
+    }
+
+    /**
+     * Re-plan the horizon now
+     */
+    public synchronized RollingReplanRun run(String trigger) {
+        orderStatusChanged = false;
+        lastRunMillis = System.currentTimeMillis();
+        long startTime = lastRunMillis;
+
+        RollingReplanRun run = new RollingReplanRun();
+        run.setStartedAt(LocalDateTime.now());
+        run.setTrigger(trigger);
+        run.setHorizonHours(horizonHours);
+
+        try {
+            Optional<UUID> activeId = planVersionService.getActiveVersionId();
+            if (activeId.isEmpty()) {
+                state = null;
+                run.setOutcome("SKIPPED");
+                run.setMessage("No active plan version: generate a plan first");
+                run.setTotalMs(System.currentTimeMillis() - startTime);
+                return record(run);
+            }
+
+            // ========== LOAD ==========
+
+            LocalDateTime readAt = LocalDateTime.now();
+            boolean fullReload = state == null || !state.getVersionId().equals(activeId.get())
+                    || state.getLoadedAt().isBefore(readAt.minus(Duration.ofMillis(fullReloadMs)));
+            if (fullReload) {
+                state = new RollingPlanState(activeId.get(), PlannedAssignment.withLotOrders(
+                        workAssignmentRepository.findPlannedByStatusIn(PLAN_STATUSES),
+                        workAssignmentRepository.findLotOrdersByStatusIn(PLAN_STATUSES)), readAt);
+                run.setRefreshedRows(state.size());
+            } else {
+                LocalDateTime since = state.getRefreshedAt().minusSeconds(REFRESH_OVERLAP_SECONDS);
+                List<PlannedAssignment> changed = PlannedAssignment.withLotOrders(
+                        workAssignmentRepository.findPlannedByStatusInModifiedAfter(LEFT_SCHEDULED, since),
+                        workAssignmentRepository.findLotOrdersByStatusInModifiedAfter(LEFT_SCHEDULED, since));
+                state.refresh(changed, readAt);
+                run.setRefreshedRows(changed.size());
+            }
+            run.setFullReload(fullReload);
+
+            List<StageInput> inputs = workPlanningService.loadPlanningInputs(state.byStage());
+            run.setLoadMs(System.currentTimeMillis() - startTime);
+
+            // ========== RE-PLAN ==========
+
+            UUID baseVersionId = state.getVersionId();
+            WorkPlanResult result = workPlanningService.replanHorizon(inputs, horizonHours * 60L, baseVersionId);
+            boolean changedPlan = !baseVersionId.equals(result.getPlanVersionId());
+            if (changedPlan && result.getRebasedCount() > 0) {
+                // Kept work was written again under new ids: read the new plan in full next time
+                state = null;
+            } else if (changedPlan) {
+                state.replace(result.getPlanVersionId(), result.getRemovedIds(), result.getCreated());
+            }
+
+            run.setCreated(result.getCreated().size());
+            run.setRemoved(result.getRemovedCount());
+            run.setKept(result.getKeptCount());
+            run.setLateOrders(result.getLateness() != null ? result.getLateness().getLateOrderCount() : null);
+            run.setPlanVersionId(result.getPlanVersionId());
+            run.setComputeMs(result.getTimings().getComputeMs());
+            run.setPersistMs(result.getTimings().getPersistMs());
+            run.setOutcome(changedPlan ? "REPLANNED" : "UNCHANGED");
+
+        } catch (PlanVersionService.VersionConflictException e) {
+            // Another plan was activated meanwhile: it is read in full next time
+            state = null;
+            run.setOutcome("SKIPPED");
+            run.setMessage(e.getMessage());
+            log.warn("⚠️ Rolling re-plan skipped: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            state = null;
+            run.setOutcome("FAILED");
+            run.setMessage(e.getMessage());
+            log.error("❌ Rolling re-plan failed", e);
+        }
+
+        run.setTotalMs(System.currentTimeMillis() - startTime);
+        if (run.getCreated() != null) {
+            log.info("🔁 Rolling re-plan ({}, {}h horizon, {}): {} created, {} removed, {} kept in {}ms " +
+                            "(load {}ms, compute {}ms, persist {}ms)", trigger, horizonHours,
+                    run.getFullReload() ? "full reload" : run.getRefreshedRows() + " rows refreshed",
+                    run.getCreated(), run.getRemoved(), run.getKept(), run.getTotalMs(),
+                    run.getLoadMs(), run.getComputeMs(), run.getPersistMs());
+        }
+        return record(run);
+    }
+
+    /**
+     * Retained runs, most recent first
+     */
+    public List<RollingReplanRun> getRuns() {
+        synchronized (runs) {
+            return new ArrayList<>(runs);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getHorizonHours() {
+        return horizonHours;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    private RollingReplanRun record(RollingReplanRun run) {
+        synchronized (runs) {
+            runs.addFirst(run);
+            while (runs.size() > Math.max(retainedRuns, 1)) {
+                runs.removeLast();
+            }
+        }
+        return run;
+    }
+}
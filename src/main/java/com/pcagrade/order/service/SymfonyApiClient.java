@@ -1,5 +1,8 @@
 package com.pcagrade.order.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -7,24 +10,45 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 /**
  * Symfony API Client
  * Consumes data export API from Symfony backend
+ *
+ * Paginated exports are parsed token by token from the response stream: the stream*
+ * methods hand each record to a consumer as soon as it is read, so a full export never
+ * sits in memory. The fetchAll* methods collect the same records into a list.
+ *
+ * The first page of an export reports the total: the remaining pages are then requested
+ * concurrently (at most symfony.api.max-concurrent-pages in flight, sendAsync) and still
+ * delivered in order, so only the pages in flight are buffered.
  */
 @Service
 public class SymfonyApiClient {
 
     private static final Logger log = LoggerFactory.getLogger(SymfonyApiClient.class);
+    private static final TypeReference<Map<String, Object>> RECORD_TYPE = new TypeReference<>() {};
+    private static final int PAGE_SIZE = 1000;
 
     @Value("${symfony.api.base-url:http://localhost:8000}")
     private String symfonyApiBaseUrl;
@@ -35,6 +59,12 @@ public class SymfonyApiClient {
     @Value("${symfony.api.timeout:30}")
     private int timeoutSeconds;
 
+    /**
+     * Page requests in flight at once after the first page (1 = sequential)
+     */
+    @Value("${symfony.api.max-concurrent-pages:4}")
+    private int maxConcurrentPages;
+
 
     /**
      * Build API URL with locale
@@ -75,7 +105,7 @@ public class SymfonyApiClient {
      * Fetch orders modified since a specific date (incremental sync)
      */
     public List<Map<String, Object>> fetchOrdersSince(String since) {
-        return fetchAllPaginated("/api/export/orders?since=" + since);
+        return fetchAllPaginated(sinceEndpoint("/api/export/orders", since));
     }
 
     /**
@@ -106,6 +136,57 @@ public class SymfonyApiClient {
         return fetchAllPaginated("/api/export/card-certification-orders");
     }
 
+    /**
+     * Stream the orders modified since a date, one record at a time
+     *
+     * @return records delivered
+     * @throws UncheckedIOException when any page fails (the delta is then incomplete)
+     */
+    public long streamOrdersSince(String since, Consumer<Map<String, Object>> consumer) {
+        return streamChanges("/api/export/orders", since, consumer);
+    }
+
+    /**
+     * Stream the card certifications modified since a date, one record at a time
+     *
+     * @return records delivered
+     * @throws UncheckedIOException when any page fails (the delta is then incomplete)
+     */
+    public long streamCardCertificationsSince(String since, Consumer<Map<String, Object>> consumer) {
+        return streamChanges("/api/export/card-certifications", since, consumer);
+    }
+
+    /**
+     * Stream the card translations modified since a date, one record at a time
+     *
+     * @return records delivered
+     * @throws UncheckedIOException when any page fails (the delta is then incomplete)
+     */
+    public long streamCardTranslationsSince(String since, Consumer<Map<String, Object>> consumer) {
+        return streamChanges("/api/export/card-translations", since, consumer);
+    }
+
+    /**
+     * Rows of the whole orders export, from the pagination of a one-row page (-1 when unknown)
+     */
+    public long countOrders() {
+        return countRows("/api/export/orders");
+    }
+
+    /**
+     * Rows of the whole card certifications export (-1 when unknown)
+     */
+    public long countCardCertifications() {
+        return countRows("/api/export/card-certifications");
+    }
+
+    /**
+     * Rows of the whole card translations export (-1 when unknown)
+     */
+    public long countCardTranslations() {
+        return countRows("/api/export/card-translations");
+    }
+
     /**
      * Get statistics from Symfony API
      */
@@ -172,73 +253,254 @@ public class SymfonyApiClient {
     // ========== PRIVATE HELPER METHODS ==========
 
     /**
-     * Fetch all pages from a paginated endpoint
+     * Fetch all pages from a paginated endpoint into a list
      */
     private List<Map<String, Object>> fetchAllPaginated(String endpoint) {
         List<Map<String, Object>> allData = new ArrayList<>();
-        int offset = 0;
-        int limit = 1000;
-        boolean hasMore = true;
+        fetchAllPaginated(endpoint, allData::add);
+        return allData;
+    }
 
+    /**
+     * Stream all pages from a paginated endpoint to a consumer
+     * Fetch errors end the export early (logged, records delivered so far are kept);
+     * exceptions thrown by the consumer propagate.
+     *
+     * @return records delivered
+     */
+    private long fetchAllPaginated(String endpoint, Consumer<Map<String, Object>> consumer) {
+        long[] delivered = new long[1];
         try {
-            log.info("🔄 Starting paginated fetch from: {}", endpoint);
+            streamPaginated(endpoint, record -> {
+                consumer.accept(record);
+                delivered[0]++;
+            });
+        } catch (IOException e) {
+            log.error("❌ Error during paginated fetch from {} after {} items", endpoint, delivered[0], e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("⚠️ Paginated fetch from {} interrupted after {} items", endpoint, delivered[0]);
+        }
+        return delivered[0];
+    }
 
-            while (hasMore) {
-                // ✅ Utiliser buildApiUrl() pour ajouter le locale
-                String url = buildApiUrl(String.format("%s?limit=%d&offset=%d", endpoint, limit, offset));
+    /**
+     * Stream all pages from a paginated endpoint to a consumer, failing on the first bad page
+     *
+     * @return records delivered
+     * @throws IOException when a page cannot be fetched, is not HTTP 200 or reports success=false
+     */
+    private long streamPaginated(String endpoint, Consumer<Map<String, Object>> consumer)
+            throws IOException, InterruptedException {
+        long delivered = 0;
+        int offset = 0;
+        boolean hasMore = true;
+        log.info("🔄 Starting paginated fetch from: {}", endpoint);
+
+        while (hasMore) {
+            Page page = fetchPage(endpoint, offset, consumer);
+            delivered += page.records();
+            offset += PAGE_SIZE;
+            hasMore = page.hasMore();
+            log.debug("✅ Fetched {} items (total so far: {})", page.records(), delivered);
+
+            // The first page tells the total: fetch the rest concurrently, then go on
+            // page by page in case the export grew meanwhile
+            if (hasMore && offset == PAGE_SIZE && maxConcurrentPages > 1 && page.total() > offset) {
+                Window window = fetchPagesConcurrently(endpoint, offset, page.total(), consumer);
+                delivered += window.records();
+                offset = window.nextOffset();
+                hasMore = window.hasMore();
+            }
+        }
 
-                log.debug("📥 Fetching page: {} (offset: {})", url, offset);
+        log.info("✅ Completed fetch from {}: {} total items", endpoint, delivered);
+        return delivered;
+    }
 
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(url))
-                        .timeout(Duration.ofSeconds(timeoutSeconds))
-                        .GET()
-                        .build();
+    /**
+     * Fetch one page, streaming its records to the consumer
+     */
+    private Page fetchPage(String endpoint, int offset, Consumer<Map<String, Object>> consumer)
+            throws IOException, InterruptedException {
+        String url = buildApiUrl(pageEndpoint(endpoint, PAGE_SIZE, offset));
+        log.debug("📥 Fetching page: {} (offset: {})", url, offset);
+
+        HttpResponse<InputStream> response = httpClient.send(pageRequest(url),
+                HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            checkStatus(response.statusCode(), url);
+            return successful(readPage(body, consumer));
+        }
+    }
 
-                HttpResponse<String> response = httpClient.send(request,
-                        HttpResponse.BodyHandlers.ofString());
+    /**
+     * Fetch the pages from offset up to total with a sliding window of async requests
+     * Pages are parsed and delivered in offset order as the head of the window completes;
+     * the window is refilled before each wait, so at most maxConcurrentPages bodies are
+     * buffered. Requests still in flight are cancelled when a page fails.
+     */
+    private Window fetchPagesConcurrently(String endpoint, int offset, long total,
+                                          Consumer<Map<String, Object>> consumer)
+            throws IOException, InterruptedException {
+        Deque<CompletableFuture<HttpResponse<byte[]>>> inFlight = new ArrayDeque<>();
+        int nextOffset = offset;
+        long records = 0;
+        boolean hasMore = true;
+        log.debug("⏩ Fetching {} from offset {} with {} concurrent requests", endpoint, offset, maxConcurrentPages);
 
-                if (response.statusCode() != 200) {
-                    log.error("❌ HTTP {} from {}", response.statusCode(), url);
-                    break;
+        try {
+            while (nextOffset < total || !inFlight.isEmpty()) {
+                while (inFlight.size() < maxConcurrentPages && nextOffset < total) {
+                    inFlight.add(httpClient.sendAsync(
+                            pageRequest(buildApiUrl(pageEndpoint(endpoint, PAGE_SIZE, nextOffset))),
+                            HttpResponse.BodyHandlers.ofByteArray()));
+                    nextOffset += PAGE_SIZE;
                 }
 
-                JsonNode root = objectMapper.readTree(response.body());
-
-                if (!root.path("success").asBoolean(false)) {
-                    log.error("❌ API returned success=false");
-                    break;
+                HttpResponse<byte[]> response;
+                try {
+                    response = inFlight.poll().get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException io) {
+                        throw io;
+                    }
+                    throw new IOException(e.getCause());
                 }
+                checkStatus(response.statusCode(), response.uri());
+                Page page = successful(readPage(new ByteArrayInputStream(response.body()), consumer));
+                records += page.records();
+                hasMore = page.hasMore();
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+        return new Window(records, nextOffset, hasMore);
+    }
 
-                JsonNode dataNode = root.get("data");
-                if (dataNode != null && dataNode.isArray()) {
-                    List<Map<String, Object>> pageData = objectMapper.convertValue(
-                            dataNode,
-                            objectMapper.getTypeFactory().constructCollectionType(List.class, Map.class)
-                    );
-                    allData.addAll(pageData);
-                    log.debug("✅ Fetched {} items (total so far: {})", pageData.size(), allData.size());
-                }
+    private HttpRequest pageRequest(String url) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(timeoutSeconds))
+                .GET()
+                .build();
+    }
 
-                JsonNode pagination = root.get("pagination");
-                hasMore = pagination != null && pagination.path("hasMore").asBoolean(false);
-                offset += limit;
+    private static void checkStatus(int statusCode, Object url) throws IOException {
+        if (statusCode != 200) {
+            throw new IOException("HTTP " + statusCode + " from " + url);
+        }
+    }
 
-                // Safety limit
-//                if (allData.size() > 100000) {
-//                    log.warn("⚠️ Reached safety limit of 100,000 records");
-//                    break;
-//                }
+    private static Page successful(Page page) throws IOException {
+        if (!page.success()) {
+            throw new IOException("API returned success=false");
+        }
+        return page;
+    }
+
+    /**
+     * Parse one page from the response stream
+     * Records of "data" are bound one at a time and handed to the consumer; other fields
+     * are skipped without being materialized, except the small "pagination" object.
+     * A page whose "success" field is false delivers no records after it.
+     * Package-private for tests.
+     */
+    Page readPage(InputStream body, Consumer<Map<String, Object>> consumer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new Page(false, 0, false, -1L);
             }
 
-            log.info("✅ Completed fetch from {}: {} total items", endpoint, allData.size());
-            return allData;
+            Boolean success = null;
+            int records = 0;
+            boolean hasMore = false;
+            long total = -1L;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("success".equals(field)) {
+                    success = value == JsonToken.VALUE_TRUE;
+                } else if ("data".equals(field) && value == JsonToken.START_ARRAY && !Boolean.FALSE.equals(success)) {
+                    for (JsonToken item = parser.nextToken(); item != JsonToken.END_ARRAY; item = parser.nextToken()) {
+                        if (item == JsonToken.START_OBJECT) {
+                            consumer.accept(objectMapper.readValue(parser, RECORD_TYPE));
+                            records++;
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else if ("pagination".equals(field) && value == JsonToken.START_OBJECT) {
+                    JsonNode pagination = objectMapper.readTree(parser);
+                    hasMore = pagination.path("hasMore").asBoolean(false);
+                    total = pagination.path("total").asLong(-1L);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new Page(Boolean.TRUE.equals(success), records, hasMore, total);
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("❌ Error during paginated fetch from {}", endpoint, e);
-            return allData;
+    private long streamChanges(String endpoint, String since, Consumer<Map<String, Object>> consumer) {
+        try {
+            return streamPaginated(sinceEndpoint(endpoint, since), consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to fetch " + endpoint + " since " + since, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching " + endpoint, e);
+        }
+    }
+
+    private long countRows(String endpoint) {
+        String url = buildApiUrl(pageEndpoint(endpoint, 1, 0));
+        try {
+            HttpResponse<InputStream> response = httpClient.send(pageRequest(url),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                checkStatus(response.statusCode(), url);
+                return successful(readPage(body, record -> { })).total();
+            }
+        } catch (IOException e) {
+            log.warn("⚠️ Could not count {}: {}", endpoint, e.getMessage());
+            return -1L;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1L;
         }
     }
+
+    /**
+     * Delta endpoint: the export is asked for rows modified since the date
+     * Whether /api/export honors "since" is not documented (the planning exporter only
+     * knows since_year), so IncrementalSyncService checks the delta against countRows.
+     */
+    private static String sinceEndpoint(String endpoint, String since) {
+        return endpoint + "?since=" + URLEncoder.encode(since, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Endpoint of one page (the endpoint may already carry a query string)
+     */
+    private static String pageEndpoint(String endpoint, int limit, int offset) {
+        return String.format("%s%slimit=%d&offset=%d", endpoint, endpoint.contains("?") ? "&" : "?", limit, offset);
+    }
+
+    /**
+     * One parsed page: whether the API reported success, records delivered, whether more
+     * pages follow and the total reported by the pagination (-1 = unknown)
+     */
+    record Page(boolean success, int records, boolean hasMore, long total) {
+    }
+
+    /**
+     * Pages fetched concurrently: records delivered, offset of the next page to fetch and
+     * whether the last page reported more
+     */
+    private record Window(long records, int nextOffset, boolean hasMore) {
+    }
+
     /**
      * Fetch all invoices from Symfony API
      */
@@ -0,0 +1,228 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.DispatchBoardDTO;
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.Employee;
+import com.pcagrade.order.repository.EmployeeRepository;
+import com.pcagrade.order.repository.WorkAssignmentRepository;
+import com.pcagrade.order.service.planning.DispatchBoard;
+import com.pcagrade.order.service.planning.DispatchLotOrder;
+import com.pcagrade.order.service.planning.DispatchTask;
+import com.pcagrade.order.service.planning.PlanVersionActivatedEvent;
+import com.pcagrade.order.service.planning.PlanningStage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pull-based dispatching of the active plan
+ *
+ * Employees ask for their next task instead of following the planned timeline: the
+ * top ready task of the stages they are trained for is taken from the in-memory
+ * DispatchBoard in O(log n), then claimed with one conditional UPDATE by id. A task
+ * whose row is no longer SCHEDULED (started elsewhere, plan replaced) is dropped and
+ * the next one is tried. Handing out work never reads the database, so the floor keeps
+ * flowing on the last loaded plan even when it is stale.
+ *
+ * The board is rebuilt when a plan version is activated, at startup and every
+ * planning.dispatch.reload-interval-ms (to pick up orders moving between stages).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TaskDispatchService {
+
+    private final WorkAssignmentRepository workAssignmentRepository;
+    private final EmployeeRepository employeeRepository;
+    private final WorkAssignmentBulkWriter bulkWriter;
+    private final DurationModelService durationModelService;
+
+    /**
+     * Stale tasks skipped at most per request before giving up
+     */
+    @Value("${planning.dispatch.max-claim-attempts:50}")
+    private int maxClaimAttempts;
+
+    private volatile DispatchBoard board = new DispatchBoard(List.of());
+    private volatile LocalDateTime loadedAt;
+    private volatile long loadMillis;
+
+    // Stages each active employee may work in (from their teams)
+    private final Map<UUID, Set<PlanningStage>> employeeStages = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        reload();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanVersionActivated(PlanVersionActivatedEvent event) {
+        log.info("📋 Plan version {} activated, reloading the dispatch board", event.versionId());
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${planning.dispatch.reload-interval-ms:300000}",
+            initialDelayString = "${planning.dispatch.reload-interval-ms:300000}")
+    public void scheduledReload() {
+        reload();
+    }
+
+    /**
+     * Rebuild the board from the open work of the active plan
+     * Built aside and swapped in whole: dispatching continues on the old board meanwhile.
+     */
+    public synchronized void reload() {
+        long startTime = System.currentTimeMillis();
+
+        Map<UUID, Set<PlanningStage>> stages = new HashMap<>();
+        for (Employee employee : employeeRepository.findByActiveTrue()) {
+            stages.put(employee.getId(), stagesOf(employee));
+        }
+
+        EnumSet<AssignmentStatus> statuses = EnumSet.of(AssignmentStatus.SCHEDULED, AssignmentStatus.IN_PROGRESS);
+        List<DispatchTask> tasks = withLotOrders(workAssignmentRepository.findDispatchTasksByStatusIn(statuses),
+                workAssignmentRepository.findDispatchLotOrdersByStatusIn(statuses));
+        DispatchBoard rebuilt = new DispatchBoard(tasks);
+
+        employeeStages.clear();
+        employeeStages.putAll(stages);
+        board = rebuilt;
+        loadedAt = LocalDateTime.now();
+        loadMillis = System.currentTimeMillis() - startTime;
+
+        log.info("🚦 Dispatch board loaded: {} open tasks, {} ready, {} in progress in {}ms", tasks.size(),
+                Arrays.stream(PlanningStage.values()).mapToInt(rebuilt::readyCount).sum(),
+                rebuilt.inProgressCount(), loadMillis);
+    }
+
+    /**
+     * Hand the top ready task of the employee's stages to the employee and start it
+     *
+     * @return the started task, or empty when no work is ready for this employee
+     * @throws IllegalArgumentException when the employee is unknown or inactive
+     */
+    public Optional<DispatchTask> next(UUID employeeId) {
+        Set<PlanningStage> stages = stagesOf(employeeId);
+        DispatchBoard current = board;
+
+        for (int attempt = 0; attempt < maxClaimAttempts; attempt++) {
+            Optional<DispatchTask> taken = current.take(stages);
+            if (taken.isEmpty()) {
+                return Optional.empty();
+            }
+
+            DispatchTask task = taken.get();
+            LocalDateTime now = LocalDateTime.now();
+            boolean claimed;
+            try {
+                claimed = bulkWriter.claimScheduled(task.id(), employeeId, now);
+            } catch (RuntimeException e) {
+                current.putBack(task);
+                throw e;
+            }
+            if (claimed) {
+                DispatchTask started = task.started(employeeId, now);
+                current.started(started);
+                log.debug("▶️ Task {} ({} {} cards, order {}) handed to employee {}", task.id(),
+                        task.processingStage(), task.cards(), task.orderNumber(), employeeId);
+                return Optional.of(started);
+            }
+            log.debug("⏭️ Task {} is no longer scheduled, skipped", task.id());
+        }
+
+        log.warn("⚠️ No claimable task for employee {} after {} stale tasks", employeeId, maxClaimAttempts);
+        return Optional.empty();
+    }
+
+    /**
+     * Complete a task handed out by the dispatcher (or started elsewhere)
+     * Learns its duration and releases the order's next stage when it was the last task of its stage.
+     *
+     * @param employeeId only complete the task when it is assigned to this employee, null for any employee
+     * @throws IllegalStateException when the assignment is not in progress (for that employee)
+     */
+    public DispatchTask complete(UUID assignmentId, UUID employeeId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!bulkWriter.completeInProgress(assignmentId, employeeId, now)) {
+            throw new IllegalStateException(employeeId == null
+                    ? "Assignment " + assignmentId + " is not in progress"
+                    : "Assignment " + assignmentId + " is not in progress for employee " + employeeId);
+        }
+
+        Optional<DispatchTask> task = board.completed(assignmentId);
+        task.ifPresent(done -> durationModelService.record(done.processingStage(), done.employeeId(),
+                done.cards(), done.actualStart(), now));
+        return task.orElse(null);
+    }
+
+    /**
+     * Note a completion recorded outside the dispatcher
+     */
+    public void onCompleted(UUID assignmentId) {
+        board.completed(assignmentId);
+    }
+
+    public DispatchBoardDTO getBoard() {
+        DispatchBoard current = board;
+        DispatchBoardDTO dto = new DispatchBoardDTO();
+        for (PlanningStage stage : PlanningStage.values()) {
+            dto.getReadyByStage().put(stage.name(), current.readyCount(stage));
+        }
+        dto.setWaiting(current.waitingCount());
+        dto.setInProgress(current.inProgressCount());
+        dto.setLoadedAt(loadedAt);
+        dto.setLoadMs(loadMillis);
+        return dto;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private static List<DispatchTask> withLotOrders(List<DispatchTask> tasks, List<DispatchLotOrder> lotOrders) {
+        if (lotOrders.isEmpty()) {
+            return tasks;
+        }
+        Map<UUID, List<DispatchLotOrder>> byLot = new HashMap<>();
+        lotOrders.forEach(order -> byLot.computeIfAbsent(order.assignmentId(), id -> new ArrayList<>()).add(order));
+        List<DispatchTask> merged = new ArrayList<>(tasks.size());
+        for (DispatchTask task : tasks) {
+            List<DispatchLotOrder> orders = byLot.get(task.id());
+            merged.add(orders != null ? task.withLotOrders(orders) : task);
+        }
+        return merged;
+    }
+
+    /**
+     * Stages of an employee; an employee created since the last reload is read once
+     */
+    private Set<PlanningStage> stagesOf(UUID employeeId) {
+        Set<PlanningStage> stages = employeeStages.get(employeeId);
+        if (stages != null) {
+            return stages;
+        }
+        Employee employee = employeeRepository.findById(employeeId)
+                .filter(found -> Boolean.TRUE.equals(found.getActive()))
+                .orElseThrow(() -> new IllegalArgumentException("Unknown or inactive employee: " + employeeId));
+        stages = stagesOf(employee);
+        employeeStages.put(employeeId, stages);
+        return stages;
+    }
+
+    private static Set<PlanningStage> stagesOf(Employee employee) {
+        Set<PlanningStage> stages = EnumSet.noneOf(PlanningStage.class);
+        for (PlanningStage stage : PlanningStage.values()) {
+            if (employee.hasRole(stage.getRequiredRole())) {
+                stages.add(stage);
+            }
+        }
+        return stages;
+    }
+}
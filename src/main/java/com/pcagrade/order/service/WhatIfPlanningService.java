@@ -0,0 +1,241 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.WhatIfScenario;
+import com.pcagrade.order.entity.Employee;
+import com.pcagrade.order.service.planning.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * What-if planning sandbox
+ *
+ * Loads the planner's inputs once into an immutable PlanningSnapshot, then plans
+ * scenarios (extra or absent employees, hypothetical orders) against it entirely in
+ * memory: nothing is read from or written to the database per scenario. Scenarios of a
+ * request run concurrently on the what-if executor and share the same plan origin,
+ * so their results are comparable. Scenario sizes and search budgets are capped
+ * (planning.what-if.*) and a scenario searches on its own thread only.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WhatIfPlanningService {
+
+    private final WorkPlanningService workPlanningService;
+
+    @Qualifier("whatIfExecutor")
+    private final ThreadPoolTaskExecutor whatIfExecutor;
+
+    @Value("${planning.what-if.max-scenarios:32}")
+    private int maxScenarios;
+
+    /**
+     * Per scenario: temporary employees, hypothetical orders and search budget
+     */
+    @Value("${planning.what-if.max-extra-employees:50}")
+    private int maxExtraEmployees;
+
+    @Value("${planning.what-if.max-extra-orders:5000}")
+    private int maxExtraOrders;
+
+    @Value("${planning.what-if.max-search-ms:5000}")
+    private long maxSearchMs;
+
+    private volatile PlanningSnapshot snapshot;
+
+    /**
+     * Load a fresh snapshot of orders, employees and the current plan
+     */
+    public synchronized PlanningSnapshot refreshSnapshot() {
+        long start = System.currentTimeMillis();
+        List<StageInput> inputs = workPlanningService.loadPlanningInputs();
+        snapshot = PlanningSnapshot.of(UUID.randomUUID().toString(), System.currentTimeMillis() - start, inputs);
+        log.info("📸 What-if snapshot {} loaded in {}ms", snapshot.id(), snapshot.loadMillis());
+        return snapshot;
+    }
+
+    /**
+     * Current snapshot, if one was loaded
+     */
+    public Optional<PlanningSnapshot> getSnapshot() {
+        return Optional.ofNullable(snapshot);
+    }
+
+    /**
+     * Plan scenarios against the current snapshot (loaded first if there is none)
+     *
+     * @throws IllegalArgumentException when more than planning.what-if.max-scenarios are given
+     *                                  or a scenario exceeds the what-if limits (nothing is planned)
+     */
+    public List<WhatIfOutcome> run(List<WhatIfScenario> scenarios) {
+        if (scenarios.size() > maxScenarios) {
+            throw new IllegalArgumentException("At most " + maxScenarios + " scenarios per request");
+        }
+        scenarios.forEach(this::checkLimits);
+        PlanningSnapshot current = snapshot != null ? snapshot : refreshSnapshot();
+        LocalDateTime origin = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+
+        List<Future<WhatIfOutcome>> futures = new ArrayList<>(scenarios.size());
+        for (WhatIfScenario scenario : scenarios) {
+            futures.add(whatIfExecutor.submit(() -> plan(current, scenario, origin)));
+        }
+
+        List<WhatIfOutcome> outcomes = new ArrayList<>(scenarios.size());
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    outcomes.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    log.error("❌ What-if scenario '{}' failed", scenarios.get(i).getName(), e.getCause());
+                    outcomes.add(new WhatIfOutcome(scenarios.get(i), null, e.getCause().getMessage()));
+                }
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("What-if planning interrupted", e);
+        }
+        return outcomes;
+    }
+
+    private WhatIfOutcome plan(PlanningSnapshot current, WhatIfScenario scenario, LocalDateTime origin) {
+        PlanningMode mode;
+        try {
+            mode = scenario.getMode() != null ? PlanningMode.valueOf(scenario.getMode().toUpperCase()) : null;
+        } catch (IllegalArgumentException e) {
+            return new WhatIfOutcome(scenario, null, "Unknown planning mode: " + scenario.getMode());
+        }
+
+        List<StageInput> inputs;
+        try {
+            inputs = applyScenario(current, scenario, origin);
+        } catch (IllegalArgumentException e) {
+            return new WhatIfOutcome(scenario, null, e.getMessage());
+        }
+
+        WorkPlanResult result = workPlanningService.simulateWorkPlan(inputs, origin,
+                !Boolean.FALSE.equals(scenario.getFullRebuild()), mode,
+                scenario.getSearchMs() != null ? scenario.getSearchMs() : 0L);
+        log.info("🧪 What-if scenario '{}': {} assignments in {}ms", scenario.getName(),
+                result.getCreated().size(), result.getTimings().getComputeMs());
+        return new WhatIfOutcome(scenario, result, null);
+    }
+
+    /**
+     * The snapshot's inputs with the scenario's changes, on copies of the previous plans
+     */
+    private List<StageInput> applyScenario(PlanningSnapshot current, WhatIfScenario scenario, LocalDateTime origin) {
+        Map<PlanningStage, List<Employee>> extraEmployees = new EnumMap<>(PlanningStage.class);
+        for (WhatIfScenario.ExtraEmployees extra : scenario.getExtraEmployees()) {
+            PlanningStage stage = stageOf(extra.getStage());
+            List<Employee> employees = extraEmployees.computeIfAbsent(stage, s -> new ArrayList<>());
+            int count = countOf(extra.getCount());
+            for (int i = 0; i < count; i++) {
+                Employee employee = new Employee();
+                employee.setId(UUID.randomUUID());
+                employee.setFirstName("What-if");
+                employee.setLastName(stage.name() + " #" + (employees.size() + 1));
+                if (extra.getEfficiencyRating() != null) {
+                    employee.setEfficiencyRating(extra.getEfficiencyRating());
+                }
+                if (extra.getWorkHoursPerDay() != null) {
+                    employee.setWorkHoursPerDay(extra.getWorkHoursPerDay());
+                }
+                employees.add(employee);
+            }
+        }
+
+        Map<PlanningStage, List<PlanningOrder>> extraOrders = new EnumMap<>(PlanningStage.class);
+        int orderNumber = 0;
+        for (WhatIfScenario.ExtraOrders extra : scenario.getExtraOrders()) {
+            PlanningStage stage = stageOf(extra.getStage());
+            if (extra.getCardCount() == null || extra.getCardCount() <= 0) {
+                throw new IllegalArgumentException("Extra orders need a positive cardCount");
+            }
+            List<PlanningOrder> orders = extraOrders.computeIfAbsent(stage, s -> new ArrayList<>());
+            int count = countOf(extra.getCount());
+            for (int i = 0; i < count; i++) {
+                orders.add(new PlanningOrder(UUID.randomUUID(), "WHAT-IF-" + (++orderNumber),
+                        extra.getCardCount(), extra.getDelai(), origin, stage.getOrderStatus()));
+            }
+        }
+
+        Set<UUID> absent = new HashSet<>(scenario.getAbsentEmployeeIds());
+        List<StageInput> inputs = new ArrayList<>(current.inputs().size());
+        for (StageInput input : current.inputs()) {
+            List<Employee> employees = new ArrayList<>(input.employees().size());
+            for (Employee employee : input.employees()) {
+                if (!absent.contains(employee.getId())) {
+                    employees.add(employee);
+                }
+            }
+            employees.addAll(extraEmployees.getOrDefault(input.stage(), List.of()));
+
+            List<PlanningOrder> orders = input.orders();
+            List<PlanningOrder> added = extraOrders.get(input.stage());
+            if (added != null) {
+                orders = new ArrayList<>(orders);
+                orders.addAll(added);
+            }
+            inputs.add(input.withScenario(orders, employees));
+        }
+        return inputs;
+    }
+
+    /**
+     * Reject a scenario whose size or search budget exceeds the what-if limits
+     */
+    private void checkLimits(WhatIfScenario scenario) {
+        long employees = 0;
+        for (WhatIfScenario.ExtraEmployees extra : scenario.getExtraEmployees()) {
+            employees += countOf(extra.getCount());
+        }
+        if (employees > maxExtraEmployees) {
+            throw new IllegalArgumentException("At most " + maxExtraEmployees + " extra employees per scenario");
+        }
+
+        long orders = 0;
+        for (WhatIfScenario.ExtraOrders extra : scenario.getExtraOrders()) {
+            orders += countOf(extra.getCount());
+        }
+        if (orders > maxExtraOrders) {
+            throw new IllegalArgumentException("At most " + maxExtraOrders + " extra orders per scenario");
+        }
+
+        Long searchMs = scenario.getSearchMs();
+        if (searchMs != null && (searchMs < 0 || searchMs > maxSearchMs)) {
+            throw new IllegalArgumentException("searchMs must be between 0 and " + maxSearchMs + " in a scenario");
+        }
+    }
+
+    private static int countOf(Integer count) {
+        if (count == null) {
+            return 1;
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Counts cannot be negative");
+        }
+        return count;
+    }
+
+    private static PlanningStage stageOf(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("A stage is required (GRADING, CERTIFYING, SCANNING, PACKAGING)");
+        }
+        try {
+            return PlanningStage.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown stage: " + name);
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.pcagrade.order.service;
+
+import com.github.f4b6a3.ulid.UlidCreator;
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.PlanVersionPointer;
+import com.pcagrade.order.entity.WorkAssignment;
+import com.pcagrade.order.entity.WorkLotMember;
+import com.pcagrade.order.util.UlidConverter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bulk JDBC writer for generated work plans
+ *
+ * Bypasses Hibernate (ULID generator, lifecycle callbacks, per-entity inserts)
+ * the same way CardCertificationSyncService does for card sync:
+ * - ULIDs are pre-generated in Java
+ * - rows are written with multi-row INSERT statements
+ * - superseded rows are removed with chunked bulk DELETE statements
+ * - plan versions share rows: a version closes the rows it drops with one UPDATE per chunk
+ *   of ids instead of copying the rows it keeps
+ *
+ * The orders of work lots (work_assignment_order) are written, copied and deleted along
+ * with their assignment rows.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkAssignmentBulkWriter {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Rows per multi-row INSERT (16 parameters per row)
+     */
+    private static final int INSERT_CHUNK_SIZE = 500;
+
+    /**
+     * Ids per DELETE ... IN (...) statement
+     */
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private static final String INSERT_PREFIX = "INSERT INTO work_assignment (" +
+            "id, employee_id, order_id, processing_stage, card_count, estimated_duration_minutes, " +
+            "scheduled_start, scheduled_end, actual_start, actual_end, status, priority_score, " +
+            "creation_date, modification_date, plan_version_id, valid_from_version) VALUES ";
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int COLUMNS = 16;
+
+    /**
+     * Rows per chunk when pruning the rows of deleted versions
+     */
+    private static final int PRUNE_CHUNK_SIZE = 5000;
+
+    private static final String COPY_SQL = "INSERT INTO work_assignment (" +
+            "id, employee_id, order_id, processing_stage, card_count, estimated_duration_minutes, " +
+            "scheduled_start, scheduled_end, actual_start, actual_end, status, priority_score, " +
+            "creation_date, modification_date, plan_version_id, valid_from_version, source_assignment_id) " +
+            "SELECT ?, employee_id, order_id, processing_stage, card_count, estimated_duration_minutes, " +
+            "scheduled_start, scheduled_end, actual_start, actual_end, status, priority_score, " +
+            "creation_date, ?, ?, ?, COALESCE(source_assignment_id, id) FROM work_assignment WHERE id = ?";
+
+    private static final String COPY_LOT_SQL = "INSERT INTO work_assignment_order (assignment_id, order_id, card_count) " +
+            "SELECT ?, order_id, card_count FROM work_assignment_order WHERE assignment_id = ?";
+
+    private static final String INSERT_LOT_SQL =
+            "INSERT INTO work_assignment_order (assignment_id, order_id, card_count) VALUES (?, ?, ?)";
+
+    private static final String FULL_CHUNK_INSERT_SQL = buildInsertSql(INSERT_CHUNK_SIZE);
+
+    /**
+     * Insert new assignments
+     * Ids and audit dates are assigned in place, so the given objects can be returned to callers
+     *
+     * @return number of rows inserted
+     */
+    public int insertAll(List<WorkAssignment> assignments) {
+        if (assignments == null || assignments.isEmpty()) {
+            return 0;
+        }
+
+        long startTime = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        int inserted = 0;
+
+        for (int from = 0; from < assignments.size(); from += INSERT_CHUNK_SIZE) {
+            int to = Math.min(from + INSERT_CHUNK_SIZE, assignments.size());
+            int rows = to - from;
+
+            Object[] args = new Object[rows * COLUMNS];
+            int p = 0;
+            for (int i = from; i < to; i++) {
+                WorkAssignment assignment = assignments.get(i);
+                if (assignment.getId() == null) {
+                    assignment.setId(UlidCreator.getMonotonicUlid().toUuid());
+                }
+                assignment.setCreationDate(now);
+                assignment.setModificationDate(now);
+
+                AssignmentStatus status = assignment.getStatus() != null
+                        ? assignment.getStatus() : AssignmentStatus.SCHEDULED;
+
+                args[p++] = UlidConverter.uuidToBytes(assignment.getId());
+                args[p++] = UlidConverter.uuidToBytes(assignment.getEmployee().getId());
+                args[p++] = UlidConverter.uuidToBytes(assignment.getOrder().getId());
+                args[p++] = assignment.getProcessingStage();
+                args[p++] = assignment.getCardCount();
+                args[p++] = assignment.getEstimatedDurationMinutes();
+                args[p++] = assignment.getScheduledStart();
+                args[p++] = assignment.getScheduledEnd();
+                args[p++] = assignment.getActualStart();
+                args[p++] = assignment.getActualEnd();
+                args[p++] = status.name();
+                args[p++] = assignment.getPriorityScore();
+                args[p++] = now;
+                args[p++] = now;
+                args[p++] = UlidConverter.uuidToBytes(assignment.getPlanVersionId());
+                args[p++] = assignment.getValidFromVersion();
+            }
+
+            String sql = rows == INSERT_CHUNK_SIZE ? FULL_CHUNK_INSERT_SQL : buildInsertSql(rows);
+            inserted += jdbcTemplate.update(sql, args);
+        }
+        insertLotMembers(assignments);
+
+        log.info("💾 Bulk inserted {} work assignments in {}ms",
+                inserted, System.currentTimeMillis() - startTime);
+        return inserted;
+    }
+
+    /**
+     * Delete assignments by id, in chunks
+     *
+     * @return number of rows deleted
+     */
+    public int deleteByIds(Collection<UUID> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+
+        List<UUID> idList = ids instanceof List ? (List<UUID>) ids : new ArrayList<>(ids);
+        int deleted = 0;
+
+        for (int from = 0; from < idList.size(); from += DELETE_CHUNK_SIZE) {
+            int to = Math.min(from + DELETE_CHUNK_SIZE, idList.size());
+            int count = to - from;
+
+            Object[] args = new Object[count];
+            for (int i = 0; i < count; i++) {
+                args[i] = UlidConverter.uuidToBytes(idList.get(from + i));
+            }
+
+            String in = String.join(", ", Collections.nCopies(count, "?"));
+            jdbcTemplate.update("DELETE FROM work_assignment_order WHERE assignment_id IN (" + in + ")", args);
+            deleted += jdbcTemplate.update("DELETE FROM work_assignment WHERE id IN (" + in + ")", args);
+        }
+
+        log.debug("🗑️ Bulk deleted {} work assignments", deleted);
+        return deleted;
+    }
+
+    /**
+     * Delete every assignment in a status (single statement)
+     */
+    public int deleteByStatus(AssignmentStatus status) {
+        jdbcTemplate.update("DELETE m FROM work_assignment_order m JOIN work_assignment wa ON wa.id = m.assignment_id " +
+                "WHERE wa.status = ?", status.name());
+        return jdbcTemplate.update("DELETE FROM work_assignment WHERE status = ?", status.name());
+    }
+
+    /**
+     * Drop SCHEDULED assignments from a plan version and the later ones, in chunks
+     * Rows already dropped by an earlier version, or no longer SCHEDULED, are left as they are.
+     *
+     * @param sequence sequence of the first version without them
+     * @return number of rows closed
+     */
+    public int closeInVersion(Collection<UUID> ids, long sequence) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+
+        List<UUID> idList = ids instanceof List ? (List<UUID>) ids : new ArrayList<>(ids);
+        int closed = 0;
+        for (int from = 0; from < idList.size(); from += DELETE_CHUNK_SIZE) {
+            int to = Math.min(from + DELETE_CHUNK_SIZE, idList.size());
+            int count = to - from;
+
+            Object[] args = new Object[count + 2];
+            args[0] = sequence;
+            args[1] = AssignmentStatus.SCHEDULED.name();
+            for (int i = 0; i < count; i++) {
+                args[i + 2] = UlidConverter.uuidToBytes(idList.get(from + i));
+            }
+
+            String sql = "UPDATE work_assignment SET valid_to_version = ? WHERE status = ? " +
+                    "AND valid_to_version IS NULL AND id IN (" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+            closed += jdbcTemplate.update(sql, args);
+        }
+        return closed;
+    }
+
+    /**
+     * Drop from a new version every SCHEDULED row added after its parent (single statement)
+     * Used when the parent is not the latest version, so the new version does not inherit
+     * the additions of the versions generated after the parent.
+     *
+     * @return number of rows closed
+     */
+    public int closeAddedAfter(long parentSequence, long sequence) {
+        return jdbcTemplate.update("UPDATE work_assignment SET valid_to_version = ? WHERE status = ? " +
+                        "AND valid_to_version IS NULL AND valid_from_version > ?",
+                sequence, AssignmentStatus.SCHEDULED.name(), parentSequence);
+    }
+
+    /**
+     * Copy into a new version the SCHEDULED rows of its parent that a later version dropped
+     * (new ids, same content, one batched INSERT ... SELECT). A copy records the first row
+     * it descends from as its source assignment.
+     *
+     * @param excludedIds rows of the parent the new version leaves out
+     * @return number of rows copied
+     */
+    public int copyDroppedSince(long parentSequence, long sequence, UUID versionId, Collection<UUID> excludedIds) {
+        Set<UUID> excluded = excludedIds instanceof Set ? (Set<UUID>) excludedIds : new HashSet<>(excludedIds);
+        List<UUID> ids = new ArrayList<>();
+        jdbcTemplate.query("SELECT id FROM work_assignment WHERE status = ? AND valid_from_version <= ? " +
+                        "AND valid_to_version > ?",
+                (RowCallbackHandler) rs -> {
+                    UUID id = UlidConverter.bytesToUuid(rs.getBytes(1));
+                    if (!excluded.contains(id)) {
+                        ids.add(id);
+                    }
+                }, AssignmentStatus.SCHEDULED.name(), parentSequence, parentSequence);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        byte[] version = UlidConverter.uuidToBytes(versionId);
+        List<Object[]> batch = new ArrayList<>(ids.size());
+        List<Object[]> lotBatch = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            byte[] copyId = UlidConverter.uuidToBytes(UlidCreator.getMonotonicUlid().toUuid());
+            batch.add(new Object[]{copyId, now, version, sequence, UlidConverter.uuidToBytes(id)});
+            lotBatch.add(new Object[]{copyId, UlidConverter.uuidToBytes(id)});
+        }
+
+        int copied = 0;
+        for (int[] counts : jdbcTemplate.batchUpdate(COPY_SQL, batch, INSERT_CHUNK_SIZE,
+                WorkAssignmentBulkWriter::bind)) {
+            for (int count : counts) {
+                copied += Math.max(count, 0);
+            }
+        }
+        jdbcTemplate.batchUpdate(COPY_LOT_SQL, lotBatch, INSERT_CHUNK_SIZE, WorkAssignmentBulkWriter::bind);
+        log.debug("📋 Copied {} work assignments into plan version {}", copied, versionId);
+        return copied;
+    }
+
+    /**
+     * Delete the SCHEDULED rows of a plan version whose work was started, completed or
+     * cancelled through another copy of the same assignment (same source assignment)
+     *
+     * @param sequence sequence of the version
+     * @return number of rows deleted
+     */
+    public int deleteLeftScheduledCopies(long sequence) {
+        String scheduled = AssignmentStatus.SCHEDULED.name();
+        String visible = "c.valid_from_version <= ? AND (c.valid_to_version IS NULL OR c.valid_to_version > ?)";
+        Set<UUID> stale = new LinkedHashSet<>();
+        RowCallbackHandler collect = rs -> stale.add(UlidConverter.bytesToUuid(rs.getBytes(1)));
+
+        // The source row itself left SCHEDULED
+        jdbcTemplate.query("SELECT c.id FROM work_assignment c JOIN work_assignment s ON s.id = c.source_assignment_id " +
+                "WHERE " + visible + " AND c.status = ? AND s.status <> ?", collect, sequence, sequence, scheduled, scheduled);
+        // Another copy of the same source left SCHEDULED
+        jdbcTemplate.query("SELECT c.id FROM work_assignment c JOIN work_assignment s " +
+                        "ON s.source_assignment_id = COALESCE(c.source_assignment_id, c.id) AND s.id <> c.id " +
+                        "WHERE " + visible + " AND c.status = ? AND s.status <> ?",
+                collect, sequence, sequence, scheduled, scheduled);
+
+        return deleteByIds(stale);
+    }
+
+    /**
+     * Number of SCHEDULED assignments not yet in any plan version
+     */
+    public long countUnversionedScheduled() {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM work_assignment WHERE valid_from_version IS NULL AND status = ?",
+                Long.class, AssignmentStatus.SCHEDULED.name());
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Put every unversioned SCHEDULED assignment in a plan version and the later ones (single statement)
+     */
+    public int adoptUnversionedScheduled(UUID versionId, long sequence) {
+        return jdbcTemplate.update("UPDATE work_assignment SET plan_version_id = ?, valid_from_version = ? " +
+                        "WHERE valid_from_version IS NULL AND status = ?",
+                UlidConverter.uuidToBytes(versionId), sequence, AssignmentStatus.SCHEDULED.name());
+    }
+
+    /**
+     * Give the rows written by a plan version their validity range (single statement)
+     * For versions written before rows were shared, when each version held its own rows.
+     *
+     * @param toSequence first sequence without them (null = still in the later versions)
+     */
+    public int assignValidity(UUID versionId, long fromSequence, Long toSequence) {
+        return jdbcTemplate.update("UPDATE work_assignment SET valid_from_version = ?, valid_to_version = ? " +
+                        "WHERE plan_version_id = ? AND valid_from_version IS NULL",
+                fromSequence, toSequence, UlidConverter.uuidToBytes(versionId));
+    }
+
+    /**
+     * Delete the SCHEDULED rows no remaining plan version holds, in chunks of
+     * PRUNE_CHUNK_SIZE rows so pruning never holds locks for long. Started and completed
+     * work is kept, and so are unversioned rows.
+     *
+     * @return number of rows deleted
+     */
+    public int deleteUnreachableScheduled() {
+        int deleted = 0;
+        List<UUID> ids;
+        do {
+            ids = jdbcTemplate.query("SELECT wa.id FROM work_assignment wa WHERE wa.status = ? " +
+                            "AND wa.valid_from_version IS NOT NULL AND NOT EXISTS (SELECT 1 FROM plan_version v " +
+                            "WHERE v.version_seq >= wa.valid_from_version " +
+                            "AND (wa.valid_to_version IS NULL OR v.version_seq < wa.valid_to_version)) " +
+                            "LIMIT " + PRUNE_CHUNK_SIZE,
+                    (rs, row) -> UlidConverter.bytesToUuid(rs.getBytes(1)), AssignmentStatus.SCHEDULED.name());
+            deleted += deleteByIds(ids);
+        } while (ids.size() == PRUNE_CHUNK_SIZE);
+        return deleted;
+    }
+
+    /**
+     * Start a SCHEDULED assignment for an employee (single conditional UPDATE by id)
+     *
+     * @return false when the row is no longer SCHEDULED (started elsewhere) or no longer
+     * in the active plan version (replaced by a new plan)
+     */
+    public boolean claimScheduled(UUID assignmentId, UUID employeeId, LocalDateTime startedAt) {
+        return jdbcTemplate.update("UPDATE work_assignment SET status = ?, employee_id = ?, actual_start = ?, " +
+                        "modification_date = ? WHERE id = ? AND status = ? AND (valid_from_version IS NULL OR " +
+                        "EXISTS (SELECT 1 FROM plan_version_pointer p WHERE p.name = ? " +
+                        "AND p.version_seq >= valid_from_version " +
+                        "AND (valid_to_version IS NULL OR p.version_seq < valid_to_version)))",
+                AssignmentStatus.IN_PROGRESS.name(), UlidConverter.uuidToBytes(employeeId), startedAt, startedAt,
+                UlidConverter.uuidToBytes(assignmentId), AssignmentStatus.SCHEDULED.name(), PlanVersionPointer.ACTIVE) == 1;
+    }
+
+    /**
+     * Complete an IN_PROGRESS assignment (single conditional UPDATE by id)
+     *
+     * @param employeeId only complete it when it is assigned to this employee, null for any employee
+     * @return false when the row is not IN_PROGRESS (for that employee)
+     */
+    public boolean completeInProgress(UUID assignmentId, UUID employeeId, LocalDateTime completedAt) {
+        if (employeeId == null) {
+            return jdbcTemplate.update("UPDATE work_assignment SET status = ?, actual_end = ?, modification_date = ? " +
+                            "WHERE id = ? AND status = ?",
+                    AssignmentStatus.COMPLETED.name(), completedAt, completedAt,
+                    UlidConverter.uuidToBytes(assignmentId), AssignmentStatus.IN_PROGRESS.name()) == 1;
+        }
+        return jdbcTemplate.update("UPDATE work_assignment SET status = ?, actual_end = ?, modification_date = ? " +
+                        "WHERE id = ? AND status = ? AND employee_id = ?",
+                AssignmentStatus.COMPLETED.name(), completedAt, completedAt,
+                UlidConverter.uuidToBytes(assignmentId), AssignmentStatus.IN_PROGRESS.name(),
+                UlidConverter.uuidToBytes(employeeId)) == 1;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    /**
+     * Insert the orders of the work lots among freshly inserted assignments
+     */
+    private void insertLotMembers(List<WorkAssignment> assignments) {
+        List<Object[]> batch = new ArrayList<>();
+        for (WorkAssignment assignment : assignments) {
+            if (!assignment.isLot()) {
+                continue;
+            }
+            byte[] assignmentId = UlidConverter.uuidToBytes(assignment.getId());
+            for (WorkLotMember member : assignment.getLotMembers()) {
+                batch.add(new Object[]{assignmentId, UlidConverter.uuidToBytes(member.getOrderId()), member.getCardCount()});
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_LOT_SQL, batch, INSERT_CHUNK_SIZE, WorkAssignmentBulkWriter::bind);
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Object[] args) throws SQLException {
+        for (int i = 0; i < args.length; i++) {
+            ps.setObject(i + 1, args[i]);
+        }
+    }
+
+    private static String buildInsertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW_PLACEHOLDERS.length() + 2));
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+        }
+        return sql.toString();
+    }
+}
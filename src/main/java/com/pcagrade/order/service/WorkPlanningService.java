@@ -1,16 +1,32 @@
 package com.pcagrade.order.service;
 
+import com.pcagrade.order.dto.EmployeeUtilizationDTO;
+import com.pcagrade.order.dto.LatenessReport;
+import com.pcagrade.order.dto.OrderLatenessDTO;
+import com.pcagrade.order.dto.PipelineMetrics;
+import com.pcagrade.order.dto.PlanSearchStats;
+import com.pcagrade.order.dto.PlanningTimings;
 import com.pcagrade.order.entity.*;
 import com.pcagrade.order.repository.*;
+import com.pcagrade.order.service.planning.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Work Planning Service
@@ -22,33 +38,521 @@ import java.util.stream.Collectors;
 @Slf4j
 public class WorkPlanningService {
 
+    // Generations re-run from a fresh load when another plan was activated meanwhile
+    private static final int MAX_GENERATION_ATTEMPTS = 3;
+
     private final OrderRepository orderRepository;
     private final EmployeeRepository employeeRepository;
     private final WorkAssignmentRepository workAssignmentRepository;
+    private final WorkAssignmentBulkWriter bulkWriter;
+    private final PlanVersionService planVersionService;
+    private final DurationModelService durationModelService;
+    private final TaskDispatchService taskDispatchService;
+    private final ShiftCalendarFactory shiftCalendarFactory;
+    private final PlatformTransactionManager transactionManager;
+
+    @Qualifier("planningExecutor")
+    private final ThreadPoolTaskExecutor planningExecutor;
+
+    @Value("${planning.parallel.enabled:true}")
+    private boolean parallelByDefault;
+
+    @Value("${planning.mode:FLOW_SHOP}")
+    private PlanningMode defaultMode;
+
+    /**
+     * Maximum cards per assignment; larger orders are split into lots (0 = never split)
+     */
+    @Value("${planning.split.lot-size:50}")
+    private int lotSize;
+
+    /**
+     * Maximum cards of a work lot; smaller orders of a priority class are batched up to it (0 = never batch)
+     */
+    @Value("${planning.batch.max-cards:50}")
+    private int batchSize;
+
+    /**
+     * Time budget of the local-search improvement phase (0 = greedy plan only)
+     */
+    @Value("${planning.search.time-budget-ms:0}")
+    private long searchBudgetMs;
+
+    /**
+     * Largest time budget a request may ask for (each search runs on its own thread pool)
+     */
+    @Value("${planning.search.max-budget-ms:60000}")
+    private long maxSearchBudgetMs;
 
-    private static final int MINUTES_PER_CARD = 3;
+    @Value("${planning.search.threads:0}")
+    private int searchThreads;
+
+    @Value("${planning.search.makespan-weight:1.0}")
+    private double makespanWeight;
+
+    /**
+     * Dispatch order of released work (PRIORITY, EDD or SLACK)
+     */
+    @Value("${planning.dispatch-rule:SLACK}")
+    private DispatchRule dispatchRule;
+
+    /**
+     * Late orders listed in the plan's lateness report (the most late first)
+     */
+    @Value("${planning.lateness.report-limit:500}")
+    private int latenessReportLimit;
 
     /**
      * Generate work plan for all orders based on their OrderStatus ENUM
+     *
+     * IN_PROGRESS and COMPLETED assignments are never touched; the cards of a split order
+     * they do not cover are planned like any other work. In incremental mode a SCHEDULED
+     * assignment is kept while its order is still in the same stage, its scheduled work
+     * still covers the cards not yet started, its employee is still eligible and it does
+     * not start before the order leaves the previous stage (flow shop), and no re-slotted
+     * order comes before it in dispatch order; everything else is re-slotted around the
+     * work that stays on each employee's timeline.
+     *
+     * Runs in three phases: load (all DB reads, read-only transaction), compute (no
+     * transaction or connection held) and persist (one write transaction). The plan is
+     * saved as a new plan version that becomes active on commit; superseded assignments
+     * stay in the previous version (see PlanVersionService). When another version was
+     * activated since the load, nothing is saved and the generation starts over.
+     * In PER_STAGE mode each stage only plans the orders in its status, concurrently when
+     * parallel is set (an employee in several teams takes new work in one stage only, see
+     * EmployeeAllocation). In FLOW_SHOP mode an order is planned
+     * through all its remaining stages in pipeline order, which is inherently sequential.
+     * An optional time-boxed local search then improves the greedy plan before persisting.
+     *
+     * @param request  rebuild mode, parallelism, chaining mode and search budget
+     * @param progress receives phase updates (PlanningProgress.NONE to ignore)
+     * @throws IllegalArgumentException when searchMs is negative or above planning.search.max-budget-ms
+     * @throws PlanVersionService.VersionConflictException when other plans kept being activated meanwhile
      */
-    @Transactional
-    public List<WorkAssignment> generateWorkPlan() {
-        log.info("🚀 Starting work plan generation...");
+    public WorkPlanResult generateWorkPlan(PlanRequest request, PlanningProgress progress) {
+        long budget = searchBudget(request.searchMs());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return generateOnce(request.fullRebuild(), request.parallel(), request.mode(), budget, progress);
+            } catch (PlanVersionService.VersionConflictException e) {
+                if (attempt >= MAX_GENERATION_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("⚠️ {}: generating again from the new active plan ({}/{})", e.getMessage(),
+                        attempt + 1, MAX_GENERATION_ATTEMPTS);
+            }
+        }
+    }
+
+    private WorkPlanResult generateOnce(boolean fullRebuild, Boolean parallel, PlanningMode mode, long budget,
+                                        PlanningProgress progress) {
+        PlanningMode planningMode = mode != null ? mode : defaultMode;
+        boolean runParallel = planningMode == PlanningMode.PER_STAGE
+                && (parallel != null ? parallel : parallelByDefault);
+
+        log.info("🚀 Starting work plan generation ({}, {}, {})...", planningMode,
+                fullRebuild ? "full rebuild" : "incremental", runParallel ? "parallel" : "sequential");
+        long startTime = System.currentTimeMillis();
 
-        // Clear previous assignments
-        workAssignmentRepository.deleteAll();
-        log.info("🗑️ Cleared previous assignments");
+        PlanningTimings timings = new PlanningTimings();
+        timings.setParallel(runParallel);
 
-        List<WorkAssignment> allAssignments = new ArrayList<>();
+        // ========== LOAD ==========
 
-        // ✅ DEBUG: Check what orders exist in database
-        List<Order> allOrders = orderRepository.findAll();
-        log.info("📦 Total orders in database: {}", allOrders.size());
+        progress.update("LOADING", 5, "Loading orders, employees and the previous plan...");
+        LoadedInputs loaded = loadInputsInTransaction();
+        List<StageInput> inputs = loaded.inputs();
 
-        // Count orders by status ENUM
-        Map<OrderStatus, Long> statusCounts = allOrders.stream()
-                .filter(o -> o.getStatus() != null)
-                .collect(Collectors.groupingBy(Order::getStatus, Collectors.counting()));
+        long loadEnd = System.currentTimeMillis();
+        timings.setLoadMs(loadEnd - startTime);
+
+        // ========== COMPUTE ==========
+
+        progress.update("COMPUTING", 20, "Planning " + inputs.size() + " stages (" + planningMode + ")...");
+
+        ComputedPlan plan = computePlan(inputs, LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES),
+                fullRebuild, null, planningMode, runParallel, budget, 0, timings, progress);
+        List<StagePlan> stagePlans = plan.stagePlans();
+        ShiftCalendar calendar = plan.calendar();
+
+        long computeEnd = System.currentTimeMillis();
+        timings.setComputeMs(computeEnd - loadEnd);
+
+        // ========== PERSIST ==========
+
+        WorkPlanResult result = new WorkPlanResult();
+        result.setFullRebuild(fullRebuild);
+        result.setMode(planningMode);
+        result.setSearch(plan.search());
+        result.setLateness(plan.lateness());
+
+        for (StagePlan stagePlan : stagePlans) {
+            result.getCreated().addAll(stagePlan.created());
+            result.getRemovedIds().addAll(stagePlan.removedIds());
+            result.setKeptCount(result.getKeptCount() + stagePlan.keptCount());
+            result.setRemovedCount(result.getRemovedCount() + stagePlan.removedIds().size());
+            result.getUtilization().addAll(stagePlan.utilization());
+            timings.getStageMs().put(stagePlan.stage(), stagePlan.computeMillis());
+        }
+
+        // Write the new version: kept work is shared with the previous one, only new work is
+        // inserted (raw JDBC bulk statements, one transaction that also switches the active version)
+        progress.update("SAVING", 90, "Saving " + result.getCreated().size() + " new assignments...");
+        persistVersion(result, planningMode.name(), loaded.activeVersionId());
+        log.info("🗂️ Plan version {} active, {} superseded scheduled assignments left in the previous version",
+                result.getPlanVersionId(), result.getRemovedCount());
+
+        long endTime = System.currentTimeMillis();
+        timings.setPersistMs(endTime - computeEnd);
+        timings.setTotalMs(endTime - startTime);
+        result.setTimings(timings);
+
+        log.info("✅ Work plan generated: {} created, {} kept, {} removed",
+                result.getCreated().size(), result.getKeptCount(), result.getRemovedCount());
+
+        // Summary by stage
+        log.info("📊 Assignments by stage:");
+        stagePlans.forEach(stagePlan ->
+                log.info("   {}: {} created, {} kept, {} removed in {}ms", stagePlan.stage(),
+                        stagePlan.created().size(), stagePlan.keptCount(), stagePlan.removedIds().size(),
+                        stagePlan.computeMillis())
+        );
+        log.info("⏱️ Timings: load {}ms, compute {}ms, persist {}ms, total {}ms",
+                timings.getLoadMs(), timings.getComputeMs(), timings.getPersistMs(), timings.getTotalMs());
+
+        if (planningMode == PlanningMode.FLOW_SHOP) {
+            PipelineMetrics pipeline = buildPipelineMetrics(inputs, stagePlans.get(stagePlans.size() - 1), calendar);
+            result.setPipeline(pipeline);
+            log.info("🏭 Pipeline: makespan end {}, {} late orders {}, turnaround (h) {}",
+                    pipeline.getMakespanEnd(), pipeline.getLateOrders(), pipeline.getLateOrdersByDelai(),
+                    pipeline.getAverageTurnaroundHoursByDelai());
+        }
+
+        return result;
+    }
+
+    /**
+     * Re-plan the not-yet-started work of the next hours, on inputs loaded by the caller
+     *
+     * Scheduled work starting before the horizon is re-slotted against the current state
+     * together with new orders and orders whose plan no longer holds; work kept beyond
+     * the horizon stays as it is and only reserves its window on the employees' timelines.
+     * Re-slotted work landing exactly where it was keeps its row. No search phase runs,
+     * so the cost follows the work near the horizon rather than the size of the backlog.
+     * A plan that did not change is not saved; otherwise it becomes a new plan version.
+     *
+     * @param horizonMinutes    length of the re-planned window from now, in minutes
+     * @param expectedVersionId active version the inputs' previous plans were read from
+     * @throws PlanVersionService.VersionConflictException when another plan was activated since (nothing is saved)
+     */
+    public WorkPlanResult replanHorizon(List<StageInput> inputs, long horizonMinutes, UUID expectedVersionId) {
+        long startTime = System.currentTimeMillis();
+        PlanningTimings timings = new PlanningTimings();
+        timings.setParallel(false);
+
+        ComputedPlan plan = computePlan(inputs, LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES), false,
+                horizonMinutes, defaultMode, false, 0L, 0, timings, PlanningProgress.NONE);
+        long computeEnd = System.currentTimeMillis();
+
+        WorkPlanResult result = new WorkPlanResult();
+        result.setMode(defaultMode);
+        result.setLateness(plan.lateness());
+
+        List<UUID> keptIds = new ArrayList<>();
+        for (StagePlan stagePlan : plan.stagePlans()) {
+            result.getCreated().addAll(stagePlan.created());
+            keptIds.addAll(stagePlan.keptIds());
+            result.getRemovedIds().addAll(stagePlan.removedIds());
+            result.getUtilization().addAll(stagePlan.utilization());
+            timings.getStageMs().put(stagePlan.stage(), stagePlan.computeMillis());
+        }
+        keepUnmoved(inputs, keptIds, result);
+        result.setKeptCount(keptIds.size());
+        result.setRemovedCount(result.getRemovedIds().size());
+
+        if (result.getCreated().isEmpty() && result.getRemovedIds().isEmpty()) {
+            result.setPlanVersionId(expectedVersionId);
+        } else {
+            persistVersion(result, "ROLLING", expectedVersionId);
+        }
+
+        long endTime = System.currentTimeMillis();
+        timings.setLoadMs(0L);
+        timings.setComputeMs(computeEnd - startTime);
+        timings.setPersistMs(endTime - computeEnd);
+        timings.setTotalMs(endTime - startTime);
+        result.setTimings(timings);
+        return result;
+    }
+
+    /**
+     * Plan already-loaded inputs in memory: nothing is read from or written to the database
+     * Stages and the search are computed sequentially on the calling thread, so several
+     * simulations can run side by side. The inputs' previous plans must not be shared with
+     * another run (kept work is recorded on them).
+     *
+     * @param origin   plan origin (minute 0 of the shift calendar)
+     * @param searchMs local-search time budget in ms (0 = greedy plan only)
+     * @throws IllegalArgumentException when searchMs is negative or above planning.search.max-budget-ms
+     */
+    public WorkPlanResult simulateWorkPlan(List<StageInput> inputs, LocalDateTime origin, boolean fullRebuild,
+                                           PlanningMode mode, long searchMs) {
+        PlanningMode planningMode = mode != null ? mode : defaultMode;
+        searchBudget(searchMs);
+        long startTime = System.currentTimeMillis();
+
+        PlanningTimings timings = new PlanningTimings();
+        timings.setParallel(false);
+        ComputedPlan plan = computePlan(inputs, origin, fullRebuild, null, planningMode, false, searchMs, 1,
+                timings, PlanningProgress.NONE);
+
+        WorkPlanResult result = new WorkPlanResult();
+        result.setFullRebuild(fullRebuild);
+        result.setMode(planningMode);
+        result.setSearch(plan.search());
+        result.setLateness(plan.lateness());
+        for (StagePlan stagePlan : plan.stagePlans()) {
+            result.getCreated().addAll(stagePlan.created());
+            result.setKeptCount(result.getKeptCount() + stagePlan.keptCount());
+            result.setRemovedCount(result.getRemovedCount() + stagePlan.removedIds().size());
+            result.getUtilization().addAll(stagePlan.utilization());
+            timings.getStageMs().put(stagePlan.stage(), stagePlan.computeMillis());
+        }
+        if (planningMode == PlanningMode.FLOW_SHOP) {
+            result.setPipeline(buildPipelineMetrics(inputs,
+                    plan.stagePlans().get(plan.stagePlans().size() - 1), plan.calendar()));
+        }
+
+        timings.setLoadMs(0L);
+        timings.setComputeMs(System.currentTimeMillis() - startTime);
+        timings.setPersistMs(0L);
+        timings.setTotalMs(timings.getComputeMs());
+        result.setTimings(timings);
+        return result;
+    }
+
+    /**
+     * Local-search time budget of a request
+     *
+     * @param searchMs requested budget in ms (null = planning.search.time-budget-ms)
+     * @throws IllegalArgumentException when it is negative or above planning.search.max-budget-ms
+     */
+    public long searchBudget(Long searchMs) {
+        if (searchMs == null) {
+            return searchBudgetMs;
+        }
+        if (searchMs < 0 || searchMs > maxSearchBudgetMs) {
+            throw new IllegalArgumentException("searchMs must be between 0 and " + maxSearchBudgetMs);
+        }
+        return searchMs;
+    }
+
+    /**
+     * Compute the plan of the given inputs: greedy stage plans, then the optional search
+     * Pure computation: no DB access, safe to run concurrently on distinct inputs.
+     * Package-private for tests.
+     *
+     * @param horizonMinute end of the re-planned window in minutes from the origin (null = whole plan)
+     * @param budget        local-search time budget in ms (0 = greedy plan only)
+     * @param parallelism   local-search threads (0 = planning.search.threads)
+     */
+    ComputedPlan computePlan(List<StageInput> inputs, LocalDateTime origin, boolean fullRebuild, Long horizonMinute,
+                             PlanningMode planningMode, boolean runParallel, long budget, int parallelism,
+                             PlanningTimings timings, PlanningProgress progress) {
+        // Plan origin, working-time calendar and learned durations shared by all stages
+        ShiftCalendar calendar = shiftCalendarFactory.create(origin);
+        DurationEstimates durations = durationModelService.estimates();
+        StageScheduler scheduler = new StageScheduler(calendar, durations, lotSize, batchSize);
+
+        // Due dates and dispatch order of every order, indexed once for all stages
+        List<PlanningOrder> allOrders = new ArrayList<>();
+        inputs.forEach(input -> allOrders.addAll(input.orders()));
+        DeadlineIndex deadlines = new DeadlineIndex(dispatchRule, allOrders, calendar, durations);
+        Comparator<PlanningOrder> dispatchOrder = deadlines.dispatchOrder();
+
+        // One timeline per employee: multi-team employees take new work in one stage only
+        EmployeeAllocation allocation = EmployeeAllocation.of(inputs, calendar, durations,
+                (employee, stage) -> durations.speedOf(stage, employee), planningMode == PlanningMode.FLOW_SHOP,
+                !fullRebuild, horizonMinute != null ? calendar.toDateTime(horizonMinute) : null);
+        if (!allocation.getAllocated().isEmpty()) {
+            Map<PlanningStage, Long> byStage = new EnumMap<>(PlanningStage.class);
+            allocation.getAllocated().values().forEach(stage -> byStage.merge(stage, 1L, Long::sum));
+            log.info("👥 Multi-team employees allocated to bottleneck stages: {}", byStage);
+        }
+
+        List<StagePlan> stagePlans;
+        if (planningMode == PlanningMode.FLOW_SHOP) {
+            stagePlans = computeFlowShop(inputs, fullRebuild, horizonMinute, scheduler, dispatchOrder, allocation);
+        } else if (runParallel) {
+            stagePlans = computeStagesInParallel(inputs, fullRebuild, horizonMinute, scheduler, dispatchOrder,
+                    allocation);
+        } else {
+            stagePlans = inputs.stream()
+                    .map(input -> timedProcessStage(input, fullRebuild, horizonMinute, scheduler, dispatchOrder,
+                            allocation))
+                    .toList();
+        }
+
+        // ========== IMPROVE ==========
+
+        PlanSearchStats searchStats = null;
+        if (budget > 0) {
+            progress.update("SEARCHING", 50, "Improving the plan (" + budget + "ms search)...");
+            long searchStart = System.currentTimeMillis();
+            int threads = parallelism > 0 ? parallelism
+                    : searchThreads > 0 ? searchThreads : Runtime.getRuntime().availableProcessors();
+            boolean flowShop = planningMode == PlanningMode.FLOW_SHOP;
+
+            PlanOptimizer.Result search = new PlanOptimizer(scheduler,
+                    stagePlans.stream().map(StagePlan::work).toList(), allOrders, deadlines, flowShop, makespanWeight)
+                    .optimize(budget, threads);
+            if (search.improved()) {
+                stagePlans = rescheduleStages(stagePlans, scheduler, search.sequence(), flowShop);
+            }
+            searchStats = search.stats();
+            searchStats.setApplied(search.improved());
+            timings.setSearchMs(System.currentTimeMillis() - searchStart);
+
+            log.info("🔍 Plan search: {} evaluations on {} threads, cost {} -> {} ({}% better, {})",
+                    searchStats.getEvaluations(), threads, searchStats.getInitialCost(), searchStats.getBestCost(),
+                    searchStats.getImprovementPercentage(), search.improved() ? "applied" : "greedy plan kept");
+        }
+
+        LatenessReport lateness = buildLatenessReport(allOrders, stagePlans, deadlines, calendar);
+        log.info("⏰ Lateness ({}): {} of {} orders late, {} minutes in total", dispatchRule,
+                lateness.getLateOrderCount(), lateness.getPlannedOrders(), lateness.getTotalLatenessMinutes());
+
+        return new ComputedPlan(stagePlans, calendar, searchStats, lateness);
+    }
+
+    /**
+     * Write a computed plan as a new active version: kept work is shared with the previous
+     * version, removed work is closed and only new work is inserted (raw JDBC bulk
+     * statements, one transaction that also switches the pointer)
+     *
+     * @param expectedVersionId version the plan was computed from, checked under the pointer lock (null = any)
+     * @throws PlanVersionService.VersionConflictException when another version is active (nothing is saved)
+     */
+    private void persistVersion(WorkPlanResult result, String versionMode, UUID expectedVersionId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            PlanVersion version = planVersionService.createVersion(versionMode, result.isFullRebuild(),
+                    result.getKeptCount(), result.getRemovedIds(), result.getCreated().size(), expectedVersionId);
+            result.getCreated().forEach(assignment -> {
+                assignment.setPlanVersionId(version.getId());
+                assignment.setValidFromVersion(version.getSequence());
+            });
+            bulkWriter.insertAll(result.getCreated());
+            result.setPlanVersionId(version.getId());
+            result.setRebasedCount(version.getRebasedCount());
+        });
+    }
+
+    /**
+     * Re-slotted assignments identical to a superseded one (same orders, employee, cards and
+     * times) keep the superseded row instead of replacing it
+     */
+    private void keepUnmoved(List<StageInput> inputs, List<UUID> keptIds, WorkPlanResult result) {
+        Set<UUID> removed = new HashSet<>(result.getRemovedIds());
+        Map<UUID, List<PlannedAssignment>> removedRows = new HashMap<>();
+        for (StageInput input : inputs) {
+            input.previous().getScheduledByOrder().values().forEach(scheduled -> scheduled.stream()
+                    .filter(assignment -> removed.contains(assignment.id()))
+                    .forEach(assignment -> removedRows.computeIfAbsent(assignment.id(), id -> new ArrayList<>(1))
+                            .add(assignment)));
+        }
+        if (removedRows.isEmpty()) {
+            return;
+        }
+
+        // A work lot is one row per order: its key covers all of them
+        Map<List<Object>, Deque<UUID>> removedBySlot = new HashMap<>();
+        removedRows.forEach((id, rows) -> {
+            Map<UUID, Integer> orderCards = new HashMap<>();
+            rows.forEach(row -> orderCards.merge(row.orderId(), row.cards(), Integer::sum));
+            PlannedAssignment first = rows.get(0);
+            removedBySlot.computeIfAbsent(slotKey(orderCards, first.employeeId(), first.processingStage(),
+                    first.scheduledStart(), first.scheduledEnd()), key -> new ArrayDeque<>()).add(id);
+        });
+
+        Iterator<WorkAssignment> created = result.getCreated().iterator();
+        while (created.hasNext()) {
+            WorkAssignment assignment = created.next();
+            Map<UUID, Integer> orderCards = new HashMap<>();
+            if (assignment.isLot()) {
+                assignment.getLotMembers().forEach(member ->
+                        orderCards.merge(member.getOrderId(), member.getCardCount(), Integer::sum));
+            } else {
+                orderCards.put(assignment.getOrder().getId(), assignment.getCardCount());
+            }
+            Deque<UUID> same = removedBySlot.get(slotKey(orderCards, assignment.getEmployee().getId(),
+                    assignment.getProcessingStage(), assignment.getScheduledStart(), assignment.getScheduledEnd()));
+            if (same != null && !same.isEmpty()) {
+                UUID id = same.poll();
+                keptIds.add(id);
+                removed.remove(id);
+                created.remove();
+            }
+        }
+        result.getRemovedIds().retainAll(removed);
+    }
+
+    private static List<Object> slotKey(Map<UUID, Integer> orderCards, UUID employeeId, String stage,
+                                        LocalDateTime start, LocalDateTime end) {
+        return Arrays.asList(orderCards, employeeId, stage, start, end);
+    }
+
+    record ComputedPlan(List<StagePlan> stagePlans, ShiftCalendar calendar, PlanSearchStats search,
+                                LatenessReport lateness) {
+    }
+
+    /**
+     * Load every stage's input: orders, eligible employees and previous plan
+     * Runs in its own read-only transaction, released before any computation.
+     */
+    public List<StageInput> loadPlanningInputs() {
+        return loadInputsInTransaction().inputs();
+    }
+
+    private LoadedInputs loadInputsInTransaction() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> loadInputs());
+    }
+
+    /**
+     * Stage inputs and the active plan version their previous plans were read from
+     */
+    private record LoadedInputs(List<StageInput> inputs, UUID activeVersionId) {
+    }
+
+    /**
+     * Load the current orders and eligible employees of every stage on a previous plan
+     * the caller already holds (the previous plans are used as they are, not copied)
+     */
+    public List<StageInput> loadPlanningInputs(Map<String, StagePlanState> previousPlan) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> {
+            List<StageInput> inputs = new ArrayList<>();
+            for (PlanningStage stage : PlanningStage.values()) {
+                inputs.add(loadStage(stage, previousPlan));
+            }
+            return inputs;
+        });
+    }
+
+    private LoadedInputs loadInputs() {
+        // Count orders by status ENUM (single GROUP BY query, no entity loading)
+        Map<OrderStatus, Long> statusCounts = new EnumMap<>(OrderStatus.class);
+        long totalOrders = 0;
+        for (Object[] row : orderRepository.countGroupedByStatus()) {
+            long count = ((Number) row[1]).longValue();
+            totalOrders += count;
+            if (row[0] != null) {
+                statusCounts.put((OrderStatus) row[0], count);
+            }
+        }
+        log.info("📦 Total orders in database: {}", totalOrders);
 
         log.info("📊 Orders by status (ENUM):");
         statusCounts.forEach((status, count) ->
@@ -60,175 +564,529 @@ public class WorkPlanningService {
         List<Employee> allEmployees = employeeRepository.findByActiveTrue();
         log.info("   Total active employees: {}", allEmployees.size());
 
-        Map<String, List<Employee>> roleCount = groupEmployeesByRole(allEmployees);
+        // Previous plan (slim projection), grouped by stage, in the same snapshot as the active version
+        UUID activeVersionId = planVersionService.getActiveVersionId().orElse(null);
+        EnumSet<AssignmentStatus> planStatuses = EnumSet.of(
+                AssignmentStatus.SCHEDULED, AssignmentStatus.IN_PROGRESS, AssignmentStatus.COMPLETED);
+        Map<String, StagePlanState> previousPlan = StagePlanState.byStage(PlannedAssignment.withLotOrders(
+                workAssignmentRepository.findPlannedByStatusIn(planStatuses),
+                workAssignmentRepository.findLotOrdersByStatusIn(planStatuses)));
 
-        // ✅ FIXED: Use correct role names
-        allAssignments.addAll(processStage(OrderStatus.GRADING, "GRADING", "ROLE_GRADER"));
-        allAssignments.addAll(processStage(OrderStatus.CERTIFYING, "CERTIFYING", "ROLE_CERTIFIER"));  // ✅ FIXED
-        allAssignments.addAll(processStage(OrderStatus.PACKAGING, "PACKAGING", "ROLE_PREPARER"));
-        allAssignments.addAll(processStage(OrderStatus.SCANNING, "SCANNING", "ROLE_SCANNER"));
+        List<StageInput> inputs = new ArrayList<>();
+        for (PlanningStage stage : PlanningStage.values()) {
+            inputs.add(loadStage(stage, previousPlan));
+        }
+        return new LoadedInputs(inputs, activeVersionId);
+    }
 
-        // Save all assignments
-        List<WorkAssignment> savedAssignments = workAssignmentRepository.saveAll(allAssignments);
+    /**
+     * Load the orders and eligible employees of a stage (calling thread, inside the load transaction)
+     */
+    private StageInput loadStage(PlanningStage stage, Map<String, StagePlanState> previousPlan) {
+        // ✅ Stream slim projections of the orders with this OrderStatus ENUM
+        // The stage still holds all of its orders (sorting and lot splitting need the whole set),
+        // so planner heap stays O(orders); streaming only keeps entities, card proxies and the
+        // persistence context out of it, which makes each held row a few small fields
+        List<PlanningOrder> orders;
+        try (Stream<PlanningOrder> stream = orderRepository.streamPlanningOrdersByStatus(stage.getOrderStatus())) {
+            orders = stream.collect(Collectors.toCollection(ArrayList::new));
+        }
+        log.info("   Found {} orders with status {}", orders.size(), stage.getOrderStatus());
 
-        log.info("✅ Work plan generated: {} total assignments", savedAssignments.size());
+        // Find employees with required role
+        List<Employee> employees = employeeRepository.findByActiveAndRolesContaining(true, stage.getRequiredRole());
+        log.info("   Found {} employees with role {}", employees.size(), stage.getRequiredRole());
 
-        // Summary by stage
-        Map<String, Long> stageCounts = savedAssignments.stream()
-                .collect(Collectors.groupingBy(WorkAssignment::getProcessingStage, Collectors.counting()));
+        return new StageInput(stage, orders, employees,
+                previousPlan.getOrDefault(stage.name(), StagePlanState.empty()));
+    }
 
-        log.info("📊 Assignments by stage:");
-        stageCounts.forEach((stage, count) ->
-                log.info("   {}: {} tasks", stage, count)
-        );
+    /**
+     * Compute all stages concurrently on the bounded planning executor
+     */
+    private List<StagePlan> computeStagesInParallel(List<StageInput> inputs, boolean fullRebuild,
+                                                    Long horizonMinute, StageScheduler scheduler,
+                                                    Comparator<PlanningOrder> dispatchOrder,
+                                                    EmployeeAllocation allocation) {
+        List<Future<StagePlan>> futures = new ArrayList<>(inputs.size());
+        for (StageInput input : inputs) {
+            futures.add(planningExecutor.submit(
+                    () -> timedProcessStage(input, fullRebuild, horizonMinute, scheduler, dispatchOrder, allocation)));
+        }
 
-        return savedAssignments;
+        List<StagePlan> stagePlans = new ArrayList<>(inputs.size());
+        try {
+            for (Future<StagePlan> future : futures) {
+                stagePlans.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Plan generation interrupted", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Stage planning failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        return stagePlans;
     }
 
     /**
-     *
-     * @param employees List of employees to group
-     * @return Map with role name as key and list of employees as value
+     * Plan the stages in pipeline order (flow shop with precedence constraints)
+     * Stage i plans every order whose status is at or before stage i, and an order is
+     * released to stage i when its work in stage i-1 ends.
      */
-    private Map<String, List<Employee>> groupEmployeesByRole(List<Employee> employees) {
-        if (employees == null || employees.isEmpty()) {
-            return new HashMap<>();
+    private List<StagePlan> computeFlowShop(List<StageInput> inputs, boolean fullRebuild, Long horizonMinute,
+                                            StageScheduler scheduler, Comparator<PlanningOrder> dispatchOrder,
+                                            EmployeeAllocation allocation) {
+        List<StagePlan> stagePlans = new ArrayList<>(inputs.size());
+        List<PlanningOrder> pipelineOrders = new ArrayList<>();
+        Map<UUID, Long> releases = Map.of();
+
+        for (StageInput input : inputs) {
+            pipelineOrders.addAll(input.orders());
+            StagePlan stagePlan = timedProcessStage(
+                    input.withOrdersAndReleases(List.copyOf(pipelineOrders), releases), fullRebuild, horizonMinute,
+                    scheduler, dispatchOrder, allocation);
+            stagePlans.add(stagePlan);
+            releases = stagePlan.finishMinutes();
         }
+        return stagePlans;
+    }
 
-        return employees.stream()
-                .flatMap(employee -> employee.getRoleNames().stream()
-                        .map(roleName -> new AbstractMap.SimpleEntry<>(roleName, employee)))
-                .collect(Collectors.groupingBy(
-                        Map.Entry::getKey,
-                        Collectors.mapping(Map.Entry::getValue, Collectors.toList())
-                ));
+    /**
+     * Re-schedule every stage's new work in the sequence found by the plan search
+     * Kept and removed work is unchanged; only the new assignments are rebuilt.
+     */
+    private List<StagePlan> rescheduleStages(List<StagePlan> stagePlans, StageScheduler scheduler,
+                                             Comparator<PlanningOrder> sequence, boolean flowShop) {
+        List<StagePlan> improved = new ArrayList<>(stagePlans.size());
+        Map<UUID, Long> releases = Map.of();
+        for (StagePlan plan : stagePlans) {
+            StageSchedule schedule = scheduler.schedule(plan.work(), flowShop ? releases : Map.of(), sequence, true);
+            improved.add(new StagePlan(plan.stage(), schedule.created(), plan.removedIds(), plan.keptIds(),
+                    schedule.finishMinutes(),
+                    buildUtilization(plan.stage(), plan.work().employees(), schedule.pool(), scheduler.getCalendar()),
+                    plan.work(), plan.computeMillis()));
+            releases = schedule.finishMinutes();
+        }
+        return improved;
+    }
+
+    private StagePlan timedProcessStage(StageInput input, boolean fullRebuild, Long horizonMinute,
+                                        StageScheduler scheduler, Comparator<PlanningOrder> dispatchOrder,
+                                        EmployeeAllocation allocation) {
+        long start = System.currentTimeMillis();
+        StagePlan stagePlan = processStage(input, fullRebuild, horizonMinute, scheduler, dispatchOrder, allocation);
+        return stagePlan.withComputeMillis(System.currentTimeMillis() - start);
     }
 
     /**
      * Process a single stage using OrderStatus ENUM
+     * Diffs the stage's previous plan against the current orders and employees,
+     * then dispatches the new work in the run's dispatch order (see DispatchRule).
+     * With a horizon, scheduled work starting before it is re-slotted even when unchanged,
+     * and work kept beyond it only reserves its window on the employees' timelines.
+     * New work only goes to the employees allocated to the stage, after their work in
+     * the other stages (see EmployeeAllocation).
+     * Pure computation: safe to run concurrently for different stages.
      */
-    private List<WorkAssignment> processStage(OrderStatus orderStatus, String stage, String requiredRole) {
-        log.info("🔄 Processing {} stage (status = {}, role = {})", stage, orderStatus, requiredRole);
+    private StagePlan processStage(StageInput input, boolean fullRebuild, Long horizonMinute,
+                                   StageScheduler scheduler, Comparator<PlanningOrder> dispatchOrder,
+                                   EmployeeAllocation allocation) {
+        ShiftCalendar calendar = scheduler.getCalendar();
+        String stage = input.stage().name();
+        List<PlanningOrder> orders = input.orders();
+        StagePlanState previous = input.previous();
+        List<Employee> employees = new ArrayList<>(input.employees().size());
+        for (Employee employee : input.employees()) {
+            if (allocation.takesNewWork(employee.getId(), input.stage())) {
+                employees.add(employee);
+            }
+        }
 
-        // ✅ Find orders with this OrderStatus ENUM
-        List<Order> orders = orderRepository.findByStatus(orderStatus);
-        log.info("   Found {} orders with status {}", orders.size(), orderStatus);
+        log.info("🔄 Processing {} stage (status = {}, role = {}, {} orders)",
+                stage, input.stage().getOrderStatus(), input.stage().getRequiredRole(), orders.size());
 
-        if (orders.isEmpty()) {
-            log.info("   ⏭️ No orders to process for {}", stage);
-            return new ArrayList<>();
+        // Kept work stays with any employee of the team, allocated here or not
+        Set<UUID> eligibleEmployees = new HashSet<>();
+        for (Employee employee : input.employees()) {
+            eligibleEmployees.add(employee.getId());
         }
 
-        // Find employees with required role
-        List<Employee> employees = employeeRepository.findByActiveAndRolesContaining(true, requiredRole);
-        log.info("   Found {} employees with role {}", employees.size(), requiredRole);
+        // Decide which scheduled work stays and which orders need a (new) slot
+        Map<UUID, List<PlannedAssignment>> scheduledByOrder = previous.getScheduledByOrder();
+        Set<UUID> keptOrders = new HashSet<>();
+        List<PlanningOrder> toPlan = new ArrayList<>();
+        Map<UUID, Long> keptFinish = new HashMap<>();
+        Map<UUID, Long> keptStart = new HashMap<>();
+        Set<UUID> keptIds = new LinkedHashSet<>();
 
-        if (employees.isEmpty()) {
-            log.warn("   ⚠️ No employees available for {} stage!", stage);
-            return new ArrayList<>();
+        Set<UUID> keepable = new HashSet<>();
+        if (!fullRebuild) {
+            for (PlanningOrder order : orders) {
+                List<PlannedAssignment> scheduled = scheduledByOrder.get(order.id());
+                if (isUnchanged(order, previous.getStartedCards(order.id()), scheduled, eligibleEmployees)
+                        && startsAfterRelease(scheduled, input.releaseMinute(order.id()), calendar)
+                        && (horizonMinute == null || earliestStartMinute(scheduled, calendar) >= horizonMinute)) {
+                    keepable.add(order.id());
+                }
+            }
+            keepWholeLots(scheduledByOrder, keepable);
+            if (horizonMinute == null) {
+                keepDispatchPrefix(orders, previous, scheduledByOrder, keepable, dispatchOrder);
+            }
         }
 
-        // Sort orders by priority (delai code: X > F+ > F > C > E)
-        // Handle null dates safely
-        orders.sort(Comparator.comparingInt(Order::getPriorityScore).reversed()
-                .thenComparing(o -> o.getDate() != null ? o.getDate() : LocalDateTime.MIN));
+        for (PlanningOrder order : orders) {
+            List<PlannedAssignment> scheduled = scheduledByOrder.get(order.id());
+            if (keepable.contains(order.id())) {
+                keptOrders.add(order.id());
+                scheduled.forEach(assignment -> keptIds.add(assignment.id()));
+                scheduled.forEach(previous::reserve);
+                keptStart.put(order.id(), earliestStartMinute(scheduled, calendar));
+            } else if (!previous.isStarted(order.id())) {
+                toPlan.add(order);
+                continue;
+            } else {
+                // Partly started (split order): only its cards not yet started are re-planned
+                int remaining = order.cardCount() - previous.getStartedCards(order.id());
+                if (remaining > 0) {
+                    toPlan.add(order.withCardCount(remaining));
+                }
+            }
+
+            // Kept or already started: the order leaves this stage when that work ends
+            LocalDateTime finish = previous.getFinish(order.id());
+            keptFinish.put(order.id(), finish != null ? calendar.toClockMinute(finish) : 0L);
+        }
 
-        // Log top priority orders
-        log.info("   📋 Top 5 priority orders:");
-        orders.stream().limit(5).forEach(o ->
-                log.info("      - {} ({} cards, delai: {}, priority: {})",
-                        o.getOrderNumber(), o.getCardCount(), o.getDelai(), o.getPriorityScore())
-        );
+        // Everything scheduled and not kept is superseded
+        Set<UUID> removedIds = new LinkedHashSet<>();
+        scheduledByOrder.forEach((orderId, scheduled) -> {
+            if (!keptOrders.contains(orderId)) {
+                scheduled.forEach(assignment -> removedIds.add(assignment.id()));
+            }
+        });
+
+        log.info("   {}: {} scheduled assignments kept, {} superseded, {} orders to (re)plan",
+                stage, keptIds.size(), removedIds.size(), toPlan.size());
+
+        // Sort orders in dispatch order (delai rank, delivery date or slack)
+        toPlan.sort(dispatchOrder);
+
+        // New work starts at the first working minute after the origin and after the work
+        // in progress; it fills the timeline up to the window of the kept work, then after it
+        double[] speeds = new double[employees.size()];
+        int[] dailyMinutes = new int[employees.size()];
+        long[] seedCursor = new long[employees.size()];
+        long[] fenceCursor = new long[employees.size()];
+        long[] resumeCursor = new long[employees.size()];
+        for (int slot = 0; slot < employees.size(); slot++) {
+            Employee employee = employees.get(slot);
+            speeds[slot] = scheduler.getDurations().speedOf(input.stage(), employee);
+            dailyMinutes[slot] = calendar.dailyWorkingMinutes(employee.getWorkHoursPerDay());
+
+            LocalDateTime busyUntil = later(previous.getBusyUntil(employee.getId()),
+                    allocation.busyElsewhere(employee.getId(), input.stage()));
+            if (busyUntil != null && busyUntil.isAfter(calendar.getOrigin())) {
+                seedCursor[slot] = calendar.workingMinuteAt(dailyMinutes[slot], calendar.toClockMinute(busyUntil));
+            }
+
+            // Kept work (within a horizon, also the work kept beyond it in other stages)
+            LocalDateTime reservedFrom = previous.getReservedFrom(employee.getId());
+            LocalDateTime reservedUntil = previous.getReservedUntil(employee.getId());
+            LocalDateTime[] elsewhere = allocation.reservedElsewhere(employee.getId(), input.stage());
+            if (elsewhere != null) {
+                reservedFrom = reservedFrom == null || elsewhere[0].isBefore(reservedFrom)
+                        ? elsewhere[0] : reservedFrom;
+                reservedUntil = later(reservedUntil, elsewhere[1]);
+            }
+            fenceCursor[slot] = Long.MAX_VALUE;
+            if (reservedFrom != null) {
+                fenceCursor[slot] = calendar.workingMinuteAt(dailyMinutes[slot],
+                        calendar.toClockMinute(reservedFrom));
+                resumeCursor[slot] = calendar.workingMinuteAt(dailyMinutes[slot],
+                        calendar.toClockMinute(reservedUntil));
+            }
+        }
+        StageWork work = new StageWork(input.stage(), employees, toPlan, speeds, dailyMinutes, seedCursor,
+                keptFinish, keptStart, fenceCursor, resumeCursor);
+
+        if (toPlan.isEmpty()) {
+            log.info("   ⏭️ No orders to process for {}", stage);
+        } else if (employees.isEmpty()) {
+            log.warn("   ⚠️ No employees available for {} stage!", stage);
+        } else {
+            // Log the first orders to dispatch
+            log.info("   📋 {} first 5 orders ({}):", stage, dispatchRule);
+            toPlan.stream().limit(5).forEach(o ->
+                    log.info("      - {} ({} cards, delai: {}, priority: {})",
+                            o.orderNumber(), o.cardCount(), o.delai(), o.priorityScore())
+            );
+        }
 
         // Assign orders to employees using load balancing
-        return assignOrdersToEmployees(orders, employees, stage);
+        StageSchedule schedule = scheduler.schedule(work, input.releaseMinutes(), dispatchOrder, true);
+        logSchedule(stage, employees, schedule);
+
+        return new StagePlan(stage, schedule.created(), new ArrayList<>(removedIds), new ArrayList<>(keptIds),
+                schedule.finishMinutes(), buildUtilization(stage, employees, schedule.pool(), calendar), work, 0L);
+    }
+
+    /**
+     * A work lot is kept or re-planned as a whole: when one of its orders cannot keep
+     * its work, the other orders of the lot are re-planned too
+     */
+    private static void keepWholeLots(Map<UUID, List<PlannedAssignment>> scheduledByOrder, Set<UUID> keepable) {
+        Map<UUID, List<UUID>> ordersByAssignment = new HashMap<>();
+        scheduledByOrder.forEach((orderId, scheduled) -> scheduled.forEach(assignment ->
+                ordersByAssignment.computeIfAbsent(assignment.id(), id -> new ArrayList<>(1)).add(orderId)));
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (List<UUID> lot : ordersByAssignment.values()) {
+                if (lot.size() > 1 && !keepable.containsAll(lot) && lot.stream().anyMatch(keepable::contains)) {
+                    lot.forEach(keepable::remove);
+                    changed = true;
+                }
+            }
+        }
     }
 
     /**
-     * Assign orders to employees with load balancing
+     * New work is dispatched after the kept work of the employees, so kept work may only
+     * precede every new order in dispatch order: kept work behind a new order is re-planned
+     * together with it instead of making it wait (a new express order is not queued behind
+     * the whole backlog)
      */
-    private List<WorkAssignment> assignOrdersToEmployees(
-            List<Order> orders,
-            List<Employee> employees,
-            String stage) {
+    private static void keepDispatchPrefix(List<PlanningOrder> orders, StagePlanState previous,
+                                           Map<UUID, List<PlannedAssignment>> scheduledByOrder,
+                                           Set<UUID> keepable, Comparator<PlanningOrder> dispatchOrder) {
+        int before;
+        do {
+            before = keepable.size();
+            PlanningOrder firstNew = null;
+            for (PlanningOrder order : orders) {
+                if (!keepable.contains(order.id()) && order.cardCount() > previous.getStartedCards(order.id())
+                        && (firstNew == null || dispatchOrder.compare(order, firstNew) < 0)) {
+                    firstNew = order;
+                }
+            }
+            if (firstNew == null) {
+                return;
+            }
+            for (PlanningOrder order : orders) {
+                if (keepable.contains(order.id()) && dispatchOrder.compare(order, firstNew) > 0) {
+                    keepable.remove(order.id());
+                }
+            }
+            keepWholeLots(scheduledByOrder, keepable);
+        } while (keepable.size() != before);
+    }
 
-        List<WorkAssignment> assignments = new ArrayList<>();
+    /**
+     * A scheduled order is unchanged when its scheduled work still covers the cards not yet
+     * started in the stage and all of it belongs to employees still eligible for the stage
+     */
+    private boolean isUnchanged(PlanningOrder order, int startedCards, List<PlannedAssignment> scheduled,
+                                Set<UUID> eligibleEmployees) {
+        if (scheduled == null || scheduled.isEmpty()) {
+            return false;
+        }
+        int plannedCards = 0;
+        for (PlannedAssignment assignment : scheduled) {
+            if (!eligibleEmployees.contains(assignment.employeeId())) {
+                return false;
+            }
+            plannedCards += assignment.cards();
+        }
+        return plannedCards == order.cardCount() - startedCards;
+    }
 
-        // Track each employee's current end time
-        Map<UUID, LocalDateTime> employeeSchedule = new HashMap<>();
-        LocalDateTime now = LocalDateTime.now();
+    /**
+     * Kept work must still respect precedence: it cannot start before the order is released
+     */
+    private boolean startsAfterRelease(List<PlannedAssignment> scheduled, long releaseMinute, ShiftCalendar calendar) {
+        if (releaseMinute <= 0) {
+            return true;
+        }
+        return earliestStartMinute(scheduled, calendar) >= releaseMinute;
+    }
 
-        // Initialize all employees at current time
-        for (Employee emp : employees) {
-            employeeSchedule.put(emp.getId(), now);
+    private long earliestStartMinute(List<PlannedAssignment> scheduled, ShiftCalendar calendar) {
+        long earliest = Long.MAX_VALUE;
+        for (PlannedAssignment assignment : scheduled) {
+            if (assignment.scheduledStart() == null) {
+                return Long.MIN_VALUE;
+            }
+            earliest = Math.min(earliest, calendar.toClockMinute(assignment.scheduledStart()));
         }
+        return earliest;
+    }
 
-        int assignmentCount = 0;
-        int skippedCount = 0;
+    private void logSchedule(String stage, List<Employee> employees, StageSchedule schedule) {
+        if (schedule.skippedCount() > 0) {
+            log.warn("   ⚠️ Skipped {} orders with 0 cards", schedule.skippedCount());
+        }
+        if (schedule.splitCount() > 0) {
+            log.info("   ✂️ Split {} orders into lots of up to {} cards", schedule.splitCount(), lotSize);
+        }
+        if (schedule.batchedCount() > 0) {
+            log.info("   📦 Batched {} small orders into work lots of up to {} cards", schedule.batchedCount(), batchSize);
+        }
+        if (schedule.pool() == null) {
+            return;
+        }
 
-        for (Order order : orders) {
-            int cardCount = order.getCardCount();
+        log.info("   ✅ Created {} assignments for {} stage", schedule.created().size(), stage);
 
-            if (cardCount == 0) {
-                log.debug("   ⚠️ Order {} has 0 cards, skipping", order.getOrderNumber());
-                skippedCount++;
-                continue;
+        // Log workload distribution
+        log.info("   👥 Workload distribution:");
+        EmployeePool pool = schedule.pool();
+        for (int slot = 0; slot < employees.size(); slot++) {
+            long minutes = pool.busyMinutes(slot);
+            if (minutes > 0) {
+                log.info("      - {}: {} minutes ({} hours, speed {})",
+                        employees.get(slot).getFullName(), minutes, minutes / 60, pool.speed(slot));
             }
+        }
+    }
 
-            // Find employee with earliest availability
-            Employee selectedEmployee = employees.stream()
-                    .min(Comparator.comparing(e -> employeeSchedule.get(e.getId())))
-                    .orElse(employees.get(0));
-
-            LocalDateTime startTime = employeeSchedule.get(selectedEmployee.getId());
-            int durationMinutes = cardCount * MINUTES_PER_CARD;
-            LocalDateTime endTime = startTime.plusMinutes(durationMinutes);
-
-            // Create assignment
-            WorkAssignment assignment = new WorkAssignment();
-            assignment.setOrder(order);
-            assignment.setEmployee(selectedEmployee);
-            assignment.setProcessingStage(stage);
-            assignment.setCardCount(cardCount);
-            assignment.setEstimatedDurationMinutes(durationMinutes);
-            assignment.setScheduledStart(startTime);
-            assignment.setScheduledEnd(endTime);
-            assignment.setStatus(AssignmentStatus.SCHEDULED);
-            assignment.setPriorityScore((long) order.getPriorityScore());
-
-            assignments.add(assignment);
-
-            // Update employee's next available time
-            employeeSchedule.put(selectedEmployee.getId(), endTime);
-
-            assignmentCount++;
-
-            // Log every 100th assignment
-            if (assignmentCount % 100 == 0) {
-                log.debug("   ... {} assignments created", assignmentCount);
-            }
+    /**
+     * Later of two optional date-times
+     */
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
         }
+        return b != null && b.isAfter(a) ? b : a;
+    }
 
-        if (skippedCount > 0) {
-            log.warn("   ⚠️ Skipped {} orders with 0 cards", skippedCount);
+    /**
+     * Per-employee utilization of a stage plan, up to the end of that stage's plan
+     */
+    private List<EmployeeUtilizationDTO> buildUtilization(String stage, List<Employee> employees,
+                                                          EmployeePool pool, ShiftCalendar calendar) {
+        if (pool == null) {
+            return new ArrayList<>();
         }
+        long planEnd = pool.latestFreeMinute();
+        List<EmployeeUtilizationDTO> utilization = new ArrayList<>(employees.size());
+        for (int slot = 0; slot < employees.size(); slot++) {
+            Employee employee = employees.get(slot);
+            long available = pool.availableMinutes(slot, planEnd);
+            long busy = pool.busyMinutes(slot);
 
-        log.info("   ✅ Created {} assignments for {} stage", assignmentCount, stage);
+            EmployeeUtilizationDTO dto = new EmployeeUtilizationDTO();
+            dto.setEmployeeId(employee.getId());
+            dto.setEmployeeName(employee.getFullName());
+            dto.setStage(stage);
+            dto.setSpeed(pool.speed(slot));
+            dto.setAssignmentCount(pool.assignmentCount(slot));
+            dto.setBusyMinutes(busy);
+            dto.setAvailableMinutes(available);
+            dto.setUtilizationPercentage(available > 0
+                    ? Math.round(Math.min(busy, available) * 1000.0 / available) / 10.0 : 0.0);
+            dto.setNextAvailableTime(calendar.toDateTime(pool.freeAtMinute(slot)));
+            utilization.add(dto);
+        }
+        return utilization;
+    }
 
-        // Log workload distribution
-        Map<String, Integer> workloadByEmployee = new HashMap<>();
-        for (WorkAssignment assignment : assignments) {
-            String empName = assignment.getEmployee().getFirstName() + " " +
-                    assignment.getEmployee().getLastName();
-            workloadByEmployee.merge(empName, assignment.getEstimatedDurationMinutes(), Integer::sum);
+    /**
+     * Predicted lateness of every planned order: end of its last planned work
+     * (kept work included) against its estimated delivery date
+     */
+    private LatenessReport buildLatenessReport(List<PlanningOrder> orders, List<StagePlan> stagePlans,
+                                               DeadlineIndex deadlines, ShiftCalendar calendar) {
+        Map<UUID, Long> completion = new HashMap<>(orders.size() * 2);
+        for (StagePlan stagePlan : stagePlans) {
+            stagePlan.finishMinutes().forEach((orderId, finish) -> completion.merge(orderId, finish, Math::max));
         }
 
-        log.info("   👥 Workload distribution:");
-        workloadByEmployee.forEach((name, minutes) ->
-                log.info("      - {}: {} minutes ({} hours)", name, minutes, minutes / 60)
-        );
+        List<OrderLatenessDTO> late = new ArrayList<>();
+        Set<UUID> planned = new HashSet<>();
+        long total = 0;
+        long max = 0;
+        for (PlanningOrder order : orders) {
+            Long finish = completion.get(order.id());
+            Long due = deadlines.dueMinute(order.id());
+            if (finish == null || due == null || !planned.add(order.id())) {
+                continue;
+            }
+            long lateness = finish - due;
+            if (lateness <= 0) {
+                continue;
+            }
+            total += lateness;
+            max = Math.max(max, lateness);
+
+            OrderLatenessDTO dto = new OrderLatenessDTO();
+            dto.setOrderId(order.id());
+            dto.setOrderNumber(order.orderNumber());
+            dto.setDelai(order.delai());
+            dto.setStatus(order.status() != null ? order.status().name() : null);
+            dto.setCardCount(order.cardCount());
+            dto.setEstimatedDeliveryDate(calendar.toDateTime(due));
+            dto.setPredictedCompletion(calendar.toDateTime(finish));
+            dto.setLatenessMinutes(lateness);
+            late.add(dto);
+        }
+
+        late.sort(Comparator.comparing(OrderLatenessDTO::getLatenessMinutes).reversed());
+
+        LatenessReport report = new LatenessReport();
+        report.setDispatchRule(deadlines.getRule().name());
+        report.setPlannedOrders(planned.size());
+        report.setLateOrderCount(late.size());
+        report.setTotalLatenessMinutes(total);
+        report.setMaxLatenessMinutes(max);
+        report.setTruncated(late.size() > latenessReportLimit);
+        report.setLateOrders(new ArrayList<>(late.subList(0, Math.min(late.size(), latenessReportLimit))));
+        return report;
+    }
+
+    /**
+     * End-to-end metrics of a flow-shop plan, from the orders' exit of the last stage
+     */
+    private PipelineMetrics buildPipelineMetrics(List<StageInput> inputs, StagePlan lastStage, ShiftCalendar calendar) {
+        PipelineMetrics metrics = new PipelineMetrics();
+        Map<String, long[]> turnaround = new TreeMap<>(
+                Comparator.comparingInt(Order::priorityScoreOf).thenComparing(Comparator.naturalOrder()));
+        long makespan = 0;
+        int lateOrders = 0;
+
+        for (StageInput input : inputs) {
+            for (PlanningOrder order : input.orders()) {
+                Long finish = lastStage.finishMinutes().get(order.id());
+                if (finish == null) {
+                    continue;
+                }
+                LocalDateTime end = calendar.toDateTime(finish);
+                String delai = order.delai() != null ? order.delai() : "N/A";
+                makespan = Math.max(makespan, finish);
+
+                metrics.getCardsPerDay().merge(end.toLocalDate(), order.cardCount(), Integer::sum);
+                metrics.getOrdersPerDay().merge(end.toLocalDate(), 1, Integer::sum);
+
+                if (end.isAfter(order.estimatedDeliveryDate(calendar.getOrigin()))) {
+                    lateOrders++;
+                    metrics.getLateOrdersByDelai().merge(delai, 1, Integer::sum);
+                }
+
+                long[] sum = turnaround.computeIfAbsent(delai, d -> new long[2]);
+                sum[0] += Math.max(0, finish);
+                sum[1]++;
+            }
+        }
 
-        return assignments;
+        metrics.setMakespanMinutes(makespan);
+        metrics.setMakespanEnd(calendar.toDateTime(makespan));
+        metrics.setLateOrders(lateOrders);
+        turnaround.forEach((delai, sum) ->
+                metrics.getAverageTurnaroundHoursByDelai().put(delai, Math.round(sum[0] / (double) sum[1] / 6.0) / 10.0));
+        return metrics;
     }
 
     /**
@@ -242,7 +1100,7 @@ public class WorkPlanningService {
      * Get all assignments for an order
      */
     public List<WorkAssignment> getOrderAssignments(UUID orderId) {
-        return workAssignmentRepository.findByOrderIdOrderByScheduledStartAsc(orderId);
+        return workAssignmentRepository.findByOrderOrLotMember(orderId);
     }
 
     /**
@@ -259,6 +1117,8 @@ public class WorkPlanningService {
             assignment.setActualStart(LocalDateTime.now());
         } else if (newStatus == AssignmentStatus.COMPLETED && assignment.getActualEnd() == null) {
             assignment.setActualEnd(LocalDateTime.now());
+            durationModelService.record(assignment);
+            taskDispatchService.onCompleted(assignmentId);
         }
 
         return workAssignmentRepository.save(assignment);
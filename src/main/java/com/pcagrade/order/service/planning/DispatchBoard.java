@@ -0,0 +1,219 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.OrderStatus;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory board of open work for pull-based dispatching
+ *
+ * - ready: one priority queue per stage (PLAN_ORDER), each behind its own lock, so
+ *   taking the top task is O(log n) and stages do not contend with each other
+ * - waiting: tasks whose order has not reached their stage yet, per order
+ * - outstanding: per order and stage, tasks not completed yet (scheduled or in progress)
+ * - open: every task not completed yet, by id, so completions reported outside the
+ *   dispatcher still release the next stage
+ * - inProgress: tasks handed out (or already started when the board was built)
+ * - unreleasedOrders: per waiting work lot, its orders that have not released it yet
+ *
+ * A task becomes ready when its order is at or past the task's stage and no earlier
+ * stage of the order has outstanding work; completing the last task of a stage releases
+ * the order's next stage. A work lot counts as outstanding work of each of its orders
+ * and only becomes ready once every one of them has reached its stage. Releasing takes the board lock then a queue lock; taking only
+ * takes a queue lock.
+ *
+ * The board is rebuilt from the database whenever the plan changes and swapped in whole.
+ */
+public final class DispatchBoard {
+
+    private final Map<PlanningStage, PriorityQueue<DispatchTask>> ready = new EnumMap<>(PlanningStage.class);
+    private final Map<UUID, List<DispatchTask>> waiting = new HashMap<>();
+    private final Map<UUID, int[]> outstanding = new HashMap<>();
+    private final Map<UUID, DispatchTask> open = new ConcurrentHashMap<>();
+    private final Map<UUID, DispatchTask> inProgress = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> unreleasedOrders = new HashMap<>();
+
+    public DispatchBoard(Collection<DispatchTask> tasks) {
+        for (PlanningStage stage : PlanningStage.values()) {
+            ready.put(stage, new PriorityQueue<>(DispatchTask.PLAN_ORDER));
+        }
+
+        Map<UUID, PlanningStage> orderStages = new HashMap<>();
+        for (DispatchTask task : tasks) {
+            PlanningStage stage = task.stage();
+            if (stage == null) {
+                continue;
+            }
+            open.put(task.id(), task);
+            boolean started = task.status() == AssignmentStatus.IN_PROGRESS;
+            if (started) {
+                inProgress.put(task.id(), task);
+            } else if (task.isLot()) {
+                unreleasedOrders.put(task.id(), task.orderStatuses().size());
+            }
+            for (Map.Entry<UUID, OrderStatus> order : task.orderStatuses().entrySet()) {
+                outstanding.computeIfAbsent(order.getKey(),
+                        id -> new int[PlanningStage.values().length])[stage.ordinal()]++;
+                if (!started) {
+                    waiting.computeIfAbsent(order.getKey(), id -> new ArrayList<>()).add(task);
+                }
+                PlanningStage orderStage = PlanningStage.forOrderStatus(order.getValue());
+                if (orderStage != null) {
+                    orderStages.put(order.getKey(), orderStage);
+                }
+            }
+        }
+
+        for (UUID orderId : new ArrayList<>(waiting.keySet())) {
+            release(orderId, orderStages.get(orderId));
+        }
+    }
+
+    /**
+     * Take the top ready task of the given stages: O(stages + log n)
+     * The best head is chosen without holding every lock, then polled atomically from
+     * its stage; under contention a caller may get that stage's next task instead.
+     */
+    public Optional<DispatchTask> take(Set<PlanningStage> stages) {
+        while (true) {
+            PlanningStage best = null;
+            DispatchTask bestHead = null;
+            for (PlanningStage stage : stages) {
+                PriorityQueue<DispatchTask> queue = ready.get(stage);
+                DispatchTask head;
+                synchronized (queue) {
+                    head = queue.peek();
+                }
+                if (head != null && (bestHead == null || DispatchTask.PLAN_ORDER.compare(head, bestHead) < 0)) {
+                    best = stage;
+                    bestHead = head;
+                }
+            }
+            if (best == null) {
+                return Optional.empty();
+            }
+
+            PriorityQueue<DispatchTask> queue = ready.get(best);
+            synchronized (queue) {
+                DispatchTask task = queue.poll();
+                if (task != null) {
+                    return Optional.of(task);
+                }
+            }
+        }
+    }
+
+    /**
+     * Record a task as started (after its row was claimed)
+     */
+    public void started(DispatchTask task) {
+        inProgress.put(task.id(), task);
+    }
+
+    /**
+     * Put back a taken task that could not be claimed for a transient reason
+     */
+    public void putBack(DispatchTask task) {
+        PriorityQueue<DispatchTask> queue = ready.get(task.stage());
+        synchronized (queue) {
+            queue.add(task);
+        }
+    }
+
+    public Optional<DispatchTask> getInProgress(UUID assignmentId) {
+        return Optional.ofNullable(inProgress.get(assignmentId));
+    }
+
+    /**
+     * Record a task as completed and release its order's next stage if it was the last one
+     * A task completed without going through the dispatcher may still sit in a ready
+     * queue: it is dropped when taken, since its row can no longer be claimed.
+     *
+     * @return the task as last known on this board, if it was open
+     */
+    public Optional<DispatchTask> completed(UUID assignmentId) {
+        DispatchTask task = open.remove(assignmentId);
+        if (task == null) {
+            return Optional.empty();
+        }
+        DispatchTask started = inProgress.remove(assignmentId);
+        if (started != null) {
+            task = started;
+        }
+        synchronized (this) {
+            for (UUID orderId : task.orderStatuses().keySet()) {
+                int[] counts = outstanding.get(orderId);
+                if (counts != null && --counts[task.stage().ordinal()] <= 0) {
+                    release(orderId, task.stage());
+                }
+            }
+        }
+        return Optional.of(task);
+    }
+
+    public int readyCount(PlanningStage stage) {
+        PriorityQueue<DispatchTask> queue = ready.get(stage);
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    public synchronized int waitingCount() {
+        return (int) waiting.values().stream().flatMap(List::stream).map(DispatchTask::id).distinct().count();
+    }
+
+    public int inProgressCount() {
+        return inProgress.size();
+    }
+
+    /**
+     * Move an order's waiting tasks of its current stage to the ready queues
+     * The current stage is the first with outstanding work, but never before the stage
+     * the order is known to be in.
+     */
+    private synchronized void release(UUID orderId, PlanningStage atLeast) {
+        List<DispatchTask> tasks = waiting.get(orderId);
+        int[] counts = outstanding.get(orderId);
+        if (tasks == null || counts == null) {
+            return;
+        }
+
+        int current = atLeast != null ? atLeast.ordinal() : 0;
+        while (current < counts.length && counts[current] <= 0) {
+            current++;
+        }
+        if (current == counts.length) {
+            return;
+        }
+
+        PlanningStage stage = PlanningStage.values()[current];
+        List<DispatchTask> released = new ArrayList<>();
+        Iterator<DispatchTask> iterator = tasks.iterator();
+        while (iterator.hasNext()) {
+            DispatchTask task = iterator.next();
+            if (task.stage() != stage) {
+                continue;
+            }
+            iterator.remove();
+            if (task.isLot()) {
+                // A work lot waits for the last of its orders
+                int pending = unreleasedOrders.merge(task.id(), -1, Integer::sum);
+                if (pending > 0) {
+                    continue;
+                }
+                unreleasedOrders.remove(task.id());
+            }
+            released.add(task);
+        }
+        if (tasks.isEmpty()) {
+            waiting.remove(orderId);
+        }
+
+        PriorityQueue<DispatchTask> queue = ready.get(stage);
+        synchronized (queue) {
+            queue.addAll(released);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.OrderStatus;
+
+import java.util.UUID;
+
+/**
+ * One order of an open work lot, with its number and status, for the dispatch board
+ */
+public record DispatchLotOrder(
+        UUID assignmentId,
+        UUID orderId,
+        String orderNumber,
+        OrderStatus orderStatus) {
+}
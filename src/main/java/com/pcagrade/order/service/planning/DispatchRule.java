@@ -0,0 +1,15 @@
+package com.pcagrade.order.service.planning;
+
+/**
+ * Order in which released work is dispatched to free employees
+ * - PRIORITY: delai code (X > F+ > F > C > E), then oldest order first
+ * - EDD: earliest estimated delivery date first
+ * - SLACK: least slack first, slack = delivery date minus the order's remaining work
+ *   through its remaining stages (working minutes); a big order due tomorrow goes
+ *   before a small one due tomorrow
+ */
+public enum DispatchRule {
+    PRIORITY,
+    EDD,
+    SLACK
+}
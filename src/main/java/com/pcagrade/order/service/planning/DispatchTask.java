@@ -0,0 +1,91 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Open work_assignment row as held by the dispatch board
+ * Loaded through a JPQL constructor expression together with its order's number and
+ * status, so the board never goes back to the database to rank or hand out work.
+ * plannedEmployeeId keeps the plan's employee once the task went to whoever pulled it.
+ * lotOrders lists every order of a work lot (empty for a single-order task).
+ */
+public record DispatchTask(
+        UUID id,
+        UUID orderId,
+        String orderNumber,
+        OrderStatus orderStatus,
+        UUID employeeId,
+        String processingStage,
+        Integer cardCount,
+        AssignmentStatus status,
+        LocalDateTime scheduledStart,
+        LocalDateTime actualStart,
+        Long priorityScore,
+        UUID plannedEmployeeId,
+        List<DispatchLotOrder> lotOrders) {
+
+    public DispatchTask(UUID id, UUID orderId, String orderNumber, OrderStatus orderStatus, UUID employeeId,
+                        String processingStage, Integer cardCount, AssignmentStatus status,
+                        LocalDateTime scheduledStart, LocalDateTime actualStart, Long priorityScore) {
+        this(id, orderId, orderNumber, orderStatus, employeeId, processingStage, cardCount, status,
+                scheduledStart, actualStart, priorityScore, employeeId, List.of());
+    }
+
+    /**
+     * Hand-out order: planned start first (the plan's sequence, even when it is running
+     * late), then priority score, then id
+     */
+    public static final Comparator<DispatchTask> PLAN_ORDER = Comparator
+            .comparing(DispatchTask::scheduledStart, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(DispatchTask::priorityScore, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(DispatchTask::id);
+
+    /**
+     * Stage of the task, or null for an unknown stage name
+     */
+    public PlanningStage stage() {
+        try {
+            return processingStage != null ? PlanningStage.valueOf(processingStage) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public int cards() {
+        return cardCount != null ? cardCount : 0;
+    }
+
+    public boolean isLot() {
+        return lotOrders != null && !lotOrders.isEmpty();
+    }
+
+    /**
+     * Status of every order the task works on (the lot's orders, or its single order)
+     */
+    public Map<UUID, OrderStatus> orderStatuses() {
+        if (!isLot()) {
+            return Map.of(orderId, orderStatus);
+        }
+        Map<UUID, OrderStatus> statuses = new LinkedHashMap<>();
+        lotOrders.forEach(order -> statuses.put(order.orderId(), order.orderStatus()));
+        return statuses;
+    }
+
+    public DispatchTask started(UUID employee, LocalDateTime at) {
+        return new DispatchTask(id, orderId, orderNumber, orderStatus, employee, processingStage, cardCount,
+                AssignmentStatus.IN_PROGRESS, scheduledStart, at, priorityScore, plannedEmployeeId, lotOrders);
+    }
+
+    public DispatchTask withLotOrders(List<DispatchLotOrder> orders) {
+        return new DispatchTask(id, orderId, orderNumber, orderStatus, employeeId, processingStage, cardCount,
+                status, scheduledStart, actualStart, priorityScore, plannedEmployeeId, List.copyOf(orders));
+    }
+}
@@ -0,0 +1,157 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.Employee;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of the learned processing rates (minutes per card)
+ *
+ * Per stage, and per stage and employee for employees with recorded timings. The planner
+ * takes one snapshot per run from DurationModelService; entities and static helpers keep
+ * the standard rate. Until timings are learned every stage runs at 3 minutes per card.
+ *
+ * Stages with enough samples also carry their spread: the standard deviation of
+ * ln(minutes per card) of one assignment around its employee's rate.
+ */
+public final class DurationEstimates {
+
+    public static final double STANDARD_MINUTES_PER_CARD = 3.0;
+
+    private final Map<PlanningStage, Double> stageRates;
+    private final Map<PlanningStage, Map<UUID, Double>> employeeRates;
+    private final Map<PlanningStage, Double> stageSpreads;
+
+    public DurationEstimates(Map<PlanningStage, Double> stageRates, Map<PlanningStage, Map<UUID, Double>> employeeRates) {
+        this(stageRates, employeeRates, Map.of());
+    }
+
+    public DurationEstimates(Map<PlanningStage, Double> stageRates, Map<PlanningStage, Map<UUID, Double>> employeeRates,
+                             Map<PlanningStage, Double> stageSpreads) {
+        this.stageRates = new EnumMap<>(stageRates);
+        this.employeeRates = new EnumMap<>(PlanningStage.class);
+        employeeRates.forEach((stage, rates) -> this.employeeRates.put(stage, Map.copyOf(rates)));
+        this.stageSpreads = new EnumMap<>(PlanningStage.class);
+        this.stageSpreads.putAll(stageSpreads);
+    }
+
+    /**
+     * Every stage at the same rate, no employee data
+     */
+    public static DurationEstimates standard(double minutesPerCard) {
+        Map<PlanningStage, Double> rates = new EnumMap<>(PlanningStage.class);
+        for (PlanningStage stage : PlanningStage.values()) {
+            rates.put(stage, minutesPerCard);
+        }
+        return new DurationEstimates(rates, Map.of());
+    }
+
+    /**
+     * Standard minutes per card of a stage
+     */
+    public double minutesPerCard(PlanningStage stage) {
+        return stageRates.getOrDefault(stage, STANDARD_MINUTES_PER_CARD);
+    }
+
+    /**
+     * Minutes per card of an employee in a stage (the stage rate when nothing was recorded)
+     */
+    public double minutesPerCard(PlanningStage stage, UUID employeeId) {
+        Double rate = employeeId != null ? employeeRates.getOrDefault(stage, Map.of()).get(employeeId) : null;
+        return rate != null ? rate : minutesPerCard(stage);
+    }
+
+    /**
+     * Speed of an employee relative to the stage rate (1.2 = 20% faster), if timings were recorded
+     */
+    public OptionalDouble speed(PlanningStage stage, UUID employeeId) {
+        Double rate = employeeRates.getOrDefault(stage, Map.of()).get(employeeId);
+        return rate != null && rate > 0 ? OptionalDouble.of(minutesPerCard(stage) / rate) : OptionalDouble.empty();
+    }
+
+    /**
+     * Speed of an employee in a stage (1.0 = standard, 1.2 = 20% faster)
+     * Learned from the employee's actual timings in the stage when there are any,
+     * otherwise the global efficiencyRating.
+     */
+    public double speedOf(PlanningStage stage, Employee employee) {
+        OptionalDouble learned = speed(stage, employee.getId());
+        if (learned.isPresent()) {
+            return learned.getAsDouble();
+        }
+        Double rating = employee.getEfficiencyRating();
+        return rating != null && rating > 0 ? rating : 1.0;
+    }
+
+    /**
+     * Learned spread of a stage's durations (standard deviation of ln(minutes per card)), if enough samples
+     */
+    public OptionalDouble spread(PlanningStage stage) {
+        Double spread = stageSpreads.get(stage);
+        return spread != null ? OptionalDouble.of(spread) : OptionalDouble.empty();
+    }
+
+    /**
+     * Minutes per card through every stage of the pipeline
+     */
+    public double pipelineMinutesPerCard() {
+        double total = 0;
+        for (PlanningStage stage : PlanningStage.values()) {
+            total += minutesPerCard(stage);
+        }
+        return total;
+    }
+
+    /**
+     * Minutes per card through the stages from the given one to the end of the pipeline
+     */
+    public double remainingMinutesPerCard(PlanningStage from) {
+        double total = 0;
+        PlanningStage[] stages = PlanningStage.values();
+        for (int i = from != null ? from.ordinal() : 0; i < stages.length; i++) {
+            total += minutesPerCard(stages[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Estimated minutes for some cards of a stage, by stage name (GRADING, ...)
+     * Unknown stage names use the average stage rate; employeeId may be null.
+     */
+    public int estimateMinutes(String stageName, UUID employeeId, int cards) {
+        if (cards <= 0) {
+            return 0;
+        }
+        PlanningStage stage = stageOf(stageName);
+        double rate = stage != null
+                ? minutesPerCard(stage, employeeId)
+                : pipelineMinutesPerCard() / PlanningStage.values().length;
+        return (int) Math.ceil(cards * rate);
+    }
+
+    public Map<PlanningStage, Double> getStageRates() {
+        return stageRates;
+    }
+
+    public Map<PlanningStage, Map<UUID, Double>> getEmployeeRates() {
+        return employeeRates;
+    }
+
+    public Map<PlanningStage, Double> getStageSpreads() {
+        return stageSpreads;
+    }
+
+    private static PlanningStage stageOf(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return PlanningStage.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.pcagrade.order.service.planning;
+
+import java.util.OptionalDouble;
+
+/**
+ * Streaming card-weighted mean of actual minutes per card
+ *
+ * Each sample adds its minutes and cards after the running sums have decayed by
+ * 0.5^(cards / halfLifeCards), so the mean follows changes in pace and old samples fade
+ * out instead of weighing forever. O(1) memory and time per sample.
+ *
+ * The spread is tracked the same way, from the log-ratio of each sample's minutes per card
+ * to the rate expected for it (lognormal dispersion, used by the delivery-risk simulation).
+ *
+ * Not thread-safe: updated under the DurationModelService lock.
+ */
+public final class DurationStats {
+
+    private double weightedMinutes;
+    private double weightedCards;
+    private long samples;
+    private long totalCards;
+    private double weightedSquaredResiduals;
+    private double residualWeight;
+    private long residualSamples;
+
+    public void add(int cards, double minutes, double halfLifeCards) {
+        double decay = halfLifeCards > 0 ? Math.pow(0.5, cards / halfLifeCards) : 1.0;
+        weightedMinutes = weightedMinutes * decay + minutes;
+        weightedCards = weightedCards * decay + cards;
+        samples++;
+        totalCards += cards;
+    }
+
+    /**
+     * Add ln(actual / expected minutes per card) of a sample
+     */
+    public void addResidual(int cards, double logResidual, double halfLifeCards) {
+        double decay = halfLifeCards > 0 ? Math.pow(0.5, cards / halfLifeCards) : 1.0;
+        weightedSquaredResiduals = weightedSquaredResiduals * decay + logResidual * logResidual;
+        residualWeight = residualWeight * decay + 1.0;
+        residualSamples++;
+    }
+
+    /**
+     * Standard deviation of ln(minutes per card) around the expected rate, once minSamples were seen
+     */
+    public OptionalDouble spread(long minSamples) {
+        return residualSamples >= minSamples && residualWeight > 0
+                ? OptionalDouble.of(Math.sqrt(weightedSquaredResiduals / residualWeight))
+                : OptionalDouble.empty();
+    }
+
+    /**
+     * Mean minutes per card shrunk toward a prior worth priorCards cards
+     * With few observed cards the estimate stays close to the prior.
+     */
+    public double minutesPerCard(double prior, double priorCards) {
+        return (weightedMinutes + prior * priorCards) / (weightedCards + priorCards);
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    public long getTotalCards() {
+        return totalCards;
+    }
+}
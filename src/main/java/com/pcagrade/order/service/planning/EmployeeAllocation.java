@@ -0,0 +1,219 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.Employee;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.ToDoubleBiFunction;
+
+/**
+ * Stage in which each employee takes new work during one plan run
+ *
+ * An employee in several teams is one person with one timeline: planning their new work
+ * in several stages side by side would double-book them. Each multi-team employee is
+ * therefore allocated to a single stage per run, the current bottleneck: the stage with
+ * the most open work per unit of capacity, where capacity counts the single-team
+ * employees and the multi-team employees already allocated to it (fastest first).
+ *
+ * Work an employee already has in other stages keeps occupying their timeline: new work
+ * starts after it (busyElsewhere) and, when re-planning within a horizon, work reserved
+ * beyond the horizon in any stage fences their timeline (reservedElsewhere).
+ *
+ * Immutable once built: shared by concurrently planned stages.
+ */
+public final class EmployeeAllocation {
+
+    private final Map<UUID, PlanningStage> allocated;
+    private final Map<UUID, EnumMap<PlanningStage, LocalDateTime>> busyByStage;
+    private final Map<UUID, EnumMap<PlanningStage, LocalDateTime[]>> reservedByStage;
+
+    private EmployeeAllocation(Map<UUID, PlanningStage> allocated,
+                               Map<UUID, EnumMap<PlanningStage, LocalDateTime>> busyByStage,
+                               Map<UUID, EnumMap<PlanningStage, LocalDateTime[]>> reservedByStage) {
+        this.allocated = allocated;
+        this.busyByStage = busyByStage;
+        this.reservedByStage = reservedByStage;
+    }
+
+    /**
+     * Allocate the multi-team employees of the inputs and index their existing work
+     * Must run before the stages are planned (it reads the previous plans as loaded).
+     *
+     * @param flowShop   true when a stage also plans the orders of the stages before it
+     * @param withScheduled true when SCHEDULED work may be kept (incremental re-planning)
+     * @param horizonEnd end of the re-planned window (null = whole plan)
+     */
+    public static EmployeeAllocation of(List<StageInput> inputs, ShiftCalendar calendar,
+                                        DurationEstimates durations,
+                                        ToDoubleBiFunction<Employee, PlanningStage> speedOf,
+                                        boolean flowShop, boolean withScheduled, LocalDateTime horizonEnd) {
+        Map<UUID, List<PlanningStage>> stagesOf = new HashMap<>();
+        Map<UUID, Employee> employees = new HashMap<>();
+        for (StageInput input : inputs) {
+            for (Employee employee : input.employees()) {
+                stagesOf.computeIfAbsent(employee.getId(), id -> new ArrayList<>(2)).add(input.stage());
+                employees.putIfAbsent(employee.getId(), employee);
+            }
+        }
+
+        // Open work (standard minutes) and single-team capacity (standard minutes per day) by stage
+        Map<PlanningStage, Double> load = new EnumMap<>(PlanningStage.class);
+        Map<PlanningStage, Double> capacity = new EnumMap<>(PlanningStage.class);
+        long pipelineCards = 0;
+        for (StageInput input : inputs) {
+            long cards = 0;
+            for (PlanningOrder order : input.orders()) {
+                cards += order.cardCount();
+            }
+            pipelineCards += cards;
+            load.put(input.stage(), (flowShop ? pipelineCards : cards) * durations.minutesPerCard(input.stage()));
+
+            double stageCapacity = 0;
+            for (Employee employee : input.employees()) {
+                if (stagesOf.get(employee.getId()).size() == 1) {
+                    stageCapacity += capacityOf(employee, input.stage(), calendar, speedOf);
+                }
+            }
+            capacity.put(input.stage(), stageCapacity);
+        }
+
+        // Multi-team employees, fastest first, each to the stage with the highest load per capacity
+        List<UUID> multiTeam = new ArrayList<>();
+        stagesOf.forEach((id, stages) -> {
+            if (stages.size() > 1) {
+                multiTeam.add(id);
+            }
+        });
+        multiTeam.sort(Comparator.comparingDouble((UUID id) -> -bestCapacity(employees.get(id), stagesOf.get(id),
+                calendar, speedOf)).thenComparing(Comparator.naturalOrder()));
+
+        Map<UUID, PlanningStage> allocated = new HashMap<>();
+        for (UUID id : multiTeam) {
+            Employee employee = employees.get(id);
+            PlanningStage best = null;
+            double bestPressure = -1;
+            for (PlanningStage stage : stagesOf.get(id)) {
+                double stageCapacity = capacity.getOrDefault(stage, 0.0);
+                double stageLoad = load.getOrDefault(stage, 0.0);
+                double pressure = stageCapacity > 0 ? stageLoad / stageCapacity
+                        : (stageLoad > 0 ? Double.MAX_VALUE : 0);
+                if (pressure > bestPressure) {
+                    best = stage;
+                    bestPressure = pressure;
+                }
+            }
+            allocated.put(id, best);
+            capacity.merge(best, capacityOf(employee, best, calendar, speedOf), Double::sum);
+        }
+
+        // Existing work of the multi-team employees, by stage
+        Map<UUID, EnumMap<PlanningStage, LocalDateTime>> busyByStage = new HashMap<>();
+        Map<UUID, EnumMap<PlanningStage, LocalDateTime[]>> reservedByStage = new HashMap<>();
+        for (StageInput input : inputs) {
+            StagePlanState previous = input.previous();
+            for (UUID id : multiTeam) {
+                LocalDateTime busy = previous.getBusyUntil(id);
+                if (busy != null) {
+                    busyByStage.computeIfAbsent(id, k -> new EnumMap<>(PlanningStage.class)).put(input.stage(), busy);
+                }
+            }
+            if (!withScheduled) {
+                continue;
+            }
+            for (List<PlannedAssignment> scheduled : previous.getScheduledByOrder().values()) {
+                for (PlannedAssignment assignment : scheduled) {
+                    UUID id = assignment.employeeId();
+                    if (id == null || assignment.scheduledEnd() == null || !allocated.containsKey(id)) {
+                        continue;
+                    }
+                    if (horizonEnd != null && assignment.scheduledStart() != null
+                            && !assignment.scheduledStart().isBefore(horizonEnd)) {
+                        LocalDateTime[] window = reservedByStage
+                                .computeIfAbsent(id, k -> new EnumMap<>(PlanningStage.class))
+                                .computeIfAbsent(input.stage(), k -> new LocalDateTime[]{
+                                        assignment.scheduledStart(), assignment.scheduledEnd()});
+                        window[0] = min(window[0], assignment.scheduledStart());
+                        window[1] = max(window[1], assignment.scheduledEnd());
+                    } else if (horizonEnd == null) {
+                        busyByStage.computeIfAbsent(id, k -> new EnumMap<>(PlanningStage.class))
+                                .merge(input.stage(), assignment.scheduledEnd(), EmployeeAllocation::max);
+                    }
+                }
+            }
+        }
+
+        return new EmployeeAllocation(allocated, busyByStage, reservedByStage);
+    }
+
+    /**
+     * Whether an employee takes new work in a stage (always, for single-team employees)
+     */
+    public boolean takesNewWork(UUID employeeId, PlanningStage stage) {
+        PlanningStage stageOf = allocated.get(employeeId);
+        return stageOf == null || stageOf == stage;
+    }
+
+    /**
+     * End of the employee's existing work in the other stages, or null
+     */
+    public LocalDateTime busyElsewhere(UUID employeeId, PlanningStage stage) {
+        EnumMap<PlanningStage, LocalDateTime> busy = busyByStage.get(employeeId);
+        if (busy == null) {
+            return null;
+        }
+        LocalDateTime until = null;
+        for (Map.Entry<PlanningStage, LocalDateTime> entry : busy.entrySet()) {
+            if (entry.getKey() != stage) {
+                until = until == null ? entry.getValue() : max(until, entry.getValue());
+            }
+        }
+        return until;
+    }
+
+    /**
+     * Window of the employee's work beyond the horizon in the other stages ({from, until}), or null
+     */
+    public LocalDateTime[] reservedElsewhere(UUID employeeId, PlanningStage stage) {
+        EnumMap<PlanningStage, LocalDateTime[]> reserved = reservedByStage.get(employeeId);
+        if (reserved == null) {
+            return null;
+        }
+        LocalDateTime[] window = null;
+        for (Map.Entry<PlanningStage, LocalDateTime[]> entry : reserved.entrySet()) {
+            if (entry.getKey() != stage) {
+                window = window == null ? entry.getValue().clone()
+                        : new LocalDateTime[]{min(window[0], entry.getValue()[0]), max(window[1], entry.getValue()[1])};
+            }
+        }
+        return window;
+    }
+
+    /**
+     * Stage of each multi-team employee
+     */
+    public Map<UUID, PlanningStage> getAllocated() {
+        return Collections.unmodifiableMap(allocated);
+    }
+
+    private static double capacityOf(Employee employee, PlanningStage stage, ShiftCalendar calendar,
+                                     ToDoubleBiFunction<Employee, PlanningStage> speedOf) {
+        return speedOf.applyAsDouble(employee, stage) * calendar.dailyWorkingMinutes(employee.getWorkHoursPerDay());
+    }
+
+    private static double bestCapacity(Employee employee, List<PlanningStage> stages, ShiftCalendar calendar,
+                                       ToDoubleBiFunction<Employee, PlanningStage> speedOf) {
+        double best = 0;
+        for (PlanningStage stage : stages) {
+            best = Math.max(best, capacityOf(employee, stage, calendar, speedOf));
+        }
+        return best;
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
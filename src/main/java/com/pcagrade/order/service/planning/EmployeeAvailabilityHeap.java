@@ -0,0 +1,163 @@
+package com.pcagrade.order.service.planning;
+
+import java.util.Arrays;
+
+/**
+ * Indexed binary min-heap of employee availability
+ *
+ * Each employee of a stage is identified by a slot (0..capacity-1) and keyed on
+ * the minute (offset from the plan origin) at which it becomes free again.
+ * - peek() returns the earliest-free employee in O(1)
+ * - update() re-keys an employee in O(log n) once work is appended to it
+ * - Keys are primitive longs, so scheduling never boxes or allocates
+ *
+ * Ties are broken on the lowest slot, which keeps the plan deterministic and
+ * matches the "first employee wins" behaviour of the former linear scan.
+ */
+public final class EmployeeAvailabilityHeap {
+
+    private final long[] keys;      // slot -> availability minute
+    private final int[] heap;       // heap position -> slot
+    private final int[] positions;  // slot -> heap position (-1 if absent)
+    private int size;
+
+    public EmployeeAvailabilityHeap(int capacity) {
+        this.keys = new long[capacity];
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Insert an employee slot with its initial availability minute
+     */
+    public void add(int slot, long availableAtMinute) {
+        if (positions[slot] >= 0) {
+            throw new IllegalStateException("Slot already in heap: " + slot);
+        }
+        keys[slot] = availableAtMinute;
+        heap[size] = slot;
+        positions[slot] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Slot of the earliest-free employee (heap must not be empty)
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new IllegalStateException("Availability heap is empty");
+        }
+        return heap[0];
+    }
+
+    /**
+     * Availability minute of the earliest-free employee
+     */
+    public long peekKey() {
+        return keys[peek()];
+    }
+
+    /**
+     * Remove and return the earliest-free employee slot
+     */
+    public int poll() {
+        int top = peek();
+        removeAt(0);
+        return top;
+    }
+
+    /**
+     * Current availability minute of a slot
+     */
+    public long key(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Change the availability minute of a slot already in the heap
+     */
+    public void update(int slot, long availableAtMinute) {
+        int position = positions[slot];
+        if (position < 0) {
+            throw new IllegalStateException("Slot not in heap: " + slot);
+        }
+        long previous = keys[slot];
+        keys[slot] = availableAtMinute;
+        if (availableAtMinute < previous) {
+            siftUp(position);
+        } else {
+            siftDown(position);
+        }
+    }
+
+    public boolean contains(int slot) {
+        return positions[slot] >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // ========== HEAP MAINTENANCE ==========
+
+    private void removeAt(int position) {
+        int removed = heap[position];
+        int last = heap[--size];
+        positions[removed] = -1;
+        if (position == size) {
+            return;
+        }
+        heap[position] = last;
+        positions[last] = position;
+        siftDown(position);
+        siftUp(positions[last]);
+    }
+
+    private void siftUp(int position) {
+        int slot = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            int parentSlot = heap[parent];
+            if (!less(slot, parentSlot)) {
+                break;
+            }
+            heap[position] = parentSlot;
+            positions[parentSlot] = position;
+            position = parent;
+        }
+        heap[position] = slot;
+        positions[slot] = position;
+    }
+
+    private void siftDown(int position) {
+        int slot = heap[position];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && less(heap[right], heap[child])) {
+                child = right;
+            }
+            int childSlot = heap[child];
+            if (!less(childSlot, slot)) {
+                break;
+            }
+            heap[position] = childSlot;
+            positions[childSlot] = position;
+            position = child;
+        }
+        heap[position] = slot;
+        positions[slot] = position;
+    }
+
+    private boolean less(int a, int b) {
+        long ka = keys[a];
+        long kb = keys[b];
+        return ka < kb || (ka == kb && a < b);
+    }
+}
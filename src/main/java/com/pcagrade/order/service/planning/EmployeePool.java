@@ -0,0 +1,215 @@
+package com.pcagrade.order.service.planning;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Employees of one stage as uniform-speed machines on the shift calendar
+ *
+ * Each employee (slot) has a speed (efficiencyRating: 1.0 = standard, 1.2 = 20% faster)
+ * and a number of working minutes per day. Employees sharing both are interchangeable
+ * apart from their timeline, so they are grouped and each group keeps its own
+ * availability heap: the earliest-free employee of a group is also the one finishing
+ * a given piece of work first. Choosing the earliest completion over all employees is
+ * therefore one peek per group (O(groups + log n)) instead of a scan of the stage.
+ *
+ * An employee may have a fence: a window reserved by kept work. New work fills the
+ * timeline up to the fence; work that would run into it
+ * makes the employee skip past the reserved window (see skipFence).
+ *
+ * Not thread-safe: one pool per stage computation.
+ */
+public final class EmployeePool {
+
+    private static final double MIN_SPEED = 0.1;
+    private static final double MAX_SPEED = 5.0;
+
+    private final ShiftCalendar calendar;
+    private final double[] speed;
+    private final int[] dailyMinutes;
+    private final long[] workingCursor;
+    private final long[] fenceCursor;
+    private final long[] resumeCursor;
+    private final long[] originCursor;
+    private final long[] busyMinutes;
+    private final int[] assignmentCount;
+    private final int[] groupOf;
+    private final EmployeeAvailabilityHeap[] groups;
+    private final EmployeeAvailabilityHeap all;
+
+    /**
+     * @param speeds        per-slot speed factor (non-positive = 1.0)
+     * @param dailyMinutes  per-slot working minutes per day
+     * @param seedCursor    per-slot working minute at which new work may start
+     */
+    public EmployeePool(ShiftCalendar calendar, double[] speeds, int[] dailyMinutes, long[] seedCursor) {
+        this(calendar, speeds, dailyMinutes, seedCursor, null, null);
+    }
+
+    /**
+     * @param fences  per-slot working minute at which reserved work starts (null = no fences)
+     * @param resumes per-slot working minute at which reserved work ends
+     */
+    public EmployeePool(ShiftCalendar calendar, double[] speeds, int[] dailyMinutes, long[] seedCursor,
+                        long[] fences, long[] resumes) {
+        int size = speeds.length;
+        this.calendar = calendar;
+        this.speed = new double[size];
+        this.dailyMinutes = dailyMinutes.clone();
+        this.workingCursor = seedCursor.clone();
+        this.fenceCursor = new long[size];
+        this.resumeCursor = new long[size];
+        this.originCursor = new long[size];
+        this.busyMinutes = new long[size];
+        this.assignmentCount = new int[size];
+        this.groupOf = new int[size];
+        this.all = new EmployeeAvailabilityHeap(size);
+
+        Map<String, Integer> groupIndex = new HashMap<>();
+        for (int slot = 0; slot < size; slot++) {
+            speed[slot] = speeds[slot] > 0 ? Math.max(MIN_SPEED, Math.min(MAX_SPEED, speeds[slot])) : 1.0;
+            groupOf[slot] = groupIndex.computeIfAbsent(speed[slot] + "/" + dailyMinutes[slot], k -> groupIndex.size());
+
+            originCursor[slot] = calendar.workingMinuteAt(dailyMinutes[slot], 0);
+            workingCursor[slot] = Math.max(workingCursor[slot], originCursor[slot]);
+            // Work already on the timeline (kept / in progress) counts as busy time
+            busyMinutes[slot] = workingCursor[slot] - originCursor[slot];
+
+            fenceCursor[slot] = Long.MAX_VALUE;
+            if (fences != null && fences[slot] < Long.MAX_VALUE && resumes[slot] > fences[slot]) {
+                fenceCursor[slot] = Math.max(fences[slot], workingCursor[slot]);
+                resumeCursor[slot] = Math.max(resumes[slot], fenceCursor[slot]);
+                busyMinutes[slot] += resumeCursor[slot] - fenceCursor[slot];
+            }
+        }
+
+        this.groups = new EmployeeAvailabilityHeap[groupIndex.size()];
+        for (int g = 0; g < groups.length; g++) {
+            groups[g] = new EmployeeAvailabilityHeap(size);
+        }
+        for (int slot = 0; slot < size; slot++) {
+            long freeAt = calendar.clockMinute(dailyMinutes[slot], workingCursor[slot]);
+            groups[groupOf[slot]].add(slot, freeAt);
+            all.add(slot, freeAt);
+        }
+    }
+
+    public int size() {
+        return speed.length;
+    }
+
+    /**
+     * Wall-clock minute at which the first employee becomes free
+     */
+    public long earliestFreeMinute() {
+        return all.peekKey();
+    }
+
+    /**
+     * Working minutes an employee needs for some standard-speed work
+     */
+    public int durationMinutes(int slot, int standardMinutes) {
+        return (int) Math.ceil(standardMinutes / speed[slot]);
+    }
+
+    /**
+     * Employee finishing the work first, given when it is released (earliest completion time)
+     */
+    public int bestSlot(int standardMinutes, long releaseMinute) {
+        int best = -1;
+        long bestEnd = Long.MAX_VALUE;
+        for (EmployeeAvailabilityHeap group : groups) {
+            int slot = group.peek();
+            long end = endMinute(slot, startCursor(slot, releaseMinute), durationMinutes(slot, standardMinutes));
+            if (end < bestEnd || (end == bestEnd && slot < best)) {
+                best = slot;
+                bestEnd = end;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * First working minute of an employee at which released work can start
+     */
+    public long startCursor(int slot, long releaseMinute) {
+        return Math.max(workingCursor[slot], calendar.workingMinuteAt(dailyMinutes[slot], releaseMinute));
+    }
+
+    public long startMinute(int slot, long startCursor) {
+        return calendar.clockMinute(dailyMinutes[slot], startCursor);
+    }
+
+    public long endMinute(int slot, long startCursor, int durationMinutes) {
+        return calendar.endClockMinute(dailyMinutes[slot], startCursor + durationMinutes);
+    }
+
+    /**
+     * Append work to an employee's timeline
+     */
+    public void assign(int slot, long startCursor, int durationMinutes) {
+        workingCursor[slot] = startCursor + durationMinutes;
+        busyMinutes[slot] += durationMinutes;
+        assignmentCount[slot]++;
+
+        long freeAt = calendar.clockMinute(dailyMinutes[slot], workingCursor[slot]);
+        all.update(slot, freeAt);
+        groups[groupOf[slot]].update(slot, freeAt);
+    }
+
+    /**
+     * Whether work starting at a cursor would run into the employee's reserved window
+     */
+    public boolean crossesFence(int slot, long startCursor, int durationMinutes) {
+        return startCursor + durationMinutes > fenceCursor[slot];
+    }
+
+    /**
+     * Move an employee past its reserved window; its next work starts after the reserved work
+     */
+    public void skipFence(int slot) {
+        workingCursor[slot] = Math.max(workingCursor[slot], resumeCursor[slot]);
+        fenceCursor[slot] = Long.MAX_VALUE;
+
+        long freeAt = calendar.clockMinute(dailyMinutes[slot], workingCursor[slot]);
+        all.update(slot, freeAt);
+        groups[groupOf[slot]].update(slot, freeAt);
+    }
+
+    public double speed(int slot) {
+        return speed[slot];
+    }
+
+    public long busyMinutes(int slot) {
+        return busyMinutes[slot];
+    }
+
+    public int assignmentCount(int slot) {
+        return assignmentCount[slot];
+    }
+
+    /**
+     * Wall-clock minute at which an employee is free again
+     */
+    public long freeAtMinute(int slot) {
+        return all.key(slot);
+    }
+
+    /**
+     * Working minutes of an employee between the plan origin and a wall-clock minute
+     */
+    public long availableMinutes(int slot, long untilMinute) {
+        return Math.max(0, calendar.workingMinuteAt(dailyMinutes[slot], untilMinute) - originCursor[slot]);
+    }
+
+    /**
+     * Latest wall-clock minute at which any employee is free again (end of the stage plan)
+     */
+    public long latestFreeMinute() {
+        long latest = 0;
+        for (int slot = 0; slot < speed.length; slot++) {
+            latest = Math.max(latest, all.key(slot));
+        }
+        return latest;
+    }
+}
@@ -0,0 +1,7 @@
+package com.pcagrade.order.service.planning;
+
+/**
+ * Published when a sync moved orders to another status (a cue for the rolling re-planner)
+ */
+public record OrderStatusChangedEvent(int orderCount) {
+}
@@ -0,0 +1,520 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.Employee;
+
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+/**
+ * Discrete-event simulation of the card pipeline, for capacity forecasting
+ *
+ * Orders enter the pipeline at their stage and arrival minute and go through the
+ * following stages in order. At each stage an order is split into card lots (as the
+ * planner does) that queue by planning priority: delai code first, then oldest first.
+ * Employees are servers with one timeline each, shared by all their teams: whenever an
+ * employee frees up it takes the top lot of the stages it works in (the later stage on a
+ * tie, to drain the pipeline), works it at its own speed in its working minutes
+ * (ShiftCalendar), and the order moves on once all its lots of the stage are done.
+ *
+ * The event queue and the stage queues are heaps of primitive longs (time or priority
+ * rank in the high bits), so months of demand are replayed without allocating per event.
+ * Orders, employees and queue ranks are prepared once, on the first run; later runs only
+ * reset the state arrays and heaps, so repeated runs (delivery-risk sampling) allocate
+ * nothing. A run may draw each lot's duration from a lognormal around its rate.
+ *
+ * Not thread-safe: one instance per thread. fork() gives another thread its own state
+ * over the same prepared orders and employees.
+ */
+public final class PipelineSimulator {
+
+    private static final PlanningStage[] STAGES = PlanningStage.values();
+    private static final long EMPLOYEE_EVENT = 1L << 31;
+    private static final long LOW_MASK = 0xFFFFFFFFL;
+
+    private final ShiftCalendar calendar;
+    private final DurationEstimates durations;
+    private final int lotSize;
+
+    private final List<SimulatedOrder> orders = new ArrayList<>();
+    private final List<Employee> employees = new ArrayList<>();
+    private final List<Set<PlanningStage>> employeeStages = new ArrayList<>();
+
+    // Prepared on the first run and shared with forks: indexed by order, queue rank, stage or employee
+    private boolean prepared;
+    private int[] cards;
+    private boolean[] projected;
+    private long[] arrival;
+    private int[] startStage;
+    private int[] rankToOrder;
+    private int[] orderRank;
+    private int[] backlogOrders;
+    private int[] dailyMinutes;
+    private double[][] minutesPerCard;
+    private int[][] stagesOf;
+    private int[][] staff;
+    private double[] dailyCapacity;
+    private int[] employeeCounts;
+
+    // Run state, reset by every run
+    private int[] pendingLots;
+    private long[] completion;
+    private int[] backlogLeft;
+    private long[] clearedAt;
+    private long[] clearedMinutes;
+    private long[] busyMinutes;
+    private long[] queueCards;
+    private long[] maxQueueCards;
+    private long[] processedCards;
+    private boolean[] idle;
+    private int[] jobOrder;
+    private int[] jobStage;
+    private LongHeap events;
+    private LongHeap[] ready;
+    private RandomGenerator random;
+    private final double[] spread = new double[STAGES.length];
+    private final double[] drift = new double[STAGES.length];
+
+    /**
+     * @param lotSize maximum cards per lot of a stage (0 = orders are never split)
+     */
+    public PipelineSimulator(ShiftCalendar calendar, DurationEstimates durations, int lotSize) {
+        this.calendar = calendar;
+        this.durations = durations;
+        this.lotSize = lotSize;
+    }
+
+    /**
+     * Fork sharing the prepared orders and employees, with its own run state
+     */
+    private PipelineSimulator(PipelineSimulator prepared) {
+        this(prepared.calendar, prepared.durations, prepared.lotSize);
+        orders.addAll(prepared.orders);
+        employees.addAll(prepared.employees);
+        employeeStages.addAll(prepared.employeeStages);
+        this.prepared = true;
+        cards = prepared.cards;
+        projected = prepared.projected;
+        arrival = prepared.arrival;
+        startStage = prepared.startStage;
+        rankToOrder = prepared.rankToOrder;
+        orderRank = prepared.orderRank;
+        backlogOrders = prepared.backlogOrders;
+        dailyMinutes = prepared.dailyMinutes;
+        minutesPerCard = prepared.minutesPerCard;
+        stagesOf = prepared.stagesOf;
+        staff = prepared.staff;
+        dailyCapacity = prepared.dailyCapacity;
+        employeeCounts = prepared.employeeCounts;
+        allocateState();
+    }
+
+    /**
+     * An order entering the pipeline at a stage
+     *
+     * @param arrivalMinute minute (from the calendar origin) at which it joins the stage's queue
+     * @param dueMinute     minute at which it is due out of the pipeline
+     * @param projected     true for forecast demand, false for an order of the current backlog
+     * @return index of the order in the outcome
+     */
+    public int addOrder(PlanningOrder order, PlanningStage stage, long arrivalMinute, long dueMinute,
+                        boolean projected) {
+        checkNotPrepared();
+        orders.add(new SimulatedOrder(order, stage, Math.max(0L, arrivalMinute), dueMinute, projected));
+        return orders.size() - 1;
+    }
+
+    /**
+     * An employee working in the given stages
+     */
+    public void addEmployee(Employee employee, Set<PlanningStage> stages) {
+        checkNotPrepared();
+        if (!stages.isEmpty()) {
+            employees.add(employee);
+            employeeStages.add(EnumSet.copyOf(stages));
+        }
+    }
+
+    /**
+     * Run the simulation until every order left the pipeline or the horizon is reached
+     * Lots take exactly their estimated duration.
+     */
+    public SimulationOutcome run(long horizonMinute) {
+        return run(horizonMinute, null, null);
+    }
+
+    /**
+     * Run the simulation with randomized durations
+     * Each lot's duration is its estimate times exp(N(0, spread²) - spread²/2): lognormal
+     * with the estimate as its mean. The outcome's arrays belong to this simulator and are
+     * overwritten by its next run.
+     *
+     * @param random       source of the draws (null = exact estimates)
+     * @param stageSpreads standard deviation of ln(duration) per stage ordinal
+     */
+    public SimulationOutcome run(long horizonMinute, RandomGenerator random, double[] stageSpreads) {
+        prepare();
+        reset();
+        this.random = random;
+        for (int s = 0; s < STAGES.length; s++) {
+            spread[s] = random != null && stageSpreads != null ? stageSpreads[s] : 0.0;
+            drift[s] = -0.5 * spread[s] * spread[s];
+        }
+
+        int orderCount = orders.size();
+        for (int i = 0; i < orderCount; i++) {
+            events.push(arrival[i] << 32 | i);
+        }
+
+        long processed = 0;
+        long lastMinute = 0;
+        while (!events.isEmpty() && (events.peek() >>> 32) <= horizonMinute) {
+            long event = events.pop();
+            long minute = event >>> 32;
+            long payload = event & LOW_MASK;
+            processed++;
+            lastMinute = minute;
+            if ((payload & EMPLOYEE_EVENT) != 0) {
+                finish((int) (payload & ~EMPLOYEE_EVENT), minute);
+            } else {
+                enqueue((int) payload, startStage[(int) payload], minute);
+            }
+        }
+
+        for (int s = 0; s < STAGES.length; s++) {
+            clearedMinutes[s] = backlogLeft[s] == 0 ? clearedAt[s] : -1L;
+        }
+        return new SimulationOutcome(processed, lastMinute, completion, clearedMinutes, busyMinutes,
+                maxQueueCards, processedCards, dailyCapacity, employeeCounts);
+    }
+
+    /**
+     * Simulator over the same orders and employees for another thread (prepares this one first)
+     */
+    public PipelineSimulator fork() {
+        prepare();
+        return new PipelineSimulator(this);
+    }
+
+    public int orderCount() {
+        return orders.size();
+    }
+
+    public SimulatedOrder order(int index) {
+        return orders.get(index);
+    }
+
+    // ========== PREPARATION ==========
+
+    private void checkNotPrepared() {
+        if (prepared) {
+            throw new IllegalStateException("Simulator already prepared: add orders and employees before running");
+        }
+    }
+
+    /**
+     * Orders, queue ranks and employees in arrays, once
+     */
+    private void prepare() {
+        if (prepared) {
+            return;
+        }
+        int orderCount = orders.size();
+        int employeeCount = employees.size();
+        int stageCount = STAGES.length;
+
+        // ========== ORDERS ==========
+
+        cards = new int[orderCount];
+        projected = new boolean[orderCount];
+        arrival = new long[orderCount];
+        startStage = new int[orderCount];
+        backlogOrders = new int[stageCount];
+        int[] priority = new int[orderCount];
+        long[] sortMinute = new long[orderCount];
+        for (int i = 0; i < orderCount; i++) {
+            SimulatedOrder order = orders.get(i);
+            cards[i] = order.order().cardCount();
+            projected[i] = order.projected();
+            arrival[i] = order.arrivalMinute();
+            startStage[i] = order.stage().ordinal();
+            priority[i] = order.order().priorityScore();
+            sortMinute[i] = order.projected() || order.order().date() == null
+                    ? order.arrivalMinute() : calendar.toClockMinute(order.order().date());
+            if (!order.projected()) {
+                for (int s = order.stage().ordinal(); s < stageCount; s++) {
+                    backlogOrders[s]++;
+                }
+            }
+        }
+
+        // Queue rank of each order: delai code first, then oldest first
+        Integer[] byPriority = new Integer[orderCount];
+        for (int i = 0; i < orderCount; i++) {
+            byPriority[i] = i;
+        }
+        Arrays.sort(byPriority, Comparator.<Integer>comparingInt(i -> priority[i])
+                .thenComparingLong(i -> sortMinute[i])
+                .thenComparingInt(i -> i));
+        rankToOrder = new int[orderCount];
+        orderRank = new int[orderCount];
+        for (int rank = 0; rank < orderCount; rank++) {
+            rankToOrder[rank] = byPriority[rank];
+            orderRank[byPriority[rank]] = rank;
+        }
+
+        // ========== EMPLOYEES ==========
+
+        dailyMinutes = new int[employeeCount];
+        minutesPerCard = new double[employeeCount][stageCount];
+        stagesOf = new int[employeeCount][];
+        dailyCapacity = new double[stageCount];
+        List<List<Integer>> staffOf = new ArrayList<>(stageCount);
+        for (int s = 0; s < stageCount; s++) {
+            staffOf.add(new ArrayList<>());
+        }
+        for (int e = 0; e < employeeCount; e++) {
+            Employee employee = employees.get(e);
+            dailyMinutes[e] = calendar.dailyWorkingMinutes(employee.getWorkHoursPerDay());
+            Set<PlanningStage> stages = employeeStages.get(e);
+            stagesOf[e] = new int[stages.size()];
+            int k = stages.size();
+            for (PlanningStage stage : stages) {
+                // Later stages first: ties go to the stage closer to the end of the pipeline
+                stagesOf[e][--k] = stage.ordinal();
+                double speed = durations.speedOf(stage, employee);
+                minutesPerCard[e][stage.ordinal()] = durations.minutesPerCard(stage) / speed;
+                staffOf.get(stage.ordinal()).add(e);
+                dailyCapacity[stage.ordinal()] += dailyMinutes[e] * speed;
+            }
+        }
+        // Idle employees of a stage are woken fastest first
+        staff = new int[stageCount][];
+        employeeCounts = new int[stageCount];
+        for (int s = 0; s < stageCount; s++) {
+            int stage = s;
+            staff[s] = staffOf.get(s).stream()
+                    .sorted(Comparator.comparingDouble(e -> minutesPerCard[e][stage]))
+                    .mapToInt(Integer::intValue).toArray();
+            employeeCounts[s] = staff[s].length;
+        }
+
+        prepared = true;
+        allocateState();
+    }
+
+    private void allocateState() {
+        int orderCount = orders.size();
+        int employeeCount = employees.size();
+        int stageCount = STAGES.length;
+        pendingLots = new int[orderCount];
+        completion = new long[orderCount];
+        backlogLeft = new int[stageCount];
+        clearedAt = new long[stageCount];
+        clearedMinutes = new long[stageCount];
+        busyMinutes = new long[stageCount];
+        queueCards = new long[stageCount];
+        maxQueueCards = new long[stageCount];
+        processedCards = new long[stageCount];
+        idle = new boolean[employeeCount];
+        jobOrder = new int[employeeCount];
+        jobStage = new int[employeeCount];
+        events = new LongHeap(orderCount + employeeCount);
+        ready = new LongHeap[stageCount];
+        for (int s = 0; s < stageCount; s++) {
+            ready[s] = new LongHeap(64);
+        }
+    }
+
+    private void reset() {
+        Arrays.fill(pendingLots, 0);
+        Arrays.fill(completion, -1L);
+        System.arraycopy(backlogOrders, 0, backlogLeft, 0, backlogOrders.length);
+        Arrays.fill(clearedAt, 0L);
+        Arrays.fill(busyMinutes, 0L);
+        Arrays.fill(queueCards, 0L);
+        Arrays.fill(maxQueueCards, 0L);
+        Arrays.fill(processedCards, 0L);
+        Arrays.fill(idle, true);
+        events.clear();
+        for (LongHeap heap : ready) {
+            heap.clear();
+        }
+    }
+
+    // ========== EVENTS ==========
+
+    /**
+     * Queue an order's lots at a stage and wake idle employees of the stage
+     */
+    private void enqueue(int order, int stage, long minute) {
+        int total = cards[order];
+        if (total <= 0) {
+            leave(order, stage, minute);
+            return;
+        }
+        int lot = lotSize > 0 ? lotSize : total;
+        int lots = 0;
+        for (int remaining = total; remaining > 0; remaining -= lot) {
+            ready[stage].push((long) orderRank[order] << 32 | Math.min(lot, remaining));
+            lots++;
+        }
+        pendingLots[order] = lots;
+        queueCards[stage] += total;
+        maxQueueCards[stage] = Math.max(maxQueueCards[stage], queueCards[stage]);
+
+        for (int employee : staff[stage]) {
+            if (ready[stage].isEmpty()) {
+                break;
+            }
+            if (idle[employee]) {
+                dispatch(employee, minute);
+            }
+        }
+    }
+
+    /**
+     * An employee finished its lot: the order moves on once its stage is done, and the
+     * employee takes its next lot
+     */
+    private void finish(int employee, long minute) {
+        int order = jobOrder[employee];
+        int stage = jobStage[employee];
+        if (--pendingLots[order] == 0) {
+            leave(order, stage, minute);
+        }
+        dispatch(employee, minute);
+    }
+
+    /**
+     * Start the top lot of the employee's stages, or leave the employee idle
+     */
+    private void dispatch(int employee, long minute) {
+        int best = -1;
+        long bestKey = Long.MAX_VALUE;
+        for (int stage : stagesOf[employee]) {
+            if (!ready[stage].isEmpty() && ready[stage].peek() < bestKey) {
+                best = stage;
+                bestKey = ready[stage].peek();
+            }
+        }
+        if (best < 0) {
+            idle[employee] = true;
+            return;
+        }
+
+        long job = ready[best].pop();
+        int lotCards = (int) (job & LOW_MASK);
+        queueCards[best] -= lotCards;
+        processedCards[best] += lotCards;
+
+        int daily = dailyMinutes[employee];
+        long start = calendar.workingMinuteAt(daily, minute);
+        double minutes = lotCards * minutesPerCard[employee][best];
+        if (spread[best] > 0) {
+            minutes *= Math.exp(spread[best] * random.nextGaussian() + drift[best]);
+        }
+        long duration = Math.max(1L, (long) Math.ceil(minutes));
+        busyMinutes[best] += duration;
+
+        idle[employee] = false;
+        jobOrder[employee] = rankToOrder[(int) (job >>> 32)];
+        jobStage[employee] = best;
+        events.push(calendar.endClockMinute(daily, start + duration) << 32 | EMPLOYEE_EVENT | employee);
+    }
+
+    /**
+     * An order is done with a stage: on to the next one, or out of the pipeline
+     */
+    private void leave(int order, int stage, long minute) {
+        if (!projected[order]) {
+            clearedAt[stage] = Math.max(clearedAt[stage], minute);
+            backlogLeft[stage]--;
+        }
+        if (stage + 1 < STAGES.length) {
+            enqueue(order, stage + 1, minute);
+        } else {
+            completion[order] = minute;
+        }
+    }
+
+    /**
+     * Order as given to the simulator
+     */
+    public record SimulatedOrder(PlanningOrder order, PlanningStage stage, long arrivalMinute, long dueMinute,
+                                 boolean projected) {
+    }
+
+    /**
+     * Result of a simulation, indexed by order index or stage ordinal
+     * - completionMinutes: when each order left the pipeline (-1 = not within the horizon)
+     * - clearedMinutes: when the last order of the current backlog left each stage
+     *   (-1 = not within the horizon)
+     * - busyMinutes / maxQueueCards / processedCards: per stage, over the whole simulation
+     * - dailyCapacityMinutes: per stage, standard minutes its employees work off per day
+     * The arrays are the simulator's own: a later run of the same simulator overwrites them.
+     */
+    public record SimulationOutcome(long events, long lastMinute, long[] completionMinutes, long[] clearedMinutes,
+                                    long[] busyMinutes, long[] maxQueueCards, long[] processedCards,
+                                    double[] dailyCapacityMinutes, int[] employeeCounts) {
+    }
+
+    /**
+     * Binary min-heap of longs
+     */
+    private static final class LongHeap {
+        private long[] values;
+        private int size;
+
+        LongHeap(int capacity) {
+            values = new long[Math.max(capacity, 16)];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        long peek() {
+            return values[0];
+        }
+
+        void push(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (values[parent] <= value) {
+                    break;
+                }
+                values[i] = values[parent];
+                i = parent;
+            }
+            values[i] = value;
+        }
+
+        long pop() {
+            long top = values[0];
+            long last = values[--size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && values[child + 1] < values[child]) {
+                    child++;
+                }
+                if (last <= values[child]) {
+                    break;
+                }
+                values[i] = values[child];
+                i = child;
+            }
+            values[i] = last;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.dto.PlanSearchStats;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time-boxed parallel local search on top of the greedy plan
+ *
+ * A plan is decoded from a dispatch sequence of the orders to (re)plan: every stage is
+ * scheduled with StageScheduler in that sequence, so the sequence decides both the lot
+ * order and which employee (earliest completion) each lot lands on. The greedy plan is
+ * the dispatch-rule sequence (DeadlineIndex); workers on a fork-join pool perturb the
+ * best sequence found so far and keep improvements:
+ * - swap two nearby orders (lot re-ordering)
+ * - move a late order earlier (lets it take another employee's earlier slot)
+ * - move a random order to another nearby position
+ *
+ * Cost = sum of lateness minutes x delai weight (X = 6 ... E = 1) + makespanWeight x makespan.
+ */
+public final class PlanOptimizer {
+
+    private static final int NEIGHBOURHOOD = 32;
+    private static final int RESTART_AFTER = 200;
+    private static final int MAX_TRACE = 100;
+
+    private final StageScheduler scheduler;
+    private final List<StageWork> stages;
+    private final boolean flowShop;
+    private final double makespanWeight;
+    private final DeadlineIndex deadlines;
+    private final Map<UUID, Integer> weights = new HashMap<>();
+
+    /**
+     * @param stages     the stages' new work, in pipeline order
+     * @param allOrders  every order of the plan (kept work included), for the cost
+     * @param deadlines  due dates and greedy dispatch order of the plan
+     * @param flowShop   true when a stage's releases are the previous stage's finish minutes
+     */
+    public PlanOptimizer(StageScheduler scheduler, List<StageWork> stages, Collection<PlanningOrder> allOrders,
+                         DeadlineIndex deadlines, boolean flowShop, double makespanWeight) {
+        this.scheduler = scheduler;
+        this.stages = stages;
+        this.deadlines = deadlines;
+        this.flowShop = flowShop;
+        this.makespanWeight = makespanWeight;
+
+        for (PlanningOrder order : allOrders) {
+            weights.put(order.id(), 7 - order.priorityScore());
+        }
+    }
+
+    /**
+     * Outcome: best sequence found (as a dispatch comparator) and convergence stats
+     */
+    public record Result(Comparator<PlanningOrder> sequence, boolean improved, PlanSearchStats stats) {
+    }
+
+    /**
+     * Search for a better sequence than the greedy dispatch order
+     *
+     * @param budgetMs wall-clock time budget
+     * @param threads  fork-join parallelism
+     */
+    public Result optimize(long budgetMs, int threads) {
+        long startTime = System.currentTimeMillis();
+        long deadline = startTime + budgetMs;
+
+        // Orders to (re)plan in any stage, in greedy (dispatch) order
+        Map<UUID, PlanningOrder> distinct = new LinkedHashMap<>();
+        for (StageWork stage : stages) {
+            for (PlanningOrder order : stage.toPlan()) {
+                distinct.putIfAbsent(order.id(), order);
+            }
+        }
+        PlanningOrder[] greedy = distinct.values().toArray(new PlanningOrder[0]);
+        Arrays.sort(greedy, deadlines.dispatchOrder());
+
+        Candidate initial = evaluate(greedy);
+        AtomicReference<Candidate> best = new AtomicReference<>(initial);
+        LongAdder evaluations = new LongAdder();
+        LongAdder improvements = new LongAdder();
+        List<PlanSearchStats.Sample> trace = Collections.synchronizedList(new ArrayList<>());
+        long[] bestFoundAt = {0};
+
+        if (greedy.length > 1 && budgetMs > 0) {
+            List<Callable<Void>> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                workers.add(() -> {
+                    search(best, deadline, evaluations, improvements, trace, bestFoundAt, startTime);
+                    return null;
+                });
+            }
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                pool.invokeAll(workers);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        Candidate result = best.get();
+        PlanSearchStats stats = new PlanSearchStats();
+        stats.setThreads(threads);
+        stats.setBudgetMs(budgetMs);
+        stats.setElapsedMs(System.currentTimeMillis() - startTime);
+        stats.setEvaluations(evaluations.sum() + 1);
+        stats.setImprovements(improvements.sum());
+        stats.setInitialCost(initial.cost);
+        stats.setBestCost(result.cost);
+        stats.setImprovementPercentage(initial.cost > 0
+                ? Math.round((initial.cost - result.cost) * 1000.0 / initial.cost) / 10.0 : 0.0);
+        stats.setBestFoundAtMs(bestFoundAt[0]);
+        synchronized (trace) {
+            trace.sort(Comparator.comparing(PlanSearchStats.Sample::getAtMs));
+            stats.setTrace(new ArrayList<>(trace));
+        }
+
+        boolean improved = result.cost < initial.cost;
+        return new Result(comparatorOf(result.sequence), improved, stats);
+    }
+
+    /**
+     * Dispatch comparator following a sequence (orders not in it come last, by priority)
+     */
+    public static Comparator<PlanningOrder> comparatorOf(PlanningOrder[] sequence) {
+        Map<UUID, Integer> rank = new HashMap<>(sequence.length * 2);
+        for (int i = 0; i < sequence.length; i++) {
+            rank.put(sequence[i].id(), i);
+        }
+        return Comparator.comparingInt((PlanningOrder o) -> rank.getOrDefault(o.id(), Integer.MAX_VALUE))
+                .thenComparing(PlanningOrder.PRIORITY_ORDER)
+                .thenComparing(PlanningOrder::id);
+    }
+
+    // ========== SEARCH ==========
+
+    private record Candidate(PlanningOrder[] sequence, double cost, int[] latePositions) {
+    }
+
+    private void search(AtomicReference<Candidate> best, long deadline, LongAdder evaluations,
+                        LongAdder improvements, List<PlanSearchStats.Sample> trace,
+                        long[] bestFoundAt, long startTime) {
+        Random random = ThreadLocalRandom.current();
+        Candidate current = best.get();
+        int sinceImprovement = 0;
+
+        while (System.currentTimeMillis() < deadline && !Thread.currentThread().isInterrupted()) {
+            PlanningOrder[] sequence = mutate(current, random);
+            Candidate candidate = evaluate(sequence);
+            evaluations.increment();
+
+            if (candidate.cost < current.cost) {
+                current = candidate;
+                sinceImprovement = 0;
+                improvements.increment();
+
+                Candidate published = candidate;
+                Candidate previous = best.getAndAccumulate(published, (a, b) -> b.cost < a.cost ? b : a);
+                if (published.cost < previous.cost) {
+                    long at = System.currentTimeMillis() - startTime;
+                    synchronized (bestFoundAt) {
+                        bestFoundAt[0] = Math.max(bestFoundAt[0], at);
+                    }
+                    if (trace.size() < MAX_TRACE) {
+                        trace.add(new PlanSearchStats.Sample(at, published.cost));
+                    }
+                }
+            } else if (++sinceImprovement >= RESTART_AFTER) {
+                // Continue from the shared best (another worker may have found it)
+                current = best.get();
+                sinceImprovement = 0;
+            }
+        }
+    }
+
+    private PlanningOrder[] mutate(Candidate current, Random random) {
+        PlanningOrder[] sequence = current.sequence.clone();
+        int n = sequence.length;
+        int move = random.nextInt(3);
+
+        if (move == 0) {
+            // Swap two nearby orders
+            int i = random.nextInt(n);
+            int j = Math.min(n - 1, Math.max(0, i + random.nextInt(2 * NEIGHBOURHOOD + 1) - NEIGHBOURHOOD));
+            PlanningOrder tmp = sequence[i];
+            sequence[i] = sequence[j];
+            sequence[j] = tmp;
+        } else if (move == 1 && current.latePositions.length > 0) {
+            // Move a late order earlier
+            int from = current.latePositions[random.nextInt(current.latePositions.length)];
+            int to = Math.max(0, from - 1 - random.nextInt(4 * NEIGHBOURHOOD));
+            insert(sequence, from, to);
+        } else {
+            // Move a random order to a nearby position
+            int from = random.nextInt(n);
+            int to = Math.min(n - 1, Math.max(0, from + random.nextInt(2 * NEIGHBOURHOOD + 1) - NEIGHBOURHOOD));
+            insert(sequence, from, to);
+        }
+        return sequence;
+    }
+
+    private static void insert(PlanningOrder[] sequence, int from, int to) {
+        if (from == to) {
+            return;
+        }
+        PlanningOrder moved = sequence[from];
+        if (from > to) {
+            System.arraycopy(sequence, to, sequence, to + 1, from - to);
+        } else {
+            System.arraycopy(sequence, from + 1, sequence, from, to - from);
+        }
+        sequence[to] = moved;
+    }
+
+    /**
+     * Decode a sequence into a plan (finish minutes only) and price it
+     */
+    private Candidate evaluate(PlanningOrder[] sequence) {
+        Comparator<PlanningOrder> comparator = comparatorOf(sequence);
+        Map<UUID, Long> finish = new HashMap<>();
+        Map<UUID, Long> releases = Map.of();
+
+        for (StageWork stage : stages) {
+            StageSchedule schedule = scheduler.schedule(stage, flowShop ? releases : Map.of(), comparator, false);
+            if (!schedule.feasible()) {
+                return new Candidate(sequence, Double.MAX_VALUE, new int[0]);
+            }
+            finish.putAll(schedule.finishMinutes());
+            releases = schedule.finishMinutes();
+        }
+
+        double lateness = 0;
+        long makespan = 0;
+        Set<UUID> late = new HashSet<>();
+        for (Map.Entry<UUID, Long> entry : finish.entrySet()) {
+            long end = entry.getValue();
+            makespan = Math.max(makespan, end);
+            Long due = deadlines.dueMinute(entry.getKey());
+            if (due != null && end > due) {
+                lateness += (end - due) * (double) weights.get(entry.getKey());
+                late.add(entry.getKey());
+            }
+        }
+
+        int[] latePositions = new int[late.size()];
+        int count = 0;
+        for (int i = 0; i < sequence.length && count < latePositions.length; i++) {
+            if (late.contains(sequence[i].id())) {
+                latePositions[count++] = i;
+            }
+        }
+
+        return new Candidate(sequence, lateness + makespanWeight * makespan,
+                count == latePositions.length ? latePositions : Arrays.copyOf(latePositions, count));
+    }
+}
@@ -0,0 +1,13 @@
+package com.pcagrade.order.service.planning;
+
+/**
+ * Parameters of a plan generation (see WorkPlanningService.generateWorkPlan)
+ * A null parallel, mode or searchMs falls back to the configured default.
+ *
+ * @param fullRebuild true to leave every SCHEDULED assignment behind and re-slot all open work
+ * @param parallel    true to compute the stages on the planning executor
+ * @param mode        how stages are chained
+ * @param searchMs    improvement phase time budget in ms, 0 to skip
+ */
+public record PlanRequest(boolean fullRebuild, Boolean parallel, PlanningMode mode, Long searchMs) {
+}
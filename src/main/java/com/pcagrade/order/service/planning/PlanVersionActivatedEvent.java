@@ -0,0 +1,10 @@
+package com.pcagrade.order.service.planning;
+
+import java.util.UUID;
+
+/**
+ * Published when a plan version becomes the active plan (new generation, activation or rollback)
+ * Listeners interested in the committed plan use @TransactionalEventListener.
+ */
+public record PlanVersionActivatedEvent(UUID versionId) {
+}
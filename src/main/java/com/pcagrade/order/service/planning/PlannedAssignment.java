@@ -0,0 +1,76 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.WorkAssignment;
+import com.pcagrade.order.entity.WorkLotMember;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Slim read-only view of an existing work_assignment row
+ * Loaded through a JPQL constructor expression so re-planning can diff the
+ * previous plan without hydrating WorkAssignment entities and their proxies
+ *
+ * A work lot is viewed as one row per order of the lot (same id, the order's cards),
+ * so the planner sees each order's share of the lot like any other work.
+ */
+public record PlannedAssignment(
+        UUID id,
+        UUID orderId,
+        UUID employeeId,
+        String processingStage,
+        Integer cardCount,
+        AssignmentStatus status,
+        LocalDateTime scheduledStart,
+        LocalDateTime scheduledEnd) {
+
+    public static PlannedAssignment of(WorkAssignment assignment) {
+        return new PlannedAssignment(assignment.getId(), assignment.getOrder().getId(),
+                assignment.getEmployee().getId(), assignment.getProcessingStage(), assignment.getCardCount(),
+                assignment.getStatus(), assignment.getScheduledStart(), assignment.getScheduledEnd());
+    }
+
+    /**
+     * Views of an assignment: one per order of a work lot, or the assignment itself
+     */
+    public static List<PlannedAssignment> allOf(WorkAssignment assignment) {
+        if (!assignment.isLot()) {
+            return List.of(of(assignment));
+        }
+        List<PlannedAssignment> views = new ArrayList<>(assignment.getLotMembers().size());
+        for (WorkLotMember member : assignment.getLotMembers()) {
+            views.add(new PlannedAssignment(assignment.getId(), member.getOrderId(), assignment.getEmployee().getId(),
+                    assignment.getProcessingStage(), member.getCardCount(), assignment.getStatus(),
+                    assignment.getScheduledStart(), assignment.getScheduledEnd()));
+        }
+        return views;
+    }
+
+    /**
+     * Assignment rows with every work lot replaced by the rows of its orders
+     */
+    public static List<PlannedAssignment> withLotOrders(List<PlannedAssignment> rows, List<PlannedAssignment> lotOrders) {
+        if (lotOrders.isEmpty()) {
+            return rows;
+        }
+        Set<UUID> lots = new HashSet<>();
+        lotOrders.forEach(row -> lots.add(row.id()));
+        List<PlannedAssignment> expanded = new ArrayList<>(rows.size() + lotOrders.size());
+        for (PlannedAssignment row : rows) {
+            if (!lots.contains(row.id())) {
+                expanded.add(row);
+            }
+        }
+        expanded.addAll(lotOrders);
+        return expanded;
+    }
+
+    public int cards() {
+        return cardCount != null ? cardCount : 0;
+    }
+
+    public boolean isStarted() {
+        return status == AssignmentStatus.IN_PROGRESS || status == AssignmentStatus.COMPLETED;
+    }
+}
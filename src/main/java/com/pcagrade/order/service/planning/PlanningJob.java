@@ -0,0 +1,96 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.model.SyncProgress;
+
+import java.time.LocalDateTime;
+
+/**
+ * A background plan generation and its latest state
+ * The request parameters are fixed at submission; the state is written by the job thread
+ * and read by HTTP threads, hence the volatile fields.
+ */
+public final class PlanningJob {
+
+    private final String id;
+    private final PlanRequest request;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+
+    private volatile PlanningJobStatus status = PlanningJobStatus.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile SyncProgress progress;
+    private volatile WorkPlanResult result;
+    private volatile String error;
+
+    public PlanningJob(String id, PlanRequest request) {
+        this.id = id;
+        this.request = request;
+    }
+
+    public void start() {
+        startedAt = LocalDateTime.now();
+        status = PlanningJobStatus.RUNNING;
+    }
+
+    public void complete(WorkPlanResult result) {
+        this.result = result;
+        finishedAt = LocalDateTime.now();
+        status = PlanningJobStatus.COMPLETED;
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        finishedAt = LocalDateTime.now();
+        status = PlanningJobStatus.FAILED;
+    }
+
+    public boolean isFinished() {
+        return status.isFinished();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public PlanRequest getRequest() {
+        return request;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public PlanningJobStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public SyncProgress getProgress() {
+        return progress;
+    }
+
+    public void setProgress(SyncProgress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Generated plan, once COMPLETED
+     */
+    public WorkPlanResult getResult() {
+        return result;
+    }
+
+    /**
+     * Failure message, once FAILED
+     */
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,15 @@
+package com.pcagrade.order.service.planning;
+
+/**
+ * Lifecycle of a background plan-generation job
+ */
+public enum PlanningJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
@@ -0,0 +1,13 @@
+package com.pcagrade.order.service.planning;
+
+/**
+ * How the planner relates the processing stages to each other
+ * - PER_STAGE: each stage plans only the orders currently in its status, independently
+ *   (stages can be computed in parallel)
+ * - FLOW_SHOP: an order is planned through every remaining stage, each stage starting
+ *   after the order leaves the previous one (GRADING -> CERTIFYING -> SCANNING -> PACKAGING)
+ */
+public enum PlanningMode {
+    PER_STAGE,
+    FLOW_SHOP
+}
@@ -0,0 +1,72 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.Order;
+import com.pcagrade.order.entity.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Slim, immutable view of an order as needed by the planner
+ * Read through a streamed JPQL constructor expression, so no Order entity,
+ * cards proxy or persistence-context entry is created per order
+ * The planner still keeps one per order of a stage: memory is O(orders), with small rows
+ */
+public record PlanningOrder(
+        UUID id,
+        String orderNumber,
+        Integer totalCards,
+        String delai,
+        LocalDateTime date,
+        OrderStatus status) {
+
+    /**
+     * Planning priority: delai code first (X > F+ > F > C > E), then oldest order first
+     * Ascending score, since a lower score is a higher priority. Every planner sort goes through here.
+     */
+    public static final Comparator<PlanningOrder> PRIORITY_ORDER =
+            Comparator.comparingInt(PlanningOrder::priorityScore)
+                    .thenComparing(o -> o.date() != null ? o.date() : LocalDateTime.MIN);
+
+    public int cardCount() {
+        return totalCards != null ? totalCards : 0;
+    }
+
+    /**
+     * Same order with fewer cards left to plan (the rest of a partly started order)
+     */
+    public PlanningOrder withCardCount(int cards) {
+        return new PlanningOrder(id, orderNumber, cards, delai, date, status);
+    }
+
+    /**
+     * Priority score from the delai code (lower is higher priority)
+     */
+    public int priorityScore() {
+        return Order.priorityScoreOf(delai);
+    }
+
+    /**
+     * Estimated delivery date (order date + delai days), as Order.getEstimatedDeliveryDate()
+     */
+    public LocalDateTime estimatedDeliveryDate(LocalDateTime now) {
+        return (date != null ? date : now).plusDays(Order.estimatedDeliveryDaysOf(delai));
+    }
+
+    /**
+     * Detached Order carrying the projected fields
+     * Used as the order reference of generated WorkAssignments, which are
+     * written through JDBC and only need the id and display fields
+     */
+    public Order toOrderReference() {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderNumber(orderNumber);
+        order.setTotalCards(totalCards);
+        order.setDelai(delai);
+        order.setDate(date);
+        order.setStatus(status);
+        return order;
+    }
+}
@@ -0,0 +1,20 @@
+package com.pcagrade.order.service.planning;
+
+/**
+ * Receives the progress of a plan generation
+ * Phases follow the generation: LOADING, COMPUTING, SEARCHING, SAVING.
+ * Called from the generating thread; implementations must not block.
+ */
+@FunctionalInterface
+public interface PlanningProgress {
+
+    PlanningProgress NONE = (phase, percentage, message) -> {
+    };
+
+    /**
+     * @param phase      current phase of the generation
+     * @param percentage overall progress (0-100)
+     * @param message    human-readable status
+     */
+    void update(String phase, int percentage, String message);
+}
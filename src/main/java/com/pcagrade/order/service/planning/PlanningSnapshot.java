@@ -0,0 +1,23 @@
+package com.pcagrade.order.service.planning;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Frozen copy of the planner's inputs, loaded once for what-if planning
+ * Order and employee lists are unmodifiable and each scenario plans on its own copy
+ * of the previous plans (StageInput.withScenario), so any number of scenarios can be
+ * planned against the same snapshot concurrently.
+ */
+public record PlanningSnapshot(String id, LocalDateTime takenAt, long loadMillis, List<StageInput> inputs) {
+
+    public static PlanningSnapshot of(String id, long loadMillis, List<StageInput> loaded) {
+        List<StageInput> frozen = new ArrayList<>(loaded.size());
+        for (StageInput input : loaded) {
+            frozen.add(new StageInput(input.stage(), List.copyOf(input.orders()), List.copyOf(input.employees()),
+                    input.previous(), input.releaseMinutes()));
+        }
+        return new PlanningSnapshot(id, LocalDateTime.now(), loadMillis, List.copyOf(frozen));
+    }
+}
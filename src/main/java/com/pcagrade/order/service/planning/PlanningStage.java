@@ -0,0 +1,44 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.OrderStatus;
+
+/**
+ * Processing stages handled by the planner, in pipeline order
+ * Each stage maps the OrderStatus of the orders waiting for it to the
+ * team (role) whose employees perform it. An employee may belong to several teams
+ * (see EmployeeAllocation).
+ */
+public enum PlanningStage {
+    GRADING(OrderStatus.GRADING, "ROLE_GRADER"),
+    CERTIFYING(OrderStatus.CERTIFYING, "ROLE_CERTIFIER"),
+    SCANNING(OrderStatus.SCANNING, "ROLE_SCANNER"),
+    PACKAGING(OrderStatus.PACKAGING, "ROLE_PREPARER");
+
+    private final OrderStatus orderStatus;
+    private final String requiredRole;
+
+    PlanningStage(OrderStatus orderStatus, String requiredRole) {
+        this.orderStatus = orderStatus;
+        this.requiredRole = requiredRole;
+    }
+
+    public OrderStatus getOrderStatus() {
+        return orderStatus;
+    }
+
+    public String getRequiredRole() {
+        return requiredRole;
+    }
+
+    /**
+     * Stage waiting for orders in the given status, or null if none
+     */
+    public static PlanningStage forOrderStatus(OrderStatus status) {
+        for (PlanningStage stage : values()) {
+            if (stage.orderStatus == status) {
+                return stage;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,83 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.WorkAssignment;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Active plan as held by the rolling re-planner between runs
+ * The SCHEDULED assignments of the active version with the started and completed work.
+ * It is refreshed from the rows that left SCHEDULED since the last run (refresh) and from
+ * the re-planner's own writes (replace), so a run does not reload the whole plan.
+ *
+ * A work lot is held as the rows of its orders (see PlannedAssignment).
+ *
+ * Not thread-safe: used under the re-planner's lock.
+ */
+public final class RollingPlanState {
+
+    private final Map<UUID, List<PlannedAssignment>> assignments = new HashMap<>();
+    private final LocalDateTime loadedAt;
+    private UUID versionId;
+    private LocalDateTime refreshedAt;
+
+    public RollingPlanState(UUID versionId, List<PlannedAssignment> planned, LocalDateTime loadedAt) {
+        this.versionId = versionId;
+        this.loadedAt = loadedAt;
+        this.refreshedAt = loadedAt;
+        planned.forEach(this::add);
+    }
+
+    /**
+     * Apply rows read since the last refresh (started, completed or cancelled work)
+     */
+    public void refresh(List<PlannedAssignment> changed, LocalDateTime readAt) {
+        changed.forEach(assignment -> assignments.remove(assignment.id()));
+        for (PlannedAssignment assignment : changed) {
+            if (assignment.status() != AssignmentStatus.CANCELLED) {
+                add(assignment);
+            }
+        }
+        refreshedAt = readAt;
+    }
+
+    /**
+     * Apply a re-plan written by the re-planner as the new active version
+     */
+    public void replace(UUID newVersionId, Collection<UUID> removedIds, List<WorkAssignment> created) {
+        removedIds.forEach(assignments::remove);
+        created.forEach(assignment -> PlannedAssignment.allOf(assignment).forEach(this::add));
+        versionId = newVersionId;
+    }
+
+    /**
+     * Previous plans of every stage, built fresh (planning records kept work on them)
+     */
+    public Map<String, StagePlanState> byStage() {
+        List<PlannedAssignment> planned = new ArrayList<>(assignments.size());
+        assignments.values().forEach(planned::addAll);
+        return StagePlanState.byStage(planned);
+    }
+
+    private void add(PlannedAssignment assignment) {
+        assignments.computeIfAbsent(assignment.id(), id -> new ArrayList<>(1)).add(assignment);
+    }
+
+    public UUID getVersionId() {
+        return versionId;
+    }
+
+    public LocalDateTime getLoadedAt() {
+        return loadedAt;
+    }
+
+    public LocalDateTime getRefreshedAt() {
+        return refreshedAt;
+    }
+
+    public int size() {
+        return assignments.size();
+    }
+}
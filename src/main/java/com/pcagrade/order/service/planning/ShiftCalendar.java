@@ -0,0 +1,174 @@
+package com.pcagrade.order.service.planning;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Working-time calendar used by the planner
+ *
+ * Work is scheduled on a per-employee axis of "working minutes" (only minutes
+ * inside shifts count) and mapped back to wall-clock minutes from the plan origin.
+ * - Shifts run from planning.workday.start to planning.workday.end on working days
+ * - An employee works min(workHoursPerDay, shift - break) per day, with the break
+ *   taken in the middle of that working time
+ * - Shift start minutes of every working day in the horizon are precomputed, so
+ *   working minute -> wall clock is O(1) and wall clock -> working minute is O(log n)
+ *
+ * Immutable once built: one instance can be shared by concurrent stage computations.
+ */
+public final class ShiftCalendar {
+
+    private final LocalDateTime origin;
+    private final LocalTime dayStart;
+    private final int shiftMinutes;
+    private final int breakMinutes;
+    private final Set<DayOfWeek> workingDays;
+
+    /**
+     * Working day index -> minute offset (from origin) of that day's shift start
+     * Day 0 is the first working day on or after the origin date (may start before origin)
+     */
+    private final long[] dayStartMinutes;
+    private final LocalDate lastPrecomputedDate;
+
+    public ShiftCalendar(LocalDateTime origin, LocalTime dayStart, LocalTime dayEnd,
+                         int breakMinutes, Set<DayOfWeek> workingDays, int horizonDays) {
+        if (!dayEnd.isAfter(dayStart)) {
+            throw new IllegalArgumentException("Workday end must be after start: " + dayStart + " - " + dayEnd);
+        }
+        if (workingDays.isEmpty()) {
+            throw new IllegalArgumentException("At least one working day is required");
+        }
+        this.origin = origin;
+        this.dayStart = dayStart;
+        this.shiftMinutes = (int) ChronoUnit.MINUTES.between(dayStart, dayEnd);
+        this.breakMinutes = Math.max(0, Math.min(breakMinutes, shiftMinutes - 1));
+        this.workingDays = Set.copyOf(workingDays);
+
+        long[] starts = new long[horizonDays];
+        int count = 0;
+        LocalDate date = origin.toLocalDate();
+        LocalDate last = date;
+        for (int i = 0; i < horizonDays; i++, date = date.plusDays(1)) {
+            if (this.workingDays.contains(date.getDayOfWeek())) {
+                starts[count++] = ChronoUnit.MINUTES.between(origin, date.atTime(dayStart));
+                last = date;
+            }
+        }
+        this.dayStartMinutes = Arrays.copyOf(starts, Math.max(count, 1));
+        if (count == 0) {
+            // Horizon shorter than a week without working days: start on the next working day
+            LocalDate next = nextWorkingDate(origin.toLocalDate());
+            this.dayStartMinutes[0] = ChronoUnit.MINUTES.between(origin, next.atTime(dayStart));
+            last = next;
+        }
+        this.lastPrecomputedDate = last;
+    }
+
+    public LocalDateTime getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Working minutes per day for an employee
+     * Capped by the shift length minus the break
+     */
+    public int dailyWorkingMinutes(Integer workHoursPerDay) {
+        int available = shiftMinutes - breakMinutes;
+        if (workHoursPerDay == null || workHoursPerDay <= 0) {
+            return available;
+        }
+        return Math.max(1, Math.min(workHoursPerDay * 60, available));
+    }
+
+    /**
+     * Wall-clock minute (from origin) at which a working minute starts
+     */
+    public long clockMinute(int dailyMinutes, long workingMinute) {
+        long day = workingMinute / dailyMinutes;
+        int within = (int) (workingMinute % dailyMinutes);
+        int morning = dailyMinutes / 2;
+        return dayStartMinute(day) + within + (within >= morning ? breakMinutes : 0);
+    }
+
+    /**
+     * Wall-clock minute (from origin) at which work ending at this working minute (exclusive) ends
+     * Work finishing exactly at the end of a day ends that day, not at the next shift start.
+     */
+    public long endClockMinute(int dailyMinutes, long workingMinuteExclusive) {
+        if (workingMinuteExclusive <= 0) {
+            return clockMinute(dailyMinutes, 0);
+        }
+        return clockMinute(dailyMinutes, workingMinuteExclusive - 1) + 1;
+    }
+
+    /**
+     * First working minute of an employee at or after a wall-clock minute (from origin)
+     */
+    public long workingMinuteAt(int dailyMinutes, long clockMinute) {
+        int day = findDay(clockMinute);
+        if (day < 0) {
+            return 0;
+        }
+        long base = (long) day * dailyMinutes;
+        long elapsed = clockMinute - dayStartMinutes[day];
+        int morning = dailyMinutes / 2;
+
+        if (elapsed < morning) {
+            return base + elapsed;
+        }
+        if (elapsed < morning + breakMinutes) {
+            return base + morning;
+        }
+        if (elapsed - breakMinutes < dailyMinutes) {
+            return base + elapsed - breakMinutes;
+        }
+        return base + dailyMinutes;
+    }
+
+    public LocalDateTime toDateTime(long clockMinute) {
+        return origin.plusMinutes(clockMinute);
+    }
+
+    public long toClockMinute(LocalDateTime dateTime) {
+        return ChronoUnit.MINUTES.between(origin, dateTime);
+    }
+
+    // ========== DAY TABLE ==========
+
+    /**
+     * Last precomputed working day whose shift starts at or before the clock minute, or -1
+     */
+    private int findDay(long clockMinute) {
+        int index = Arrays.binarySearch(dayStartMinutes, clockMinute);
+        if (index >= 0) {
+            return index;
+        }
+        return -index - 2;
+    }
+
+    private long dayStartMinute(long day) {
+        if (day < dayStartMinutes.length) {
+            return dayStartMinutes[(int) day];
+        }
+        // Beyond the precomputed horizon: walk the calendar (rare, horizon is sized for it)
+        LocalDate date = lastPrecomputedDate;
+        for (long i = dayStartMinutes.length - 1; i < day; i++) {
+            date = nextWorkingDate(date.plusDays(1));
+        }
+        return ChronoUnit.MINUTES.between(origin, date.atTime(dayStart));
+    }
+
+    private LocalDate nextWorkingDate(LocalDate from) {
+        LocalDate date = from;
+        while (!workingDays.contains(date.getDayOfWeek())) {
+            date = date.plusDays(1);
+        }
+        return date;
+    }
+}
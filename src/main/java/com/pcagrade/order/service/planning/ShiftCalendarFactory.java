@@ -0,0 +1,54 @@
+package com.pcagrade.order.service.planning;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Builds the shift calendar of a planning run from the planning.* properties
+ */
+@Component
+public class ShiftCalendarFactory {
+
+    private final LocalTime workdayStart;
+    private final LocalTime workdayEnd;
+    private final int breakMinutes;
+    private final Set<DayOfWeek> workingDays;
+    private final int horizonDays;
+
+    public ShiftCalendarFactory(
+            @Value("${planning.workday.start:08:00}") String workdayStart,
+            @Value("${planning.workday.end:17:00}") String workdayEnd,
+            @Value("${planning.employee.break.time:15}") int breakMinutes,
+            @Value("${planning.workday.days:MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY}") String workingDays,
+            @Value("${planning.calendar.horizon-days:730}") int horizonDays) {
+        this.workdayStart = LocalTime.parse(workdayStart.trim());
+        this.workdayEnd = LocalTime.parse(workdayEnd.trim());
+        this.breakMinutes = breakMinutes;
+        this.workingDays = parseDays(workingDays);
+        this.horizonDays = Math.max(7, horizonDays);
+    }
+
+    /**
+     * Calendar anchored on a plan origin (minute offsets are relative to it)
+     */
+    public ShiftCalendar create(LocalDateTime origin) {
+        return new ShiftCalendar(origin, workdayStart, workdayEnd, breakMinutes, workingDays, horizonDays);
+    }
+
+    private static Set<DayOfWeek> parseDays(String days) {
+        Set<DayOfWeek> result = EnumSet.noneOf(DayOfWeek.class);
+        for (String day : days.split(",")) {
+            if (!day.isBlank()) {
+                result.add(DayOfWeek.valueOf(day.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+        return result;
+    }
+}
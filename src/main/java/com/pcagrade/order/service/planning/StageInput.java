@@ -0,0 +1,43 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.Employee;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Everything one stage needs to be planned, loaded up-front on the calling thread
+ * Stage computations only read these objects and never touch the database,
+ * so several StageInputs can be planned concurrently
+ *
+ * releaseMinutes holds, per order, the earliest minute (offset from the plan origin)
+ * at which the order may enter this stage; orders without an entry are ready at once.
+ */
+public record StageInput(
+        PlanningStage stage,
+        List<PlanningOrder> orders,
+        List<Employee> employees,
+        StagePlanState previous,
+        Map<UUID, Long> releaseMinutes) {
+
+    public StageInput(PlanningStage stage, List<PlanningOrder> orders, List<Employee> employees,
+                      StagePlanState previous) {
+        this(stage, orders, employees, previous, Map.of());
+    }
+
+    public long releaseMinute(UUID orderId) {
+        return releaseMinutes.getOrDefault(orderId, 0L);
+    }
+
+    /**
+     * Same stage with other orders and employees, on an independent copy of the previous plan
+     */
+    public StageInput withScenario(List<PlanningOrder> orders, List<Employee> employees) {
+        return new StageInput(stage, orders, employees, previous.copy(), releaseMinutes);
+    }
+
+    public StageInput withOrdersAndReleases(List<PlanningOrder> orders, Map<UUID, Long> releaseMinutes) {
+        return new StageInput(stage, orders, employees, previous, releaseMinutes);
+    }
+}
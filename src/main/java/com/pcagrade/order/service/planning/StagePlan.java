@@ -0,0 +1,37 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.dto.EmployeeUtilizationDTO;
+import com.pcagrade.order.entity.WorkAssignment;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Delta computed for one processing stage
+ * - created: new SCHEDULED assignments to insert
+ * - removedIds: superseded SCHEDULED assignments, left behind in the previous plan version
+ * - keptIds: SCHEDULED assignments carried over as they are
+ * - finishMinutes: per-order end of its work in this stage (minute offset from the plan origin)
+ * - utilization: per-employee planned utilization
+ * - work: the stage's new work, to re-schedule it with another sequence
+ * - computeMillis: time spent computing this stage
+ */
+public record StagePlan(
+        String stage,
+        List<WorkAssignment> created,
+        List<UUID> removedIds,
+        List<UUID> keptIds,
+        Map<UUID, Long> finishMinutes,
+        List<EmployeeUtilizationDTO> utilization,
+        StageWork work,
+        long computeMillis) {
+
+    public int keptCount() {
+        return keptIds.size();
+    }
+
+    public StagePlan withComputeMillis(long millis) {
+        return new StagePlan(stage, created, removedIds, keptIds, finishMinutes, utilization, work, millis);
+    }
+}
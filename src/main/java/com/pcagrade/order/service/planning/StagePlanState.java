@@ -0,0 +1,146 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.AssignmentStatus;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Previous plan of one processing stage, as seen by the delta planner
+ * - scheduled: SCHEDULED assignments grouped by order (candidates to keep or drop)
+ * - startedOrders: orders with IN_PROGRESS or COMPLETED work in this stage (never re-slotted)
+ * - startedCards: per-order cards of that work (the rest of a split order is still to plan)
+ * - busyUntil: per-employee end of work in progress
+ * - finishByOrder: per-order end of work that stays on the timeline (flow-shop release of the next stage)
+ * - reservedFrom / reservedUntil: per-employee window of kept SCHEDULED work (new work may
+ *   fill the gap before it)
+ */
+public final class StagePlanState {
+
+    private final Map<UUID, List<PlannedAssignment>> scheduledByOrder = new HashMap<>();
+    private final Set<UUID> startedOrders = new HashSet<>();
+    private final Map<UUID, Integer> startedCards = new HashMap<>();
+    private final Map<UUID, LocalDateTime> busyUntil = new HashMap<>();
+    private final Map<UUID, LocalDateTime> finishByOrder = new HashMap<>();
+    private final Map<UUID, LocalDateTime> reservedFrom = new HashMap<>();
+    private final Map<UUID, LocalDateTime> reservedUntil = new HashMap<>();
+
+    /**
+     * Group a flat list of planned assignments by processing stage
+     */
+    public static Map<String, StagePlanState> byStage(List<PlannedAssignment> planned) {
+        Map<String, StagePlanState> states = new HashMap<>();
+        for (PlannedAssignment assignment : planned) {
+            states.computeIfAbsent(assignment.processingStage(), stage -> new StagePlanState())
+                    .add(assignment);
+        }
+        return states;
+    }
+
+    private void add(PlannedAssignment assignment) {
+        if (assignment.status() == AssignmentStatus.SCHEDULED) {
+            scheduledByOrder.computeIfAbsent(assignment.orderId(), id -> new ArrayList<>(1))
+                    .add(assignment);
+        } else if (assignment.isStarted()) {
+            startedOrders.add(assignment.orderId());
+            startedCards.merge(assignment.orderId(), assignment.cards(), Integer::sum);
+            recordFinish(assignment);
+            if (assignment.status() == AssignmentStatus.IN_PROGRESS) {
+                occupy(assignment);
+            }
+        }
+    }
+
+    /**
+     * Mark an assignment as occupying its employee until its scheduled end
+     */
+    public void occupy(PlannedAssignment assignment) {
+        if (assignment.employeeId() == null || assignment.scheduledEnd() == null) {
+            return;
+        }
+        busyUntil.merge(assignment.employeeId(), assignment.scheduledEnd(),
+                (a, b) -> a.isAfter(b) ? a : b);
+        recordFinish(assignment);
+    }
+
+    /**
+     * Mark a kept assignment: it reserves its window on the employee's timeline instead of
+     * pushing all new work after it
+     */
+    public void reserve(PlannedAssignment assignment) {
+        if (assignment.employeeId() == null || assignment.scheduledStart() == null
+                || assignment.scheduledEnd() == null) {
+            occupy(assignment);
+            return;
+        }
+        reservedFrom.merge(assignment.employeeId(), assignment.scheduledStart(),
+                (a, b) -> a.isBefore(b) ? a : b);
+        reservedUntil.merge(assignment.employeeId(), assignment.scheduledEnd(),
+                (a, b) -> a.isAfter(b) ? a : b);
+        recordFinish(assignment);
+    }
+
+    private void recordFinish(PlannedAssignment assignment) {
+        if (assignment.scheduledEnd() != null) {
+            finishByOrder.merge(assignment.orderId(), assignment.scheduledEnd(),
+                    (a, b) -> a.isAfter(b) ? a : b);
+        }
+    }
+
+    public Map<UUID, List<PlannedAssignment>> getScheduledByOrder() {
+        return scheduledByOrder;
+    }
+
+    public boolean isStarted(UUID orderId) {
+        return startedOrders.contains(orderId);
+    }
+
+    /**
+     * Cards of the order's IN_PROGRESS and COMPLETED work in this stage
+     */
+    public int getStartedCards(UUID orderId) {
+        return startedCards.getOrDefault(orderId, 0);
+    }
+
+    public LocalDateTime getBusyUntil(UUID employeeId) {
+        return busyUntil.get(employeeId);
+    }
+
+    public LocalDateTime getReservedFrom(UUID employeeId) {
+        return reservedFrom.get(employeeId);
+    }
+
+    public LocalDateTime getReservedUntil(UUID employeeId) {
+        return reservedUntil.get(employeeId);
+    }
+
+    /**
+     * End of the order's started or kept work in this stage, or null
+     */
+    public LocalDateTime getFinish(UUID orderId) {
+        return finishByOrder.get(orderId);
+    }
+
+    /**
+     * Independent copy, for planning the same previous plan several times
+     * (kept assignments are recorded on the state while planning)
+     */
+    public StagePlanState copy() {
+        StagePlanState copy = new StagePlanState();
+        scheduledByOrder.forEach((orderId, scheduled) -> copy.scheduledByOrder.put(orderId, List.copyOf(scheduled)));
+        copy.startedOrders.addAll(startedOrders);
+        copy.startedCards.putAll(startedCards);
+        copy.busyUntil.putAll(busyUntil);
+        copy.finishByOrder.putAll(finishByOrder);
+        copy.reservedFrom.putAll(reservedFrom);
+        copy.reservedUntil.putAll(reservedUntil);
+        return copy;
+    }
+
+    /**
+     * Empty state for stages that had no previous plan
+     */
+    public static StagePlanState empty() {
+        return new StagePlanState();
+    }
+}
@@ -0,0 +1,25 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.WorkAssignment;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One scheduling of a StageWork
+ * - finishMinutes: per-order end of its work in the stage (minute offset from the plan origin)
+ * - created: the new assignments (empty when not materialized)
+ * - pool: employee timelines after scheduling (null when the stage had nothing to slot)
+ * - batchedCount: small orders planned inside work lots
+ * - feasible: false when kept work would start before its order is released
+ */
+public record StageSchedule(
+        Map<UUID, Long> finishMinutes,
+        List<WorkAssignment> created,
+        EmployeePool pool,
+        int splitCount,
+        int batchedCount,
+        int skippedCount,
+        boolean feasible) {
+}
@@ -0,0 +1,217 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.WorkAssignment;
+import com.pcagrade.order.entity.WorkLotMember;
+
+import java.util.*;
+
+/**
+ * Dispatches the new work of a stage onto its employees' timelines
+ *
+ * Orders join a ready queue once released (flow-shop precedence): whenever an employee
+ * frees up, the first released order in the given sequence is taken, and the dispatcher
+ * only waits when nothing is released yet (non-delay dispatching). With no release times
+ * this is plain sequence order.
+ *
+ * Employees are uniform-speed machines: work goes to the employee that completes it
+ * first, taking its speed into account (EmployeePool). Standard durations use the
+ * stage's learned minutes per card (DurationEstimates). Durations are counted in working
+ * minutes and mapped through the shift calendar, so work spans breaks, evenings and
+ * weekends instead of running around the clock.
+ *
+ * Kept work reserves a window on its employee's timeline (when re-planning within a
+ * horizon, the work kept beyond it): new work fills the gap before the window, and an
+ * employee whose next work would run into it moves past it instead (at most once per
+ * employee).
+ *
+ * Orders larger than the lot size are split into card lots: after a lot is taken the
+ * order goes back to the ready queue, so its next lot goes to the next free employee
+ * and a big order is worked on by several employees at once.
+ *
+ * Small orders are batched into work lots instead: the next ready orders of the same
+ * priority class are added to a small order while the lot stays within the batch size,
+ * and the lot is planned as one assignment at the first order's place in the sequence.
+ *
+ * Pure and stateless apart from its settings: safe to use from several threads.
+ */
+public final class StageScheduler {
+
+    private final ShiftCalendar calendar;
+    private final DurationEstimates durations;
+    private final int lotSize;
+    private final int batchSize;
+
+    /**
+     * @param lotSize   maximum cards per assignment of a split order (0 = never split)
+     * @param batchSize maximum cards of a work lot of small orders (0 = never batch)
+     */
+    public StageScheduler(ShiftCalendar calendar, DurationEstimates durations, int lotSize, int batchSize) {
+        this.calendar = calendar;
+        this.durations = durations;
+        this.lotSize = lotSize;
+        this.batchSize = batchSize;
+    }
+
+    public ShiftCalendar getCalendar() {
+        return calendar;
+    }
+
+    public DurationEstimates getDurations() {
+        return durations;
+    }
+
+    /**
+     * Schedule a stage's new work
+     *
+     * @param releaseMinutes per-order minute at which the order may enter the stage (absent = 0)
+     * @param sequence       dispatch order among released orders
+     * @param materialize    true to build WorkAssignments, false to only compute finish minutes
+     */
+    public StageSchedule schedule(StageWork work, Map<UUID, Long> releaseMinutes,
+                                  Comparator<PlanningOrder> sequence, boolean materialize) {
+        Map<UUID, Long> finishMinutes = new HashMap<>(work.keptFinish().size() + work.toPlan().size() * 2);
+
+        // Kept work stays where it is: it must still follow its order's release
+        for (Map.Entry<UUID, Long> kept : work.keptStart().entrySet()) {
+            long release = releaseMinutes.getOrDefault(kept.getKey(), 0L);
+            if (release > 0 && kept.getValue() < release) {
+                return new StageSchedule(finishMinutes, List.of(), null, 0, 0, 0, false);
+            }
+        }
+        for (Map.Entry<UUID, Long> kept : work.keptFinish().entrySet()) {
+            finishMinutes.put(kept.getKey(),
+                    Math.max(kept.getValue(), releaseMinutes.getOrDefault(kept.getKey(), 0L)));
+        }
+
+        List<WorkAssignment> created = new ArrayList<>();
+        EmployeePool pool = null;
+        int splitCount = 0;
+        int batchedCount = 0;
+        int skippedCount = 0;
+
+        if (!work.toPlan().isEmpty() && !work.employees().isEmpty()) {
+            pool = new EmployeePool(calendar, work.speeds(), work.dailyMinutes(), work.seedCursor(),
+                    work.fenceCursor(), work.resumeCursor());
+            String stage = work.stage().name();
+            double minutesPerCard = durations.minutesPerCard(work.stage());
+
+            // Orders by release minute (stable: sequence order within a release minute)
+            List<PlanningOrder> byRelease = new ArrayList<>(work.toPlan());
+            byRelease.sort(Comparator.comparingLong((PlanningOrder o) -> releaseMinutes.getOrDefault(o.id(), 0L))
+                    .thenComparing(sequence));
+            PriorityQueue<PlanningOrder> ready = new PriorityQueue<>(sequence);
+            Map<UUID, Integer> remainingCards = new HashMap<>();
+            int nextRelease = 0;
+
+            while (nextRelease < byRelease.size() || !ready.isEmpty()) {
+                // Earliest availability over all employees
+                long freeAt = pool.earliestFreeMinute();
+
+                // Release every order available by then (or wait for the next release)
+                if (ready.isEmpty()) {
+                    freeAt = Math.max(freeAt, releaseMinutes.getOrDefault(byRelease.get(nextRelease).id(), 0L));
+                }
+                while (nextRelease < byRelease.size()
+                        && releaseMinutes.getOrDefault(byRelease.get(nextRelease).id(), 0L) <= freeAt) {
+                    ready.add(byRelease.get(nextRelease++));
+                }
+
+                PlanningOrder order = ready.poll();
+                int remaining = remainingCards.getOrDefault(order.id(), order.cardCount());
+
+                if (remaining == 0) {
+                    skippedCount++;
+                    continue;
+                }
+
+                long release = releaseMinutes.getOrDefault(order.id(), 0L);
+                List<PlanningOrder> batch = null;
+                int cardCount;
+                if (remaining == order.cardCount() && remaining < batchSize) {
+                    // Small order: batch the next ready orders of its priority class into a work lot
+                    cardCount = remaining;
+                    PlanningOrder next;
+                    while ((next = ready.peek()) != null && next.priorityScore() == order.priorityScore()
+                            && next.cardCount() > 0 && !remainingCards.containsKey(next.id())
+                            && cardCount + next.cardCount() <= batchSize) {
+                        ready.poll();
+                        if (batch == null) {
+                            batch = new ArrayList<>();
+                            batch.add(order);
+                        }
+                        batch.add(next);
+                        cardCount += next.cardCount();
+                        release = Math.max(release, releaseMinutes.getOrDefault(next.id(), 0L));
+                    }
+                    if (batch != null) {
+                        batchedCount += batch.size();
+                    }
+                } else {
+                    // Take one lot; the rest of the order waits for the next free employee
+                    cardCount = lotSize > 0 ? Math.min(lotSize, remaining) : remaining;
+                    if (cardCount < remaining) {
+                        if (remaining == order.cardCount()) {
+                            splitCount++;
+                        }
+                        remainingCards.put(order.id(), remaining - cardCount);
+                        ready.add(order);
+                    } else {
+                        remainingCards.remove(order.id());
+                    }
+                }
+
+                // Employee completing this work first, at its own speed
+                int standardMinutes = (int) Math.ceil(cardCount * minutesPerCard);
+                int slot = pool.bestSlot(standardMinutes, release);
+                long startCursor = pool.startCursor(slot, release);
+                int durationMinutes = pool.durationMinutes(slot, standardMinutes);
+                while (pool.crossesFence(slot, startCursor, durationMinutes)) {
+                    pool.skipFence(slot);
+                    slot = pool.bestSlot(standardMinutes, release);
+                    startCursor = pool.startCursor(slot, release);
+                    durationMinutes = pool.durationMinutes(slot, standardMinutes);
+                }
+                long endMinute = pool.endMinute(slot, startCursor, durationMinutes);
+
+                if (materialize) {
+                    WorkAssignment assignment = new WorkAssignment();
+                    assignment.setOrder(order.toOrderReference());
+                    assignment.setEmployee(work.employees().get(slot));
+                    assignment.setProcessingStage(stage);
+                    assignment.setCardCount(cardCount);
+                    assignment.setEstimatedDurationMinutes(durationMinutes);
+                    assignment.setScheduledStart(calendar.toDateTime(pool.startMinute(slot, startCursor)));
+                    assignment.setScheduledEnd(calendar.toDateTime(endMinute));
+                    assignment.setStatus(AssignmentStatus.SCHEDULED);
+                    assignment.setPriorityScore((long) order.priorityScore());
+                    if (batch != null) {
+                        for (PlanningOrder member : batch) {
+                            assignment.getLotMembers().add(new WorkLotMember(member.id(), member.cardCount()));
+                        }
+                    }
+                    created.add(assignment);
+                }
+
+                if (batch != null) {
+                    for (PlanningOrder member : batch) {
+                        finishMinutes.merge(member.id(), endMinute, Math::max);
+                    }
+                } else {
+                    finishMinutes.merge(order.id(), endMinute, Math::max);
+                }
+                pool.assign(slot, startCursor, durationMinutes);
+            }
+        }
+
+        // Orders that could not be slotted here keep their release for the next stage
+        for (PlanningOrder order : work.toPlan()) {
+            long release = releaseMinutes.getOrDefault(order.id(), 0L);
+            if (release > 0) {
+                finishMinutes.putIfAbsent(order.id(), release);
+            }
+        }
+
+        return new StageSchedule(finishMinutes, created, pool, splitCount, batchedCount, skippedCount, true);
+    }
+}
@@ -0,0 +1,38 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.Employee;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * New work of one stage once the previous plan has been diffed
+ * - toPlan: orders needing a (new) slot
+ * - speeds / dailyMinutes / seedCursor: per-employee speed, working minutes per day and
+ *   first free working minute after the work that stays on its timeline
+ * - keptFinish: per-order end of kept or started work (minute offset from the plan origin)
+ * - keptStart: per-order start of kept work, which must not precede the order's release
+ * - fenceCursor / resumeCursor: per-employee working-minute window reserved by kept work
+ *   (null when nothing is kept)
+ *
+ * Immutable: the same StageWork can be scheduled many times, concurrently,
+ * with different release times and order sequences.
+ */
+public record StageWork(
+        PlanningStage stage,
+        List<Employee> employees,
+        List<PlanningOrder> toPlan,
+        double[] speeds,
+        int[] dailyMinutes,
+        long[] seedCursor,
+        Map<UUID, Long> keptFinish,
+        Map<UUID, Long> keptStart,
+        long[] fenceCursor,
+        long[] resumeCursor) {
+
+    public StageWork(PlanningStage stage, List<Employee> employees, List<PlanningOrder> toPlan, double[] speeds,
+                     int[] dailyMinutes, long[] seedCursor, Map<UUID, Long> keptFinish, Map<UUID, Long> keptStart) {
+        this(stage, employees, toPlan, speeds, dailyMinutes, seedCursor, keptFinish, keptStart, null, null);
+    }
+}
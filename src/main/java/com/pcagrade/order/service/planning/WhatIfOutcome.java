@@ -0,0 +1,13 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.dto.WhatIfScenario;
+
+/**
+ * One planned what-if scenario: its in-memory plan, or why it could not be planned
+ */
+public record WhatIfOutcome(WhatIfScenario scenario, WorkPlanResult result, String error) {
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
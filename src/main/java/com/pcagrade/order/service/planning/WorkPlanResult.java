@@ -0,0 +1,50 @@
+package com.pcagrade.order.service.planning;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.pcagrade.order.dto.EmployeeUtilizationDTO;
+import com.pcagrade.order.dto.LatenessReport;
+import com.pcagrade.order.dto.PipelineMetrics;
+import com.pcagrade.order.dto.PlanSearchStats;
+import com.pcagrade.order.dto.PlanningTimings;
+import com.pcagrade.order.entity.WorkAssignment;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of a plan generation run
+ * Only the differences against the previous plan are carried:
+ * - created: new SCHEDULED assignments written by this run
+ * - removedCount: superseded SCHEDULED assignments left in the previous plan version
+ * - removedIds: their ids (not serialized)
+ * - keptCount: SCHEDULED assignments carried over untouched
+ * - rebasedCount: kept assignments written again because the plan was generated from an
+ *   older version than the latest (their ids changed)
+ * - planVersionId: plan version written by this run (null for simulations)
+ * - timings: load / compute / persist and per-stage durations
+ * - utilization: per-employee utilization of each stage plan
+ * - pipeline: end-to-end throughput and lateness (FLOW_SHOP mode only)
+ * - search: convergence of the improvement phase (when it ran)
+ * - lateness: predicted lateness of the planned orders against their delivery dates
+ */
+@Data
+@NoArgsConstructor
+public class WorkPlanResult {
+    private boolean fullRebuild;
+    private PlanningMode mode;
+    private List<WorkAssignment> created = new ArrayList<>();
+    private int removedCount;
+    @JsonIgnore
+    private List<UUID> removedIds = new ArrayList<>();
+    private int keptCount;
+    private int rebasedCount;
+    private UUID planVersionId;
+    private PlanningTimings timings;
+    private List<EmployeeUtilizationDTO> utilization = new ArrayList<>();
+    private PipelineMetrics pipeline;
+    private PlanSearchStats search;
+    private LatenessReport lateness;
+}
@@ -0,0 +1,50 @@
+package com.pcagrade.order.controller;
+
+import com.pcagrade.order.service.IncrementalSyncService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Status codes of the incremental sync endpoint
+ */
+class MinimalSyncControllerTest {
+
+    @Test
+    void incrementalSyncAlreadyRunningIsAConflict() {
+        IncrementalSyncService running = new IncrementalSyncService(null, null, null, null, null, null) {
+            @Override
+            public Map<String, Object> sync(String syncId) {
+                throw new AlreadyRunningException();
+            }
+        };
+        MinimalSyncController controller = new MinimalSyncController(null, null, null, null, running, null, null);
+
+        ResponseEntity<Map<String, Object>> response = controller.incrementalSync("sync-2", null);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(false, response.getBody().get("success"));
+        assertEquals("sync-2", response.getBody().get("syncId"));
+    }
+
+    @Test
+    void incrementalSyncReturnsThePerEntityCounts() {
+        IncrementalSyncService idle = new IncrementalSyncService(null, null, null, null, null, null) {
+            @Override
+            public Map<String, Object> sync(String syncId) {
+                return Map.of("orders", Map.of("received", 3L));
+            }
+        };
+        MinimalSyncController controller = new MinimalSyncController(null, null, null, null, idle, null, null);
+
+        ResponseEntity<Map<String, Object>> response = controller.incrementalSync("sync-1", null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(true, response.getBody().get("success"));
+        assertEquals(Map.of("received", 3L), response.getBody().get("orders"));
+    }
+}
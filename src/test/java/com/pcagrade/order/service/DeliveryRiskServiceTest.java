@@ -0,0 +1,158 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.DeliveryRiskReport;
+import com.pcagrade.order.dto.OrderDeliveryRiskDTO;
+import com.pcagrade.order.entity.Employee;
+import com.pcagrade.order.service.planning.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Monte Carlo delivery risk over small fixed pipelines
+ */
+class DeliveryRiskServiceTest {
+
+    private final ShiftCalendarFactory calendars =
+            new ShiftCalendarFactory("08:00", "17:00", 0, "MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY", 730);
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private Consumer<PipelineFixture> fixture;
+    private DeliveryRiskService service;
+
+    @BeforeEach
+    void setUp() {
+        executor.setCorePoolSize(4);
+        executor.initialize();
+
+        CapacityForecastService forecastService = new CapacityForecastService(null, null, null, null, null) {
+            @Override
+            public PipelineSimulator loadPipeline(ShiftCalendar calendar, LocalDateTime origin, long horizonMinute,
+                                                  boolean includeDemand) {
+                PipelineSimulator simulator = new PipelineSimulator(calendar,
+                        DurationEstimates.standard(DurationEstimates.STANDARD_MINUTES_PER_CARD), 0);
+                fixture.accept(new PipelineFixture(simulator, calendar, horizonMinute));
+                return simulator;
+            }
+        };
+        service = new DeliveryRiskService(forecastService, new DurationModelService(null, calendars), calendars,
+                executor);
+        ReflectionTestUtils.setField(service, "defaultRuns", 200);
+        ReflectionTestUtils.setField(service, "maxRuns", 1000);
+        ReflectionTestUtils.setField(service, "threads", 4);
+        ReflectionTestUtils.setField(service, "horizonDays", 60);
+        ReflectionTestUtils.setField(service, "defaultSpread", 0.35);
+        ReflectionTestUtils.setField(service, "minProbability", 0.0);
+        ReflectionTestUtils.setField(service, "reportLimit", 500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void orderAlreadyPastItsDueDateIsAlwaysLate() {
+        fixture = pipeline -> {
+            pipeline.simulator().addOrder(order("LATE"), PlanningStage.PACKAGING, 0, 0, false);
+            pipeline.simulator().addEmployee(employee(), EnumSet.of(PlanningStage.PACKAGING));
+        };
+
+        DeliveryRiskReport report = service.assess(null, false, 7L);
+
+        assertEquals(1, report.getBacklogOrders());
+        assertEquals(1, report.getOrders().size());
+        assertEquals(1.0, report.getOrders().get(0).getLateProbability());
+        assertEquals(1, report.getLikelyLateOrderCount());
+    }
+
+    @Test
+    void orderDueAtTheHorizonIsNeverLate() {
+        fixture = pipeline -> {
+            pipeline.simulator().addOrder(order("EASY"), PlanningStage.PACKAGING, 0, pipeline.horizonMinute(), false);
+            pipeline.simulator().addEmployee(employee(), EnumSet.of(PlanningStage.PACKAGING));
+        };
+
+        DeliveryRiskReport report = service.assess(null, false, 7L);
+
+        assertEquals(1, report.getBacklogOrders());
+        assertTrue(report.getOrders().isEmpty());
+        assertEquals(0.0, report.getExpectedLateOrders());
+    }
+
+    @Test
+    void orderNobodyCanProcessIsLateWhenDueWithinTheHorizon() {
+        fixture = pipeline ->
+                pipeline.simulator().addOrder(order("STUCK"), PlanningStage.PACKAGING, 0, 60, false);
+
+        DeliveryRiskReport report = service.assess(null, false, 7L);
+
+        OrderDeliveryRiskDTO risk = report.getOrders().get(0);
+        assertEquals(1.0, risk.getLateProbability());
+        assertNull(risk.getMeanCompletion());
+    }
+
+    @Test
+    void sameSeedGivesTheSameReport() {
+        // Due at the completion of the run without noise, so the drawn durations decide each run
+        fixture = pipeline -> {
+            PipelineSimulator baseline = new PipelineSimulator(pipeline.calendar(),
+                    DurationEstimates.standard(DurationEstimates.STANDARD_MINUTES_PER_CARD), 0);
+            baseline.addOrder(order("TIGHT"), PlanningStage.SCANNING, 0, pipeline.horizonMinute(), false);
+            baseline.addEmployee(employee(), EnumSet.of(PlanningStage.SCANNING, PlanningStage.PACKAGING));
+            long due = baseline.run(pipeline.horizonMinute()).completionMinutes()[0];
+
+            pipeline.simulator().addOrder(order("TIGHT"), PlanningStage.SCANNING, 0, due, false);
+            pipeline.simulator().addEmployee(employee(), EnumSet.of(PlanningStage.SCANNING, PlanningStage.PACKAGING));
+        };
+
+        DeliveryRiskReport first = service.assess(500, false, 42L);
+        DeliveryRiskReport second = service.assess(500, false, 42L);
+
+        assertEquals(42L, first.getSeed());
+        assertEquals(1, first.getOrders().size());
+        double tight = first.getOrders().get(0).getLateProbability();
+        assertTrue(tight > 0 && tight < 1, "late probability " + tight);
+        assertEquals(probabilities(first.getOrders()), probabilities(second.getOrders()));
+        assertEquals(first.getExpectedLateOrders(), second.getExpectedLateOrders());
+    }
+
+    @Test
+    void runsOutOfRangeAreRejected() {
+        fixture = pipeline -> { };
+
+        assertThrows(IllegalArgumentException.class, () -> service.assess(0, false, 1L));
+        assertThrows(IllegalArgumentException.class, () -> service.assess(1001, false, 1L));
+    }
+
+    private static List<String> probabilities(List<OrderDeliveryRiskDTO> orders) {
+        return orders.stream()
+                .map(order -> order.getOrderNumber() + "=" + order.getLateProbability() + "@" +
+                        order.getMeanCompletion())
+                .toList();
+    }
+
+    private static PlanningOrder order(String orderNumber) {
+        return new PlanningOrder(UUID.randomUUID(), orderNumber, 10, "C", LocalDateTime.now().minusDays(1), null);
+    }
+
+    private static Employee employee() {
+        Employee employee = new Employee();
+        employee.setId(UUID.randomUUID());
+        employee.setFirstName("Employee");
+        employee.setLastName("Test");
+        return employee;
+    }
+
+    private record PipelineFixture(PipelineSimulator simulator, ShiftCalendar calendar, long horizonMinute) {
+    }
+}
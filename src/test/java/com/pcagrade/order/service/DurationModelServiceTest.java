@@ -0,0 +1,125 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.DurationEstimateDTO;
+import com.pcagrade.order.service.planning.DurationEstimates;
+import com.pcagrade.order.service.planning.PlanningStage;
+import com.pcagrade.order.service.planning.ShiftCalendarFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Learned minutes per card, shrunk toward the stage and default rates
+ * No decay (half-life 0), so the expected rates can be worked out by hand.
+ */
+class DurationModelServiceTest {
+
+    // Monday 08:00, shifts 08:00-17:00 without break
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2026, 3, 2, 8, 0);
+    private static final double DELTA = 1e-9;
+
+    private final UUID employeeId = UUID.randomUUID();
+    private DurationModelService service;
+
+    @BeforeEach
+    void setUp() {
+        service = service();
+    }
+
+    @Test
+    void plansAtTheDefaultRateBeforeAnyTiming() {
+        DurationEstimates estimates = service.estimates();
+
+        assertEquals(DurationEstimates.STANDARD_MINUTES_PER_CARD, estimates.minutesPerCard(PlanningStage.GRADING));
+        assertEquals(DurationEstimates.STANDARD_MINUTES_PER_CARD,
+                estimates.minutesPerCard(PlanningStage.GRADING, employeeId));
+        assertTrue(estimates.spread(PlanningStage.GRADING).isEmpty());
+    }
+
+    @Test
+    void recordedWorkPullsTheStageAndEmployeeRates() {
+        // 100 cards in 100 minutes: 1 minute per card against a prior of 200 cards
+        service.record("GRADING", employeeId, 100, MONDAY, MONDAY.plusMinutes(100));
+
+        DurationEstimates estimates = service.estimates();
+        double stageRate = (100 + 3.0 * 200) / 300;
+        assertEquals(stageRate, estimates.minutesPerCard(PlanningStage.GRADING), DELTA);
+        assertEquals((100 + stageRate * 200) / 300, estimates.minutesPerCard(PlanningStage.GRADING, employeeId), DELTA);
+        // Someone without timings works at the stage rate, other stages keep the default
+        assertEquals(stageRate, estimates.minutesPerCard(PlanningStage.GRADING, UUID.randomUUID()), DELTA);
+        assertEquals(3.0, estimates.minutesPerCard(PlanningStage.SCANNING), DELTA);
+    }
+
+    @Test
+    void workLeftOvernightCountsOnlyShiftMinutes() {
+        // Monday 16:00 to Tuesday 09:00 is two working hours
+        service.record("GRADING", employeeId, 40, MONDAY.plusHours(8), MONDAY.plusDays(1).plusHours(1));
+        DurationModelService sameDay = service();
+        sameDay.record("GRADING", employeeId, 40, MONDAY, MONDAY.plusMinutes(120));
+
+        assertEquals(sameDay.estimates().minutesPerCard(PlanningStage.GRADING, employeeId),
+                service.estimates().minutesPerCard(PlanningStage.GRADING, employeeId), DELTA);
+    }
+
+    @Test
+    void implausibleOrIncompleteTimingsAreIgnored() {
+        DurationEstimates before = service.estimates();
+
+        // 0.1 and 60 minutes per card are outside the plausible bounds
+        service.record("GRADING", employeeId, 100, MONDAY, MONDAY.plusMinutes(10));
+        service.record("GRADING", employeeId, 2, MONDAY, MONDAY.plusMinutes(120));
+        service.record("GRADING", employeeId, 10, MONDAY, null);
+        service.record("GRADING", employeeId, 10, MONDAY.plusMinutes(30), MONDAY);
+        service.record("GRADING", null, 10, MONDAY, MONDAY.plusMinutes(30));
+        service.record("NOT_A_STAGE", employeeId, 10, MONDAY, MONDAY.plusMinutes(30));
+
+        assertSame(before, service.estimates());
+        assertTrue(service.describe().stream().allMatch(estimate -> estimate.getSamples() == 0));
+    }
+
+    @Test
+    void spreadIsPublishedOnceEnoughSamplesWereSeen() {
+        service.record("GRADING", employeeId, 10, MONDAY, MONDAY.plusMinutes(20));
+        service.record("GRADING", employeeId, 10, MONDAY, MONDAY.plusMinutes(40));
+        assertTrue(service.estimates().spread(PlanningStage.GRADING).isEmpty());
+
+        service.record("GRADING", employeeId, 10, MONDAY, MONDAY.plusMinutes(30));
+
+        assertTrue(service.estimates().spread(PlanningStage.GRADING).orElseThrow() > 0);
+    }
+
+    @Test
+    void describeListsTheStageAndEmployeeSamples() {
+        service.record("GRADING", employeeId, 10, MONDAY, MONDAY.plusMinutes(30));
+        service.record("GRADING", employeeId, 20, MONDAY, MONDAY.plusMinutes(60));
+
+        DurationEstimateDTO stage = service.describe().stream()
+                .filter(estimate -> "GRADING".equals(estimate.getStage()) && estimate.getEmployeeId() == null)
+                .findFirst().orElseThrow();
+        DurationEstimateDTO employee = service.describe().stream()
+                .filter(estimate -> employeeId.equals(estimate.getEmployeeId()))
+                .findFirst().orElseThrow();
+
+        assertEquals(2L, stage.getSamples());
+        assertEquals(30L, stage.getCards());
+        assertEquals(3.0, stage.getMinutesPerCard(), DELTA);
+        assertEquals(2L, employee.getSamples());
+    }
+
+    private static DurationModelService service() {
+        DurationModelService service = new DurationModelService(null,
+                new ShiftCalendarFactory("08:00", "17:00", 0, "MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY", 30));
+        ReflectionTestUtils.setField(service, "defaultMinutesPerCard", 3.0);
+        ReflectionTestUtils.setField(service, "priorCards", 200.0);
+        ReflectionTestUtils.setField(service, "halfLifeCards", 0.0);
+        ReflectionTestUtils.setField(service, "minMinutesPerCard", 0.2);
+        ReflectionTestUtils.setField(service, "maxMinutesPerCard", 30.0);
+        ReflectionTestUtils.setField(service, "minSpreadSamples", 3L);
+        return service;
+    }
+}
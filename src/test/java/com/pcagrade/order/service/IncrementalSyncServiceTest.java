@@ -0,0 +1,235 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.entity.SyncWatermark;
+import com.pcagrade.order.repository.SyncWatermarkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Watermarks of the incremental sync against a fake Symfony export
+ */
+class IncrementalSyncServiceTest {
+
+    private static final LocalDateTime MARK = LocalDateTime.of(2026, 3, 2, 8, 0);
+
+    private final Map<String, SyncWatermark> watermarks = new HashMap<>();
+    private final Map<String, List<String>> requestedSince = new HashMap<>();
+    private final Map<String, Integer> changedRows = new HashMap<>();
+    private final Map<String, Long> exportTotals = new HashMap<>();
+    private final List<Integer> appliedBatches = new ArrayList<>();
+    private RuntimeException fetchFailure;
+    private CountDownLatch fetchStarted;
+    private CountDownLatch releaseFetch;
+    private IncrementalSyncService service;
+
+    @BeforeEach
+    void setUp() {
+        SymfonyApiClient client = new SymfonyApiClient() {
+            @Override
+            public long streamOrdersSince(String since, Consumer<Map<String, Object>> consumer) {
+                return delta(IncrementalSyncService.ORDERS, since, consumer);
+            }
+
+            @Override
+            public long streamCardCertificationsSince(String since, Consumer<Map<String, Object>> consumer) {
+                return delta(IncrementalSyncService.CARD_CERTIFICATIONS, since, consumer);
+            }
+
+            @Override
+            public long streamCardTranslationsSince(String since, Consumer<Map<String, Object>> consumer) {
+                return delta(IncrementalSyncService.CARD_TRANSLATIONS, since, consumer);
+            }
+
+            @Override
+            public long countOrders() {
+                return exportTotals.getOrDefault(IncrementalSyncService.ORDERS, -1L);
+            }
+
+            @Override
+            public long countCardCertifications() {
+                return exportTotals.getOrDefault(IncrementalSyncService.CARD_CERTIFICATIONS, -1L);
+            }
+
+            @Override
+            public long countCardTranslations() {
+                return exportTotals.getOrDefault(IncrementalSyncService.CARD_TRANSLATIONS, -1L);
+            }
+        };
+        MinimalSyncService orders = new MinimalSyncService(null, null, null) {
+            @Override
+            public int syncOrders(List<Map<String, Object>> ordersData) {
+                return apply(ordersData);
+            }
+        };
+        CardCertificationSyncService cards = new CardCertificationSyncService(null, null) {
+            @Override
+            public int syncCardsBatch(List<Map<String, Object>> cardsData, int batchSize) {
+                return apply(cardsData);
+            }
+        };
+        TranslationSyncService translations = new TranslationSyncService(null) {
+            @Override
+            public int syncTranslations(List<Map<String, Object>> translationsData) {
+                return apply(translationsData);
+            }
+        };
+
+        service = new IncrementalSyncService(client, orders, cards, translations, watermarkRepository(),
+                new SyncProgressPublisher());
+        ReflectionTestUtils.setField(service, "overlapSeconds", 120L);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+    }
+
+    @Test
+    void firstSyncPullsEverythingAndSetsTheWatermarks() {
+        changedRows.put(IncrementalSyncService.ORDERS, 3);
+        LocalDateTime before = LocalDateTime.now().withNano(0);
+
+        Map<String, Object> result = service.sync("sync-1");
+
+        assertEquals(List.of("1970-01-01T00:00:00"), requestedSince.get(IncrementalSyncService.ORDERS));
+        assertEquals(3L, entity(result, "orders").get("received"));
+        assertEquals(3, entity(result, "orders").get("upserted"));
+        // Batches of two, then the rest
+        assertEquals(List.of(2, 1), appliedBatches);
+        assertEquals(3, watermarks.size());
+        SyncWatermark orders = watermarks.get(IncrementalSyncService.ORDERS);
+        assertFalse(orders.getWatermark().isBefore(before));
+        assertEquals(3L, orders.getLastRecords());
+    }
+
+    @Test
+    void nextSyncAsksForChangesSinceTheWatermarkMinusTheOverlap() {
+        watermark(IncrementalSyncService.ORDERS, MARK);
+        changedRows.put(IncrementalSyncService.ORDERS, 1);
+
+        Map<String, Object> result = service.sync("sync-1");
+
+        assertEquals(List.of("2026-03-02T07:58:00"), requestedSince.get(IncrementalSyncService.ORDERS));
+        assertTrue(watermarks.get(IncrementalSyncService.ORDERS).getWatermark().isAfter(MARK));
+        assertEquals(false, entity(result, "orders").get("unfiltered"));
+    }
+
+    @Test
+    void failedFetchLeavesTheWatermarkWhereItWas() {
+        watermark(IncrementalSyncService.ORDERS, MARK);
+        fetchFailure = new UncheckedIOException(new IOException("HTTP 502"));
+
+        assertThrows(UncheckedIOException.class, () -> service.sync("sync-1"));
+
+        assertEquals(MARK, watermarks.get(IncrementalSyncService.ORDERS).getWatermark());
+        assertFalse(watermarks.containsKey(IncrementalSyncService.CARD_CERTIFICATIONS));
+    }
+
+    @Test
+    void deltaAsLargeAsTheWholeExportIsFlaggedUnfiltered() {
+        watermark(IncrementalSyncService.CARD_TRANSLATIONS, MARK);
+        changedRows.put(IncrementalSyncService.CARD_TRANSLATIONS, 4);
+        exportTotals.put(IncrementalSyncService.CARD_TRANSLATIONS, 4L);
+
+        Map<String, Object> result = service.sync("sync-1");
+
+        assertEquals(true, entity(result, "translations").get("unfiltered"));
+        // Still applied, and the mark still moves: the upserts are idempotent
+        assertEquals(4, entity(result, "translations").get("upserted"));
+        assertTrue(watermarks.get(IncrementalSyncService.CARD_TRANSLATIONS).getWatermark().isAfter(MARK));
+    }
+
+    @Test
+    void firstPullIsNotFlaggedUnfiltered() {
+        changedRows.put(IncrementalSyncService.ORDERS, 2);
+        exportTotals.put(IncrementalSyncService.ORDERS, 2L);
+
+        Map<String, Object> result = service.sync("sync-1");
+
+        assertEquals(false, entity(result, "orders").get("unfiltered"));
+    }
+
+    @Test
+    void secondSyncIsRefusedWhileOneIsRunning() throws Exception {
+        fetchStarted = new CountDownLatch(1);
+        releaseFetch = new CountDownLatch(1);
+        CompletableFuture<Map<String, Object>> first = CompletableFuture.supplyAsync(() -> service.sync("sync-1"));
+        assertTrue(fetchStarted.await(5, TimeUnit.SECONDS));
+
+        try {
+            assertThrows(IncrementalSyncService.AlreadyRunningException.class, () -> service.sync("sync-2"));
+        } finally {
+            releaseFetch.countDown();
+        }
+
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        // The lock is released once the first sync is done
+        assertNotNull(service.sync("sync-3"));
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private long delta(String entity, String since, Consumer<Map<String, Object>> consumer) {
+        requestedSince.computeIfAbsent(entity, key -> new ArrayList<>()).add(since);
+        if (fetchFailure != null) {
+            throw fetchFailure;
+        }
+        if (fetchStarted != null && IncrementalSyncService.ORDERS.equals(entity)) {
+            fetchStarted.countDown();
+            try {
+                releaseFetch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            fetchStarted = null;
+        }
+        int rows = changedRows.getOrDefault(entity, 0);
+        for (int i = 0; i < rows; i++) {
+            consumer.accept(Map.of("id", entity + "-" + i));
+        }
+        return rows;
+    }
+
+    private int apply(List<Map<String, Object>> batch) {
+        appliedBatches.add(batch.size());
+        return batch.size();
+    }
+
+    private void watermark(String entity, LocalDateTime mark) {
+        SyncWatermark watermark = new SyncWatermark();
+        watermark.setEntityName(entity);
+        watermark.setWatermark(mark);
+        watermarks.put(entity, watermark);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> entity(Map<String, Object> result, String key) {
+        return (Map<String, Object>) result.get(key);
+    }
+
+    /**
+     * In-memory repository: only findById, save and findAll are used by the service
+     */
+    private SyncWatermarkRepository watermarkRepository() {
+        return (SyncWatermarkRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{SyncWatermarkRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(watermarks.get((String) args[0]));
+                    case "save" -> {
+                        SyncWatermark saved = (SyncWatermark) args[0];
+                        watermarks.put(saved.getEntityName(), saved);
+                        yield saved;
+                    }
+                    case "findAll" -> new ArrayList<>(watermarks.values());
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
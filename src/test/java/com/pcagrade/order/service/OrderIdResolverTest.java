@@ -0,0 +1,115 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.util.UlidConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulk resolution through the shared cache, against an in-memory card_order table
+ */
+class OrderIdResolverTest {
+
+    private final Map<String, UUID> orders = new HashMap<>();
+    private final List<Integer> queriedChunks = new ArrayList<>();
+    private OrderIdResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+            @Override
+            public void query(String sql, RowCallbackHandler handler, Object... args) {
+                queriedChunks.add(args.length);
+                for (Object arg : args) {
+                    UUID id = orders.get((String) arg);
+                    if (id != null) {
+                        try {
+                            handler.processRow(row((String) arg, id));
+                        } catch (SQLException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }
+            }
+        };
+        resolver = new OrderIdResolver(jdbcTemplate);
+    }
+
+    @Test
+    void knownIdsAreResolvedAndUnknownOnesLeftOut() {
+        UUID first = order("S-1");
+        UUID second = order("S-2");
+
+        Map<String, UUID> result = resolver.resolve(List.of("S-1", "S-2", "S-404", "", "S-1"));
+
+        assertEquals(Map.of("S-1", first, "S-2", second), result);
+        assertEquals(List.of(3), queriedChunks);
+    }
+
+    @Test
+    void resolvedIdsAreServedFromTheCache() {
+        order("S-1");
+        resolver.resolve(List.of("S-1"));
+        queriedChunks.clear();
+
+        assertEquals(1, resolver.resolve(List.of("S-1")).size());
+        assertTrue(queriedChunks.isEmpty());
+    }
+
+    @Test
+    void unknownIdsAreReadAgainLater() {
+        assertTrue(resolver.resolve(List.of("S-1")).isEmpty());
+        UUID created = order("S-1");
+
+        assertEquals(created, resolver.resolve(List.of("S-1")).get("S-1"));
+    }
+
+    @Test
+    void invalidateDropsTheCache() {
+        order("S-1");
+        resolver.resolve(List.of("S-1"));
+        UUID moved = order("S-1");
+
+        resolver.invalidate();
+
+        assertEquals(moved, resolver.resolve(List.of("S-1")).get("S-1"));
+    }
+
+    @Test
+    void missingIdsAreReadInChunksOfAThousand() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            ids.add("S-" + i);
+            order("S-" + i);
+        }
+
+        assertEquals(2500, resolver.resolve(ids).size());
+        assertEquals(List.of(1000, 1000, 500), queriedChunks);
+    }
+
+    private UUID order(String symfonyOrderId) {
+        UUID id = UUID.randomUUID();
+        orders.put(symfonyOrderId, id);
+        return id;
+    }
+
+    /**
+     * One row of SELECT symfony_order_id, id
+     */
+    private static ResultSet row(String symfonyOrderId, UUID id) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getString" -> symfonyOrderId;
+                    case "getBytes" -> UlidConverter.uuidToBytes(id);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,279 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.PlanVersionDiffEntry;
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.Employee;
+import com.pcagrade.order.entity.Order;
+import com.pcagrade.order.entity.PlanVersion;
+import com.pcagrade.order.entity.WorkAssignment;
+import com.pcagrade.order.repository.EmployeeRepository;
+import com.pcagrade.order.repository.OrderRepository;
+import com.pcagrade.order.repository.PlanVersionRepository;
+import com.pcagrade.order.repository.WorkAssignmentRepository;
+import com.pcagrade.order.util.UlidConverter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plan versions against a database: shared rows, rebasing, activation, claiming and pruning
+ * Each service call commits on its own, as in production, so the test methods run
+ * outside a transaction and the tables are emptied after each test.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:planversions;MODE=MariaDB;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PlanVersionService.class, WorkAssignmentBulkWriter.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PlanVersionRepositoryTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2026, 3, 2, 8, 0);
+
+    @Autowired
+    private PlanVersionService service;
+
+    @Autowired
+    private WorkAssignmentBulkWriter bulkWriter;
+
+    @Autowired
+    private PlanVersionRepository planVersionRepository;
+
+    @Autowired
+    private WorkAssignmentRepository workAssignmentRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Employee employee;
+    private Order order;
+    private int slots;
+
+    @BeforeEach
+    void setUp() {
+        employee = new Employee();
+        employee.setFirstName("Ash");
+        employee.setLastName("Ketchum");
+        employee.setEmail("ash." + UUID.randomUUID() + "@pcagrade.test");
+        employee.setPassword("secret");
+        employee = employeeRepository.save(employee);
+
+        order = new Order();
+        order.setOrderNumber("ORD-" + UUID.randomUUID().toString().substring(0, 8));
+        order.setCustomerName("Misty");
+        order = orderRepository.save(order);
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "work_assignment_order", "work_assignment",
+                "plan_version_pointer", "plan_version", "card_order", "employee");
+    }
+
+    @Test
+    void generationWritesOnlyItsDelta() {
+        List<WorkAssignment> first = rows(3);
+        PlanVersion v1 = generate(0, List.of(), first);
+        UUID a = first.get(0).getId();
+        UUID b = first.get(1).getId();
+        UUID c = first.get(2).getId();
+
+        List<WorkAssignment> second = rows(1);
+        PlanVersion v2 = generate(2, List.of(b), second);
+        UUID d = second.get(0).getId();
+
+        assertEquals(4, JdbcTestUtils.countRowsInTable(jdbcTemplate, "work_assignment"));
+        assertEquals(Set.of(a, b, c), visibleAt(v1));
+        assertEquals(Set.of(a, c, d), visibleAt(v2));
+        assertEquals(Set.of(a, c, d), activeScheduled());
+        assertEquals(v1.getId(), v2.getParentId());
+        assertEquals(0, v2.getRebasedCount());
+    }
+
+    @Test
+    void rollbackOnlySwitchesThePointer() {
+        List<WorkAssignment> first = rows(2);
+        PlanVersion v1 = generate(0, List.of(), first);
+        generate(1, List.of(first.get(1).getId()), rows(1));
+
+        PlanVersion rolledBack = service.rollback();
+
+        assertEquals(v1.getId(), rolledBack.getId());
+        assertEquals(Optional.of(v1.getId()), service.getActiveVersionId());
+        assertEquals(3, JdbcTestUtils.countRowsInTable(jdbcTemplate, "work_assignment"));
+        assertEquals(ids(first), activeScheduled());
+    }
+
+    @Test
+    void generatingAfterRollbackCopiesTheRowsLaterVersionsDropped() {
+        List<WorkAssignment> first = rows(3);
+        PlanVersion v1 = generate(0, List.of(), first);
+        UUID a = first.get(0).getId();
+        UUID b = first.get(1).getId();
+        UUID c = first.get(2).getId();
+        List<WorkAssignment> second = rows(1);
+        PlanVersion v2 = generate(2, List.of(b), second);
+        service.rollback();
+
+        List<WorkAssignment> third = rows(1);
+        PlanVersion v3 = generate(2, List.of(c), third);
+
+        Set<UUID> visible = visibleAt(v3);
+        UUID copyOfB = jdbcTemplate.queryForObject(
+                "SELECT id FROM work_assignment WHERE source_assignment_id = ?",
+                (rs, row) -> UlidConverter.bytesToUuid(rs.getBytes(1)), UlidConverter.uuidToBytes(b));
+        assertEquals(Set.of(a, copyOfB, third.get(0).getId()), visible);
+        assertEquals(1, planVersionRepository.findById(v3.getId()).orElseThrow().getRebasedCount());
+        // The older versions still read as they were
+        assertEquals(Set.of(a, b, c), visibleAt(v1));
+        assertEquals(Set.of(a, c, second.get(0).getId()), visibleAt(v2));
+    }
+
+    @Test
+    void onlyAssignmentsOfTheActiveVersionCanBeClaimed() {
+        List<WorkAssignment> first = rows(2);
+        generate(0, List.of(), first);
+        List<WorkAssignment> second = rows(1);
+        generate(1, List.of(first.get(1).getId()), second);
+
+        assertFalse(bulkWriter.claimScheduled(first.get(1).getId(), employee.getId(), ORIGIN));
+        assertTrue(bulkWriter.claimScheduled(second.get(0).getId(), employee.getId(), ORIGIN));
+        assertTrue(bulkWriter.claimScheduled(first.get(0).getId(), employee.getId(), ORIGIN));
+    }
+
+    @Test
+    void activationDropsCopiesOfWorkStartedInAnotherVersion() {
+        List<WorkAssignment> first = rows(2);
+        PlanVersion v1 = generate(0, List.of(), first);
+        UUID b = first.get(1).getId();
+        generate(1, List.of(b), rows(1));
+        service.rollback();
+        generate(1, List.of(first.get(0).getId()), rows(1));
+        UUID copyOfB = jdbcTemplate.queryForObject(
+                "SELECT id FROM work_assignment WHERE source_assignment_id = ?",
+                (rs, row) -> UlidConverter.bytesToUuid(rs.getBytes(1)), UlidConverter.uuidToBytes(b));
+        assertTrue(bulkWriter.claimScheduled(copyOfB, employee.getId(), ORIGIN));
+
+        service.activate(v1.getId());
+
+        assertEquals(Set.of(first.get(0).getId()), visibleAt(v1));
+        assertEquals(0, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM work_assignment WHERE id = ?",
+                Integer.class, (Object) UlidConverter.uuidToBytes(b)));
+    }
+
+    @Test
+    void diffListsOnlyTheChangedAssignments() {
+        List<WorkAssignment> first = rows(2);
+        PlanVersion v1 = generate(0, List.of(), first);
+        List<WorkAssignment> second = rows(1);
+        PlanVersion v2 = generate(1, List.of(first.get(1).getId()), second);
+
+        List<PlanVersionDiffEntry> entries = new ArrayList<>();
+        long count = service.diff(v1.getId(), v2.getId(), entries::add);
+
+        assertEquals(2L, count);
+        Map<String, String> changes = entries.stream()
+                .collect(Collectors.toMap(PlanVersionDiffEntry::getAssignmentId, PlanVersionDiffEntry::getChange));
+        assertEquals(Map.of(first.get(1).getId().toString(), "REMOVED", second.get(0).getId().toString(), "ADDED"),
+                changes);
+    }
+
+    @Test
+    void pruningDeletesRowsNoRemainingVersionHolds() {
+        PlanVersionService target = AopTestUtils.getTargetObject(service);
+        ReflectionTestUtils.setField(target, "retained", 1);
+        List<WorkAssignment> first = rows(3);
+        PlanVersion v1 = generate(0, List.of(), first);
+        generate(2, List.of(first.get(1).getId()), rows(1));
+        PlanVersion v3 = generate(2, List.of(first.get(2).getId()), rows(1));
+
+        service.pruneVersions();
+
+        assertFalse(planVersionRepository.existsById(v1.getId()));
+        assertEquals(2L, planVersionRepository.count());
+        // Only the row dropped by v2 was held by v1 alone
+        assertEquals(4, JdbcTestUtils.countRowsInTable(jdbcTemplate, "work_assignment"));
+        assertEquals(3, visibleAt(v3).size());
+    }
+
+    // ========== HELPER METHODS ==========
+
+    /**
+     * Save a generation the way WorkPlanningService.persistVersion does
+     */
+    private PlanVersion generate(int keptCount, List<UUID> removedIds, List<WorkAssignment> created) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            PlanVersion version = service.createVersion("FLOW_SHOP", false, keptCount, removedIds,
+                    created.size(), service.getActiveVersionId().orElse(null));
+            created.forEach(assignment -> {
+                assignment.setPlanVersionId(version.getId());
+                assignment.setValidFromVersion(version.getSequence());
+            });
+            bulkWriter.insertAll(created);
+            return version;
+        });
+    }
+
+    private List<WorkAssignment> rows(int count) {
+        List<WorkAssignment> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = ORIGIN.plusMinutes(30L * slots++);
+            WorkAssignment assignment = new WorkAssignment();
+            assignment.setEmployee(employee);
+            assignment.setOrder(order);
+            assignment.setProcessingStage("GRADING");
+            assignment.setCardCount(10);
+            assignment.setEstimatedDurationMinutes(30);
+            assignment.setScheduledStart(start);
+            assignment.setScheduledEnd(start.plusMinutes(30));
+            assignment.setStatus(AssignmentStatus.SCHEDULED);
+            assignment.setPriorityScore((long) slots);
+            rows.add(assignment);
+        }
+        return rows;
+    }
+
+    private Set<UUID> visibleAt(PlanVersion version) {
+        long sequence = version.getSequence();
+        return new HashSet<>(jdbcTemplate.query("SELECT id FROM work_assignment WHERE status = 'SCHEDULED' " +
+                        "AND valid_from_version <= ? AND (valid_to_version IS NULL OR valid_to_version > ?)",
+                (rs, row) -> UlidConverter.bytesToUuid(rs.getBytes(1)), sequence, sequence));
+    }
+
+    /**
+     * SCHEDULED rows as JPA sees them, through the entity's active-version filter
+     */
+    private Set<UUID> activeScheduled() {
+        return new TransactionTemplate(transactionManager).execute(status ->
+                ids(workAssignmentRepository.findByStatusOrderByPriorityScoreAsc(AssignmentStatus.SCHEDULED)));
+    }
+
+    private static Set<UUID> ids(List<WorkAssignment> assignments) {
+        return assignments.stream().map(WorkAssignment::getId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,136 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.PlanVersionDiffEntry;
+import com.pcagrade.order.entity.PlanVersion;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plan diff merging and version retention
+ */
+class PlanVersionServiceTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2026, 3, 2, 8, 0);
+
+    private final String orderId = UUID.randomUUID().toString();
+    private final String employeeId = UUID.randomUUID().toString();
+
+    @Test
+    void identicalSlotsOnBothSidesCancelOut() {
+        List<PlanVersionDiffEntry> emitted = new ArrayList<>();
+        PlanVersionService.DiffMerger merger = new PlanVersionService.DiffMerger(emitted::add);
+
+        merger.accept(row("GRADING", 10, 0), true);
+        merger.accept(row("GRADING", 10, 0), false);
+        merger.flush();
+
+        assertTrue(emitted.isEmpty());
+        assertEquals(0L, merger.getAdded());
+        assertEquals(0L, merger.getRemoved());
+    }
+
+    @Test
+    void movedAssignmentIsRemovedThenAdded() {
+        List<PlanVersionDiffEntry> emitted = new ArrayList<>();
+        PlanVersionService.DiffMerger merger = new PlanVersionService.DiffMerger(emitted::add);
+
+        // Rows arrive ordered by slot: the old start sorts first
+        PlanVersionDiffEntry before = row("GRADING", 10, 0);
+        PlanVersionDiffEntry after = row("GRADING", 10, 60);
+        merger.accept(before, true);
+        merger.accept(after, false);
+        merger.flush();
+
+        assertEquals(List.of(before, after), emitted);
+        assertEquals("REMOVED", before.getChange());
+        assertEquals("ADDED", after.getChange());
+        assertEquals(1L, merger.getAdded());
+        assertEquals(1L, merger.getRemoved());
+    }
+
+    @Test
+    void onlyUnmatchedRowsOfASlotAreEmitted() {
+        List<PlanVersionDiffEntry> emitted = new ArrayList<>();
+        PlanVersionService.DiffMerger merger = new PlanVersionService.DiffMerger(emitted::add);
+
+        merger.accept(row("GRADING", 10, 0), true);
+        merger.accept(row("GRADING", 10, 0), false);
+        merger.accept(row("GRADING", 10, 0), false);
+        merger.flush();
+
+        assertEquals(1, emitted.size());
+        assertEquals("ADDED", emitted.get(0).getChange());
+    }
+
+    @Test
+    void sameSlotComparesEveryPlannedField() {
+        PlanVersionDiffEntry slot = row("GRADING", 10, 0);
+
+        assertTrue(PlanVersionService.DiffMerger.sameSlot(slot, row("GRADING", 10, 0)));
+        assertFalse(PlanVersionService.DiffMerger.sameSlot(slot, row("SCANNING", 10, 0)));
+        assertFalse(PlanVersionService.DiffMerger.sameSlot(slot, row("GRADING", 12, 0)));
+        assertFalse(PlanVersionService.DiffMerger.sameSlot(slot, row("GRADING", 10, 30)));
+
+        PlanVersionDiffEntry otherEmployee = row("GRADING", 10, 0);
+        otherEmployee.setEmployeeId(UUID.randomUUID().toString());
+        assertFalse(PlanVersionService.DiffMerger.sameSlot(slot, otherEmployee));
+    }
+
+    @Test
+    void activeVersionAndNewestOfEachKindAreRetained() {
+        PlanVersion newestRolling = version("ROLLING");
+        PlanVersion olderRolling = version("ROLLING");
+        PlanVersion newestGenerated = version("FLOW_SHOP");
+        PlanVersion active = version("FLOW_SHOP");
+        PlanVersion olderGenerated = version("PER_STAGE");
+        PlanVersion baseline = version("BASELINE");
+
+        List<PlanVersion> prunable = PlanVersionService.selectPrunable(
+                List.of(newestRolling, olderRolling, newestGenerated, active, olderGenerated, baseline),
+                active.getId(), 1, 1);
+
+        assertEquals(List.of(olderRolling, olderGenerated, baseline), prunable);
+    }
+
+    @Test
+    void rollingRunsDoNotPushOutGeneratedVersions() {
+        List<PlanVersion> versions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            versions.add(version("ROLLING"));
+        }
+        PlanVersion generated = version("FLOW_SHOP");
+        versions.add(generated);
+
+        List<PlanVersion> prunable = PlanVersionService.selectPrunable(versions, null, 1, 2);
+
+        assertEquals(versions.subList(2, 5), prunable);
+        assertFalse(prunable.contains(generated));
+    }
+
+    @Test
+    void retentionKeepsAtLeastOneVersionOfEachKind() {
+        PlanVersion generated = version("FLOW_SHOP");
+        PlanVersion rolling = version("ROLLING");
+
+        assertTrue(PlanVersionService.selectPrunable(List.of(generated, rolling), null, 0, 0).isEmpty());
+    }
+
+    private PlanVersionDiffEntry row(String stage, int cards, int startOffsetMinutes) {
+        LocalDateTime start = ORIGIN.plusMinutes(startOffsetMinutes);
+        return new PlanVersionDiffEntry(null, UUID.randomUUID().toString(), orderId, employeeId, stage, cards,
+                start, start.plusMinutes(cards * 3L));
+    }
+
+    private static PlanVersion version(String planningMode) {
+        PlanVersion version = new PlanVersion();
+        version.setId(UUID.randomUUID());
+        version.setPlanningMode(planningMode);
+        return version;
+    }
+}
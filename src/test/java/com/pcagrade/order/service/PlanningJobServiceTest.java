@@ -0,0 +1,176 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.PlanningTimings;
+import com.pcagrade.order.service.planning.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Job states, progress and retention on a one-thread job executor
+ */
+class PlanningJobServiceTest {
+
+    private static final PlanRequest REQUEST = new PlanRequest(false, null, null, 0L);
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private final WorkPlanResult planned = result();
+    private CountDownLatch generating;
+    private CountDownLatch release;
+    private RuntimeException failure;
+    private PlanningJobService service;
+
+    @BeforeEach
+    void setUp() {
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+
+        WorkPlanningService planner = new WorkPlanningService(null, null, null, null, null, null, null, null, null,
+                null) {
+            @Override
+            public WorkPlanResult generateWorkPlan(PlanRequest request, PlanningProgress progress) {
+                progress.update("COMPUTING", 20, "Planning...");
+                if (generating != null) {
+                    generating.countDown();
+                    await(release);
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                return planned;
+            }
+        };
+        service = new PlanningJobService(planner, new SyncProgressPublisher(), executor);
+        ReflectionTestUtils.setField(service, "retained", 20);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (release != null) {
+            release.countDown();
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void jobRunsThenKeepsItsResult() {
+        generating = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+
+        PlanningJob job = service.submit(REQUEST);
+        await(generating);
+
+        assertEquals(PlanningJobStatus.RUNNING, job.getStatus());
+        assertNotNull(job.getStartedAt());
+        assertEquals("COMPUTING", job.getProgress().getPhase());
+
+        release.countDown();
+        finished(job);
+
+        assertEquals(PlanningJobStatus.COMPLETED, job.getStatus());
+        assertSame(planned, job.getResult());
+        assertTrue(job.getProgress().isCompleted());
+        assertFalse(job.getProgress().isError());
+        assertEquals(job, service.getJob(job.getId()).orElseThrow());
+    }
+
+    @Test
+    void failedGenerationFailsTheJob() {
+        failure = new IllegalStateException("database unavailable");
+
+        PlanningJob job = finished(service.submit(REQUEST));
+
+        assertEquals(PlanningJobStatus.FAILED, job.getStatus());
+        assertEquals("database unavailable", job.getError());
+        assertNull(job.getResult());
+        assertTrue(job.getProgress().isError());
+    }
+
+    @Test
+    void oldestFinishedJobsAreEvicted() {
+        ReflectionTestUtils.setField(service, "retained", 2);
+
+        PlanningJob first = finished(service.submit(REQUEST));
+        PlanningJob second = finished(service.submit(REQUEST));
+        PlanningJob third = finished(service.submit(REQUEST));
+
+        assertTrue(service.getJob(first.getId()).isEmpty());
+        assertEquals(List.of(third, second), service.getJobs());
+    }
+
+    @Test
+    void unfinishedJobsAreNeverEvicted() {
+        ReflectionTestUtils.setField(service, "retained", 0);
+        PlanningJob done = finished(service.submit(REQUEST));
+        generating = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+
+        PlanningJob running = service.submit(REQUEST);
+        await(generating);
+        PlanningJob queued = service.submit(REQUEST);
+
+        assertTrue(service.getJob(done.getId()).isEmpty());
+        assertEquals(PlanningJobStatus.QUEUED, queued.getStatus());
+        assertEquals("QUEUED", queued.getProgress().getPhase());
+        assertEquals(List.of(queued, running), service.getJobs());
+    }
+
+    @Test
+    void rejectedJobIsNotListed() {
+        generating = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        service.submit(REQUEST);
+        await(generating);
+        service.submit(REQUEST);
+
+        assertThrows(TaskRejectedException.class, () -> service.submit(REQUEST));
+        assertEquals(2, service.getJobs().size());
+    }
+
+    @Test
+    void synchronousGenerationRethrowsTheFailure() {
+        assertSame(planned, service.generate(REQUEST));
+
+        failure = new IllegalStateException("database unavailable");
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> service.generate(REQUEST));
+        assertSame(failure, thrown);
+    }
+
+    private PlanningJob finished(PlanningJob job) {
+        // Eviction runs after the job is marked finished, before the worker goes idle
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((!job.isFinished() || executor.getActiveCount() > 0) && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(job.isFinished(), "job did not finish");
+        return job;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+        }
+    }
+
+    private static WorkPlanResult result() {
+        PlanningTimings timings = new PlanningTimings();
+        timings.setTotalMs(0L);
+        WorkPlanResult result = new WorkPlanResult();
+        result.setTimings(timings);
+        return result;
+    }
+}
@@ -0,0 +1,217 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.PlanningTimings;
+import com.pcagrade.order.dto.RollingReplanRun;
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.repository.WorkAssignmentRepository;
+import com.pcagrade.order.service.planning.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rolling re-plans: full plan read on the first run, only changed rows afterwards,
+ * read again in full after a conflict or a rebase
+ */
+class RollingReplanServiceTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2026, 3, 2, 8, 0);
+    private static final String GRADING = PlanningStage.GRADING.name();
+
+    private final UUID employeeId = UUID.randomUUID();
+    private final List<PlannedAssignment> planRows = new ArrayList<>();
+    private final List<PlannedAssignment> changedRows = new ArrayList<>();
+    private final List<LocalDateTime> changedSince = new ArrayList<>();
+    private final List<Map<String, StagePlanState>> plannedOn = new ArrayList<>();
+    private final List<Long> horizons = new ArrayList<>();
+    private int fullReads;
+    private UUID activeVersion;
+    private Function<UUID, WorkPlanResult> replan;
+    private RollingReplanService service;
+
+    @BeforeEach
+    void setUp() {
+        activeVersion = UUID.randomUUID();
+        replan = RollingReplanServiceTest::unchanged;
+
+        WorkPlanningService planner = new WorkPlanningService(null, null, null, null, null, null, null, null, null,
+                null) {
+            @Override
+            public List<StageInput> loadPlanningInputs(Map<String, StagePlanState> previousPlan) {
+                plannedOn.add(previousPlan);
+                return List.of();
+            }
+
+            @Override
+            public WorkPlanResult replanHorizon(List<StageInput> inputs, long horizonMinutes, UUID expectedVersionId) {
+                horizons.add(horizonMinutes);
+                return replan.apply(expectedVersionId);
+            }
+        };
+        PlanVersionService versions = new PlanVersionService(null, null, null, null, null) {
+            @Override
+            public Optional<UUID> getActiveVersionId() {
+                return Optional.ofNullable(activeVersion);
+            }
+        };
+        service = new RollingReplanService(planner, versions, repository());
+        ReflectionTestUtils.setField(service, "horizonHours", 2);
+        ReflectionTestUtils.setField(service, "fullReloadMs", 3_600_000L);
+        ReflectionTestUtils.setField(service, "retainedRuns", 3);
+    }
+
+    @Test
+    void nothingIsPlannedWithoutAnActiveVersion() {
+        activeVersion = null;
+
+        RollingReplanRun run = service.run("MANUAL");
+
+        assertEquals("SKIPPED", run.getOutcome());
+        assertTrue(horizons.isEmpty());
+        assertEquals(0, fullReads);
+    }
+
+    @Test
+    void laterRunsReadOnlyTheRowsThatLeftScheduled() {
+        PlannedAssignment scheduled = row(UUID.randomUUID(), AssignmentStatus.SCHEDULED);
+        planRows.add(scheduled);
+        planRows.add(row(UUID.randomUUID(), AssignmentStatus.SCHEDULED));
+
+        RollingReplanRun first = service.run("MANUAL");
+        changedRows.add(new PlannedAssignment(scheduled.id(), scheduled.orderId(), employeeId, GRADING, 10,
+                AssignmentStatus.IN_PROGRESS, scheduled.scheduledStart(), scheduled.scheduledEnd()));
+        RollingReplanRun second = service.run("ORDER_STATUS");
+
+        assertTrue(first.getFullReload());
+        assertEquals(2, first.getRefreshedRows());
+        assertEquals("UNCHANGED", first.getOutcome());
+        assertFalse(second.getFullReload());
+        assertEquals(1, second.getRefreshedRows());
+        assertEquals(1, fullReads);
+        assertEquals(1, changedSince.size());
+        assertEquals(List.of(120L, 120L), horizons);
+        // The second run plans on the refreshed state: the started row is no longer scheduled
+        StagePlanState refreshed = plannedOn.get(1).get(GRADING);
+        assertTrue(refreshed.isStarted(scheduled.orderId()));
+        assertEquals(1, refreshed.getScheduledByOrder().size());
+    }
+
+    @Test
+    void replannedRunKeepsItsOwnWritesInMemory() {
+        PlannedAssignment superseded = row(UUID.randomUUID(), AssignmentStatus.SCHEDULED);
+        planRows.add(superseded);
+        UUID next = UUID.randomUUID();
+        replan = expected -> {
+            WorkPlanResult result = unchanged(next);
+            result.getRemovedIds().add(superseded.id());
+            result.setRemovedCount(1);
+            return result;
+        };
+
+        RollingReplanRun first = service.run("MANUAL");
+        activeVersion = next;
+        replan = RollingReplanServiceTest::unchanged;
+        RollingReplanRun second = service.run("SCHEDULE");
+
+        assertEquals("REPLANNED", first.getOutcome());
+        assertEquals(next, first.getPlanVersionId());
+        assertEquals(1, first.getRemoved());
+        assertFalse(second.getFullReload());
+        assertTrue(plannedOn.get(1).isEmpty());
+        assertEquals(1, fullReads);
+    }
+
+    @Test
+    void conflictOrRebaseReadsThePlanAgain() {
+        planRows.add(row(UUID.randomUUID(), AssignmentStatus.SCHEDULED));
+        replan = expected -> {
+            throw new PlanVersionService.VersionConflictException("Plan version was activated meanwhile");
+        };
+
+        RollingReplanRun conflicted = service.run("MANUAL");
+        replan = expected -> {
+            WorkPlanResult result = unchanged(UUID.randomUUID());
+            result.setRebasedCount(1);
+            return result;
+        };
+        RollingReplanRun rebased = service.run("MANUAL");
+        replan = RollingReplanServiceTest::unchanged;
+        RollingReplanRun after = service.run("MANUAL");
+
+        assertEquals("SKIPPED", conflicted.getOutcome());
+        assertEquals("Plan version was activated meanwhile", conflicted.getMessage());
+        assertTrue(rebased.getFullReload());
+        assertEquals("REPLANNED", rebased.getOutcome());
+        assertTrue(after.getFullReload());
+        assertEquals(3, fullReads);
+    }
+
+    @Test
+    void failedRunIsRecordedAndTheNextReadsInFull() {
+        replan = expected -> {
+            throw new IllegalStateException("database unavailable");
+        };
+        RollingReplanRun failed = service.run("MANUAL");
+        replan = RollingReplanServiceTest::unchanged;
+        RollingReplanRun next = service.run("MANUAL");
+
+        assertEquals("FAILED", failed.getOutcome());
+        assertEquals("database unavailable", failed.getMessage());
+        assertTrue(next.getFullReload());
+    }
+
+    @Test
+    void onlyTheMostRecentRunsAreRetained() {
+        List<RollingReplanRun> recorded = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            recorded.add(service.run("RUN-" + i));
+        }
+
+        assertEquals(List.of(recorded.get(4), recorded.get(3), recorded.get(2)), service.getRuns());
+    }
+
+    private PlannedAssignment row(UUID id, AssignmentStatus status) {
+        LocalDateTime start = ORIGIN.plusMinutes(30L * planRows.size());
+        return new PlannedAssignment(id, UUID.randomUUID(), employeeId, GRADING, 10, status, start,
+                start.plusMinutes(30));
+    }
+
+    /**
+     * Result of a run that saved nothing (or saved the given version)
+     */
+    private static WorkPlanResult unchanged(UUID versionId) {
+        PlanningTimings timings = new PlanningTimings();
+        timings.setComputeMs(0L);
+        timings.setPersistMs(0L);
+        WorkPlanResult result = new WorkPlanResult();
+        result.setPlanVersionId(versionId);
+        result.setTimings(timings);
+        return result;
+    }
+
+    /**
+     * In-memory repository: only the slim plan queries are used by the service
+     */
+    private WorkAssignmentRepository repository() {
+        return (WorkAssignmentRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{WorkAssignmentRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findPlannedByStatusIn" -> {
+                        fullReads++;
+                        yield new ArrayList<>(planRows);
+                    }
+                    case "findPlannedByStatusInModifiedAfter" -> {
+                        changedSince.add((LocalDateTime) args[1]);
+                        yield new ArrayList<>(changedRows);
+                    }
+                    case "findLotOrdersByStatusIn", "findLotOrdersByStatusInModifiedAfter" -> List.of();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,192 @@
+package com.pcagrade.order.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Paginated export against a local HTTP server: pages after the first fetched
+ * concurrently, records still delivered in offset order
+ */
+class SymfonyApiClientPagingTest {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final SymfonyApiClient client = new SymfonyApiClient();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final List<Integer> requestedOffsets = Collections.synchronizedList(new ArrayList<>());
+    private final Map<Integer, Long> delayMillis = new ConcurrentHashMap<>();
+    private final Set<Integer> failingOffsets = ConcurrentHashMap.newKeySet();
+    private volatile int rows;
+    private volatile long reportedTotal = -1;
+    private CountDownLatch overlap;
+    private HttpServer server;
+    private ExecutorService serverThreads;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        serverThreads = Executors.newFixedThreadPool(8);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/fr/api/export/orders", this::page);
+        server.setExecutor(serverThreads);
+        server.start();
+
+        ReflectionTestUtils.setField(client, "symfonyApiBaseUrl",
+                "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(client, "symfonyApiLocale", "fr");
+        ReflectionTestUtils.setField(client, "timeoutSeconds", 10);
+        ReflectionTestUtils.setField(client, "maxConcurrentPages", 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void remainingPagesAreFetchedTogetherAndDeliveredInOrder() {
+        rows = 3500;
+        // The three pages after the first only answer once all of them were requested
+        overlap = new CountDownLatch(3);
+        delayMillis.put(1000, 200L);
+
+        List<Integer> ids = new ArrayList<>();
+        long delivered = client.streamOrdersSince("2026-03-02 08:00:00", record -> ids.add(id(record)));
+
+        assertEquals(3500, delivered);
+        assertEquals(IntStream.range(0, 3500).boxed().toList(), ids);
+        assertEquals(3, maxActive.get());
+        assertEquals(0, requestedOffsets.get(0));
+    }
+
+    @Test
+    void windowNeverExceedsTheConfiguredRequests() {
+        ReflectionTestUtils.setField(client, "maxConcurrentPages", 2);
+        rows = 8200;
+        for (int offset = PAGE_SIZE; offset < rows; offset += PAGE_SIZE) {
+            delayMillis.put(offset, 30L);
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        client.streamOrdersSince("2026-03-02 08:00:00", record -> ids.add(id(record)));
+
+        assertEquals(IntStream.range(0, 8200).boxed().toList(), ids);
+        assertEquals(2, maxActive.get());
+        assertEquals(9, requestedOffsets.size());
+    }
+
+    @Test
+    void oneRequestAtATimeIsSequential() {
+        ReflectionTestUtils.setField(client, "maxConcurrentPages", 1);
+        rows = 3500;
+        delayMillis.put(1000, 30L);
+        delayMillis.put(2000, 30L);
+
+        assertEquals(3500, client.fetchAllOrders().size());
+        assertEquals(1, maxActive.get());
+        assertEquals(List.of(0, 1000, 2000, 3000), requestedOffsets);
+    }
+
+    @Test
+    void exportThatGrewIsFollowedPageByPage() {
+        rows = 4500;
+        reportedTotal = 2500;
+
+        List<Integer> ids = new ArrayList<>();
+        long delivered = client.streamOrdersSince("2026-03-02 08:00:00", record -> ids.add(id(record)));
+
+        assertEquals(4500, delivered);
+        assertEquals(IntStream.range(0, 4500).boxed().toList(), ids);
+        assertEquals(List.of(3000, 4000), requestedOffsets.subList(3, 5));
+    }
+
+    @Test
+    void failedPageStopsTheExport() {
+        rows = 5500;
+        failingOffsets.add(2000);
+        delayMillis.put(3000, 200L);
+
+        List<Integer> ids = new ArrayList<>();
+        assertThrows(UncheckedIOException.class,
+                () -> client.streamOrdersSince("2026-03-02 08:00:00", record -> ids.add(id(record))));
+
+        // Pages are delivered in order: nothing after the failed one
+        assertEquals(IntStream.range(0, 2000).boxed().toList(), ids);
+        assertEquals(2000, client.fetchAllOrders().size());
+    }
+
+    // ========== HELPER METHODS ==========
+
+    /**
+     * One export page: ids are the row offsets, pagination as the Symfony export reports it
+     */
+    private void page(HttpExchange exchange) throws IOException {
+        int offset = Integer.parseInt(query(exchange).getOrDefault("offset", "0"));
+        int limit = Integer.parseInt(query(exchange).getOrDefault("limit", "1000"));
+        requestedOffsets.add(offset);
+        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        try {
+            if (offset > 0 && overlap != null) {
+                overlap.countDown();
+                overlap.await(5, TimeUnit.SECONDS);
+            }
+            Thread.sleep(delayMillis.getOrDefault(offset, 0L));
+
+            if (failingOffsets.contains(offset)) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            StringBuilder json = new StringBuilder("{\"success\": true, \"data\": [");
+            int end = Math.min(rows, offset + limit);
+            for (int id = offset; id < end; id++) {
+                json.append(id > offset ? ", " : "").append("{\"id\": ").append(id).append('}');
+            }
+            json.append("], \"pagination\": {\"total\": ").append(reportedTotal >= 0 ? reportedTotal : rows)
+                    .append(", \"hasMore\": ").append(end < rows).append("}}");
+            byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            active.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                String[] pair = param.split("=", 2);
+                params.put(pair[0], pair.length > 1 ? pair[1] : "");
+            }
+        }
+        return params;
+    }
+
+    private static int id(Map<String, Object> record) {
+        return ((Number) record.get("id")).intValue();
+    }
+}
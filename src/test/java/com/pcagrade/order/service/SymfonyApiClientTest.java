@@ -0,0 +1,70 @@
+package com.pcagrade.order.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Streaming parse of one export page
+ */
+class SymfonyApiClientTest {
+
+    private final SymfonyApiClient client = new SymfonyApiClient();
+    private final List<Map<String, Object>> records = new ArrayList<>();
+
+    @Test
+    void recordsAreStreamedAndPaginationIsRead() throws IOException {
+        SymfonyApiClient.Page page = read("""
+                {"success": true,
+                 "data": [{"id": 1, "name": "a"}, {"id": 2, "tags": ["x", "y"]}],
+                 "pagination": {"total": 2500, "hasMore": true, "limit": 1000}}""");
+
+        assertTrue(page.success());
+        assertEquals(2, page.records());
+        assertTrue(page.hasMore());
+        assertEquals(2500, page.total());
+        assertEquals(List.of(1, 2), records.stream().map(record -> record.get("id")).toList());
+        assertEquals(List.of("x", "y"), records.get(1).get("tags"));
+    }
+
+    @Test
+    void otherFieldsAndNonObjectItemsAreSkipped() throws IOException {
+        SymfonyApiClient.Page page = read("""
+                {"meta": {"nested": [1, 2, {"deep": true}]}, "success": true,
+                 "data": [1, [2], {"id": 3}, null], "message": "ok"}""");
+
+        assertTrue(page.success());
+        assertEquals(1, page.records());
+        assertFalse(page.hasMore());
+        assertEquals(-1, page.total());
+        assertEquals(3, records.get(0).get("id"));
+    }
+
+    @Test
+    void failedPageDeliversNoRecords() throws IOException {
+        SymfonyApiClient.Page page = read("""
+                {"success": false, "data": [{"id": 1}], "pagination": {"hasMore": true}}""");
+
+        assertFalse(page.success());
+        assertEquals(0, page.records());
+        assertTrue(records.isEmpty());
+    }
+
+    @Test
+    void pageWithoutSuccessIsNotSuccessful() throws IOException {
+        assertFalse(read("""
+                {"data": []}""").success());
+        assertFalse(read("[]").success());
+    }
+
+    private SymfonyApiClient.Page read(String json) throws IOException {
+        return client.readPage(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), records::add);
+    }
+}
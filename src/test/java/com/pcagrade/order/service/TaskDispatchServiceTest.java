@@ -0,0 +1,127 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.OrderStatus;
+import com.pcagrade.order.service.planning.DispatchBoard;
+import com.pcagrade.order.service.planning.DispatchTask;
+import com.pcagrade.order.service.planning.PlanningStage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Claiming tasks taken from the dispatch board
+ */
+class TaskDispatchServiceTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2026, 3, 2, 8, 0);
+
+    private final UUID employeeId = UUID.randomUUID();
+    private final Set<UUID> unclaimable = new HashSet<>();
+    private RuntimeException claimFailure;
+    private UUID completedFor;
+    private TaskDispatchService service;
+
+    @BeforeEach
+    void setUp() {
+        WorkAssignmentBulkWriter writer = new WorkAssignmentBulkWriter(null) {
+            @Override
+            public boolean claimScheduled(UUID assignmentId, UUID employee, LocalDateTime startedAt) {
+                if (claimFailure != null) {
+                    throw claimFailure;
+                }
+                return !unclaimable.contains(assignmentId);
+            }
+
+            @Override
+            public boolean completeInProgress(UUID assignmentId, UUID employee, LocalDateTime completedAt) {
+                completedFor = employee;
+                return employee == null || employee.equals(employeeId);
+            }
+        };
+        service = new TaskDispatchService(null, null, writer, null);
+        ReflectionTestUtils.setField(service, "maxClaimAttempts", 50);
+        ReflectionTestUtils.setField(service, "employeeStages",
+                new ConcurrentHashMap<>(Map.of(employeeId, EnumSet.of(PlanningStage.GRADING))));
+    }
+
+    @Test
+    void staleTaskIsSkippedForTheNextOne() {
+        DispatchTask stale = task(0);
+        DispatchTask next = task(10);
+        DispatchBoard board = board(stale, next);
+        unclaimable.add(stale.id());
+
+        DispatchTask started = service.next(employeeId).orElseThrow();
+
+        assertEquals(next.id(), started.id());
+        assertEquals(AssignmentStatus.IN_PROGRESS, started.status());
+        assertEquals(employeeId, started.employeeId());
+        assertTrue(board.getInProgress(next.id()).isPresent());
+        assertEquals(0, board.readyCount(PlanningStage.GRADING));
+    }
+
+    @Test
+    void failedClaimPutsTheTaskBack() {
+        DispatchTask task = task(0);
+        DispatchBoard board = board(task);
+        claimFailure = new IllegalStateException("database unavailable");
+
+        assertThrows(IllegalStateException.class, () -> service.next(employeeId));
+        assertEquals(1, board.readyCount(PlanningStage.GRADING));
+    }
+
+    @Test
+    void givesUpAfterTheMaximumClaimAttempts() {
+        ReflectionTestUtils.setField(service, "maxClaimAttempts", 2);
+        DispatchTask first = task(0);
+        DispatchTask second = task(10);
+        DispatchTask third = task(20);
+        DispatchBoard board = board(first, second, third);
+        unclaimable.addAll(List.of(first.id(), second.id()));
+
+        assertTrue(service.next(employeeId).isEmpty());
+        assertEquals(1, board.readyCount(PlanningStage.GRADING));
+    }
+
+    @Test
+    void noReadyWorkInTheEmployeeStages() {
+        board(new DispatchTask(UUID.randomUUID(), UUID.randomUUID(), "ORD", OrderStatus.SCANNING, null,
+                PlanningStage.SCANNING.name(), 10, AssignmentStatus.SCHEDULED, ORIGIN, null, 3L));
+
+        assertTrue(service.next(employeeId).isEmpty());
+    }
+
+    @Test
+    void completionIsRefusedForAnotherEmployeesTask() {
+        DispatchTask task = task(0);
+        DispatchBoard board = board(task);
+        service.next(employeeId).orElseThrow();
+        UUID other = UUID.randomUUID();
+
+        IllegalStateException refused = assertThrows(IllegalStateException.class,
+                () -> service.complete(task.id(), other));
+
+        assertEquals(other, completedFor);
+        assertTrue(refused.getMessage().contains(other.toString()));
+        assertTrue(board.getInProgress(task.id()).isPresent());
+    }
+
+    private DispatchBoard board(DispatchTask... tasks) {
+        DispatchBoard board = new DispatchBoard(List.of(tasks));
+        ReflectionTestUtils.setField(service, "board", board);
+        return board;
+    }
+
+    private static DispatchTask task(int startMinute) {
+        return new DispatchTask(UUID.randomUUID(), UUID.randomUUID(), "ORD", OrderStatus.GRADING, null,
+                PlanningStage.GRADING.name(), 10, AssignmentStatus.SCHEDULED, ORIGIN.plusMinutes(startMinute),
+                null, 3L);
+    }
+}
@@ -0,0 +1,206 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.WhatIfScenario;
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.Employee;
+import com.pcagrade.order.entity.WorkAssignment;
+import com.pcagrade.order.service.planning.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * What-if scenarios planned side by side against one snapshot: each sees only its own
+ * changes and none alters the snapshot
+ */
+class WhatIfPlanningServiceTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2026, 3, 2, 8, 0);
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private final AtomicInteger loads = new AtomicInteger();
+    private Employee alice;
+    private Employee bob;
+    private PlanningOrder kept;
+    private PlanningOrder waiting;
+    private WhatIfPlanningService service;
+
+    @BeforeEach
+    void setUp() {
+        executor.setCorePoolSize(4);
+        executor.initialize();
+
+        alice = employee("Alice");
+        bob = employee("Bob");
+        kept = order("ORD-K", 30, "X");
+        waiting = order("ORD-W", 60, "E");
+
+        ShiftCalendarFactory calendars = new ShiftCalendarFactory("08:00", "17:00", 15,
+                "MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY", 730);
+        WorkPlanningService planner = new WorkPlanningService(null, null, null, null, null,
+                new DurationModelService(null, calendars), null, calendars, null, null) {
+            @Override
+            public List<StageInput> loadPlanningInputs() {
+                loads.incrementAndGet();
+                StagePlanState previous = StagePlanState.byStage(List.of(new PlannedAssignment(UUID.randomUUID(),
+                        kept.id(), bob.getId(), PlanningStage.GRADING.name(), kept.cardCount(),
+                        AssignmentStatus.SCHEDULED, ORIGIN.plusHours(4), ORIGIN.plusHours(5))))
+                        .get(PlanningStage.GRADING.name());
+                return new ArrayList<>(List.of(new StageInput(PlanningStage.GRADING,
+                        new ArrayList<>(List.of(kept, waiting)), new ArrayList<>(List.of(alice, bob)), previous)));
+            }
+        };
+        ReflectionTestUtils.setField(planner, "defaultMode", PlanningMode.PER_STAGE);
+        ReflectionTestUtils.setField(planner, "dispatchRule", DispatchRule.PRIORITY);
+        ReflectionTestUtils.setField(planner, "lotSize", 50);
+        ReflectionTestUtils.setField(planner, "latenessReportLimit", 500);
+        ReflectionTestUtils.setField(planner, "maxSearchBudgetMs", 1000L);
+
+        service = new WhatIfPlanningService(planner, executor);
+        ReflectionTestUtils.setField(service, "maxScenarios", 4);
+        ReflectionTestUtils.setField(service, "maxExtraEmployees", 3);
+        ReflectionTestUtils.setField(service, "maxExtraOrders", 3);
+        ReflectionTestUtils.setField(service, "maxSearchMs", 500L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void scenariosSeeOnlyTheirOwnChanges() {
+        WhatIfScenario baseline = scenario("baseline");
+        WhatIfScenario hiring = scenario("hiring");
+        hiring.getExtraEmployees().add(new WhatIfScenario.ExtraEmployees("grading", 2, 1.0, 8));
+        WhatIfScenario rush = scenario("rush");
+        rush.getExtraOrders().add(new WhatIfScenario.ExtraOrders("GRADING", 3, 20, "X"));
+        WhatIfScenario absence = scenario("absence");
+        absence.getAbsentEmployeeIds().add(alice.getId());
+
+        List<WhatIfOutcome> outcomes = service.run(List.of(baseline, hiring, rush, absence));
+
+        assertEquals(List.of(baseline, hiring, rush, absence), outcomes.stream().map(WhatIfOutcome::scenario).toList());
+        assertTrue(outcomes.stream().allMatch(WhatIfOutcome::isSuccess));
+        assertEquals(Set.of(kept.id(), waiting.id()), orderIds(outcomes.get(0)));
+        assertEquals(Set.of(alice.getId(), bob.getId()), employeeIds(outcomes.get(0)));
+
+        Set<UUID> hired = employeeIds(outcomes.get(1));
+        hired.removeAll(Set.of(alice.getId(), bob.getId()));
+        assertFalse(hired.isEmpty());
+        assertTrue(workOf(outcomes.get(1)).stream()
+                .filter(assignment -> hired.contains(assignment.getEmployee().getId()))
+                .allMatch(assignment -> assignment.getEmployee().getFirstName().equals("What-if")));
+
+        assertEquals(5, orderIds(outcomes.get(2)).size());
+        assertEquals(Set.of(bob.getId()), employeeIds(outcomes.get(3)));
+    }
+
+    @Test
+    void scenariosDoNotAlterTheSnapshot() {
+        WhatIfScenario incremental = scenario("incremental");
+        incremental.setFullRebuild(false);
+        incremental.getExtraOrders().add(new WhatIfScenario.ExtraOrders("GRADING", 2, 10, "E"));
+        incremental.getAbsentEmployeeIds().add(alice.getId());
+
+        List<WhatIfOutcome> first = service.run(List.of(incremental, incremental));
+        List<WhatIfOutcome> second = service.run(List.of(incremental));
+
+        StageInput snapshot = service.getSnapshot().orElseThrow().inputs().get(0);
+        assertEquals(List.of(kept, waiting), snapshot.orders());
+        assertEquals(List.of(alice, bob), snapshot.employees());
+        assertNull(snapshot.previous().getReservedFrom(bob.getId()));
+        assertNull(snapshot.previous().getFinish(kept.id()));
+        // Kept work is recorded on each scenario's own copy of the previous plan
+        for (WhatIfOutcome outcome : List.of(first.get(0), first.get(1), second.get(0))) {
+            assertEquals(1, outcome.result().getKeptCount());
+            assertFalse(orderIds(outcome).contains(kept.id()));
+            // 60 waiting cards in lots of 50, plus the two hypothetical orders
+            assertEquals(4, outcome.result().getCreated().size());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void snapshotIsReloadedOnlyOnRequest() {
+        service.run(List.of(scenario("first")));
+        PlanningSnapshot loaded = service.getSnapshot().orElseThrow();
+        service.run(List.of(scenario("second")));
+
+        assertSame(loaded, service.getSnapshot().orElseThrow());
+        assertNotEquals(loaded.id(), service.refreshSnapshot().id());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidScenarioFailsAlone() {
+        WhatIfScenario unknownMode = scenario("unknown mode");
+        unknownMode.setMode("round-robin");
+        WhatIfScenario unknownStage = scenario("unknown stage");
+        unknownStage.getExtraEmployees().add(new WhatIfScenario.ExtraEmployees("polishing", 1, 1.0, 8));
+
+        List<WhatIfOutcome> outcomes = service.run(List.of(unknownMode, unknownStage, scenario("baseline")));
+
+        assertEquals("Unknown planning mode: round-robin", outcomes.get(0).error());
+        assertEquals("Unknown stage: polishing", outcomes.get(1).error());
+        assertNull(outcomes.get(1).result());
+        assertTrue(outcomes.get(2).isSuccess());
+    }
+
+    @Test
+    void requestsOverTheLimitsAreRejectedBeforePlanning() {
+        WhatIfScenario crowded = scenario("crowded");
+        crowded.getExtraEmployees().add(new WhatIfScenario.ExtraEmployees("GRADING", 4, 1.0, 8));
+        WhatIfScenario slow = scenario("slow");
+        slow.setSearchMs(501L);
+        List<WhatIfScenario> many = Collections.nCopies(5, scenario("many"));
+
+        assertThrows(IllegalArgumentException.class, () -> service.run(List.of(crowded)));
+        assertThrows(IllegalArgumentException.class, () -> service.run(List.of(scenario("ok"), slow)));
+        assertThrows(IllegalArgumentException.class, () -> service.run(many));
+        assertEquals(0, loads.get());
+    }
+
+    private static WhatIfScenario scenario(String name) {
+        WhatIfScenario scenario = new WhatIfScenario();
+        scenario.setName(name);
+        return scenario;
+    }
+
+    private static List<WorkAssignment> workOf(WhatIfOutcome outcome) {
+        return outcome.result().getCreated();
+    }
+
+    private static Set<UUID> orderIds(WhatIfOutcome outcome) {
+        Set<UUID> ids = new HashSet<>();
+        workOf(outcome).forEach(assignment -> ids.add(assignment.getOrder().getId()));
+        return ids;
+    }
+
+    private static Set<UUID> employeeIds(WhatIfOutcome outcome) {
+        Set<UUID> ids = new HashSet<>();
+        workOf(outcome).forEach(assignment -> ids.add(assignment.getEmployee().getId()));
+        return ids;
+    }
+
+    private static PlanningOrder order(String number, int cards, String delai) {
+        return new PlanningOrder(UUID.randomUUID(), number, cards, delai, ORIGIN.minusDays(1),
+                PlanningStage.GRADING.getOrderStatus());
+    }
+
+    private static Employee employee(String name) {
+        Employee employee = new Employee();
+        employee.setId(UUID.randomUUID());
+        employee.setFirstName(name);
+        employee.setLastName("Test");
+        return employee;
+    }
+}
@@ -0,0 +1,399 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.dto.PlanningTimings;
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.Employee;
+import com.pcagrade.order.entity.WorkAssignment;
+import com.pcagrade.order.service.planning.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Incremental re-planning: split orders with started lots, new orders among kept work;
+ * stages computed on the planning executor; orders chained through the stages (flow shop);
+ * re-planning within a horizon
+ */
+class WorkPlanningServiceTest {
+
+    // Monday 08:00
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2026, 3, 2, 8, 0);
+
+    private WorkPlanningService service;
+    private Employee alice;
+    private Employee bob;
+    private PlanningOrder order;
+
+    @BeforeEach
+    void setUp() {
+        service = service(null);
+
+        alice = employee("Alice");
+        bob = employee("Bob");
+        order = order("ORD-1", 120, "C");
+    }
+
+    @Test
+    void incrementalReplanKeepsTheRemainingLotsOfAStartedOrder() {
+        WorkPlanResult result = service.simulateWorkPlan(List.of(input(splitPlan(bob))), ORIGIN, false,
+                PlanningMode.PER_STAGE, 0L);
+
+        assertEquals(2, result.getKeptCount());
+        assertEquals(0, result.getRemovedCount());
+        assertTrue(result.getCreated().isEmpty());
+    }
+
+    @Test
+    void fullRebuildReplansTheCardsNotYetStarted() {
+        WorkPlanResult result = service.simulateWorkPlan(List.of(input(splitPlan(bob))), ORIGIN, true,
+                PlanningMode.PER_STAGE, 0L);
+
+        assertEquals(2, result.getRemovedCount());
+        assertEquals(70, createdCards(result));
+    }
+
+    @Test
+    void lotsOfAnEmployeeWhoLeftAreReplannedWithoutTheStartedCards() {
+        Employee carol = employee("Carol");
+
+        WorkPlanResult result = service.simulateWorkPlan(List.of(input(splitPlan(carol))), ORIGIN, false,
+                PlanningMode.PER_STAGE, 0L);
+
+        assertEquals(0, result.getKeptCount());
+        assertEquals(2, result.getRemovedCount());
+        assertEquals(70, createdCards(result));
+    }
+
+    @Test
+    void newExpressOrderIsNotQueuedBehindKeptWork() {
+        PlanningOrder standard = order("ORD-C", 30, "C");
+        PlanningOrder express = order("ORD-X", 20, "X");
+        StagePlanState previous = scheduled(standard, bob, ORIGIN, ORIGIN.plusMinutes(90));
+
+        WorkPlanResult result = service.simulateWorkPlan(
+                List.of(input(List.of(standard, express), List.of(bob), previous)), ORIGIN, false,
+                PlanningMode.PER_STAGE, 0L);
+
+        assertEquals(1, result.getRemovedCount());
+        assertEquals(ORIGIN, startOf(result, express));
+        assertTrue(startOf(result, standard).isAfter(ORIGIN));
+    }
+
+    @Test
+    void newWorkFillsTheGapBeforeKeptWork() {
+        PlanningOrder express = order("ORD-X", 20, "X");
+        PlanningOrder economy = order("ORD-E", 10, "E");
+        StagePlanState previous = scheduled(express, bob, ORIGIN.plusHours(5), ORIGIN.plusHours(6));
+
+        WorkPlanResult result = service.simulateWorkPlan(
+                List.of(input(List.of(express, economy), List.of(bob), previous)), ORIGIN, false,
+                PlanningMode.PER_STAGE, 0L);
+
+        assertEquals(1, result.getKeptCount());
+        assertEquals(ORIGIN, startOf(result, economy));
+    }
+
+    @Test
+    void parallelStagesGiveTheSamePlanAsSequentialOnes() {
+        for (int threads : new int[]{1, 4}) {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(threads);
+            executor.initialize();
+            try {
+                WorkPlanningService parallel = service(executor);
+                List<StageInput> inputs = everyStage();
+
+                List<List<String>> sequentialSlots = slots(service.computePlan(inputs, ORIGIN, true, null,
+                        PlanningMode.PER_STAGE, false, 0L, 1, new PlanningTimings(), PlanningProgress.NONE));
+                List<List<String>> parallelSlots = slots(parallel.computePlan(copies(inputs), ORIGIN, true, null,
+                        PlanningMode.PER_STAGE, true, 0L, 1, new PlanningTimings(), PlanningProgress.NONE));
+
+                assertEquals(sequentialSlots, parallelSlots, threads + " threads");
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void parallelStagePlansComeBackInInputOrder() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.initialize();
+        try {
+            List<StageInput> inputs = everyStage();
+
+            List<StagePlan> stagePlans = service(executor).computePlan(inputs, ORIGIN, true, null,
+                    PlanningMode.PER_STAGE, true, 0L, 1, new PlanningTimings(), PlanningProgress.NONE).stagePlans();
+
+            assertEquals(inputs.stream().map(input -> input.stage().name()).toList(),
+                    stagePlans.stream().map(StagePlan::stage).toList());
+            assertTrue(stagePlans.stream().allMatch(stagePlan -> stagePlan.created().size() >= 3));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void flowShopChainsAnOrderThroughEveryRemainingStage() {
+        PlanningOrder graded = stageOrder(PlanningStage.GRADING, 20, "C");
+
+        WorkPlanResult result = service.simulateWorkPlan(pipeline(PlanningStage.GRADING, graded), ORIGIN, true,
+                PlanningMode.FLOW_SHOP, 0L);
+
+        LocalDateTime previousEnd = ORIGIN;
+        for (PlanningStage stage : PlanningStage.values()) {
+            List<WorkAssignment> work = workIn(result, stage);
+            assertEquals(20, work.stream().mapToInt(WorkAssignment::getCardCount).sum(), stage.name());
+            LocalDateTime start = work.stream().map(WorkAssignment::getScheduledStart).min(LocalDateTime::compareTo)
+                    .orElseThrow();
+            assertFalse(start.isBefore(previousEnd), stage + " starts before the previous stage ends");
+            previousEnd = work.stream().map(WorkAssignment::getScheduledEnd).max(LocalDateTime::compareTo)
+                    .orElseThrow();
+        }
+        assertEquals(previousEnd, result.getPipeline().getMakespanEnd());
+        assertEquals(0, result.getPipeline().getLateOrders());
+    }
+
+    @Test
+    void flowShopDoesNotPlanStagesAnOrderHasLeft() {
+        PlanningOrder scanned = stageOrder(PlanningStage.SCANNING, 20, "C");
+
+        WorkPlanResult result = service.simulateWorkPlan(pipeline(PlanningStage.SCANNING, scanned), ORIGIN, true,
+                PlanningMode.FLOW_SHOP, 0L);
+
+        assertTrue(workIn(result, PlanningStage.GRADING).isEmpty());
+        assertTrue(workIn(result, PlanningStage.CERTIFYING).isEmpty());
+        assertEquals(20, workIn(result, PlanningStage.SCANNING).stream().mapToInt(WorkAssignment::getCardCount).sum());
+        assertEquals(20, workIn(result, PlanningStage.PACKAGING).stream().mapToInt(WorkAssignment::getCardCount).sum());
+    }
+
+    @Test
+    void perStageModePlansAnOrderInItsCurrentStageOnly() {
+        PlanningOrder graded = stageOrder(PlanningStage.GRADING, 20, "C");
+
+        WorkPlanResult result = service.simulateWorkPlan(pipeline(PlanningStage.GRADING, graded), ORIGIN, true,
+                PlanningMode.PER_STAGE, 0L);
+
+        assertEquals(20, workIn(result, PlanningStage.GRADING).stream().mapToInt(WorkAssignment::getCardCount).sum());
+        assertTrue(workIn(result, PlanningStage.PACKAGING).isEmpty());
+        assertNull(result.getPipeline());
+    }
+
+    @Test
+    void horizonReslotsWorkStartingBeforeItAndKeepsTheRest() {
+        PlanningOrder near = order("ORD-N", 30, "C");
+        PlanningOrder far = order("ORD-F", 30, "C");
+        PlannedAssignment nearLot = planned(near, bob, ORIGIN.plusHours(1), ORIGIN.plusHours(2));
+        PlannedAssignment farLot = planned(far, bob, ORIGIN.plusHours(6), ORIGIN.plusHours(7));
+        StageInput input = input(List.of(near, far), List.of(bob), plan(nearLot, farLot));
+
+        StagePlan stagePlan = service.computePlan(List.of(input), ORIGIN, false, 4 * 60L, PlanningMode.PER_STAGE,
+                false, 0L, 1, new PlanningTimings(), PlanningProgress.NONE).stagePlans().get(0);
+
+        assertEquals(List.of(nearLot.id()), stagePlan.removedIds());
+        assertEquals(List.of(farLot.id()), stagePlan.keptIds());
+        assertEquals(List.of(near.id()), stagePlan.created().stream()
+                .map(assignment -> assignment.getOrder().getId()).distinct().toList());
+        assertEquals(ORIGIN, stagePlan.created().get(0).getScheduledStart());
+    }
+
+    @Test
+    void withoutHorizonUnchangedWorkIsKept() {
+        PlanningOrder near = order("ORD-N", 30, "C");
+        PlannedAssignment nearLot = planned(near, bob, ORIGIN.plusHours(1), ORIGIN.plusHours(2));
+        StageInput input = input(List.of(near), List.of(bob), plan(nearLot));
+
+        StagePlan stagePlan = service.computePlan(List.of(input), ORIGIN, false, null, PlanningMode.PER_STAGE,
+                false, 0L, 1, new PlanningTimings(), PlanningProgress.NONE).stagePlans().get(0);
+
+        assertEquals(List.of(nearLot.id()), stagePlan.keptIds());
+        assertTrue(stagePlan.created().isEmpty());
+    }
+
+    @Test
+    void workKeptBeyondTheHorizonFencesNewWork() {
+        PlanningOrder far = order("ORD-F", 30, "C");
+        PlanningOrder fresh = order("ORD-S", 200, "C");
+        PlannedAssignment farLot = planned(far, bob, ORIGIN.plusHours(5), ORIGIN.plusHours(6));
+        StageInput input = input(List.of(far, fresh), List.of(bob), plan(farLot));
+
+        StagePlan stagePlan = service.computePlan(List.of(input), ORIGIN, false, 4 * 60L, PlanningMode.PER_STAGE,
+                false, 0L, 1, new PlanningTimings(), PlanningProgress.NONE).stagePlans().get(0);
+
+        assertEquals(List.of(farLot.id()), stagePlan.keptIds());
+        assertEquals(200, stagePlan.created().stream().mapToInt(WorkAssignment::getCardCount).sum());
+        // Too much for the gap before the kept lot: it fills the gap, then resumes after the lot
+        assertTrue(stagePlan.created().stream().anyMatch(assignment -> assignment.getScheduledStart().equals(ORIGIN)));
+        assertTrue(stagePlan.created().stream()
+                .anyMatch(assignment -> !assignment.getScheduledStart().isBefore(farLot.scheduledEnd())));
+        for (WorkAssignment assignment : stagePlan.created()) {
+            assertFalse(assignment.getScheduledStart().isBefore(farLot.scheduledEnd())
+                            && assignment.getScheduledEnd().isAfter(farLot.scheduledStart()),
+                    "new work overlaps the kept lot: " + assignment.getScheduledStart());
+        }
+    }
+
+    @Test
+    void employeeInTwoTeamsIsNotDoubleBooked() {
+        Employee mia = employee("Mia");
+        StageInput grading = new StageInput(PlanningStage.GRADING,
+                List.of(stageOrder(PlanningStage.GRADING, 200, "C")), List.of(alice, mia), StagePlanState.empty());
+        StageInput scanning = new StageInput(PlanningStage.SCANNING,
+                List.of(stageOrder(PlanningStage.SCANNING, 20, "C")), List.of(bob, mia), StagePlanState.empty());
+
+        WorkPlanResult result = service.simulateWorkPlan(List.of(grading, scanning), ORIGIN, true,
+                PlanningMode.PER_STAGE, 0L);
+
+        List<String> miaStages = result.getCreated().stream()
+                .filter(assignment -> assignment.getEmployee().getId().equals(mia.getId()))
+                .map(WorkAssignment::getProcessingStage)
+                .distinct()
+                .toList();
+        assertEquals(List.of(PlanningStage.GRADING.name()), miaStages);
+        assertEquals(20, workIn(result, PlanningStage.SCANNING).stream().mapToInt(WorkAssignment::getCardCount).sum());
+    }
+
+    /**
+     * Every stage in pipeline order with one employee; the order waits in the given stage
+     */
+    private static List<StageInput> pipeline(PlanningStage current, PlanningOrder waiting) {
+        List<StageInput> inputs = new ArrayList<>();
+        for (PlanningStage stage : PlanningStage.values()) {
+            inputs.add(new StageInput(stage, stage == current ? List.of(waiting) : List.of(),
+                    List.of(employee(stage.name())), StagePlanState.empty()));
+        }
+        return inputs;
+    }
+
+    private static List<WorkAssignment> workIn(WorkPlanResult result, PlanningStage stage) {
+        return result.getCreated().stream()
+                .filter(assignment -> stage.name().equals(assignment.getProcessingStage()))
+                .toList();
+    }
+
+    /**
+     * Every stage with its own three orders and two employees
+     */
+    private static List<StageInput> everyStage() {
+        List<StageInput> inputs = new ArrayList<>();
+        for (PlanningStage stage : PlanningStage.values()) {
+            List<PlanningOrder> orders = List.of(
+                    stageOrder(stage, 40, "X"), stageOrder(stage, 90, "C"), stageOrder(stage, 30, "E"));
+            inputs.add(new StageInput(stage, orders, List.of(employee(stage + "-1"), employee(stage + "-2")),
+                    StagePlanState.empty()));
+        }
+        return inputs;
+    }
+
+    /**
+     * Same orders and employees on independent copies of the previous plans
+     */
+    private static List<StageInput> copies(List<StageInput> inputs) {
+        return inputs.stream().map(input -> input.withScenario(input.orders(), input.employees())).toList();
+    }
+
+    /**
+     * Per stage: employee, order, cards and times of each new assignment
+     */
+    private static List<List<String>> slots(WorkPlanningService.ComputedPlan plan) {
+        return plan.stagePlans().stream()
+                .map(stagePlan -> stagePlan.created().stream()
+                        .map(assignment -> assignment.getEmployee().getId() + " " + assignment.getOrder().getId() +
+                                " " + assignment.getCardCount() + " " + assignment.getScheduledStart() + " " +
+                                assignment.getScheduledEnd())
+                        .sorted()
+                        .toList())
+                .toList();
+    }
+
+    private static PlanningOrder stageOrder(PlanningStage stage, int cards, String delai) {
+        return new PlanningOrder(UUID.randomUUID(), stage + "-" + cards, cards, delai, ORIGIN.minusDays(1),
+                stage.getOrderStatus());
+    }
+
+    private static WorkPlanningService service(ThreadPoolTaskExecutor executor) {
+        ShiftCalendarFactory calendars = new ShiftCalendarFactory("08:00", "17:00", 15,
+                "MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY", 730);
+        WorkPlanningService service = new WorkPlanningService(null, null, null, null, null,
+                new DurationModelService(null, calendars), null, calendars, null, executor);
+        ReflectionTestUtils.setField(service, "defaultMode", PlanningMode.PER_STAGE);
+        ReflectionTestUtils.setField(service, "dispatchRule", DispatchRule.PRIORITY);
+        ReflectionTestUtils.setField(service, "lotSize", 50);
+        ReflectionTestUtils.setField(service, "latenessReportLimit", 500);
+        return service;
+    }
+
+    /**
+     * 120 cards split 50 / 50 / 20: the first lot is in progress, the others are scheduled on the given employee
+     */
+    private StagePlanState splitPlan(Employee scheduledOn) {
+        String stage = PlanningStage.GRADING.name();
+        return StagePlanState.byStage(List.of(
+                new PlannedAssignment(UUID.randomUUID(), order.id(), alice.getId(), stage, 50,
+                        AssignmentStatus.IN_PROGRESS, ORIGIN.minusHours(1), ORIGIN.plusHours(2)),
+                new PlannedAssignment(UUID.randomUUID(), order.id(), scheduledOn.getId(), stage, 50,
+                        AssignmentStatus.SCHEDULED, ORIGIN, ORIGIN.plusHours(3)),
+                new PlannedAssignment(UUID.randomUUID(), order.id(), scheduledOn.getId(), stage, 20,
+                        AssignmentStatus.SCHEDULED, ORIGIN.plusHours(3), ORIGIN.plusHours(4))
+        )).get(stage);
+    }
+
+    private StagePlanState scheduled(PlanningOrder planned, Employee employee, LocalDateTime start,
+                                     LocalDateTime end) {
+        String stage = PlanningStage.GRADING.name();
+        return StagePlanState.byStage(List.of(new PlannedAssignment(UUID.randomUUID(), planned.id(),
+                employee.getId(), stage, planned.cardCount(), AssignmentStatus.SCHEDULED, start, end))).get(stage);
+    }
+
+    private static PlannedAssignment planned(PlanningOrder planned, Employee employee, LocalDateTime start,
+                                             LocalDateTime end) {
+        return new PlannedAssignment(UUID.randomUUID(), planned.id(), employee.getId(),
+                PlanningStage.GRADING.name(), planned.cardCount(), AssignmentStatus.SCHEDULED, start, end);
+    }
+
+    private static StagePlanState plan(PlannedAssignment... scheduled) {
+        return StagePlanState.byStage(List.of(scheduled)).get(PlanningStage.GRADING.name());
+    }
+
+    private StageInput input(StagePlanState previous) {
+        return input(List.of(order), List.of(alice, bob), previous);
+    }
+
+    private static StageInput input(List<PlanningOrder> orders, List<Employee> employees, StagePlanState previous) {
+        return new StageInput(PlanningStage.GRADING, orders, employees, previous);
+    }
+
+    private static PlanningOrder order(String number, int cards, String delai) {
+        return new PlanningOrder(UUID.randomUUID(), number, cards, delai, ORIGIN.minusDays(1),
+                PlanningStage.GRADING.getOrderStatus());
+    }
+
+    private static LocalDateTime startOf(WorkPlanResult result, PlanningOrder planned) {
+        return result.getCreated().stream()
+                .filter(assignment -> assignment.getOrder().getId().equals(planned.id()))
+                .map(WorkAssignment::getScheduledStart)
+                .min(LocalDateTime::compareTo)
+                .orElseThrow();
+    }
+
+    private static int createdCards(WorkPlanResult result) {
+        return result.getCreated().stream().mapToInt(WorkAssignment::getCardCount).sum();
+    }
+
+    private static Employee employee(String name) {
+        Employee employee = new Employee();
+        employee.setId(UUID.randomUUID());
+        employee.setFirstName(name);
+        employee.setLastName("Test");
+        return employee;
+    }
+}
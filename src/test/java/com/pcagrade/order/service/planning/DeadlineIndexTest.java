@@ -0,0 +1,74 @@
+package com.pcagrade.order.service.planning;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Due dates and dispatch order of the PRIORITY, EDD and SLACK rules
+ */
+class DeadlineIndexTest {
+
+    // Monday 08:00
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2026, 3, 2, 8, 0);
+    private static final ShiftCalendar CALENDAR = new ShiftCalendar(ORIGIN, LocalTime.of(8, 0), LocalTime.of(17, 0),
+            60, EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), 90);
+    private static final DurationEstimates DURATIONS = DurationEstimates.standard(DurationEstimates.STANDARD_MINUTES_PER_CARD);
+
+    // Economy order placed 29 days ago: due tomorrow
+    private final PlanningOrder oldEconomy = order(10, "E", ORIGIN.minusDays(29));
+    // Express order placed now: due in two days
+    private final PlanningOrder newExpress = order(10, "X", ORIGIN);
+
+    @Test
+    void dueMinuteIsTheEstimatedDeliveryDate() {
+        DeadlineIndex index = new DeadlineIndex(DispatchRule.EDD, List.of(oldEconomy, newExpress), CALENDAR, DURATIONS);
+
+        assertEquals(2 * 1440, (long) index.dueMinute(newExpress.id()));
+        assertEquals(1440, (long) index.dueMinute(oldEconomy.id()));
+        assertNull(index.dueMinute(UUID.randomUUID()));
+    }
+
+    @Test
+    void priorityRuleFollowsTheDelaiCode() {
+        assertEquals(List.of(newExpress, oldEconomy), sorted(DispatchRule.PRIORITY, oldEconomy, newExpress));
+    }
+
+    @Test
+    void eddRuleFollowsTheDeliveryDate() {
+        assertEquals(List.of(oldEconomy, newExpress), sorted(DispatchRule.EDD, newExpress, oldEconomy));
+    }
+
+    @Test
+    void slackRuleTakesTheBiggerOrderFirstAmongEquallyDueOrders() {
+        PlanningOrder small = order(10, "C", ORIGIN);
+        PlanningOrder big = order(500, "C", ORIGIN);
+
+        assertEquals(List.of(big, small), sorted(DispatchRule.SLACK, small, big));
+    }
+
+    @Test
+    void ordersMissingFromTheIndexComeLast() {
+        DeadlineIndex index = new DeadlineIndex(DispatchRule.EDD, List.of(newExpress), CALENDAR, DURATIONS);
+
+        assertTrue(index.dispatchOrder().compare(newExpress, oldEconomy) < 0);
+    }
+
+    private static List<PlanningOrder> sorted(DispatchRule rule, PlanningOrder... orders) {
+        List<PlanningOrder> list = new ArrayList<>(List.of(orders));
+        list.sort(new DeadlineIndex(rule, list, CALENDAR, DURATIONS).dispatchOrder());
+        return list;
+    }
+
+    private static PlanningOrder order(int cards, String delai, LocalDateTime date) {
+        return new PlanningOrder(UUID.randomUUID(), "ORD", cards, delai, date, PlanningStage.GRADING.getOrderStatus());
+    }
+}
@@ -0,0 +1,110 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stage release, hand-out order and put-back of the dispatch board
+ */
+class DispatchBoardTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2026, 3, 2, 8, 0);
+    private static final Set<PlanningStage> ALL = EnumSet.allOf(PlanningStage.class);
+
+    private final UUID orderA = UUID.randomUUID();
+    private final UUID orderB = UUID.randomUUID();
+
+    @Test
+    void nextStageIsReleasedWhenTheLastTaskOfAStageCompletes() {
+        DispatchTask gradingOne = task(orderA, OrderStatus.GRADING, PlanningStage.GRADING, 0);
+        DispatchTask gradingTwo = task(orderA, OrderStatus.GRADING, PlanningStage.GRADING, 10);
+        DispatchTask certifying = task(orderA, OrderStatus.GRADING, PlanningStage.CERTIFYING, 20);
+        DispatchBoard board = new DispatchBoard(List.of(gradingOne, gradingTwo, certifying));
+
+        assertEquals(2, board.readyCount(PlanningStage.GRADING));
+        assertEquals(0, board.readyCount(PlanningStage.CERTIFYING));
+        assertEquals(1, board.waitingCount());
+
+        board.completed(gradingOne.id());
+        assertEquals(0, board.readyCount(PlanningStage.CERTIFYING));
+        board.completed(gradingTwo.id());
+        assertEquals(1, board.readyCount(PlanningStage.CERTIFYING));
+        assertEquals(0, board.waitingCount());
+    }
+
+    @Test
+    void takeHandsOutThePlannedSequenceAcrossStages() {
+        DispatchTask later = task(orderA, OrderStatus.GRADING, PlanningStage.GRADING, 30);
+        DispatchTask earlier = task(orderB, OrderStatus.SCANNING, PlanningStage.SCANNING, 5);
+        DispatchBoard board = new DispatchBoard(List.of(later, earlier));
+
+        assertEquals(earlier, board.take(ALL).orElseThrow());
+        assertEquals(later, board.take(ALL).orElseThrow());
+        assertTrue(board.take(ALL).isEmpty());
+    }
+
+    @Test
+    void takeOnlyLooksAtTheRequestedStages() {
+        DispatchTask grading = task(orderA, OrderStatus.GRADING, PlanningStage.GRADING, 0);
+        DispatchBoard board = new DispatchBoard(List.of(grading));
+
+        assertTrue(board.take(EnumSet.of(PlanningStage.SCANNING)).isEmpty());
+        assertEquals(grading, board.take(EnumSet.of(PlanningStage.GRADING)).orElseThrow());
+    }
+
+    @Test
+    void putBackTaskIsHandedOutAgain() {
+        DispatchTask grading = task(orderA, OrderStatus.GRADING, PlanningStage.GRADING, 0);
+        DispatchBoard board = new DispatchBoard(List.of(grading));
+
+        DispatchTask taken = board.take(ALL).orElseThrow();
+        assertEquals(0, board.readyCount(PlanningStage.GRADING));
+        board.putBack(taken);
+        assertEquals(grading, board.take(ALL).orElseThrow());
+    }
+
+    @Test
+    void startedTaskStaysInProgressUntilCompleted() {
+        DispatchTask running = task(orderA, OrderStatus.GRADING, PlanningStage.GRADING, 0)
+                .started(UUID.randomUUID(), ORIGIN);
+        DispatchTask certifying = task(orderA, OrderStatus.GRADING, PlanningStage.CERTIFYING, 20);
+        DispatchBoard board = new DispatchBoard(List.of(running, certifying));
+
+        assertEquals(1, board.inProgressCount());
+        assertEquals(0, board.readyCount(PlanningStage.GRADING));
+        assertTrue(board.getInProgress(running.id()).isPresent());
+
+        assertEquals(running, board.completed(running.id()).orElseThrow());
+        assertEquals(0, board.inProgressCount());
+        assertEquals(1, board.readyCount(PlanningStage.CERTIFYING));
+        assertTrue(board.completed(running.id()).isEmpty());
+    }
+
+    @Test
+    void workLotWaitsForTheLastOfItsOrders() {
+        DispatchTask grading = task(orderA, OrderStatus.GRADING, PlanningStage.GRADING, 0);
+        DispatchTask lot = task(orderA, OrderStatus.GRADING, PlanningStage.CERTIFYING, 20).withLotOrders(List.of(
+                new DispatchLotOrder(null, orderA, "ORD-A", OrderStatus.GRADING),
+                new DispatchLotOrder(null, orderB, "ORD-B", OrderStatus.CERTIFYING)));
+        DispatchBoard board = new DispatchBoard(List.of(grading, lot));
+
+        assertEquals(0, board.readyCount(PlanningStage.CERTIFYING));
+
+        board.completed(grading.id());
+        assertEquals(lot, board.take(EnumSet.of(PlanningStage.CERTIFYING)).orElseThrow());
+    }
+
+    private static DispatchTask task(UUID orderId, OrderStatus orderStatus, PlanningStage stage, int startMinute) {
+        return new DispatchTask(UUID.randomUUID(), orderId, "ORD", orderStatus, null, stage.name(), 10,
+                AssignmentStatus.SCHEDULED, ORIGIN.plusMinutes(startMinute), null, 3L);
+    }
+}
@@ -0,0 +1,146 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bottleneck allocation of multi-team employees and their work in the other stages
+ */
+class EmployeeAllocationTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2026, 3, 2, 8, 0);
+    private static final ShiftCalendar CALENDAR = new ShiftCalendar(ORIGIN, LocalTime.of(8, 0), LocalTime.of(17, 0),
+            60, EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), 30);
+    private static final DurationEstimates DURATIONS = DurationEstimates.standard(DurationEstimates.STANDARD_MINUTES_PER_CARD);
+
+    private final Employee grader = employee("Grader");
+    private final Employee scanner = employee("Scanner");
+    private final Employee mia = employee("Mia");
+    private final Employee noah = employee("Noah");
+
+    @Test
+    void singleTeamEmployeesAlwaysTakeNewWork() {
+        EmployeeAllocation allocation = allocate(false, false, null,
+                input(PlanningStage.GRADING, 100, StagePlanState.empty(), grader),
+                input(PlanningStage.SCANNING, 100, StagePlanState.empty(), scanner));
+
+        assertTrue(allocation.getAllocated().isEmpty());
+        assertTrue(allocation.takesNewWork(grader.getId(), PlanningStage.SCANNING));
+        assertNull(allocation.busyElsewhere(grader.getId(), PlanningStage.SCANNING));
+    }
+
+    @Test
+    void multiTeamEmployeeJoinsTheBottleneck() {
+        EmployeeAllocation allocation = allocate(false, false, null,
+                input(PlanningStage.GRADING, 1000, StagePlanState.empty(), grader, mia),
+                input(PlanningStage.SCANNING, 10, StagePlanState.empty(), scanner, mia));
+
+        assertEquals(Map.of(mia.getId(), PlanningStage.GRADING), allocation.getAllocated());
+        assertTrue(allocation.takesNewWork(mia.getId(), PlanningStage.GRADING));
+        assertFalse(allocation.takesNewWork(mia.getId(), PlanningStage.SCANNING));
+    }
+
+    @Test
+    void allocatedCapacityRelievesTheBottleneck() {
+        EmployeeAllocation allocation = allocate(false, false, null,
+                input(PlanningStage.GRADING, 600, StagePlanState.empty(), grader, mia, noah),
+                input(PlanningStage.SCANNING, 500, StagePlanState.empty(), scanner, mia, noah));
+
+        // The first one halves the grading pressure, so the second one goes to scanning
+        assertEquals(Set.of(PlanningStage.GRADING, PlanningStage.SCANNING),
+                new HashSet<>(allocation.getAllocated().values()));
+    }
+
+    @Test
+    void stageWithWorkAndNoOwnTeamComesFirst() {
+        EmployeeAllocation allocation = allocate(false, false, null,
+                input(PlanningStage.GRADING, 1000, StagePlanState.empty(), grader, mia),
+                input(PlanningStage.SCANNING, 10, StagePlanState.empty(), mia));
+
+        assertEquals(PlanningStage.SCANNING, allocation.getAllocated().get(mia.getId()));
+    }
+
+    @Test
+    void flowShopLoadIncludesTheWorkStillUpstream() {
+        StageInput grading = input(PlanningStage.GRADING, 300, StagePlanState.empty(), grader, mia);
+        StageInput scanning = input(PlanningStage.SCANNING, 100, StagePlanState.empty(), scanner, mia);
+
+        assertEquals(PlanningStage.GRADING,
+                allocate(false, false, null, grading, scanning).getAllocated().get(mia.getId()));
+        assertEquals(PlanningStage.SCANNING,
+                allocate(true, false, null, grading, scanning).getAllocated().get(mia.getId()));
+    }
+
+    @Test
+    void workInOtherStagesDelaysNewWork() {
+        StagePlanState scanned = plan(
+                planned(mia, PlanningStage.SCANNING, AssignmentStatus.IN_PROGRESS, 0, 60),
+                planned(mia, PlanningStage.SCANNING, AssignmentStatus.SCHEDULED, 60, 180));
+        StageInput grading = input(PlanningStage.GRADING, 1000, StagePlanState.empty(), grader, mia);
+        StageInput scanning = input(PlanningStage.SCANNING, 10, scanned, scanner, mia);
+
+        EmployeeAllocation rebuild = allocate(false, false, null, grading, scanning);
+        EmployeeAllocation incremental = allocate(false, true, null, grading, scanning);
+
+        assertEquals(ORIGIN.plusMinutes(60), rebuild.busyElsewhere(mia.getId(), PlanningStage.GRADING));
+        assertEquals(ORIGIN.plusMinutes(180), incremental.busyElsewhere(mia.getId(), PlanningStage.GRADING));
+        assertNull(incremental.busyElsewhere(mia.getId(), PlanningStage.SCANNING));
+        assertNull(incremental.reservedElsewhere(mia.getId(), PlanningStage.GRADING));
+    }
+
+    @Test
+    void workBeyondTheHorizonFencesOtherStages() {
+        StagePlanState scanned = plan(
+                planned(mia, PlanningStage.SCANNING, AssignmentStatus.SCHEDULED, 60, 120),
+                planned(mia, PlanningStage.SCANNING, AssignmentStatus.SCHEDULED, 300, 360),
+                planned(mia, PlanningStage.SCANNING, AssignmentStatus.SCHEDULED, 420, 480));
+        StageInput grading = input(PlanningStage.GRADING, 1000, StagePlanState.empty(), grader, mia);
+        StageInput scanning = input(PlanningStage.SCANNING, 10, scanned, scanner, mia);
+
+        EmployeeAllocation allocation = allocate(false, true, ORIGIN.plusHours(4), grading, scanning);
+
+        assertArrayEquals(new LocalDateTime[]{ORIGIN.plusMinutes(300), ORIGIN.plusMinutes(480)},
+                allocation.reservedElsewhere(mia.getId(), PlanningStage.GRADING));
+        assertNull(allocation.reservedElsewhere(mia.getId(), PlanningStage.SCANNING));
+        // Work before the horizon is re-planned: it holds no one's timeline
+        assertNull(allocation.busyElsewhere(mia.getId(), PlanningStage.GRADING));
+    }
+
+    private static EmployeeAllocation allocate(boolean flowShop, boolean withScheduled, LocalDateTime horizonEnd,
+                                               StageInput... inputs) {
+        return EmployeeAllocation.of(List.of(inputs), CALENDAR, DURATIONS, (employee, stage) -> 1.0,
+                flowShop, withScheduled, horizonEnd);
+    }
+
+    private static StageInput input(PlanningStage stage, int cards, StagePlanState previous, Employee... team) {
+        PlanningOrder order = new PlanningOrder(UUID.randomUUID(), stage + "-" + cards, cards, "C",
+                ORIGIN.minusDays(1), stage.getOrderStatus());
+        return new StageInput(stage, List.of(order), List.of(team), previous);
+    }
+
+    private static PlannedAssignment planned(Employee employee, PlanningStage stage, AssignmentStatus status,
+                                             int startOffsetMinutes, int endOffsetMinutes) {
+        return new PlannedAssignment(UUID.randomUUID(), UUID.randomUUID(), employee.getId(), stage.name(), 10,
+                status, ORIGIN.plusMinutes(startOffsetMinutes), ORIGIN.plusMinutes(endOffsetMinutes));
+    }
+
+    private static StagePlanState plan(PlannedAssignment... assignments) {
+        return StagePlanState.byStage(List.of(assignments)).get(assignments[0].processingStage());
+    }
+
+    private static Employee employee(String name) {
+        Employee employee = new Employee();
+        employee.setId(UUID.randomUUID());
+        employee.setFirstName(name);
+        employee.setLastName("Test");
+        return employee;
+    }
+}
@@ -0,0 +1,86 @@
+package com.pcagrade.order.service.planning;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Earliest-free employee selection, re-keying and lowest-slot tie-break
+ */
+class EmployeeAvailabilityHeapTest {
+
+    @Test
+    void peekReturnsTheEarliestFreeSlot() {
+        EmployeeAvailabilityHeap heap = new EmployeeAvailabilityHeap(3);
+        heap.add(0, 120);
+        heap.add(1, 30);
+        heap.add(2, 60);
+
+        assertEquals(1, heap.peek());
+        assertEquals(30, heap.peekKey());
+    }
+
+    @Test
+    void tiesGoToTheLowestSlot() {
+        EmployeeAvailabilityHeap heap = new EmployeeAvailabilityHeap(3);
+        heap.add(2, 0);
+        heap.add(1, 0);
+        heap.add(0, 0);
+
+        assertEquals(0, heap.poll());
+        assertEquals(1, heap.poll());
+        assertEquals(2, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    void updateMovesASlotBothWays() {
+        EmployeeAvailabilityHeap heap = new EmployeeAvailabilityHeap(3);
+        heap.add(0, 10);
+        heap.add(1, 20);
+        heap.add(2, 30);
+
+        heap.update(0, 100);
+        assertEquals(1, heap.peek());
+
+        heap.update(2, 5);
+        assertEquals(2, heap.peek());
+        assertEquals(100, heap.key(0));
+    }
+
+    @Test
+    void pollsInKeyOrderAfterRandomUpdates() {
+        int capacity = 50;
+        EmployeeAvailabilityHeap heap = new EmployeeAvailabilityHeap(capacity);
+        Random random = new Random(42);
+        for (int slot = 0; slot < capacity; slot++) {
+            heap.add(slot, random.nextInt(1000));
+        }
+        for (int i = 0; i < 200; i++) {
+            heap.update(random.nextInt(capacity), random.nextInt(1000));
+        }
+
+        long previousKey = Long.MIN_VALUE;
+        int previousSlot = -1;
+        while (!heap.isEmpty()) {
+            int slot = heap.poll();
+            long key = heap.key(slot);
+            assertTrue(key > previousKey || (key == previousKey && slot > previousSlot));
+            assertFalse(heap.contains(slot));
+            previousKey = key;
+            previousSlot = slot;
+        }
+    }
+
+    @Test
+    void invalidOperationsAreRejected() {
+        EmployeeAvailabilityHeap heap = new EmployeeAvailabilityHeap(2);
+        assertThrows(IllegalStateException.class, heap::peek);
+
+        heap.add(0, 0);
+        assertThrows(IllegalStateException.class, () -> heap.add(0, 5));
+        assertThrows(IllegalStateException.class, () -> heap.update(1, 5));
+    }
+}
@@ -0,0 +1,95 @@
+package com.pcagrade.order.service.planning;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Employee speed, earliest-completion choice and reserved windows
+ */
+class EmployeePoolTest {
+
+    // Monday 08:00, 480 working minutes a day
+    private static final ShiftCalendar CALENDAR = new ShiftCalendar(LocalDateTime.of(2026, 3, 2, 8, 0),
+            LocalTime.of(8, 0), LocalTime.of(17, 0), 60, EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), 30);
+    private static final int DAILY = 480;
+
+    @Test
+    void durationScalesWithSpeed() {
+        EmployeePool pool = pool(new double[]{1.0, 1.2, 0.0, 50.0}, new long[4]);
+
+        assertEquals(120, pool.durationMinutes(0, 120));
+        assertEquals(100, pool.durationMinutes(1, 120));
+        assertEquals(120, pool.durationMinutes(2, 120)); // no rating: standard speed
+        assertEquals(24, pool.durationMinutes(3, 120)); // capped at 5x
+    }
+
+    @Test
+    void fasterEmployeeWinsWhenBothAreFree() {
+        EmployeePool pool = pool(new double[]{1.0, 2.0}, new long[2]);
+
+        assertEquals(1, pool.bestSlot(120, 0));
+    }
+
+    @Test
+    void freeSlowEmployeeBeatsABusyFastOne() {
+        EmployeePool pool = pool(new double[]{1.0, 2.0}, new long[]{0, 200});
+
+        assertEquals(0, pool.bestSlot(120, 0));
+    }
+
+    @Test
+    void equalCompletionGoesToTheLowestSlot() {
+        EmployeePool pool = pool(new double[]{1.0, 1.0, 1.0}, new long[3]);
+
+        assertEquals(0, pool.bestSlot(60, 0));
+        pool.assign(0, 0, 60);
+        assertEquals(1, pool.bestSlot(60, 0));
+    }
+
+    @Test
+    void assignMovesTheEmployeeTimeline() {
+        EmployeePool pool = pool(new double[]{1.0}, new long[1]);
+
+        long start = pool.startCursor(0, 0);
+        pool.assign(0, start, 300);
+
+        assertEquals(300, pool.startCursor(0, 0));
+        assertEquals(360, pool.freeAtMinute(0)); // 300 working minutes + the break
+        assertEquals(300, pool.busyMinutes(0));
+        assertEquals(1, pool.assignmentCount(0));
+    }
+
+    @Test
+    void releaseMinuteDelaysTheStart() {
+        EmployeePool pool = pool(new double[]{1.0}, new long[1]);
+
+        assertEquals(DAILY, pool.startCursor(0, 1440)); // released at Tuesday's shift start
+    }
+
+    @Test
+    void workRunningIntoAReservedWindowSkipsPastIt() {
+        EmployeePool pool = new EmployeePool(CALENDAR, new double[]{1.0}, new int[]{DAILY}, new long[1],
+                new long[]{100}, new long[]{200});
+
+        assertFalse(pool.crossesFence(0, 0, 100));
+        assertTrue(pool.crossesFence(0, 0, 150));
+        assertEquals(100, pool.busyMinutes(0)); // reserved work counts as busy
+
+        pool.skipFence(0);
+        assertEquals(200, pool.startCursor(0, 0));
+        assertFalse(pool.crossesFence(0, 200, 1000));
+    }
+
+    private static EmployeePool pool(double[] speeds, long[] seedCursor) {
+        int[] daily = new int[speeds.length];
+        Arrays.fill(daily, DAILY);
+        return new EmployeePool(CALENDAR, speeds, daily, seedCursor);
+    }
+}
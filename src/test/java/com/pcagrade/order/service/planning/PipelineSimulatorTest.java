@@ -0,0 +1,123 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pipeline replay at the standard 3 minutes per card, within the first morning
+ */
+class PipelineSimulatorTest {
+
+    // Monday 08:00
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2026, 3, 2, 8, 0);
+    private static final ShiftCalendar CALENDAR = new ShiftCalendar(ORIGIN, LocalTime.of(8, 0), LocalTime.of(17, 0),
+            60, EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), 30);
+    private static final DurationEstimates DURATIONS = DurationEstimates.standard(DurationEstimates.STANDARD_MINUTES_PER_CARD);
+    private static final Set<PlanningStage> PACKAGING = EnumSet.of(PlanningStage.PACKAGING);
+    private static final long HORIZON = 10_000;
+
+    @Test
+    void orderGoesThroughEveryRemainingStage() {
+        PipelineSimulator simulator = new PipelineSimulator(CALENDAR, DURATIONS, 0);
+        int order = simulator.addOrder(order(10, "C"), PlanningStage.GRADING, 0, HORIZON, false);
+        simulator.addEmployee(employee(), EnumSet.allOf(PlanningStage.class));
+
+        PipelineSimulator.SimulationOutcome outcome = simulator.run(HORIZON);
+
+        assertEquals(120, outcome.completionMinutes()[order]);
+        assertEquals(10, outcome.processedCards()[PlanningStage.GRADING.ordinal()]);
+    }
+
+    @Test
+    void higherPriorityLeavesFirst() {
+        PipelineSimulator simulator = new PipelineSimulator(CALENDAR, DURATIONS, 0);
+        int first = simulator.addOrder(order(10, "C"), PlanningStage.PACKAGING, 0, HORIZON, false);
+        int economy = simulator.addOrder(order(10, "E"), PlanningStage.PACKAGING, 10, HORIZON, false);
+        int express = simulator.addOrder(order(10, "X"), PlanningStage.PACKAGING, 20, HORIZON, false);
+        simulator.addEmployee(employee(), PACKAGING);
+
+        PipelineSimulator.SimulationOutcome outcome = simulator.run(HORIZON);
+
+        // Both queue behind the first order; the express one is taken next although it arrived later
+        assertEquals(30, outcome.completionMinutes()[first]);
+        assertEquals(60, outcome.completionMinutes()[express]);
+        assertEquals(90, outcome.completionMinutes()[economy]);
+        assertEquals(90, outcome.clearedMinutes()[PlanningStage.PACKAGING.ordinal()]);
+    }
+
+    @Test
+    void lotsOfALargeOrderRunInParallel() {
+        PipelineSimulator simulator = new PipelineSimulator(CALENDAR, DURATIONS, 50);
+        int order = simulator.addOrder(order(100, "C"), PlanningStage.PACKAGING, 0, HORIZON, false);
+        simulator.addEmployee(employee(), PACKAGING);
+        simulator.addEmployee(employee(), PACKAGING);
+
+        assertEquals(150, simulator.run(HORIZON).completionMinutes()[order]);
+    }
+
+    @Test
+    void projectedDemandDoesNotDelayTheBacklogClearance() {
+        PipelineSimulator simulator = new PipelineSimulator(CALENDAR, DURATIONS, 0);
+        simulator.addOrder(order(10, "C"), PlanningStage.PACKAGING, 0, HORIZON, false);
+        simulator.addOrder(order(10, "C"), PlanningStage.PACKAGING, 60, HORIZON, true);
+        simulator.addEmployee(employee(), PACKAGING);
+
+        PipelineSimulator.SimulationOutcome outcome = simulator.run(HORIZON);
+
+        assertEquals(30, outcome.clearedMinutes()[PlanningStage.PACKAGING.ordinal()]);
+    }
+
+    @Test
+    void ordersNotOutWithinTheHorizonHaveNoCompletion() {
+        PipelineSimulator simulator = new PipelineSimulator(CALENDAR, DURATIONS, 0);
+        int order = simulator.addOrder(order(10, "C"), PlanningStage.PACKAGING, 0, HORIZON, false);
+        simulator.addEmployee(employee(), PACKAGING);
+
+        PipelineSimulator.SimulationOutcome outcome = simulator.run(20);
+
+        assertEquals(-1, outcome.completionMinutes()[order]);
+        assertEquals(-1, outcome.clearedMinutes()[PlanningStage.PACKAGING.ordinal()]);
+    }
+
+    @Test
+    void repeatedRunsAndForksGiveTheSameOutcome() {
+        PipelineSimulator simulator = new PipelineSimulator(CALENDAR, DURATIONS, 0);
+        int order = simulator.addOrder(order(10, "C"), PlanningStage.SCANNING, 0, HORIZON, false);
+        simulator.addEmployee(employee(), EnumSet.of(PlanningStage.SCANNING, PlanningStage.PACKAGING));
+
+        assertEquals(60, simulator.run(HORIZON).completionMinutes()[order]);
+        assertEquals(60, simulator.run(HORIZON).completionMinutes()[order]);
+        assertEquals(60, simulator.fork().run(HORIZON).completionMinutes()[order]);
+    }
+
+    @Test
+    void ordersCannotBeAddedOnceRun() {
+        PipelineSimulator simulator = new PipelineSimulator(CALENDAR, DURATIONS, 0);
+        simulator.addEmployee(employee(), PACKAGING);
+        simulator.run(HORIZON);
+
+        assertThrows(IllegalStateException.class, () ->
+                simulator.addOrder(order(10, "C"), PlanningStage.PACKAGING, 0, HORIZON, false));
+    }
+
+    private static PlanningOrder order(int cards, String delai) {
+        return new PlanningOrder(UUID.randomUUID(), "ORD", cards, delai, ORIGIN.minusDays(1), null);
+    }
+
+    private static Employee employee() {
+        Employee employee = new Employee();
+        employee.setId(UUID.randomUUID());
+        employee.setFirstName("Employee");
+        employee.setLastName("Test");
+        return employee;
+    }
+}
@@ -0,0 +1,101 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Local search over dispatch sequences, one employee at 3 minutes per card
+ */
+class PlanOptimizerTest {
+
+    // Monday 08:00, 480 working minutes a day
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2026, 3, 2, 8, 0);
+    private static final ShiftCalendar CALENDAR = new ShiftCalendar(ORIGIN, LocalTime.of(8, 0), LocalTime.of(17, 0),
+            60, EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), 30);
+    private static final DurationEstimates DURATIONS = DurationEstimates.standard(DurationEstimates.STANDARD_MINUTES_PER_CARD);
+    private static final StageScheduler SCHEDULER = new StageScheduler(CALENDAR, DURATIONS, 0, 0);
+
+    // A full day of express work due Wednesday, then a small economy order due at noon today
+    private final PlanningOrder express = new PlanningOrder(UUID.randomUUID(), "ORD-X", 160, "X", ORIGIN,
+            PlanningStage.GRADING.getOrderStatus());
+    private final PlanningOrder economy = new PlanningOrder(UUID.randomUUID(), "ORD-E", 10, "E",
+            ORIGIN.plusHours(4).minusDays(30), PlanningStage.GRADING.getOrderStatus());
+
+    @Test
+    void searchMovesAnOrderThatGreedyPriorityMakesLate() {
+        PlanOptimizer.Result result = optimizer(List.of(express, economy)).optimize(500, 2);
+
+        assertTrue(result.improved());
+        assertTrue(result.stats().getBestCost() < result.stats().getInitialCost());
+        assertTrue(result.stats().getImprovements() > 0);
+        List<PlanningOrder> sequence = new ArrayList<>(List.of(express, economy));
+        sequence.sort(result.sequence());
+        assertEquals(List.of(economy, express), sequence);
+    }
+
+    @Test
+    void zeroBudgetKeepsTheGreedySequence() {
+        PlanOptimizer.Result result = optimizer(List.of(express, economy)).optimize(0, 2);
+
+        assertFalse(result.improved());
+        assertEquals(1L, result.stats().getEvaluations());
+        assertEquals(result.stats().getInitialCost(), result.stats().getBestCost());
+        List<PlanningOrder> sequence = new ArrayList<>(List.of(economy, express));
+        sequence.sort(result.sequence());
+        assertEquals(List.of(express, economy), sequence);
+    }
+
+    @Test
+    void planThatCannotImproveIsNotReplaced() {
+        PlanningOrder classic = new PlanningOrder(UUID.randomUUID(), "ORD-C", 10, "C", ORIGIN,
+                PlanningStage.GRADING.getOrderStatus());
+
+        PlanOptimizer.Result result = optimizer(List.of(express, classic)).optimize(100, 2);
+
+        // Nothing is late and both orders end the same day whatever the sequence
+        assertFalse(result.improved());
+        assertEquals(result.stats().getInitialCost(), result.stats().getBestCost());
+        assertEquals(2, result.stats().getThreads());
+    }
+
+    @Test
+    void singleOrderIsNotSearched() {
+        PlanOptimizer.Result result = optimizer(List.of(economy)).optimize(1000, 2);
+
+        assertFalse(result.improved());
+        assertEquals(1L, result.stats().getEvaluations());
+        assertTrue(result.stats().getElapsedMs() < 1000);
+    }
+
+    @Test
+    void comparatorFollowsTheSequenceThenPriority() {
+        PlanningOrder classic = new PlanningOrder(UUID.randomUUID(), "ORD-C", 10, "C", ORIGIN,
+                PlanningStage.GRADING.getOrderStatus());
+        PlanningOrder fast = new PlanningOrder(UUID.randomUUID(), "ORD-F", 10, "F", ORIGIN,
+                PlanningStage.GRADING.getOrderStatus());
+
+        Comparator<PlanningOrder> comparator = PlanOptimizer.comparatorOf(new PlanningOrder[]{economy, express});
+        List<PlanningOrder> orders = new ArrayList<>(List.of(classic, express, fast, economy));
+        orders.sort(comparator);
+
+        assertEquals(List.of(economy, express, fast, classic), orders);
+    }
+
+    private static PlanOptimizer optimizer(List<PlanningOrder> orders) {
+        Employee employee = new Employee();
+        employee.setId(UUID.randomUUID());
+        employee.setFirstName("Employee");
+        employee.setLastName("Test");
+        StageWork work = new StageWork(PlanningStage.GRADING, List.of(employee), orders, new double[]{1.0},
+                new int[]{480}, new long[1], Map.of(), Map.of());
+        DeadlineIndex deadlines = new DeadlineIndex(DispatchRule.PRIORITY, orders, CALENDAR, DURATIONS);
+        return new PlanOptimizer(SCHEDULER, List.of(work), orders, deadlines, false, 1.0);
+    }
+}
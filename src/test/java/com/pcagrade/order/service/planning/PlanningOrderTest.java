@@ -0,0 +1,49 @@
+package com.pcagrade.order.service.planning;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Planning priority direction: X > F+ > F > C > E, then oldest order first
+ */
+class PlanningOrderTest {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2026, 3, 2, 8, 0);
+
+    @Test
+    void expressOrdersArePlannedBeforeEconomyOrders() {
+        List<PlanningOrder> orders = new ArrayList<>(List.of(
+                order("E", DATE), order("C", DATE), order("X", DATE), order("F", DATE), order("F+", DATE)));
+
+        orders.sort(PlanningOrder.PRIORITY_ORDER);
+
+        assertEquals(List.of("X", "F+", "F", "C", "E"), orders.stream().map(PlanningOrder::delai).toList());
+    }
+
+    @Test
+    void oldestOrderFirstWithinADelai() {
+        PlanningOrder older = order("C", DATE.minusDays(2));
+        PlanningOrder newer = order("C", DATE);
+        PlanningOrder undated = order("C", null);
+
+        List<PlanningOrder> orders = new ArrayList<>(List.of(newer, older, undated));
+        orders.sort(PlanningOrder.PRIORITY_ORDER);
+
+        assertEquals(List.of(undated, older, newer), orders);
+    }
+
+    @Test
+    void unknownDelaiComesLast() {
+        assertTrue(PlanningOrder.PRIORITY_ORDER.compare(order("E", DATE), order(null, DATE)) < 0);
+    }
+
+    private static PlanningOrder order(String delai, LocalDateTime date) {
+        return new PlanningOrder(UUID.randomUUID(), "ORD", 10, delai, date, null);
+    }
+}
@@ -0,0 +1,111 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.AssignmentStatus;
+import com.pcagrade.order.entity.Employee;
+import com.pcagrade.order.entity.Order;
+import com.pcagrade.order.entity.WorkAssignment;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Active plan held between rolling re-plans: refreshed rows, the re-planner's own writes
+ */
+class RollingPlanStateTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2026, 3, 2, 8, 0);
+    private static final String GRADING = PlanningStage.GRADING.name();
+
+    private final UUID version = UUID.randomUUID();
+    private final UUID employeeId = UUID.randomUUID();
+
+    @Test
+    void startedWorkReplacesItsScheduledRow() {
+        PlannedAssignment scheduled = row(UUID.randomUUID(), AssignmentStatus.SCHEDULED, 0);
+        RollingPlanState state = new RollingPlanState(version, List.of(scheduled), ORIGIN);
+
+        state.refresh(List.of(row(scheduled.id(), scheduled.orderId(), AssignmentStatus.IN_PROGRESS, 0)),
+                ORIGIN.plusMinutes(15));
+
+        StagePlanState plan = state.byStage().get(GRADING);
+        assertTrue(plan.getScheduledByOrder().isEmpty());
+        assertTrue(plan.isStarted(scheduled.orderId()));
+        assertEquals(scheduled.scheduledEnd(), plan.getBusyUntil(employeeId));
+        assertEquals(ORIGIN.plusMinutes(15), state.getRefreshedAt());
+        assertEquals(ORIGIN, state.getLoadedAt());
+        assertEquals(1, state.size());
+    }
+
+    @Test
+    void cancelledWorkLeavesThePlan() {
+        PlannedAssignment kept = row(UUID.randomUUID(), AssignmentStatus.SCHEDULED, 0);
+        PlannedAssignment cancelled = row(UUID.randomUUID(), AssignmentStatus.SCHEDULED, 60);
+        RollingPlanState state = new RollingPlanState(version, List.of(kept, cancelled), ORIGIN);
+
+        state.refresh(List.of(row(cancelled.id(), cancelled.orderId(), AssignmentStatus.CANCELLED, 60)), ORIGIN);
+
+        assertEquals(1, state.size());
+        assertEquals(List.of(kept.orderId()), List.copyOf(state.byStage().get(GRADING).getScheduledByOrder().keySet()));
+    }
+
+    @Test
+    void replanWritesSwapRowsAndVersion() {
+        PlannedAssignment superseded = row(UUID.randomUUID(), AssignmentStatus.SCHEDULED, 0);
+        PlannedAssignment kept = row(UUID.randomUUID(), AssignmentStatus.SCHEDULED, 60);
+        RollingPlanState state = new RollingPlanState(version, List.of(superseded, kept), ORIGIN);
+        WorkAssignment created = created(superseded.orderId(), 120);
+        UUID next = UUID.randomUUID();
+
+        state.replace(next, List.of(superseded.id()), List.of(created));
+
+        assertEquals(next, state.getVersionId());
+        assertEquals(2, state.size());
+        List<PlannedAssignment> scheduled = state.byStage().get(GRADING).getScheduledByOrder()
+                .get(superseded.orderId());
+        assertEquals(List.of(created.getId()), scheduled.stream().map(PlannedAssignment::id).toList());
+        assertEquals(ORIGIN.plusMinutes(120), scheduled.get(0).scheduledStart());
+    }
+
+    @Test
+    void eachRunPlansOnAFreshStagePlan() {
+        PlannedAssignment kept = row(UUID.randomUUID(), AssignmentStatus.SCHEDULED, 60);
+        RollingPlanState state = new RollingPlanState(version, List.of(kept), ORIGIN);
+
+        StagePlanState first = state.byStage().get(GRADING);
+        first.reserve(kept);
+
+        StagePlanState second = state.byStage().get(GRADING);
+        assertNotSame(first, second);
+        assertNull(second.getReservedFrom(employeeId));
+    }
+
+    private PlannedAssignment row(UUID id, AssignmentStatus status, int startOffsetMinutes) {
+        return row(id, UUID.randomUUID(), status, startOffsetMinutes);
+    }
+
+    private PlannedAssignment row(UUID id, UUID orderId, AssignmentStatus status, int startOffsetMinutes) {
+        LocalDateTime start = ORIGIN.plusMinutes(startOffsetMinutes);
+        return new PlannedAssignment(id, orderId, employeeId, GRADING, 10, status, start, start.plusMinutes(30));
+    }
+
+    private WorkAssignment created(UUID orderId, int startOffsetMinutes) {
+        Order order = new Order();
+        order.setId(orderId);
+        Employee employee = new Employee();
+        employee.setId(employeeId);
+        WorkAssignment assignment = new WorkAssignment();
+        assignment.setId(UUID.randomUUID());
+        assignment.setOrder(order);
+        assignment.setEmployee(employee);
+        assignment.setProcessingStage(GRADING);
+        assignment.setCardCount(10);
+        assignment.setStatus(AssignmentStatus.SCHEDULED);
+        assignment.setScheduledStart(ORIGIN.plusMinutes(startOffsetMinutes));
+        assignment.setScheduledEnd(ORIGIN.plusMinutes(startOffsetMinutes + 30));
+        return assignment;
+    }
+}
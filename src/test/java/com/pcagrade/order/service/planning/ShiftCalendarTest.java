@@ -0,0 +1,82 @@
+package com.pcagrade.order.service.planning;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Working minutes on a 08:00-17:00 weekday shift with a one-hour break
+ */
+class ShiftCalendarTest {
+
+    // Monday 08:00
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2026, 3, 2, 8, 0);
+    private static final Set<DayOfWeek> WEEKDAYS = EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+    private static final int DAY = 1440;
+
+    private ShiftCalendar calendar;
+    private int daily;
+
+    @BeforeEach
+    void setUp() {
+        calendar = new ShiftCalendar(ORIGIN, LocalTime.of(8, 0), LocalTime.of(17, 0), 60, WEEKDAYS, 7);
+        daily = calendar.dailyWorkingMinutes(null);
+    }
+
+    @Test
+    void dailyWorkingMinutesAreCappedByTheShiftMinusTheBreak() {
+        assertEquals(480, daily);
+        assertEquals(360, calendar.dailyWorkingMinutes(6));
+        assertEquals(480, calendar.dailyWorkingMinutes(12));
+    }
+
+    @Test
+    void breakIsTakenInTheMiddleOfTheWorkingTime() {
+        assertEquals(0, calendar.clockMinute(daily, 0));
+        assertEquals(239, calendar.clockMinute(daily, 239));
+        assertEquals(300, calendar.clockMinute(daily, 240));
+    }
+
+    @Test
+    void workEndingAtTheEndOfADayEndsThatDay() {
+        assertEquals(LocalDateTime.of(2026, 3, 2, 17, 0),
+                calendar.toDateTime(calendar.endClockMinute(daily, daily)));
+        assertEquals(DAY, calendar.clockMinute(daily, daily));
+    }
+
+    @Test
+    void weekendsAreSkipped() {
+        // Sixth working day is the next Monday
+        assertEquals(7 * DAY, calendar.clockMinute(daily, 5L * daily));
+    }
+
+    @Test
+    void daysBeyondThePrecomputedHorizonAreStillWorkingDays() {
+        // Eighth working day is the next Wednesday
+        assertEquals(9 * DAY, calendar.clockMinute(daily, 7L * daily));
+    }
+
+    @Test
+    void clockMinutesMapBackToWorkingMinutes() {
+        assertEquals(0, calendar.workingMinuteAt(daily, -10));
+        assertEquals(100, calendar.workingMinuteAt(daily, 100));
+        assertEquals(240, calendar.workingMinuteAt(daily, 250)); // during the break
+        assertEquals(daily, calendar.workingMinuteAt(daily, 600)); // after the shift
+        assertEquals(5L * daily, calendar.workingMinuteAt(daily, 5 * DAY)); // Saturday
+    }
+
+    @Test
+    void invalidShiftIsRejected() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new ShiftCalendar(ORIGIN, LocalTime.of(17, 0), LocalTime.of(8, 0), 60, WEEKDAYS, 7));
+        assertThrows(IllegalArgumentException.class, () ->
+                new ShiftCalendar(ORIGIN, LocalTime.of(8, 0), LocalTime.of(17, 0), 60, Set.of(), 7));
+    }
+}
@@ -0,0 +1,156 @@
+package com.pcagrade.order.service.planning;
+
+import com.pcagrade.order.entity.Employee;
+import com.pcagrade.order.entity.WorkAssignment;
+import com.pcagrade.order.entity.WorkLotMember;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Card lots of large orders, work lots of small ones
+ */
+class StageSchedulerTest {
+
+    // Monday 08:00, 480 working minutes a day
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2026, 3, 2, 8, 0);
+    private static final ShiftCalendar CALENDAR = new ShiftCalendar(ORIGIN, LocalTime.of(8, 0), LocalTime.of(17, 0),
+            60, EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), 30);
+    private static final DurationEstimates DURATIONS = DurationEstimates.standard(DurationEstimates.STANDARD_MINUTES_PER_CARD);
+    private static final Comparator<PlanningOrder> SEQUENCE = PlanningOrder.PRIORITY_ORDER.thenComparing(PlanningOrder::id);
+
+    @Test
+    void largeOrderIsSplitIntoLotsAcrossEmployees() {
+        PlanningOrder order = order("ORD-1", 120, "C", 0);
+
+        StageSchedule schedule = new StageScheduler(CALENDAR, DURATIONS, 50, 0)
+                .schedule(work(List.of(order), 2), Map.of(), SEQUENCE, true);
+
+        List<WorkAssignment> created = schedule.created();
+        assertEquals(List.of(50, 50, 20), created.stream().map(WorkAssignment::getCardCount).toList());
+        assertEquals(1, schedule.splitCount());
+        assertEquals(ORIGIN, created.get(0).getScheduledStart());
+        assertEquals(ORIGIN, created.get(1).getScheduledStart());
+        assertNotEquals(created.get(0).getEmployee(), created.get(1).getEmployee());
+        assertEquals(created.stream().map(WorkAssignment::getScheduledEnd).max(LocalDateTime::compareTo).orElseThrow(),
+                CALENDAR.toDateTime(schedule.finishMinutes().get(order.id())));
+    }
+
+    @Test
+    void zeroLotSizeNeverSplits() {
+        PlanningOrder order = order("ORD-1", 120, "C", 0);
+
+        StageSchedule schedule = new StageScheduler(CALENDAR, DURATIONS, 0, 0)
+                .schedule(work(List.of(order), 2), Map.of(), SEQUENCE, true);
+
+        assertEquals(1, schedule.created().size());
+        assertEquals(120, (int) schedule.created().get(0).getCardCount());
+        assertEquals(360, (int) schedule.created().get(0).getEstimatedDurationMinutes());
+        assertEquals(0, schedule.splitCount());
+    }
+
+    @Test
+    void lotsOfAnotherOrderInterleaveByPriority() {
+        PlanningOrder economy = order("ORD-E", 100, "E", 0);
+        PlanningOrder express = order("ORD-X", 100, "X", 1);
+
+        StageSchedule schedule = new StageScheduler(CALENDAR, DURATIONS, 50, 0)
+                .schedule(work(List.of(economy, express), 1), Map.of(), SEQUENCE, true);
+
+        assertEquals(List.of("ORD-X", "ORD-X", "ORD-E", "ORD-E"), schedule.created().stream()
+                .map(assignment -> assignment.getOrder().getOrderNumber()).toList());
+    }
+
+    @Test
+    void lotsWaitForTheOrderRelease() {
+        PlanningOrder order = order("ORD-1", 100, "C", 0);
+
+        StageSchedule schedule = new StageScheduler(CALENDAR, DURATIONS, 50, 0)
+                .schedule(work(List.of(order), 2), Map.of(order.id(), 60L), SEQUENCE, true);
+
+        for (WorkAssignment assignment : schedule.created()) {
+            assertEquals(ORIGIN.plusMinutes(60), assignment.getScheduledStart());
+        }
+    }
+
+    @Test
+    void smallOrdersOfAPriorityClassAreBatchedUpToTheBatchSize() {
+        PlanningOrder first = order("ORD-1", 10, "C", 0);
+        PlanningOrder second = order("ORD-2", 10, "C", 1);
+        PlanningOrder third = order("ORD-3", 15, "C", 2);
+
+        StageSchedule schedule = new StageScheduler(CALENDAR, DURATIONS, 50, 30)
+                .schedule(work(List.of(first, second, third), 1), Map.of(), SEQUENCE, true);
+
+        assertEquals(2, schedule.created().size());
+        WorkAssignment lot = schedule.created().get(0);
+        assertEquals(20, (int) lot.getCardCount());
+        assertEquals(List.of(first.id(), second.id()),
+                lot.getLotMembers().stream().map(WorkLotMember::getOrderId).toList());
+        assertTrue(schedule.created().get(1).getLotMembers().isEmpty());
+        assertEquals(2, schedule.batchedCount());
+        assertEquals(schedule.finishMinutes().get(first.id()), schedule.finishMinutes().get(second.id()));
+    }
+
+    @Test
+    void ordersOfDifferentPrioritiesAreNotBatched() {
+        PlanningOrder express = order("ORD-X", 10, "X", 0);
+        PlanningOrder standard = order("ORD-C", 10, "C", 1);
+
+        StageSchedule schedule = new StageScheduler(CALENDAR, DURATIONS, 50, 30)
+                .schedule(work(List.of(express, standard), 1), Map.of(), SEQUENCE, true);
+
+        assertEquals(2, schedule.created().size());
+        assertEquals(0, schedule.batchedCount());
+    }
+
+    @Test
+    void batchedLotTakesTheTimeOfAllItsCards() {
+        PlanningOrder first = order("ORD-1", 10, "C", 0);
+        PlanningOrder second = order("ORD-2", 10, "C", 1);
+
+        StageSchedule schedule = new StageScheduler(CALENDAR, DURATIONS, 50, 30)
+                .schedule(work(List.of(first, second), 1), Map.of(), SEQUENCE, true);
+
+        assertEquals(1, schedule.created().size());
+        assertEquals(60, (int) schedule.created().get(0).getEstimatedDurationMinutes());
+        assertEquals(60, (long) schedule.finishMinutes().get(second.id()));
+    }
+
+    @Test
+    void zeroBatchSizeNeverBatches() {
+        StageSchedule schedule = new StageScheduler(CALENDAR, DURATIONS, 50, 0)
+                .schedule(work(List.of(order("ORD-1", 10, "C", 0), order("ORD-2", 10, "C", 1)), 1),
+                        Map.of(), SEQUENCE, true);
+
+        assertEquals(2, schedule.created().size());
+        assertEquals(0, schedule.batchedCount());
+    }
+
+    private static StageWork work(List<PlanningOrder> orders, int employeeCount) {
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < employeeCount; i++) {
+            Employee employee = new Employee();
+            employee.setId(UUID.randomUUID());
+            employee.setFirstName("Employee" + i);
+            employee.setLastName("Test");
+            employees.add(employee);
+        }
+        double[] speeds = new double[employeeCount];
+        int[] daily = new int[employeeCount];
+        Arrays.fill(speeds, 1.0);
+        Arrays.fill(daily, 480);
+        return new StageWork(PlanningStage.GRADING, employees, orders, speeds, daily, new long[employeeCount],
+                Map.of(), Map.of());
+    }
+
+    private static PlanningOrder order(String number, int cards, String delai, int ageDays) {
+        return new PlanningOrder(UUID.randomUUID(), number, cards, delai, ORIGIN.minusDays(10 - ageDays),
+                PlanningStage.GRADING.getOrderStatus());
+    }
+}